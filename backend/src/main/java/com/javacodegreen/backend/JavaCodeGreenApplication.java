@@ -1,5 +1,6 @@
 package com.javacodegreen.backend;
 
+import com.javacodegreen.backend.correlation.CalibrationCommand;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -7,6 +8,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class JavaCodeGreenApplication {
 
 	public static void main(String[] args) {
+		if (args.length > 0 && CalibrationCommand.NAME.equals(args[0])) {
+			System.exit(CalibrationCommand.run(args));
+		}
 		SpringApplication.run(JavaCodeGreenApplication.class, args);
 	}
 
@@ -0,0 +1,104 @@
+package com.javacodegreen.backend.config;
+
+import com.javacodegreen.backend.dynamicanalysis.DynamicAnalyzer;
+import com.javacodegreen.backend.dynamicanalysis.MeasurementScheduler;
+import com.javacodegreen.backend.dynamicanalysis.SourceCompiler;
+import com.javacodegreen.backend.energy.EnergyStore;
+import com.javacodegreen.backend.job.ArchiveExtractor;
+import com.javacodegreen.backend.staticanalysis.AnalysisCache;
+import com.javacodegreen.backend.staticanalysis.ClasspathCache;
+import com.javacodegreen.backend.staticanalysis.EnergyScoreModel;
+import com.javacodegreen.backend.staticanalysis.LoopCostScoreModel;
+import com.javacodegreen.backend.staticanalysis.SeverityScoreModel;
+import com.javacodegreen.backend.staticanalysis.StaticAnalyzer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class AnalysisConfig {
+
+    @Bean
+    public StaticAnalyzer staticAnalyzer(MeterRegistry meterRegistry,
+                                         @Value("${analysis.static.parallelism:0}") int parallelism,
+                                         @Value("${analysis.static.chunk.heap-budget-mb:0}") long heapBudgetMb,
+                                         @Value("${analysis.static.chunk.bytes-factor:40}") int bytesFactor,
+                                         @Value("${analysis.cache.enabled:true}") boolean cacheEnabled,
+                                         @Value("${analysis.cache.dir:analysis-cache/}") String cacheDir,
+                                         @Value("${analysis.cache.max-mb:256}") long cacheMaxMb,
+                                         @Value("${analysis.static.prefilter:true}") boolean prefilter,
+                                         @Value("${analysis.score.model:loop-cost}") String scoreModel,
+                                         @Value("${analysis.score.calibration:score-calibration.json}") String calibration,
+                                         @Value("${analysis.classpath.cache-dir:classpath-cache/}") String classpathDir,
+                                         @Value("${analysis.classpath.max-loaders:8}") int maxLoaders) throws IOException {
+        StaticAnalyzer analyzer = new StaticAnalyzer(meterRegistry, parallelism);
+        // 0 = a quarter of the max heap
+        long budget = heapBudgetMb > 0 ? heapBudgetMb * 1024 * 1024 : Runtime.getRuntime().maxMemory() / 4;
+        analyzer.setChunking(budget, bytesFactor);
+        analyzer.setPrefilter(prefilter);
+        analyzer.setScoreModel(scoreModel(scoreModel, Paths.get(calibration)));
+        if (cacheEnabled) {
+            analyzer.setCache(new AnalysisCache(Paths.get(cacheDir), cacheMaxMb * 1024 * 1024));
+        }
+        analyzer.setClasspathCache(new ClasspathCache(Paths.get(classpathDir), maxLoaders));
+        return analyzer;
+    }
+
+    private static EnergyScoreModel scoreModel(String name, Path calibration) throws IOException {
+        return switch (name.trim()) {
+            case "severity" -> new SeverityScoreModel();
+            case "loop-cost" -> Files.isRegularFile(calibration)
+                    ? LoopCostScoreModel.fromCalibration(calibration)
+                    : new LoopCostScoreModel();
+            default -> throw new IllegalArgumentException("Unknown analysis.score.model: " + name);
+        };
+    }
+
+    @Bean
+    public ArchiveExtractor archiveExtractor(@Value("${analysis.upload.max-extracted-mb:512}") long maxExtractedMb,
+                                             @Value("${analysis.upload.max-entries:50000}") int maxEntries) {
+        return new ArchiveExtractor(maxExtractedMb * 1024 * 1024, maxEntries);
+    }
+
+    @Bean
+    public SourceCompiler sourceCompiler(@Value("${analysis.compile.classpath:}") List<String> classpath) {
+        return new SourceCompiler(classpath.stream().filter(c -> !c.isBlank()).map(c -> Paths.get(c.trim())).toList());
+    }
+
+    @Bean
+    public MeasurementScheduler measurementScheduler(@Value("${analysis.measure.concurrency:1}") int concurrency,
+                                                     @Value("${analysis.measure.wall-timeout-seconds:300}") long wallTimeout,
+                                                     @Value("${analysis.measure.cpu-timeout-seconds:0}") long cpuTimeout,
+                                                     @Value("${analysis.measure.max-output-lines:2000}") int maxOutputLines,
+                                                     @Value("${analysis.measure.cpu-affinity:}") String cpuAffinity) {
+        return new MeasurementScheduler(concurrency, Duration.ofSeconds(wallTimeout), Duration.ofSeconds(cpuTimeout),
+                maxOutputLines, cpuAffinity);
+    }
+
+    @Bean
+    public DynamicAnalyzer dynamicAnalyzer(@Value("${analysis.upload-dir:uploads/}") String uploadDir,
+                                           @Value("${analysis.dynamic.top-methods:10}") int topMethods,
+                                           MeasurementScheduler measurementScheduler) {
+        DynamicAnalyzer analyzer = new DynamicAnalyzer(
+                Paths.get("src/main/java/com/javacodegreen/backend/JoularJX"),
+                Paths.get(uploadDir),
+                "joularjx-result",
+                measurementScheduler
+        );
+        analyzer.setTopMethods(topMethods);
+        return analyzer;
+    }
+
+    @Bean
+    public EnergyStore energyStore(@Value("${analysis.energy.dir:energy-store/}") String dir) throws IOException {
+        return new EnergyStore(Paths.get(dir));
+    }
+}
@@ -0,0 +1,43 @@
+package com.javacodegreen.backend.controller;
+
+import com.javacodegreen.backend.diff.CommitDiffService;
+import com.javacodegreen.backend.diff.DiffRequest;
+import com.javacodegreen.backend.job.JobRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+public class DiffController {
+
+    private final CommitDiffService diffService;
+
+    public DiffController(CommitDiffService diffService) {
+        this.diffService = diffService;
+    }
+
+    /**
+     * Analyze the .java files changed between {@code base} and {@code head} of a local
+     * repository and report new, fixed and unchanged findings. Responds 403 for repositories
+     * outside {@code analysis.diff.allowed-roots}, 400 for unknown paths or revisions and 429
+     * when the static analysis queue is full.
+     */
+    @PostMapping("/diff")
+    public ResponseEntity<?> diff(@RequestBody DiffRequest request) {
+        try {
+            return ResponseEntity.ok(diffService.diff(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (JobRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.javacodegreen.backend.controller;
+
+import com.javacodegreen.backend.energy.EnergyStore;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/energy")
+public class EnergyController {
+
+    private final EnergyStore energyStore;
+
+    public EnergyController(EnergyStore energyStore) {
+        this.energyStore = energyStore;
+    }
+
+    /**
+     * Projects with recorded runs and how many runs each has.
+     */
+    @GetMapping("/projects")
+    public ResponseEntity<?> projects() {
+        try {
+            return ResponseEntity.ok(energyStore.projects());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * Energy of every recorded run of {@code project}, oldest first, for one {@code method} or
+     * the run total, plus a per-commit summary in the order commits were first measured.
+     */
+    @GetMapping("/trend")
+    public ResponseEntity<?> trend(@RequestParam("project") String project,
+                                   @RequestParam(value = "method", required = false) String method) {
+        try {
+            List<EnergyStore.Point> points = energyStore.trend(project, method);
+            Map<String, double[]> perCommit = new LinkedHashMap<>();
+            for (EnergyStore.Point p : points) {
+                double[] s = perCommit.computeIfAbsent(p.commit(), c -> new double[]{0, 0, Double.MAX_VALUE, 0});
+                s[0]++;
+                s[1] += p.energy();
+                s[2] = Math.min(s[2], p.energy());
+                s[3] = Math.max(s[3], p.energy());
+            }
+            List<Map<String, Object>> commits = new ArrayList<>();
+            perCommit.forEach((commit, s) -> {
+                Map<String, Object> c = new LinkedHashMap<>();
+                c.put("commit", commit);
+                c.put("runs", (int) s[0]);
+                c.put("mean", s[1] / s[0]);
+                c.put("min", s[2]);
+                c.put("max", s[3]);
+                commits.add(c);
+            });
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("project", project);
+            body.put("method", method);
+            body.put("commits", commits);
+            body.put("points", points);
+            return ResponseEntity.ok(body);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * Methods whose mean energy at {@code head} is more than {@code threshold} percent above
+     * their mean at {@code base}. Responds 400 when either commit has no recorded runs.
+     */
+    @GetMapping("/regressions")
+    public ResponseEntity<?> regressions(@RequestParam("project") String project,
+                                         @RequestParam("base") String base,
+                                         @RequestParam("head") String head,
+                                         @RequestParam(value = "threshold", defaultValue = "10") double threshold) {
+        try {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("project", project);
+            body.put("base", base);
+            body.put("head", head);
+            body.put("thresholdPercent", threshold);
+            body.put("regressions", energyStore.regressions(project, base, head, threshold));
+            return ResponseEntity.ok(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+}
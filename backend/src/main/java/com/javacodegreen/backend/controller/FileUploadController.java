@@ -1,77 +1,142 @@
 package com.javacodegreen.backend.controller;
 
-import com.javacodegreen.backend.staticanalysis.StaticAnalyzer;
-import com.javacodegreen.backend.staticanalysis.AnalysisResult;
-import com.javacodegreen.backend.dynamicanalysis.DynamicAnalyzer;
+import com.javacodegreen.backend.dynamicanalysis.BenchmarkOptions;
+import com.javacodegreen.backend.job.AnalysisJob;
+import com.javacodegreen.backend.job.ArchiveExtractor;
+import com.javacodegreen.backend.job.AnalysisJobService;
+import com.javacodegreen.backend.job.JobRejectedException;
+import com.javacodegreen.backend.staticanalysis.AnalysisOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.nio.file.*;
-import java.time.Instant;
 import java.util.*;
 
 @RestController
 @RequestMapping("/api")
 public class FileUploadController {
 
-    private static final String UPLOAD_DIR = "uploads/";
+    private final AnalysisJobService jobService;
+    private final ArchiveExtractor archiveExtractor;
+    private final Path uploadDir;
 
-    private final StaticAnalyzer staticAnalyzer = new StaticAnalyzer();
-    private final DynamicAnalyzer dynamicAnalyzer = new DynamicAnalyzer(
-            Paths.get("src/main/java/com/javacodegreen/backend/JoularJX"),
-            Paths.get(UPLOAD_DIR),
-            "joularjx-result"
-    );
+    public FileUploadController(AnalysisJobService jobService,
+                                ArchiveExtractor archiveExtractor,
+                                @Value("${analysis.upload-dir:uploads/}") String uploadDir) {
+        this.jobService = jobService;
+        this.archiveExtractor = archiveExtractor;
+        this.uploadDir = Paths.get(uploadDir);
+    }
 
+    /**
+     * Save the upload into its own workspace and queue it for analysis. The upload is either a
+     * single .java file or a .zip/.tar/.tar.gz source tree; for archives, {@code mainClass}
+     * names the class to measure and dynamic analysis is skipped without it. {@code chunked}
+     * forces or disables batched analysis; by default large trees are batched automatically.
+     * {@code commit} is recorded with the results; a random id is used when it is absent.
+     * {@code benchmark} measures {@code repetitions} runs after {@code discardedRuns} ones that
+     * only settle the machine (each run is a fresh JVM, so they do not warm up the JIT), in
+     * INTERPRETED or JIT {@code mode}, instead of a single run; {@code warmupIterations} calls
+     * {@code main} that many times inside each run before the measured call, which warms up
+     * the JIT. {@code rawCsv} adds the text
+     * of every JoularJX CSV to a single run's results, which are otherwise summarized.
+     * {@code classpath} resolves types against the jars in the archive (and the configured
+     * compile classpath), so boxing through library signatures is detected as well.
+     * {@code fix} applies the mechanical fixes (StringBuilder, hoisting, buffered I/O) to a
+     * copy of the sources and measures each against the original; see {@code fixes} in the job.
+     * Responds 202 with the job id to poll at {@code /api/jobs/{jobId}}, or 429 when the queues are full.
+     */
     @PostMapping("/upload")
-    public ResponseEntity<Map<String, Object>> uploadFile(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<Map<String, Object>> uploadFile(@RequestParam("file") MultipartFile file,
+                                                          @RequestParam(value = "mainClass", required = false) String mainClass,
+                                                          @RequestParam(value = "trace", defaultValue = "false") boolean trace,
+                                                          @RequestParam(value = "chunked", required = false) Boolean chunked,
+                                                          @RequestParam(value = "commit", required = false) String commit,
+                                                          @RequestParam(value = "benchmark", defaultValue = "false") boolean benchmark,
+                                                          @RequestParam(value = "discardedRuns", defaultValue = "1") int discardedRuns,
+                                                          @RequestParam(value = "repetitions", defaultValue = "5") int repetitions,
+                                                          @RequestParam(value = "mode", defaultValue = "INTERPRETED") String mode,
+                                                          @RequestParam(value = "warmupIterations", defaultValue = "0") int warmupIterations,
+                                                          @RequestParam(value = "rawCsv", defaultValue = "false") boolean rawCsv,
+                                                          @RequestParam(value = "classpath", defaultValue = "false") boolean classpath,
+                                                          @RequestParam(value = "fix", defaultValue = "false") boolean fix) {
+        Path workspace = null;
         try {
             if (file.isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of("error", "No file selected"));
             }
 
-            // Ensure uploads directory exists
-            Path uploadPath = Paths.get(UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
+            String originalName = Paths.get(Objects.requireNonNullElse(file.getOriginalFilename(), "upload.java"))
+                    .getFileName().toString();
+            String jobId = "job-" + UUID.randomUUID();
+
+            // Save into a per-job workspace so concurrent uploads never collide
+            workspace = uploadDir.resolve(jobId);
+            Path sourcePath = workspace.resolve("src");
+            Files.createDirectories(sourcePath);
+            String className;
+            if (ArchiveExtractor.isArchive(originalName)) {
+                try (var in = file.getInputStream()) {
+                    archiveExtractor.extract(in, originalName, sourcePath);
+                }
+                className = mainClass;
+            } else {
+                file.transferTo(sourcePath.resolve(originalName).toAbsolutePath());
+                className = mainClass != null ? mainClass : originalName.replaceFirst("\\.(java|class)$", "");
             }
 
-            // Save file
-            Path filePath = uploadPath.resolve(file.getOriginalFilename());
-            Files.write(filePath, file.getBytes());
-
-            File savedFile = filePath.toFile();
-            String originalName = file.getOriginalFilename();
-            String className = (originalName == null ? "" : originalName.replaceFirst("\\.(java|class)$", ""));
+            AnalysisOptions options = new AnalysisOptions();
+            options.setJobId(jobId);
+            options.setTrace(trace);
+            options.setChunked(chunked);
 
-            // --- Run Static Analysis ---
-            AnalysisResult staticResults = staticAnalyzer.analyze(
-                    savedFile,       // project root dir
+            AnalysisJob job = new AnalysisJob(
+                    jobId,
                     originalName,                    // project name (use filename here)
-                    UUID.randomUUID().toString()     // fake commit hash
+                    commit != null && !commit.isBlank() ? commit : UUID.randomUUID().toString(),
+                    workspace,
+                    sourcePath,
+                    className,
+                    options
             );
-
-            // --- Run Dynamic Analysis ---
-
-            Process compileProcess = new ProcessBuilder(
-                    "javac", filePath.toAbsolutePath().toString()
-            ).redirectErrorStream(true).start();
-
-            Map<String, Object> dynamicResults = dynamicAnalyzer.run(className);
-
-            // --- Build combined response ---
-            Map<String, Object> response = new HashMap<>();
-            response.put("staticAnalysis", staticResults);
-            response.put("dynamicAnalysis", dynamicResults);
-            response.put("analyzedAt", Instant.now().toString());
-
-            return ResponseEntity.ok(response);
-
+            if (benchmark) {
+                job.setBenchmark(new BenchmarkOptions(discardedRuns, repetitions,
+                        BenchmarkOptions.Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)), warmupIterations));
+            }
+            job.setRawResults(rawCsv);
+            job.setResolveTypes(classpath);
+            job.setApplyFixes(fix);
+            job = jobService.submit(job);
+
+            return ResponseEntity.accepted().body(Map.of(
+                    "jobId", job.getJobId(),
+                    "status", job.getStatus(),
+                    "statusUrl", "/api/jobs/" + job.getJobId()
+            ));
+
+        } catch (IllegalArgumentException e) {
+            deleteQuietly(workspace);
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (JobRejectedException e) {
+            deleteQuietly(workspace);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+            deleteQuietly(workspace);
+            return ResponseEntity.internalServerError().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    private static void deleteQuietly(Path dir) {
+        if (dir == null) return;
+        try {
+            FileSystemUtils.deleteRecursively(dir);
+        } catch (Exception ignored) {
+            // best effort
         }
     }
 }
@@ -0,0 +1,237 @@
+package com.javacodegreen.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javacodegreen.backend.dynamicanalysis.EnergyCallTree;
+import com.javacodegreen.backend.job.AnalysisJob;
+import com.javacodegreen.backend.job.AnalysisJobService;
+import com.javacodegreen.backend.job.FindingStore;
+import com.javacodegreen.backend.rewrite.FixReport;
+import com.javacodegreen.backend.staticanalysis.AnalysisMetrics;
+import com.javacodegreen.backend.staticanalysis.StaticAnalyzer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType DIFF = MediaType.parseMediaType("text/x-diff");
+    private static final int MAX_PAGE_SIZE = 1_000;
+    private static final Map<String, Double> ENERGY_UNITS = Map.of("J", 1.0, "mJ", 1e-3, "uJ", 1e-6, "nJ", 1e-9);
+
+    private final AnalysisJobService jobService;
+    private final StaticAnalyzer staticAnalyzer;
+    private final ObjectMapper objectMapper;
+    private final long streamTimeoutMillis;
+
+    public JobController(AnalysisJobService jobService, StaticAnalyzer staticAnalyzer, ObjectMapper objectMapper,
+                         @Value("${analysis.stream.timeout-seconds:600}") long streamTimeoutSeconds) {
+        this.jobService = jobService;
+        this.staticAnalyzer = staticAnalyzer;
+        this.objectMapper = objectMapper;
+        this.streamTimeoutMillis = streamTimeoutSeconds * 1_000;
+    }
+
+    /**
+     * Job status and results. Findings are not inlined; page through them at {@code findingsUrl}.
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable String jobId) throws IOException {
+        Optional<AnalysisJob> job = jobService.get(jobId);
+        if (job.isEmpty()) {
+            return unknownJob(jobId);
+        }
+        long start = System.nanoTime();
+        byte[] body = objectMapper.writeValueAsBytes(job.get());
+        staticAnalyzer.getMetrics().recordPhase(AnalysisMetrics.PHASE_SERIALIZATION, System.nanoTime() - start);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * One page of findings, optionally filtered by severity and rule id. Pass the returned
+     * {@code nextCursor} back to continue; it is null once the job's findings are exhausted.
+     */
+    @GetMapping("/{jobId}/findings")
+    public ResponseEntity<?> getFindings(@PathVariable String jobId,
+                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                         @RequestParam(value = "severity", required = false) Set<String> severity,
+                                         @RequestParam(value = "ruleId", required = false) Set<String> ruleId) throws IOException {
+        Optional<AnalysisJob> job = jobService.get(jobId);
+        if (job.isEmpty()) {
+            return unknownJob(jobId);
+        }
+        int from;
+        try {
+            from = decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
+        FindingStore.Page page = job.get().getFindingStore()
+                .page(from, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)), severity, ruleId);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("jobId", jobId);
+        body.put("findings", page.findings());
+        body.put("nextCursor", page.nextCursor() != null ? encodeCursor(page.nextCursor()) : null);
+        body.put("total", page.total());
+        body.put("complete", job.get().getFindingStore().isSealed());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Stream a job as it runs: each finding as soon as a rule accepts it, then the summary,
+     * the dynamic results and a final status. NDJSON by default, server-sent events when the
+     * client accepts {@code text/event-stream}.
+     */
+    @GetMapping(value = "/{jobId}/stream", produces = {"application/x-ndjson", MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamJob(@PathVariable String jobId,
+                                                           @RequestHeader(value = "Accept", required = false) String accept) {
+        Optional<AnalysisJob> job = jobService.get(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        boolean sse = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+
+        StreamingResponseBody body = out -> {
+            AnalysisJobService.EventWriter writer = sse ? sseWriter(out) : ndjsonWriter(out);
+            try {
+                jobService.stream(job.get(), writer, streamTimeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(sse ? MediaType.TEXT_EVENT_STREAM : NDJSON)
+                .header("Cache-Control", "no-cache")
+                .body(body);
+    }
+
+    /**
+     * The energy call tree of a finished single-run job: the {@code limit} hottest call paths
+     * with inclusive and exclusive energy, skipping paths below {@code minShare} of the total.
+     */
+    @GetMapping("/{jobId}/calltree")
+    public ResponseEntity<?> getCallTree(@PathVariable String jobId,
+                                         @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                         @RequestParam(value = "minShare", defaultValue = "0") double minShare) {
+        Optional<AnalysisJob> job = jobService.get(jobId);
+        if (job.isEmpty()) {
+            return unknownJob(jobId);
+        }
+        EnergyCallTree tree = job.get().getCallTree();
+        if (tree == null) {
+            return noCallTree(jobId);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("jobId", jobId);
+        body.putAll(tree.summary());
+        body.put("paths", tree.paths(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)), Math.max(0, minShare)));
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * The call tree in collapsed-stack format for flame graph tools, with energy as integers
+     * in {@code unit}: J, mJ, uJ (default) or nJ.
+     */
+    @GetMapping("/{jobId}/calltree/collapsed")
+    public ResponseEntity<?> getCollapsedCallTree(@PathVariable String jobId,
+                                                  @RequestParam(value = "unit", defaultValue = "uJ") String unit) throws IOException {
+        Optional<AnalysisJob> job = jobService.get(jobId);
+        if (job.isEmpty()) {
+            return unknownJob(jobId);
+        }
+        EnergyCallTree tree = job.get().getCallTree();
+        if (tree == null) {
+            return noCallTree(jobId);
+        }
+        Double joules = ENERGY_UNITS.get(unit);
+        if (joules == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown unit " + unit + "; use one of " + ENERGY_UNITS.keySet()));
+        }
+        StringWriter out = new StringWriter();
+        tree.writeCollapsed(out, joules);
+        return ResponseEntity.ok().contentType(MediaType.TEXT_PLAIN).body(out.toString());
+    }
+
+    /**
+     * The unified diff of every fix applied to the job's sources, for {@code git apply} or
+     * {@code patch -p1} in the source root.
+     */
+    @GetMapping("/{jobId}/patch")
+    public ResponseEntity<?> getPatch(@PathVariable String jobId) {
+        Optional<AnalysisJob> job = jobService.get(jobId);
+        if (job.isEmpty()) {
+            return unknownJob(jobId);
+        }
+        FixReport fixes = job.get().getFixes();
+        if (fixes == null) {
+            return ResponseEntity.status(404).body(Map.of("error", "No fixes for job " + jobId
+                    + "; upload with fix=true and wait for the job to finish"));
+        }
+        return ResponseEntity.ok().contentType(DIFF).body(fixes.getDiff());
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<?> cancelJob(@PathVariable String jobId) {
+        return jobService.cancel(jobId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(Map.of(
+                        "jobId", job.getJobId(),
+                        "status", job.getStatus())))
+                .orElseGet(() -> unknownJob(jobId));
+    }
+
+    private AnalysisJobService.EventWriter ndjsonWriter(OutputStream out) {
+        return (type, data) -> {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("type", type);
+            line.put("data", data);
+            out.write(objectMapper.writeValueAsBytes(line));
+            out.write('\n');
+            out.flush();
+        };
+    }
+
+    private AnalysisJobService.EventWriter sseWriter(OutputStream out) {
+        return (type, data) -> {
+            out.write(("event: " + type + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+            out.write(objectMapper.writeValueAsBytes(data));
+            out.write("\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        };
+    }
+
+    private static String encodeCursor(int index) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(("c:" + index).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return 0;
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (!decoded.startsWith("c:")) throw new IllegalArgumentException("bad cursor");
+        try {
+            return Integer.parseInt(decoded.substring(2));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad cursor", e);
+        }
+    }
+
+    private static ResponseEntity<?> noCallTree(String jobId) {
+        return ResponseEntity.status(404).body(Map.of("error", "No call tree for job " + jobId
+                + "; it is recorded for finished single runs when JoularJX writes call trees"));
+    }
+
+    private static ResponseEntity<?> unknownJob(String jobId) {
+        return ResponseEntity.status(404).body(Map.of("error", "Unknown job " + jobId));
+    }
+}
@@ -0,0 +1,83 @@
+package com.javacodegreen.backend.correlation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javacodegreen.backend.dynamicanalysis.MethodEnergyTable;
+import com.javacodegreen.backend.energy.EnergyStore;
+import com.javacodegreen.backend.staticanalysis.AnalysisResult;
+import com.javacodegreen.backend.staticanalysis.LoopCostScoreModel;
+import com.javacodegreen.backend.staticanalysis.RuleEngine;
+import com.javacodegreen.backend.staticanalysis.StaticAnalyzer;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local command that calibrates the loop-cost score model against the energy store:
+ * <pre>
+ * java -jar backend.jar calibrate --project=NAME --source=DIR [--commit=ID]
+ *      [--energy-dir=energy-store/] [--unknown-trips=10] [--out=score-calibration.json]
+ * </pre>
+ * The sources are analyzed without the cache, the findings joined with the project's mean
+ * per-method energy (at {@code commit}, or over all its runs) and the fitted coefficients
+ * written to {@code out}, which {@code analysis.score.calibration} then points at.
+ */
+public final class CalibrationCommand {
+
+    public static final String NAME = "calibrate";
+
+    private CalibrationCommand() {}
+
+    /**
+     * @return the process exit code
+     */
+    public static int run(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                System.err.println("⚠️ Unexpected argument " + arg);
+                return usage();
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        String project = options.get("project");
+        String source = options.get("source");
+        if (project == null || source == null) return usage();
+
+        try (EnergyStore store = new EnergyStore(Paths.get(options.getOrDefault("energy-dir", "energy-store/")))) {
+            long unknownTrips = Long.parseLong(options.getOrDefault("unknown-trips", String.valueOf(LoopCostScoreModel.DEFAULT_UNKNOWN_TRIPS)));
+            MethodEnergyTable measured = store.methodMeans(project, options.get("commit"));
+
+            StaticAnalyzer analyzer = new StaticAnalyzer();
+            analyzer.setScoreModel(new LoopCostScoreModel(Map.of(), unknownTrips));
+            AnalysisResult result = analyzer.analyze(new File(source), project, options.getOrDefault("commit", "calibration"));
+
+            Map<String, Object> calibration = new ScoreCalibrator(measured, unknownTrips)
+                    .calibrate(result.getFindings(), new RuleEngine().getRules());
+            calibration.put("project", project);
+            if (options.containsKey("commit")) calibration.put("commit", options.get("commit"));
+
+            Path out = Paths.get(options.getOrDefault("out", "score-calibration.json"));
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(out.toFile(), calibration);
+            System.out.println("Calibrated " + calibration.get("fitted") + " from "
+                    + calibration.get("matchedFindings") + " findings; wrote " + out.toAbsolutePath());
+            return 0;
+        } catch (IllegalArgumentException e) {
+            System.err.println("⚠️ " + e.getMessage());
+            return 2;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return 1;
+        }
+    }
+
+    private static int usage() {
+        System.err.println("usage: calibrate --project=NAME --source=DIR [--commit=ID] [--energy-dir=DIR]"
+                + " [--unknown-trips=N] [--out=FILE]");
+        return 2;
+    }
+}
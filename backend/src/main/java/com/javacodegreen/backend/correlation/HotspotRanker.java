@@ -0,0 +1,122 @@
+package com.javacodegreen.backend.correlation;
+
+import com.javacodegreen.backend.dynamicanalysis.MethodEnergyTable;
+import com.javacodegreen.backend.staticanalysis.Finding;
+
+import java.util.*;
+
+/**
+ * Ranks static findings by the measured energy of the method they sit in. Each finding's
+ * {@code enclosingMethod} ("pkg.Type#name(params)", taken from the Spoon model when the
+ * finding was made) is reduced to the "pkg.Type.name" form JoularJX reports; constructors
+ * become "&lt;init&gt;" and lambdas JoularJX lists as "lambda$name$N" are added to their
+ * method. Overloads share one measurement, as they do in JoularJX.
+ *
+ * Findings are fed one at a time and only the top {@code limit} are kept, so a job's
+ * findings can be streamed from disk.
+ */
+public class HotspotRanker {
+
+    /** A finding together with what its enclosing method measured. */
+    public record Hotspot(String findingId, String ruleId, String severity, String file, int line,
+                          String method, double methodEnergy, double share, double staticScore, String message) {}
+
+    private static final Comparator<Hotspot> BY_COST = Comparator.comparingDouble(Hotspot::methodEnergy)
+            .thenComparingDouble(Hotspot::staticScore);
+
+    private final Map<String, Double> energy = new HashMap<>();
+    private final double total;
+    private final int limit;
+    private final PriorityQueue<Hotspot> top;
+    private final Map<String, int[]> findingsPerMethod = new HashMap<>();
+    private int matched;
+    private int unmatched;
+
+    /**
+     * @param methods per-method energy of the measured run(s)
+     * @param limit   findings to keep
+     */
+    public HotspotRanker(MethodEnergyTable methods, int limit) {
+        for (int i = 0; i < methods.size(); i++) {
+            energy.merge(withoutLambda(methods.name(i)), methods.energy(i), Double::sum);
+        }
+        this.total = methods.total();
+        this.limit = Math.max(1, limit);
+        this.top = new PriorityQueue<>(this.limit + 1, BY_COST);
+    }
+
+    public void accept(Finding finding) {
+        String method = joularJxName(finding.getEnclosingMethod());
+        Double joules = method != null ? energy.get(method) : null;
+        if (joules == null) {
+            unmatched++;
+            return;
+        }
+        matched++;
+        findingsPerMethod.computeIfAbsent(method, m -> new int[1])[0]++;
+        top.add(new Hotspot(finding.getId(), finding.getRuleId(), finding.getSeverity(), finding.getFile(),
+                finding.getStartLine(), method, joules, total > 0 ? joules / total : 0,
+                finding.getEnergyScore(), finding.getMessage()));
+        if (top.size() > limit) top.poll();
+    }
+
+    /**
+     * @return the ranked findings, costliest first, and the measured methods that have findings
+     */
+    public Map<String, Object> result() {
+        List<Hotspot> ranked = new ArrayList<>(top);
+        ranked.sort(BY_COST.reversed());
+
+        List<Map<String, Object>> methods = new ArrayList<>();
+        findingsPerMethod.forEach((method, count) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("method", method);
+            m.put("energy", energy.get(method));
+            m.put("findings", count[0]);
+            methods.add(m);
+        });
+        methods.sort(Comparator.comparingDouble((Map<String, Object> m) -> (Double) m.get("energy")).reversed());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("measuredMethods", energy.size());
+        result.put("matchedFindings", matched);
+        result.put("unmatchedFindings", unmatched);
+        result.put("hotspots", ranked);
+        result.put("methods", methods);
+        return result;
+    }
+
+    /**
+     * @return "pkg.Type.name" for "pkg.Type#name(params)", "pkg.Type.&lt;init&gt;" for a
+     *         constructor, or null when the finding is outside any method
+     */
+    static String joularJxName(String enclosingMethod) {
+        if (enclosingMethod == null) return null;
+        int hash = enclosingMethod.indexOf('#');
+        if (hash < 0) return null;
+        String type = enclosingMethod.substring(0, hash);
+        String signature = enclosingMethod.substring(hash + 1);
+        int paren = signature.indexOf('(');
+        String name = paren >= 0 ? signature.substring(0, paren) : signature;
+        // Spoon signs constructors with the qualified type name instead of a method name
+        if (name.contains(".") || name.equals(type)) {
+            name = "<init>";
+        }
+        return type + "." + name;
+    }
+
+    /**
+     * @return "pkg.Type.name" for a lambda JoularJX reports as "pkg.Type.lambda$name$N"
+     */
+    static String withoutLambda(String method) {
+        int dot = method.lastIndexOf('.');
+        String simple = method.substring(dot + 1);
+        if (!simple.startsWith("lambda$")) return method;
+        int end = simple.lastIndexOf('$');
+        if (end <= "lambda$".length()) return method;
+        String enclosing = simple.substring("lambda$".length(), end);
+        if (enclosing.equals("new")) enclosing = "<init>";
+        else if (enclosing.equals("static")) enclosing = "<clinit>";
+        return method.substring(0, dot + 1) + enclosing;
+    }
+}
@@ -0,0 +1,106 @@
+package com.javacodegreen.backend.correlation;
+
+import com.javacodegreen.backend.dynamicanalysis.MethodEnergyTable;
+import com.javacodegreen.backend.staticanalysis.Finding;
+import com.javacodegreen.backend.staticanalysis.LoopCostScoreModel;
+import com.javacodegreen.backend.staticanalysis.Rule;
+import com.javacodegreen.backend.staticanalysis.SeverityScoreModel;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Fits the per-rule coefficients of {@link LoopCostScoreModel} to measured energy. Each
+ * measured method's energy is split evenly over the findings inside it; per rule, the
+ * coefficient is then the least-squares slope through the origin of that energy against the
+ * finding's estimated executions: c = Σxy / Σx². Rules without samples get their severity
+ * score rescaled by the same factor that maps the fitted rules' severity scores onto their
+ * coefficients, so all coefficients end up in joules per execution.
+ */
+public class ScoreCalibrator {
+
+    private final MethodEnergyTable measured;
+    private final long unknownTrips;
+
+    /**
+     * @param measured     per-method energy, e.g. means from the energy store
+     * @param unknownTrips trips the findings were estimated with
+     */
+    public ScoreCalibrator(MethodEnergyTable measured, long unknownTrips) {
+        this.measured = measured;
+        this.unknownTrips = unknownTrips;
+    }
+
+    /**
+     * @param findings findings scored by an uncalibrated {@link LoopCostScoreModel}, whose
+     *                 evidence carries the estimated executions
+     * @param rules    every rule, for the severity fallback
+     * @return the calibration document {@link LoopCostScoreModel#fromCalibration} reads
+     */
+    public Map<String, Object> calibrate(List<Finding> findings, List<Rule> rules) {
+        Map<String, Double> energy = new HashMap<>();
+        for (int i = 0; i < measured.size(); i++) {
+            energy.merge(HotspotRanker.withoutLambda(measured.name(i)), measured.energy(i), Double::sum);
+        }
+
+        Map<String, List<Finding>> byMethod = new HashMap<>();
+        for (Finding f : findings) {
+            String method = HotspotRanker.joularJxName(f.getEnclosingMethod());
+            if (method != null && energy.containsKey(method) && executions(f) > 0) {
+                byMethod.computeIfAbsent(method, m -> new ArrayList<>()).add(f);
+            }
+        }
+
+        // per rule: Σxy, Σx², samples
+        Map<String, double[]> sums = new TreeMap<>();
+        byMethod.forEach((method, inMethod) -> {
+            double share = energy.get(method) / inMethod.size();
+            for (Finding f : inMethod) {
+                double x = executions(f);
+                double[] s = sums.computeIfAbsent(f.getRuleId(), r -> new double[3]);
+                s[0] += x * share;
+                s[1] += x * x;
+                s[2]++;
+            }
+        });
+
+        Map<String, Double> severityScores = new HashMap<>();
+        SeverityScoreModel severity = new SeverityScoreModel();
+        for (Rule rule : rules) {
+            severityScores.put(rule.getId(), severity.score(rule, null));
+        }
+
+        Map<String, Double> coefficients = new TreeMap<>();
+        Map<String, Object> fitted = new TreeMap<>();
+        double fittedSum = 0;
+        double severitySum = 0;
+        for (Map.Entry<String, double[]> e : sums.entrySet()) {
+            double[] s = e.getValue();
+            double c = s[0] / s[1];
+            coefficients.put(e.getKey(), c);
+            fitted.put(e.getKey(), Map.of("samples", (int) s[2], "coefficient", c));
+            fittedSum += c;
+            severitySum += severityScores.getOrDefault(e.getKey(), 1.0);
+        }
+        double scale = severitySum > 0 ? fittedSum / severitySum : 1.0;
+        for (Rule rule : rules) {
+            coefficients.putIfAbsent(rule.getId(), severityScores.get(rule.getId()) * scale);
+        }
+
+        Map<String, Object> doc = new LinkedHashMap<>();
+        doc.put("model", "loop-cost");
+        doc.put("calibratedAt", Instant.now().toString());
+        doc.put("unknownTrips", unknownTrips);
+        doc.put("coefficients", coefficients);
+        doc.put("fitted", fitted);
+        doc.put("measuredMethods", energy.size());
+        doc.put("matchedFindings", byMethod.values().stream().mapToInt(List::size).sum());
+        return doc;
+    }
+
+    private static double executions(Finding f) {
+        Object cost = f.getEvidence() != null ? f.getEvidence().get("cost") : null;
+        Object x = cost instanceof Map<?, ?> m ? m.get("estimatedExecutions") : null;
+        return x instanceof Number n ? n.doubleValue() : 0;
+    }
+}
@@ -0,0 +1,208 @@
+package com.javacodegreen.backend.diff;
+
+import com.javacodegreen.backend.job.AnalysisJobService;
+import com.javacodegreen.backend.staticanalysis.AnalysisResult;
+import com.javacodegreen.backend.staticanalysis.Finding;
+import com.javacodegreen.backend.staticanalysis.StaticAnalyzer;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.FS;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Compares two commits of a local git repository. Only the .java files changed between them
+ * are written out and analyzed, once as of each commit, so the cost follows the size of the
+ * diff rather than of the repository. Everything is read through JGit; nothing touches the
+ * network or the repository's working tree. The analyses run on the static job pool and are
+ * rejected like a job when its queue is full.
+ *
+ * Unchanged files are not in the model, so findings that depend on calls into them (a loop
+ * calling a helper that opens a file) are neither new nor fixed; the result says so in its notes.
+ *
+ * Repositories must live below one of {@code analysis.diff.allowed-roots}; with no roots
+ * configured the API is disabled.
+ */
+@Service
+public class CommitDiffService {
+
+    private final StaticAnalyzer staticAnalyzer;
+    private final AnalysisJobService jobService;
+    private final Path workDir;
+    private final List<Path> allowedRoots;
+
+    public CommitDiffService(StaticAnalyzer staticAnalyzer,
+                             AnalysisJobService jobService,
+                             @Value("${analysis.upload-dir:uploads/}") String uploadDir,
+                             @Value("${analysis.diff.allowed-roots:}") List<String> allowedRoots) {
+        this.staticAnalyzer = staticAnalyzer;
+        this.jobService = jobService;
+        this.workDir = Paths.get(uploadDir);
+        this.allowedRoots = allowedRoots.stream()
+                .filter(r -> !r.isBlank())
+                .map(r -> Paths.get(r.trim()).toAbsolutePath().normalize())
+                .toList();
+    }
+
+    /**
+     * @throws SecurityException        when the repository is outside the allowed roots
+     * @throws IllegalArgumentException when the path is not a repository or a revision does not resolve
+     * @throws com.javacodegreen.backend.job.JobRejectedException when the static queue is full
+     */
+    public DiffResult diff(DiffRequest request) throws IOException, InterruptedException {
+        if (request.getRepoPath() == null || request.getBase() == null) {
+            throw new IllegalArgumentException("repoPath and base are required");
+        }
+        File gitDir = RepositoryCache.FileKey.resolve(checkAllowed(Paths.get(request.getRepoPath())).toFile(), FS.DETECTED);
+        if (gitDir == null) {
+            throw new IllegalArgumentException("Not a git repository: " + request.getRepoPath());
+        }
+        checkAllowed(gitDir.toPath());
+
+        Future<DiffResult> result = jobService.submitStatic(() -> compare(gitDir, request));
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private DiffResult compare(File gitDir, DiffRequest request) throws IOException {
+        Path workspace = workDir.resolve("diff-" + UUID.randomUUID());
+        try (Repository repo = new FileRepositoryBuilder().setGitDir(gitDir).setMustExist(true).build();
+             RevWalk walk = new RevWalk(repo)) {
+            RevCommit base = walk.parseCommit(resolve(repo, request.getBase()));
+            RevCommit head = walk.parseCommit(resolve(repo, request.getHead() != null ? request.getHead() : "HEAD"));
+
+            // write each changed file as of both commits; a renamed file keeps its new path on
+            // both sides so its unchanged findings keep their fingerprints
+            Path baseDir = workspace.resolve("base");
+            Path headDir = workspace.resolve("head");
+            List<Map<String, String>> changed = new ArrayList<>();
+            try (DiffFormatter formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+                formatter.setRepository(repo);
+                formatter.setDetectRenames(true);
+                for (DiffEntry entry : formatter.scan(base.getTree(), head.getTree())) {
+                    if (!isJava(entry.getOldPath()) && !isJava(entry.getNewPath())) continue;
+                    DiffEntry.ChangeType type = entry.getChangeType();
+                    String path = type == DiffEntry.ChangeType.DELETE ? entry.getOldPath() : entry.getNewPath();
+                    if (type != DiffEntry.ChangeType.ADD && isJava(entry.getOldPath())) {
+                        writeBlob(repo, entry.getOldId().toObjectId(), baseDir, path);
+                    }
+                    if (type != DiffEntry.ChangeType.DELETE && isJava(entry.getNewPath())) {
+                        writeBlob(repo, entry.getNewId().toObjectId(), headDir, path);
+                    }
+                    Map<String, String> file = new LinkedHashMap<>();
+                    file.put("path", path);
+                    file.put("change", type.name());
+                    if (type == DiffEntry.ChangeType.RENAME || type == DiffEntry.ChangeType.COPY) {
+                        file.put("oldPath", entry.getOldPath());
+                    }
+                    changed.add(file);
+                }
+            }
+
+            String name = gitDir.toPath().toAbsolutePath().normalize().getParent().getFileName().toString();
+            List<Finding> before = analyze(baseDir, name, base.getName());
+            List<Finding> after = analyze(headDir, name, head.getName());
+
+            Set<String> beforeIds = new HashSet<>();
+            before.forEach(f -> beforeIds.add(f.getId()));
+            Set<String> afterIds = new HashSet<>();
+            after.forEach(f -> afterIds.add(f.getId()));
+
+            DiffResult result = new DiffResult();
+            result.setRepository(request.getRepoPath());
+            result.setBaseCommit(base.getName());
+            result.setHeadCommit(head.getName());
+            result.setAnalyzedAt(Instant.now());
+            result.setChangedFiles(changed);
+            result.setNewFindings(after.stream().filter(f -> !beforeIds.contains(f.getId())).toList());
+            result.setFixedFindings(before.stream().filter(f -> !afterIds.contains(f.getId())).toList());
+            result.setUnchangedFindings(after.stream().filter(f -> beforeIds.contains(f.getId())).toList());
+            result.setSummary(Map.of(
+                    "changedFiles", changed.size(),
+                    "new", result.getNewFindings().size(),
+                    "fixed", result.getFixedFindings().size(),
+                    "unchanged", result.getUnchangedFindings().size()));
+            if (staticAnalyzer.hasTransitiveRules()) {
+                result.setNotes(List.of("Only the changed files are analyzed: findings that depend on calls"
+                        + " into unchanged files are not compared."));
+            }
+            return result;
+        } finally {
+            FileSystemUtils.deleteRecursively(workspace);
+        }
+    }
+
+    private List<Finding> analyze(Path dir, String name, String commit) {
+        if (!Files.isDirectory(dir)) return List.of();
+        AnalysisResult result = staticAnalyzer.analyze(dir.toFile(), name, commit);
+        Path root = dir.toAbsolutePath().normalize();
+        for (Finding f : result.getFindings()) {
+            Path file = Paths.get(f.getFile()).toAbsolutePath().normalize();
+            if (file.startsWith(root)) f.setFile(root.relativize(file).toString().replace('\\', '/'));
+        }
+        return result.getFindings();
+    }
+
+    private Path checkAllowed(Path path) throws IOException {
+        if (allowedRoots.isEmpty()) {
+            throw new SecurityException("Commit diffs are disabled; set analysis.diff.allowed-roots");
+        }
+        Path real = Files.exists(path) ? path.toRealPath() : path.toAbsolutePath().normalize();
+        for (Path root : allowedRoots) {
+            Path realRoot = Files.exists(root) ? root.toRealPath() : root;
+            if (real.startsWith(realRoot)) return real;
+        }
+        throw new SecurityException("Repository is outside the allowed roots: " + path);
+    }
+
+    private static ObjectId resolve(Repository repo, String revision) throws IOException {
+        ObjectId id = repo.resolve(revision + "^{commit}");
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown revision: " + revision);
+        }
+        return id;
+    }
+
+    private static void writeBlob(Repository repo, ObjectId blob, Path dir, String path) throws IOException {
+        Path target = dir.resolve(path).normalize();
+        if (!target.startsWith(dir)) {
+            throw new IllegalArgumentException("Path escapes the workspace: " + path);
+        }
+        Files.createDirectories(target.getParent());
+        try (OutputStream out = Files.newOutputStream(target)) {
+            repo.open(blob, Constants.OBJ_BLOB).copyTo(out);
+        }
+    }
+
+    private static boolean isJava(String path) {
+        return path != null && path.endsWith(".java");
+    }
+}
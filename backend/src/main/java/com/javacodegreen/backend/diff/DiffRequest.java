@@ -0,0 +1,23 @@
+package com.javacodegreen.backend.diff;
+
+/**
+ * Body of {@code POST /api/diff}: a local repository and the two revisions to compare.
+ * Revisions are anything git can resolve to a commit (sha, branch, tag, {@code HEAD~1}).
+ */
+public class DiffRequest {
+    private String repoPath;
+    private String base;
+    private String head = "HEAD";
+
+    public DiffRequest() {}
+
+    // getters & setters
+    public String getRepoPath() { return repoPath; }
+    public void setRepoPath(String repoPath) { this.repoPath = repoPath; }
+
+    public String getBase() { return base; }
+    public void setBase(String base) { this.base = base; }
+
+    public String getHead() { return head; }
+    public void setHead(String head) { this.head = head; }
+}
@@ -0,0 +1,60 @@
+package com.javacodegreen.backend.diff;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.javacodegreen.backend.staticanalysis.Finding;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Findings of the .java files changed between two commits, split by whether the head commit
+ * introduced, fixed or kept them. Findings are matched by their fingerprint id and carry
+ * repository-relative file paths.
+ */
+public class DiffResult {
+    private String repository;
+    private String baseCommit;
+    private String headCommit;
+    private Instant analyzedAt;
+    private List<Map<String, String>> changedFiles;
+    private Map<String, Integer> summary;
+    private List<Finding> newFindings;
+    private List<Finding> fixedFindings;
+    private List<Finding> unchangedFindings;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> notes;
+
+    public DiffResult() {}
+
+    // getters & setters
+    public String getRepository() { return repository; }
+    public void setRepository(String repository) { this.repository = repository; }
+
+    public String getBaseCommit() { return baseCommit; }
+    public void setBaseCommit(String baseCommit) { this.baseCommit = baseCommit; }
+
+    public String getHeadCommit() { return headCommit; }
+    public void setHeadCommit(String headCommit) { this.headCommit = headCommit; }
+
+    public Instant getAnalyzedAt() { return analyzedAt; }
+    public void setAnalyzedAt(Instant analyzedAt) { this.analyzedAt = analyzedAt; }
+
+    public List<Map<String, String>> getChangedFiles() { return changedFiles; }
+    public void setChangedFiles(List<Map<String, String>> changedFiles) { this.changedFiles = changedFiles; }
+
+    public Map<String, Integer> getSummary() { return summary; }
+    public void setSummary(Map<String, Integer> summary) { this.summary = summary; }
+
+    public List<Finding> getNewFindings() { return newFindings; }
+    public void setNewFindings(List<Finding> newFindings) { this.newFindings = newFindings; }
+
+    public List<Finding> getFixedFindings() { return fixedFindings; }
+    public void setFixedFindings(List<Finding> fixedFindings) { this.fixedFindings = fixedFindings; }
+
+    public List<Finding> getUnchangedFindings() { return unchangedFindings; }
+    public void setUnchangedFindings(List<Finding> unchangedFindings) { this.unchangedFindings = unchangedFindings; }
+
+    public List<String> getNotes() { return notes; }
+    public void setNotes(List<String> notes) { this.notes = notes; }
+}
@@ -0,0 +1,60 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+/**
+ * Repeated-run measurement settings: {@code discardedRuns} runs whose results are thrown
+ * away, followed by {@code repetitions} measured ones, in the given execution mode.
+ *
+ * Every run is a fresh JVM, so discarded runs do not warm up the JIT of the measured ones;
+ * they only settle the machine (page cache, class data files, CPU frequency). Warming up
+ * the JIT takes {@code warmupIterations}: calls of {@code main} inside each run before the
+ * one that is measured.
+ */
+public class BenchmarkOptions {
+
+    /** INTERPRETED matches the single-run default (-Xint, no inlining); JIT runs with the normal tiered compilers. */
+    public enum Mode { INTERPRETED, JIT }
+
+    private int discardedRuns = 1;
+    private int repetitions = 5;
+    private Mode mode = Mode.INTERPRETED;
+    private int warmupIterations;
+
+    public BenchmarkOptions() {}
+
+    public BenchmarkOptions(int discardedRuns, int repetitions, Mode mode) {
+        this(discardedRuns, repetitions, mode, 0);
+    }
+
+    public BenchmarkOptions(int discardedRuns, int repetitions, Mode mode, int warmupIterations) {
+        this.discardedRuns = discardedRuns;
+        this.repetitions = repetitions;
+        this.mode = mode;
+        this.warmupIterations = warmupIterations;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the counts are out of range
+     */
+    public void validate(int maxRuns) {
+        if (discardedRuns < 0 || repetitions < 1 || warmupIterations < 0) {
+            throw new IllegalArgumentException(
+                    "benchmark needs discardedRuns >= 0, repetitions >= 1 and warmupIterations >= 0");
+        }
+        if (discardedRuns + repetitions > maxRuns) {
+            throw new IllegalArgumentException("benchmark is limited to " + maxRuns + " runs in total");
+        }
+    }
+
+    // getters & setters
+    public int getDiscardedRuns() { return discardedRuns; }
+    public void setDiscardedRuns(int discardedRuns) { this.discardedRuns = discardedRuns; }
+
+    public int getRepetitions() { return repetitions; }
+    public void setRepetitions(int repetitions) { this.repetitions = repetitions; }
+
+    public Mode getMode() { return mode; }
+    public void setMode(Mode mode) { this.mode = mode; }
+
+    public int getWarmupIterations() { return warmupIterations; }
+    public void setWarmupIterations(int warmupIterations) { this.warmupIterations = warmupIterations; }
+}
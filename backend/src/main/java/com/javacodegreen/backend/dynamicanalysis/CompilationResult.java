@@ -0,0 +1,33 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of compiling a job's sources: whether it succeeded and what the compiler reported.
+ */
+public class CompilationResult {
+    private boolean success;
+    private int sources;
+    private long millis;
+    private List<String> classpath;
+    private List<Map<String, Object>> diagnostics;
+
+    public CompilationResult() {}
+
+    // getters & setters
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    public int getSources() { return sources; }
+    public void setSources(int sources) { this.sources = sources; }
+
+    public long getMillis() { return millis; }
+    public void setMillis(long millis) { this.millis = millis; }
+
+    public List<String> getClasspath() { return classpath; }
+    public void setClasspath(List<String> classpath) { this.classpath = classpath; }
+
+    public List<Map<String, Object>> getDiagnostics() { return diagnostics; }
+    public void setDiagnostics(List<Map<String, Object>> diagnostics) { this.diagnostics = diagnostics; }
+}
@@ -1,41 +1,266 @@
 package com.javacodegreen.backend.dynamicanalysis;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 public class DynamicAnalyzer {
 
     private final Path joularjxDir;
     private final Path uploadDir;
     private final String joularjxResultDir;
+    private final MeasurementScheduler scheduler;
+    private int topMethods = 10;
+    private Path harnessDir;
 
-    public DynamicAnalyzer(Path joularjxDir, Path uploadDir, String joularjxResultDir) {
+    public DynamicAnalyzer(Path joularjxDir, Path uploadDir, String joularjxResultDir, MeasurementScheduler scheduler) {
         this.joularjxDir = joularjxDir;
         this.uploadDir = uploadDir;
         this.joularjxResultDir = joularjxResultDir;
+        this.scheduler = scheduler;
+    }
+
+    public MeasurementScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @param topMethods hottest methods listed separately in each result
+     */
+    public void setTopMethods(int topMethods) {
+        this.topMethods = Math.max(0, topMethods);
     }
 
     public Map<String, Object> run(String className) throws IOException, InterruptedException {
+        return run(className, uploadDir);
+    }
+
+    /**
+     * Run the class under JoularJX and parse the results.
+     *
+     * @param classpathDir directory holding the compiled class, e.g. a job's workspace
+     * @throws InterruptedException if the calling thread is interrupted; the child JVM is killed
+     */
+    public Map<String, Object> run(String className, Path classpathDir) throws IOException, InterruptedException {
+        return run(className, List.of(classpathDir));
+    }
+
+    /**
+     * Run the class under JoularJX with the given classpath entries and parse the results.
+     * The run waits for a measurement slot and is bounded by the scheduler's limits.
+     *
+     * @throws MeasurementTimeoutException if the run hit its wall-clock or CPU limit
+     * @throws InterruptedException        if the calling thread is interrupted; the child JVM is killed
+     */
+    public Map<String, Object> run(String className, List<Path> classpath) throws IOException, InterruptedException {
+        return run(className, classpath, false);
+    }
+
+    /**
+     * @param includeRaw also return the text of every CSV JoularJX wrote, which can be large
+     */
+    public Map<String, Object> run(String className, List<Path> classpath, boolean includeRaw)
+            throws IOException, InterruptedException {
+        return describe(measureRun(className, classpath, includeRaw));
+    }
+
+    /**
+     * Like {@link #run(String, List, boolean)}, but keeps the typed results, e.g. to build an
+     * {@link EnergyCallTree} from them; {@link #describe} turns them into the response.
+     */
+    public JoularJxRun measureRun(String className, List<Path> classpath, boolean includeRaw)
+            throws IOException, InterruptedException {
+        MeasurementScheduler.Outcome outcome = measure(List.of(className), classpath, BenchmarkOptions.Mode.INTERPRETED);
+        JoularJxRun run = new JoularJxResultParser(joularjxResultDir).read(outcome.runId(), includeRaw);
+        run.setMeasurement(outcome.describe());
+        return run;
+    }
+
+    public Map<String, Object> describe(JoularJxRun run) {
+        return run.describe(topMethods);
+    }
+
+    /**
+     * Measure the class repeatedly: {@code discardedRuns} runs whose results are thrown away,
+     * then {@code repetitions} measured runs. Per-method energy, total energy and run time are
+     * summarized across the measured runs with mean, median, stddev, 95% CI and outliers.
+     *
+     * Every run is a fresh JVM, so the discarded runs only settle the machine (page cache,
+     * CPU frequency) and do not warm up the JIT. With {@code warmupIterations}, each run starts
+     * in {@link WarmupHarness}, which calls {@code main} that many times before the call that
+     * is measured; the run's energy is then summed from the JoularJX evolution samples of the
+     * seconds that call overlaps, and its wall and CPU time are those of the call alone. The
+     * samples are one second apart, so a measured call should last several seconds, and a
+     * {@code main} that calls {@code System.exit} or depends on fresh static state cannot be
+     * warmed up this way.
+     */
+    public Map<String, Object> benchmark(String className, List<Path> classpath, BenchmarkOptions options)
+            throws IOException, InterruptedException {
+        return benchmark(className, classpath, options, run -> {});
+    }
+
+    /**
+     * @param measured called with each measured (not discarded) run's results, e.g. to record them
+     */
+    public Map<String, Object> benchmark(String className, List<Path> classpath, BenchmarkOptions options,
+                                         Consumer<JoularJxRun> measured) throws IOException, InterruptedException {
+        JoularJxResultParser parser = new JoularJxResultParser(joularjxResultDir);
+        List<Map<String, Object>> runs = new ArrayList<>();
+        List<MethodEnergyTable> energies = new ArrayList<>();
+        double[] wall = new double[options.getRepetitions()];
+        double[] cpu = new double[options.getRepetitions()];
+
+        for (int i = 0; i < options.getDiscardedRuns() + options.getRepetitions(); i++) {
+            boolean discarded = i < options.getDiscardedRuns();
+            Map<String, Object> run = new LinkedHashMap<>();
+            JoularJxRun parsed;
+            long wallMillis;
+            long cpuMillis;
+            if (options.getWarmupIterations() > 0) {
+                Path windowFile = Files.createTempFile("benchmark-window", ".txt");
+                try {
+                    List<String> main = List.of(WarmupHarness.class.getName(), windowFile.toString(),
+                            String.valueOf(options.getWarmupIterations()), className);
+                    List<Path> withHarness = new ArrayList<>(classpath);
+                    withHarness.add(harnessDir());
+                    MeasurementScheduler.Outcome outcome = measure(main, withHarness, options.getMode());
+                    long[] window = readWindow(windowFile);
+                    run.put("runId", outcome.runId());
+                    run.put("jvmWallMillis", outcome.wallMillis());
+                    wallMillis = window[1] - window[0];
+                    cpuMillis = window[2] >= 0 ? window[2] : outcome.cpuMillis();
+                    // a sample is taken at the end of each second of monitoring
+                    parsed = discarded ? null
+                            : parser.read(outcome.runId(), false).within(window[0] / 1000, window[1] / 1000 + 1);
+                } finally {
+                    Files.deleteIfExists(windowFile);
+                }
+            } else {
+                MeasurementScheduler.Outcome outcome = measure(List.of(className), classpath, options.getMode());
+                run.put("runId", outcome.runId());
+                wallMillis = outcome.wallMillis();
+                cpuMillis = outcome.cpuMillis();
+                parsed = discarded ? null : parser.read(outcome.runId(), false);
+            }
+            run.put("discarded", discarded);
+            run.put("wallMillis", wallMillis);
+            run.put("cpuMillis", cpuMillis);
+            runs.add(run);
+            if (discarded) continue;
+
+            int m = i - options.getDiscardedRuns();
+            measured.accept(parsed);
+            MethodEnergyTable methods = parsed.getMethods();
+            energies.add(methods);
+            wall[m] = wallMillis;
+            cpu[m] = cpuMillis;
+            run.put("energy", methods.total());
+        }
+
+        Set<String> names = new TreeSet<>();
+        for (MethodEnergyTable e : energies) {
+            for (int i = 0; i < e.size(); i++) names.add(e.name(i));
+        }
+        double[] totals = new double[energies.size()];
+        List<Map<String, Object>> methods = new ArrayList<>();
+        for (String name : names) {
+            double[] samples = new double[energies.size()];
+            for (int r = 0; r < samples.length; r++) {
+                samples[r] = energies.get(r).energyOf(name);
+                totals[r] += samples[r];
+            }
+            Map<String, Object> method = new LinkedHashMap<>();
+            method.put("method", name);
+            method.putAll(SampleStats.of(samples).describe());
+            methods.add(method);
+        }
+        methods.sort(Comparator.comparingDouble((Map<String, Object> m) -> (Double) m.get("mean")).reversed());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", options.getMode());
+        result.put("discardedRuns", options.getDiscardedRuns());
+        result.put("repetitions", options.getRepetitions());
+        result.put("warmupIterations", options.getWarmupIterations());
+        result.put("energy", SampleStats.of(totals).describe());
+        result.put("wallMillis", SampleStats.of(wall).describe());
+        result.put("cpuMillis", SampleStats.of(cpu).describe());
+        result.put("methods", methods);
+        result.put("runs", runs);
+        return result;
+    }
+
+    /**
+     * @param main the main class followed by its arguments
+     */
+    private MeasurementScheduler.Outcome measure(List<String> main, List<Path> classpath, BenchmarkOptions.Mode mode)
+            throws IOException, InterruptedException {
         Path joularjxPath = joularjxDir.resolve("joularjx-3.0.1.jar");
         Path joularjxConfig = joularjxDir.resolve("config.properties");
 
-        Process energyProcess = new ProcessBuilder(
-                "java",
-                "-XX:-Inline", "-Xint",
+        List<String> command = new ArrayList<>();
+        command.add(javaExecutable());
+        if (mode == BenchmarkOptions.Mode.INTERPRETED) {
+            command.addAll(List.of("-XX:-Inline", "-Xint"));
+        }
+        command.addAll(List.of(
                 "-javaagent:" + joularjxPath.toAbsolutePath(),
                 "-Djoularjx.config=" + joularjxConfig.toAbsolutePath(),
-                "-cp", uploadDir.toAbsolutePath().toString(),
-                className
-        ).redirectErrorStream(true).start();
+                "-cp", classpath.stream().map(p -> p.toAbsolutePath().toString())
+                        .collect(Collectors.joining(File.pathSeparator))));
+        command.addAll(main);
+        MeasurementScheduler.Outcome outcome = scheduler.run(command, null);
+
+        if (outcome.exitCode() != 0) {
+            throw new RuntimeException("JoularJX run failed: " + outcome.outputText());
+        }
+        if (outcome.runId() == null) {
+            throw new RuntimeException("No runId found in JoularJX output");
+        }
+        return outcome;
+    }
 
-        String output = new String(energyProcess.getInputStream().readAllBytes());
-        int exit = energyProcess.waitFor();
+    /**
+     * @return start and end of the measured call in epoch millis and its CPU millis (-1 when
+     *         unknown), as {@link WarmupHarness} wrote them
+     */
+    private static long[] readWindow(Path windowFile) throws IOException {
+        String[] parts = Files.readString(windowFile).trim().split(" ");
+        if (parts.length != 3) {
+            throw new RuntimeException("the run ended before its measured call; warmup iterations need a main"
+                    + " that returns instead of calling System.exit");
+        }
+        return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2])};
+    }
 
-        if (exit != 0) {
-            throw new RuntimeException("JoularJX run failed: " + output);
+    /**
+     * A directory holding a copy of {@link WarmupHarness}'s class file, made once, so the
+     * harness can be put on a child's classpath however this application is packaged.
+     */
+    private synchronized Path harnessDir() throws IOException {
+        if (harnessDir == null) {
+            Path dir = Files.createTempDirectory("warmup-harness");
+            String name = WarmupHarness.class.getName().replace('.', '/') + ".class";
+            Path target = dir.resolve(name);
+            Files.createDirectories(target.getParent());
+            try (InputStream in = WarmupHarness.class.getClassLoader().getResourceAsStream(name)) {
+                if (in == null) throw new IOException("class file of " + WarmupHarness.class.getName() + " not found");
+                Files.copy(in, target);
+            }
+            harnessDir = dir;
         }
+        return harnessDir;
+    }
 
-        return new JoularJxResultParser(joularjxResultDir).parse(output);
+    /**
+     * The java launcher of the running JDK, so the child does not depend on PATH.
+     */
+    private static String javaExecutable() {
+        Path java = Path.of(System.getProperty("java.home"), "bin", File.separatorChar == '\\' ? "java.exe" : "java");
+        return Files.isExecutable(java) ? java.toString() : "java";
     }
 }
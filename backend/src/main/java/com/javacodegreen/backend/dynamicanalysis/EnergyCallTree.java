@@ -0,0 +1,163 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Energy call tree aggregated from JoularJX call-tree CSVs. Each stack is inserted into a trie
+ * whose nodes live in parallel primitive arrays: the interned frame id, the parent node and
+ * the energy of stacks ending at that node (exclusive). Inclusive energy is the exclusive
+ * energy of a node plus all of its descendants.
+ *
+ * Children are found through one map keyed by (parent, frame), so inserting a stack costs one
+ * hash lookup per frame and no per-node collections.
+ */
+public final class EnergyCallTree {
+
+    private static final int ROOT = 0;
+
+    private final Map<String, Integer> frameIds = new HashMap<>();
+    private final List<String> frames = new ArrayList<>();
+    private final Map<Long, Integer> children = new HashMap<>();
+
+    private int[] frame = new int[64];
+    private int[] parent = new int[64];
+    private int[] depth = new int[64];
+    private double[] exclusive = new double[64];
+    private double[] inclusive;
+    private int nodes = 1; // node 0 is the synthetic root
+
+    public EnergyCallTree() {
+        frame[ROOT] = -1;
+        parent[ROOT] = -1;
+    }
+
+    public static EnergyCallTree of(JoularJxRun.CallTrees callTrees) {
+        EnergyCallTree tree = new EnergyCallTree();
+        for (int i = 0; i < callTrees.size(); i++) {
+            tree.add(callTrees.stack(i), callTrees.energy(i));
+        }
+        return tree;
+    }
+
+    /**
+     * @param stack  frames from the outermost caller to the frame that consumed the energy
+     * @param joules energy of the stack's last frame while called through this path
+     */
+    public void add(String[] stack, double joules) {
+        int node = ROOT;
+        for (String name : stack) {
+            node = child(node, frameId(name));
+        }
+        exclusive[node] += joules;
+        inclusive = null;
+    }
+
+    public int nodeCount() {
+        return nodes - 1;
+    }
+
+    public int frameCount() {
+        return frames.size();
+    }
+
+    public double totalEnergy() {
+        return inclusive()[ROOT];
+    }
+
+    /**
+     * The {@code limit} paths with the highest inclusive energy, hottest first, skipping paths
+     * below {@code minShare} of the total.
+     */
+    public List<Map<String, Object>> paths(int limit, double minShare) {
+        double[] incl = inclusive();
+        double floor = incl[ROOT] * minShare;
+        Integer[] order = new Integer[nodes - 1];
+        for (int i = 1; i < nodes; i++) order[i - 1] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(incl[b], incl[a]));
+
+        List<Map<String, Object>> paths = new ArrayList<>();
+        for (int node : order) {
+            if (paths.size() >= limit || incl[node] < floor) break;
+            Map<String, Object> p = new LinkedHashMap<>();
+            p.put("path", path(node));
+            p.put("frame", frames.get(frame[node]));
+            p.put("depth", depth[node]);
+            p.put("inclusive", incl[node]);
+            p.put("exclusive", exclusive[node]);
+            p.put("share", incl[ROOT] > 0 ? incl[node] / incl[ROOT] : 0);
+            paths.add(p);
+        }
+        return paths;
+    }
+
+    /**
+     * Write the tree in collapsed-stack format, one "frame;frame;frame value" line per path with
+     * exclusive energy, as read by flamegraph.pl, speedscope and similar tools. Values are
+     * integers, so energy is written in {@code unitJoules} units (e.g. 1e-6 for microjoules).
+     */
+    public void writeCollapsed(Writer out, double unitJoules) throws IOException {
+        for (int node = 1; node < nodes; node++) {
+            long value = Math.round(exclusive[node] / unitJoules);
+            if (value <= 0) continue;
+            out.write(path(node));
+            out.write(' ');
+            out.write(Long.toString(value));
+            out.write('\n');
+        }
+    }
+
+    public Map<String, Object> summary() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("frames", frameCount());
+        m.put("nodes", nodeCount());
+        m.put("energy", totalEnergy());
+        return m;
+    }
+
+    private String path(int node) {
+        Deque<String> names = new ArrayDeque<>();
+        for (int n = node; n != ROOT; n = parent[n]) names.addFirst(frames.get(frame[n]));
+        return String.join(";", names);
+    }
+
+    private int frameId(String name) {
+        Integer id = frameIds.get(name);
+        if (id == null) {
+            id = frames.size();
+            frameIds.put(name, id);
+            frames.add(name);
+        }
+        return id;
+    }
+
+    private int child(int node, int frameId) {
+        long key = ((long) node << 32) | frameId;
+        Integer existing = children.get(key);
+        if (existing != null) return existing;
+        if (nodes == frame.length) {
+            int size = nodes * 2;
+            frame = Arrays.copyOf(frame, size);
+            parent = Arrays.copyOf(parent, size);
+            depth = Arrays.copyOf(depth, size);
+            exclusive = Arrays.copyOf(exclusive, size);
+        }
+        int created = nodes++;
+        frame[created] = frameId;
+        parent[created] = node;
+        depth[created] = depth[node] + 1;
+        children.put(key, created);
+        return created;
+    }
+
+    private double[] inclusive() {
+        if (inclusive == null) {
+            double[] sums = Arrays.copyOf(exclusive, nodes);
+            // children are always created after their parent, so one backwards pass suffices
+            for (int n = nodes - 1; n > ROOT; n--) sums[parent[n]] += sums[n];
+            inclusive = sums;
+        }
+        return inclusive;
+    }
+}
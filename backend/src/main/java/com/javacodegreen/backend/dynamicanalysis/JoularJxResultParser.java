@@ -1,52 +1,177 @@
 package com.javacodegreen.backend.dynamicanalysis;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
+/**
+ * Reads a JoularJX result folder into a {@link JoularJxRun}. Every CSV is streamed line by
+ * line; method totals and call tree energies go into double columns, evolution samples into
+ * long/double columns, and runtime snapshots are only counted. Method and frame names are
+ * interned per parser, so a parser reused across the runs of a benchmark shares one copy of
+ * each name.
+ */
 public class JoularJxResultParser {
 
+    /** Where JoularJX reports its result folder; group 1 is the run id. */
+    public static final Pattern RUN_ID = Pattern.compile("joularjx-result/(\\S+)/");
+
+    private static final Pattern EVOLUTION_NAME = Pattern.compile("^(?:joularJX-\\d+-\\d+-)?(.+?)(?:-evolution)?$");
+
     private final String resultDir;
+    private final Map<String, String> names = new HashMap<>();
 
     public JoularJxResultParser(String resultDir) {
         this.resultDir = resultDir;
     }
 
-    public Map<String, Object> parse(String joularjxOutput) throws IOException {
-        Pattern pattern = Pattern.compile("joularjx-result/(\\S+)/");
-        Matcher matcher = pattern.matcher(joularjxOutput);
+    public JoularJxRun parse(String joularjxOutput, boolean includeRaw) throws IOException {
+        Matcher matcher = RUN_ID.matcher(joularjxOutput);
         if (!matcher.find()) {
             throw new RuntimeException("No runId found in JoularJX output");
         }
-        String runId = matcher.group(1);
+        return read(matcher.group(1), includeRaw);
+    }
 
-        Path resultPath = Paths.get(resultDir, runId);
-        Map<String, Object> results = new HashMap<>();
+    /**
+     * Read the CSV files JoularJX wrote for {@code runId}.
+     *
+     * @param includeRaw also keep each file's text, nested by folder, as the old response did
+     */
+    public JoularJxRun read(String runId, boolean includeRaw) throws IOException {
+        // the reported run id may carry a sub-folder; the run's own folder is its first segment
+        String id = runId.split("/", 2)[0];
+        Path resultPath = Paths.get(resultDir, id);
+        JoularJxRun run = new JoularJxRun(id);
+        Map<String, Object> raw = includeRaw ? new TreeMap<>() : null;
 
+        List<Path> csvs;
         try (Stream<Path> paths = Files.walk(resultPath)) {
-            paths.filter(Files::isRegularFile)
-                    .filter(p -> p.toString().endsWith(".csv"))
-                    .forEach(file -> {
-                        try {
-                            Path relative = resultPath.relativize(file);
-                            List<String> parts = StreamSupport.stream(relative.spliterator(), false)
-                                    .map(Path::toString)
-                                    .collect(Collectors.toList());
-
-                            String csvContent = Files.readString(file);
-                            insertNested(results, parts, csvContent);
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
-        }
-        results.put("runId", runId);
-        return results;
+            csvs = paths.filter(Files::isRegularFile).filter(p -> p.toString().endsWith(".csv")).sorted().toList();
+        }
+        for (Path csv : csvs) {
+            List<String> parts = new ArrayList<>();
+            resultPath.relativize(csv).forEach(p -> parts.add(p.toString()));
+            String rel = String.join("/", parts);
+            String lower = rel.toLowerCase(Locale.ROOT);
+            String scope = parts.size() > 1 ? parts.get(0) : "all";
+            boolean total = parts.contains("total");
+
+            String kind;
+            int rows;
+            if (lower.contains("calltree") || lower.contains("call-tree")) {
+                kind = "calltrees";
+                rows = total ? readCallTrees(csv, run.callTrees(scope)) : countRows(csv);
+            } else if (lower.contains("evolution")) {
+                kind = "evolution";
+                rows = readEvolution(csv, scope, run);
+            } else if (lower.contains("methods")) {
+                kind = "methods";
+                rows = total ? readMethods(csv, run.methods(scope)) : countRows(csv);
+            } else {
+                kind = "other";
+                rows = countRows(csv);
+            }
+            run.addFile(new JoularJxRun.CsvFile(rel, kind, Files.size(csv), rows));
+            if (raw != null) insertNested(raw, parts, Files.readString(csv));
+        }
+        if (raw != null) run.setRaw(raw);
+        return run;
+    }
+
+    private int readMethods(Path csv, MethodEnergyTable table) throws IOException {
+        int rows = 0;
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                int comma = line.lastIndexOf(',');
+                if (comma <= 0) continue;
+                double value = number(line, comma + 1);
+                if (Double.isNaN(value)) continue; // header or malformed line
+                table.add(intern(line.substring(0, comma).trim()), value);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private int readCallTrees(Path csv, JoularJxRun.CallTrees trees) throws IOException {
+        int rows = 0;
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                int comma = line.lastIndexOf(',');
+                if (comma <= 0) continue;
+                double value = number(line, comma + 1);
+                if (Double.isNaN(value)) continue;
+                String[] frames = line.substring(0, comma).split(";");
+                for (int i = 0; i < frames.length; i++) frames[i] = intern(frames[i].trim());
+                trees.add(frames, value);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private int readEvolution(Path csv, String scope, JoularJxRun run) throws IOException {
+        long[] timestamps = new long[64];
+        double[] power = new double[64];
+        int rows = 0;
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                int comma = line.indexOf(',');
+                if (comma <= 0) continue;
+                double value = number(line, comma + 1);
+                if (Double.isNaN(value)) continue;
+                long timestamp;
+                try {
+                    timestamp = Long.parseLong(line.substring(0, comma).trim());
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (rows == timestamps.length) {
+                    timestamps = Arrays.copyOf(timestamps, rows * 2);
+                    power = Arrays.copyOf(power, rows * 2);
+                }
+                timestamps[rows] = timestamp;
+                power[rows] = value;
+                rows++;
+            }
+        }
+        String file = csv.getFileName().toString().replaceFirst("\\.csv$", "");
+        Matcher m = EVOLUTION_NAME.matcher(file);
+        String method = intern(m.matches() ? m.group(1) : file);
+        run.addEvolution(new JoularJxRun.Evolution(scope, method, Arrays.copyOf(timestamps, rows), Arrays.copyOf(power, rows)));
+        return rows;
+    }
+
+    private static int countRows(Path csv) throws IOException {
+        int rows = 0;
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            while (in.readLine() != null) rows++;
+        }
+        return rows;
+    }
+
+    /**
+     * @return the number from {@code from} to the end of the line, or NaN when there is none
+     */
+    private static double number(String line, int from) {
+        try {
+            return Double.parseDouble(line.substring(from).trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private String intern(String name) {
+        return names.computeIfAbsent(name, n -> n);
     }
 
     @SuppressWarnings("unchecked")
@@ -56,7 +181,7 @@ public class JoularJxResultParser {
             if (i == keys.size() - 1) {
                 map.put(key, value);
             } else {
-                map = (Map<String, Object>) map.computeIfAbsent(key, k -> new HashMap<>());
+                map = (Map<String, Object>) map.computeIfAbsent(key, k -> new TreeMap<>());
             }
         }
     }
@@ -0,0 +1,247 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import java.util.*;
+
+/**
+ * Typed contents of one JoularJX result folder. Method totals are kept per scope ("app" for
+ * the monitored application, "all" for everything the JVM ran); evolution samples and call
+ * tree energies are held in primitive columns. Runtime snapshot files are only counted.
+ */
+public final class JoularJxRun {
+
+    /** One CSV file of the run and how much it held. */
+    public record CsvFile(String path, String kind, long bytes, int rows) {}
+
+    /**
+     * Samples of one method over time: at each epoch second, the energy JoularJX attributed to
+     * it in the monitoring cycle that ended then (one second long, so also its mean power).
+     */
+    public record Evolution(String scope, String method, long[] timestamps, double[] power) {
+
+        public double meanPower() {
+            double sum = 0;
+            for (double p : power) sum += p;
+            return power.length > 0 ? sum / power.length : 0;
+        }
+
+        public double peakPower() {
+            double max = 0;
+            for (double p : power) max = Math.max(max, p);
+            return max;
+        }
+    }
+
+    /** Call stacks as interned frames, root first, with the energy of each stack. */
+    public static final class CallTrees {
+        private final List<String[]> stacks = new ArrayList<>();
+        private double[] energy = new double[16];
+
+        void add(String[] frames, double joules) {
+            if (stacks.size() == energy.length) energy = Arrays.copyOf(energy, energy.length * 2);
+            energy[stacks.size()] = joules;
+            stacks.add(frames);
+        }
+
+        public int size() {
+            return stacks.size();
+        }
+
+        public String[] stack(int row) {
+            return stacks.get(row);
+        }
+
+        public double energy(int row) {
+            return energy[row];
+        }
+
+        public double total() {
+            double sum = 0;
+            for (int i = 0; i < stacks.size(); i++) sum += energy[i];
+            return sum;
+        }
+    }
+
+    private final String runId;
+    private final Map<String, MethodEnergyTable> methods = new TreeMap<>();
+    private final Map<String, CallTrees> callTrees = new TreeMap<>();
+    private final List<Evolution> evolution = new ArrayList<>();
+    private final List<CsvFile> files = new ArrayList<>();
+    private Map<String, Object> raw;
+    private Map<String, Object> measurement;
+
+    JoularJxRun(String runId) {
+        this.runId = runId;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    /**
+     * @return method totals of {@code scope}, created empty when absent
+     */
+    MethodEnergyTable methods(String scope) {
+        return methods.computeIfAbsent(scope, s -> new MethodEnergyTable());
+    }
+
+    CallTrees callTrees(String scope) {
+        return callTrees.computeIfAbsent(scope, s -> new CallTrees());
+    }
+
+    /**
+     * @return the scope results are reported for: "app" when JoularJX wrote it, else "all"
+     */
+    public String primaryScope() {
+        if (methods.containsKey("app") || callTrees.containsKey("app")) return "app";
+        if (methods.containsKey("all") || callTrees.containsKey("all")) return "all";
+        return methods.isEmpty() ? "app" : methods.keySet().iterator().next();
+    }
+
+    /**
+     * @return total energy per method in joules, for the primary scope
+     */
+    public MethodEnergyTable getMethods() {
+        return methods.getOrDefault(primaryScope(), new MethodEnergyTable());
+    }
+
+    public Map<String, MethodEnergyTable> getMethodsByScope() {
+        return Collections.unmodifiableMap(methods);
+    }
+
+    /**
+     * @return call stacks of the primary scope; empty when JoularJX wrote no call trees
+     */
+    public CallTrees getCallTrees() {
+        return callTrees.getOrDefault(primaryScope(), new CallTrees());
+    }
+
+    public List<Evolution> getEvolution() {
+        return Collections.unmodifiableList(evolution);
+    }
+
+    /**
+     * The part of this run sampled between two epoch seconds: method totals of the primary
+     * scope are summed from the evolution samples taken from {@code fromSecond} to
+     * {@code toSecond}, inclusive, and only those samples are kept. Call trees carry no
+     * timestamps and are left out; files and the measurement are kept as they are.
+     *
+     * @throws IllegalStateException when JoularJX wrote no evolution samples for the scope
+     *                               ({@code track-consumption-evolution} is off)
+     */
+    public JoularJxRun within(long fromSecond, long toSecond) {
+        String scope = primaryScope();
+        JoularJxRun cut = new JoularJxRun(runId);
+        MethodEnergyTable table = cut.methods(scope);
+        boolean sampled = false;
+        for (Evolution e : evolution) {
+            if (!e.scope().equals(scope)) continue;
+            sampled = true;
+            long[] timestamps = new long[e.timestamps().length];
+            double[] power = new double[timestamps.length];
+            int kept = 0;
+            double joules = 0;
+            for (int i = 0; i < timestamps.length; i++) {
+                long t = e.timestamps()[i];
+                if (t < fromSecond || t > toSecond) continue;
+                timestamps[kept] = t;
+                power[kept++] = e.power()[i];
+                joules += e.power()[i];
+            }
+            if (kept > 0) table.add(e.method(), joules);
+            cut.addEvolution(new Evolution(scope, e.method(), Arrays.copyOf(timestamps, kept), Arrays.copyOf(power, kept)));
+        }
+        if (!sampled) {
+            throw new IllegalStateException("JoularJX wrote no consumption evolution for run " + runId
+                    + "; the measured window cannot be cut without track-consumption-evolution");
+        }
+        cut.files.addAll(files);
+        cut.measurement = measurement;
+        return cut;
+    }
+
+    void addEvolution(Evolution series) {
+        evolution.add(series);
+    }
+
+    public List<CsvFile> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    void addFile(CsvFile file) {
+        files.add(file);
+    }
+
+    void setRaw(Map<String, Object> raw) {
+        this.raw = raw;
+    }
+
+    /**
+     * @return how the run went (exit code, wall and CPU millis), or null when not recorded
+     */
+    public Map<String, Object> getMeasurement() {
+        return measurement;
+    }
+
+    void setMeasurement(Map<String, Object> measurement) {
+        this.measurement = measurement;
+    }
+
+    /**
+     * Response shape: per-method totals, the {@code topN} hottest methods with their share,
+     * per-scope and per-file sizes, evolution summaries and the raw CSV text if it was read.
+     */
+    public Map<String, Object> describe(int topN) {
+        String scope = primaryScope();
+        MethodEnergyTable table = getMethods();
+        double total = table.total();
+        int[] order = table.byEnergy();
+
+        List<Map<String, Object>> all = new ArrayList<>(order.length);
+        List<Map<String, Object>> top = new ArrayList<>();
+        for (int row : order) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("method", table.name(row));
+            m.put("energy", table.energy(row));
+            all.add(m);
+            if (top.size() < topN) {
+                Map<String, Object> hot = new LinkedHashMap<>(m);
+                hot.put("share", total > 0 ? table.energy(row) / total : 0);
+                top.add(hot);
+            }
+        }
+
+        Map<String, Object> scopes = new LinkedHashMap<>();
+        methods.forEach((name, t) -> scopes.put(name, Map.of("methods", t.size(), "energy", t.total())));
+
+        List<Map<String, Object>> series = new ArrayList<>(evolution.size());
+        for (Evolution e : evolution) {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("method", e.method());
+            s.put("samples", e.power().length);
+            s.put("meanPower", e.meanPower());
+            s.put("peakPower", e.peakPower());
+            series.add(s);
+        }
+
+        long bytes = 0;
+        long rows = 0;
+        for (CsvFile f : files) {
+            bytes += f.bytes();
+            rows += f.rows();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("runId", runId);
+        result.put("scope", scope);
+        result.put("totalEnergy", total);
+        result.put("topMethods", top);
+        result.put("methods", all);
+        result.put("scopes", scopes);
+        if (!series.isEmpty()) result.put("evolution", series);
+        result.put("files", files);
+        result.put("sizes", Map.of("files", files.size(), "bytes", bytes, "rows", rows));
+        if (raw != null) result.put("raw", raw);
+        if (measurement != null) result.put("measurement", measurement);
+        return result;
+    }
+}
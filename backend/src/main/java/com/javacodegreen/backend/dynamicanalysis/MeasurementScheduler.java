@@ -0,0 +1,228 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs measurement processes one (or a configured few) at a time. Concurrent JoularJX runs
+ * read the same RAPL counters and skew each other's power readings, so callers queue on a
+ * fair semaphore instead of starting their child JVMs side by side.
+ *
+ * Each run is bounded by a wall-clock and a CPU-time limit; on either the whole process tree
+ * is killed. Output is read line by line into a bounded tail buffer, and the JoularJX run id
+ * is picked up from the first line that names it. On Linux the child can be pinned to fixed
+ * CPUs with taskset.
+ */
+public class MeasurementScheduler {
+
+    private static final Pattern RUN_ID = JoularJxResultParser.RUN_ID;
+
+    private static final long POLL_MILLIS = 100;
+
+    /** How one run ended and what it printed. */
+    public record Outcome(int exitCode, String runId, List<String> output, int droppedLines,
+                          long queuedMillis, long wallMillis, long cpuMillis, String cpuAffinity) {
+
+        public String outputText() {
+            return String.join("\n", output);
+        }
+
+        public Map<String, Object> describe() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("exitCode", exitCode);
+            m.put("queuedMillis", queuedMillis);
+            m.put("wallMillis", wallMillis);
+            m.put("cpuMillis", cpuMillis);
+            m.put("outputLines", output.size() + droppedLines);
+            if (droppedLines > 0) m.put("droppedLines", droppedLines);
+            if (cpuAffinity != null) m.put("cpuAffinity", cpuAffinity);
+            return m;
+        }
+    }
+
+    private final Semaphore permits;
+    private final int concurrency;
+    private final Duration wallTimeout;
+    private final Duration cpuTimeout;
+    private final int maxOutputLines;
+    private final String cpuAffinity;
+
+    /**
+     * @param concurrency    measurements allowed at once
+     * @param wallTimeout    wall-clock limit per run; zero for none
+     * @param cpuTimeout     CPU time limit per run, summed over the process tree; zero for none
+     * @param maxOutputLines lines of output kept, the most recent ones
+     * @param cpuAffinity    taskset CPU list such as "2" or "2-3", or null to leave the child unpinned
+     */
+    public MeasurementScheduler(int concurrency, Duration wallTimeout, Duration cpuTimeout, int maxOutputLines,
+                                String cpuAffinity) {
+        this.concurrency = Math.max(1, concurrency);
+        this.permits = new Semaphore(this.concurrency, true);
+        this.wallTimeout = wallTimeout;
+        this.cpuTimeout = cpuTimeout;
+        this.maxOutputLines = Math.max(1, maxOutputLines);
+        this.cpuAffinity = cpuAffinity == null || cpuAffinity.isBlank() ? null : pinnable(cpuAffinity.trim());
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @return runs waiting for a slot
+     */
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Wait for a slot, then run {@code command} to completion or until a limit is hit.
+     *
+     * @throws MeasurementTimeoutException when a limit was hit; the process tree is already dead
+     * @throws InterruptedException        when the caller is interrupted; the process tree is killed
+     */
+    public Outcome run(List<String> command, Path workDir) throws IOException, InterruptedException {
+        long queuedAt = System.nanoTime();
+        permits.acquire();
+        try {
+            long queuedMillis = (System.nanoTime() - queuedAt) / 1_000_000;
+            List<String> full = new ArrayList<>();
+            if (cpuAffinity != null) full.addAll(List.of("taskset", "-c", cpuAffinity));
+            full.addAll(command);
+
+            ProcessBuilder builder = new ProcessBuilder(full).redirectErrorStream(true);
+            if (workDir != null) builder.directory(workDir.toFile());
+            long start = System.nanoTime();
+            Process process = builder.start();
+            OutputTail tail = new OutputTail(maxOutputLines);
+            Thread reader = new Thread(() -> tail.drain(process), "measurement-output-" + process.pid());
+            reader.setDaemon(true);
+            reader.start();
+
+            long[] cpu = new long[1];
+            try {
+                String limit = awaitExit(process, start, cpu);
+                reader.join(TimeUnit.SECONDS.toMillis(5));
+                long wallMillis = (System.nanoTime() - start) / 1_000_000;
+                if (limit != null) {
+                    throw new MeasurementTimeoutException(limit + "; last output:\n" + String.join("\n", tail.last(20)));
+                }
+                return new Outcome(process.exitValue(), tail.runId(), tail.lines(), tail.dropped(),
+                        queuedMillis, wallMillis, cpu[0], cpuAffinity);
+            } finally {
+                if (process.isAlive()) kill(process);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Poll the process until it exits, sampling its CPU time into {@code cpu[0]}.
+     *
+     * @return null on a normal exit, otherwise which limit was hit (the tree has been killed)
+     */
+    private String awaitExit(Process process, long start, long[] cpu) throws InterruptedException {
+        long wallLimit = wallTimeout.isZero() ? Long.MAX_VALUE : wallTimeout.toNanos();
+        long cpuLimit = cpuTimeout.isZero() ? Long.MAX_VALUE : cpuTimeout.toMillis();
+        try {
+            while (!process.waitFor(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (System.nanoTime() - start > wallLimit) {
+                    kill(process);
+                    return "wall-clock limit of " + wallTimeout.toSeconds() + "s exceeded";
+                }
+                cpu[0] = Math.max(cpu[0], cpuMillis(process));
+                if (cpu[0] > cpuLimit) {
+                    kill(process);
+                    return "CPU time limit of " + cpuTimeout.toSeconds() + "s exceeded";
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            kill(process);
+            throw e;
+        }
+    }
+
+    private static long cpuMillis(Process process) {
+        long total = process.info().totalCpuDuration().map(Duration::toMillis).orElse(0L);
+        total += process.descendants()
+                .mapToLong(p -> p.info().totalCpuDuration().map(Duration::toMillis).orElse(0L))
+                .sum();
+        return total;
+    }
+
+    private static void kill(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private static String pinnable(String cpus) {
+        if (!cpus.matches("[0-9,\\-]+")) {
+            throw new IllegalArgumentException("Invalid CPU list: " + cpus);
+        }
+        boolean taskset = Arrays.stream(System.getenv().getOrDefault("PATH", "").split(java.io.File.pathSeparator))
+                .anyMatch(dir -> Files.isExecutable(Path.of(dir, "taskset")));
+        if (!taskset) {
+            System.err.println("⚠️ taskset not found; measurements will not be pinned to CPUs " + cpus);
+            return null;
+        }
+        return cpus;
+    }
+
+    /** Bounded tail of a process's output; also notes the run id. */
+    private static final class OutputTail {
+        private final int max;
+        private final ArrayDeque<String> lines = new ArrayDeque<>();
+        private int dropped;
+        private String runId;
+
+        OutputTail(int max) {
+            this.max = max;
+        }
+
+        void drain(Process process) {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    add(line);
+                }
+            } catch (IOException ignored) {
+                // the stream closes when the process is killed
+            }
+        }
+
+        private synchronized void add(String line) {
+            if (runId == null) {
+                Matcher m = RUN_ID.matcher(line);
+                if (m.find()) runId = m.group(1);
+            }
+            if (lines.size() == max) {
+                lines.removeFirst();
+                dropped++;
+            }
+            lines.addLast(line);
+        }
+
+        synchronized String runId() { return runId; }
+
+        synchronized List<String> lines() { return List.copyOf(lines); }
+
+        synchronized int dropped() { return dropped; }
+
+        synchronized List<String> last(int n) {
+            List<String> all = new ArrayList<>(lines);
+            return all.subList(Math.max(0, all.size() - n), all.size());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+/**
+ * A measurement run hit its wall-clock or CPU time limit and was killed.
+ */
+public class MeasurementTimeoutException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public MeasurementTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,74 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import java.util.*;
+
+/**
+ * Energy per method as two parallel columns: interned names and a {@code double[]} of joules.
+ * A method reported more than once (e.g. by several total files) is summed into one row.
+ */
+public final class MethodEnergyTable {
+
+    private String[] names = new String[16];
+    private double[] energy = new double[16];
+    private int size;
+    private final Map<String, Integer> rows = new HashMap<>();
+
+    public void add(String name, double joules) {
+        Integer row = rows.get(name);
+        if (row != null) {
+            energy[row] += joules;
+            return;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            energy = Arrays.copyOf(energy, size * 2);
+        }
+        names[size] = name;
+        energy[size] = joules;
+        rows.put(name, size++);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String name(int row) {
+        return names[row];
+    }
+
+    public double energy(int row) {
+        return energy[row];
+    }
+
+    /**
+     * @return the method's energy, or 0 when it was not reported
+     */
+    public double energyOf(String name) {
+        Integer row = rows.get(name);
+        return row != null ? energy[row] : 0;
+    }
+
+    public double total() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) sum += energy[i];
+        return sum;
+    }
+
+    /**
+     * @return row indexes by energy, highest first
+     */
+    public int[] byEnergy() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(energy[b], energy[a]));
+        int[] rowsByEnergy = new int[size];
+        for (int i = 0; i < size; i++) rowsByEnergy[i] = order[i];
+        return rowsByEnergy;
+    }
+
+    public Map<String, Double> toMap() {
+        Map<String, Double> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) map.put(names[i], energy[i]);
+        return map;
+    }
+}
@@ -0,0 +1,75 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import java.util.*;
+
+/**
+ * Summary statistics of repeated measurements: mean, median, sample standard deviation, a
+ * 95% confidence interval of the mean (Student's t) and the samples outside Tukey's fences
+ * (1.5 IQR beyond the quartiles).
+ */
+public record SampleStats(int n, double mean, double median, double stddev, double ciLow, double ciHigh,
+                          double min, double max, List<Integer> outliers) {
+
+    // two-sided 95% t quantiles for 1..30 degrees of freedom
+    private static final double[] T95 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+
+    /**
+     * @param samples one value per measured run, in run order; outliers are reported as run indexes
+     */
+    public static SampleStats of(double[] samples) {
+        int n = samples.length;
+        if (n == 0) return new SampleStats(0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+                Double.NaN, Double.NaN, List.of());
+
+        double sum = 0;
+        for (double v : samples) sum += v;
+        double mean = sum / n;
+        double sq = 0;
+        for (double v : samples) sq += (v - mean) * (v - mean);
+        double stddev = n > 1 ? Math.sqrt(sq / (n - 1)) : 0;
+        double half = n > 1 ? t95(n - 1) * stddev / Math.sqrt(n) : 0;
+
+        double[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        double q1 = quantile(sorted, 0.25);
+        double q3 = quantile(sorted, 0.75);
+        double iqr = q3 - q1;
+        List<Integer> outliers = new ArrayList<>();
+        if (n >= 4) {
+            for (int i = 0; i < n; i++) {
+                if (samples[i] < q1 - 1.5 * iqr || samples[i] > q3 + 1.5 * iqr) outliers.add(i);
+            }
+        }
+        return new SampleStats(n, mean, quantile(sorted, 0.5), stddev, mean - half, mean + half,
+                sorted[0], sorted[n - 1], List.copyOf(outliers));
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("n", n);
+        m.put("mean", mean);
+        m.put("median", median);
+        m.put("stddev", stddev);
+        m.put("ci95", List.of(ciLow, ciHigh));
+        m.put("min", min);
+        m.put("max", max);
+        if (!outliers.isEmpty()) m.put("outlierRuns", outliers);
+        return m;
+    }
+
+    private static double t95(int df) {
+        return df <= T95.length ? T95[df - 1] : 1.96;
+    }
+
+    /** Linear interpolation between closest ranks. */
+    private static double quantile(double[] sorted, double q) {
+        double pos = q * (sorted.length - 1);
+        int lo = (int) Math.floor(pos);
+        int hi = (int) Math.ceil(pos);
+        return sorted[lo] + (sorted[hi] - sorted[lo]) * (pos - lo);
+    }
+}
@@ -0,0 +1,122 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Compiles uploaded sources in-process through {@link javax.tools.JavaCompiler}, so there is
+ * no compiler JVM to start per upload and the classes are complete once {@link #compile}
+ * returns. Each worker thread keeps its own {@link StandardJavaFileManager}, which is closed
+ * after every compilation: javac would otherwise hold each uploaded jar open long after its
+ * workspace was deleted. A closed file manager reopens what it needs on the next compilation,
+ * so only its platform setup is shared between uploads.
+ */
+public class SourceCompiler {
+
+    public static final int MAX_DIAGNOSTICS = 100;
+
+    private final JavaCompiler compiler;
+    private final List<Path> extraClasspath;
+    private final ThreadLocal<StandardJavaFileManager> fileManagers;
+
+    /**
+     * @param extraClasspath entries added to every compilation, e.g. shared libraries
+     */
+    public SourceCompiler(List<Path> extraClasspath) {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        this.extraClasspath = List.copyOf(extraClasspath);
+        this.fileManagers = ThreadLocal.withInitial(() ->
+                compiler.getStandardFileManager(null, Locale.ROOT, StandardCharsets.UTF_8));
+    }
+
+    public boolean isAvailable() {
+        return compiler != null;
+    }
+
+    /**
+     * Compile every .java file below {@code sourceDir} into {@code classesDir}. Jars found
+     * below {@code sourceDir} (e.g. an uploaded lib/ folder) are put on the classpath.
+     *
+     * @return the outcome with compiler diagnostics; never throws for compile errors
+     * @throws IllegalStateException when running on a JRE without a system compiler
+     */
+    public CompilationResult compile(Path sourceDir, Path classesDir) throws IOException {
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler; run the backend on a JDK");
+        }
+        long start = System.nanoTime();
+        List<Path> sources = new ArrayList<>();
+        List<Path> classpath = new ArrayList<>(classpathOf(sourceDir));
+        classpath.add(0, classesDir);
+
+        try (Stream<Path> files = Files.walk(sourceDir)) {
+            files.filter(Files::isRegularFile).filter(p -> p.toString().endsWith(".java")).sorted().forEach(sources::add);
+        }
+        Files.createDirectories(classesDir);
+
+        CompilationResult result = new CompilationResult();
+        result.setSources(sources.size());
+        result.setClasspath(classpath.stream().map(Path::toString).toList());
+        if (sources.isEmpty()) {
+            result.setSuccess(false);
+            result.setDiagnostics(List.of(Map.of("kind", "ERROR", "message", "no .java sources to compile")));
+            return result;
+        }
+
+        StandardJavaFileManager fileManager = fileManagers.get();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StringWriter out = new StringWriter();
+        try {
+            fileManager.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, List.of(classesDir));
+            fileManager.setLocationFromPaths(StandardLocation.CLASS_PATH, classpath);
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromPaths(sources);
+            boolean ok = compiler.getTask(out, fileManager, diagnostics, List.of("-proc:none", "-g"), null, units).call();
+            result.setSuccess(ok);
+        } finally {
+            // releases the classpath archives; the file manager is reused for the next compilation
+            fileManager.close();
+        }
+
+        List<Map<String, Object>> reported = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (reported.size() >= MAX_DIAGNOSTICS) break;
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("kind", d.getKind().name());
+            if (d.getSource() != null) entry.put("file", relative(sourceDir, d.getSource()));
+            if (d.getLineNumber() != Diagnostic.NOPOS) entry.put("line", d.getLineNumber());
+            if (d.getColumnNumber() != Diagnostic.NOPOS) entry.put("column", d.getColumnNumber());
+            entry.put("message", d.getMessage(Locale.ROOT));
+            reported.add(entry);
+        }
+        result.setDiagnostics(reported);
+        result.setMillis((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * @return the configured extra entries plus every jar below {@code sourceDir}
+     */
+    public List<Path> classpathOf(Path sourceDir) throws IOException {
+        List<Path> classpath = new ArrayList<>(extraClasspath);
+        try (Stream<Path> files = Files.walk(sourceDir)) {
+            files.filter(p -> p.toString().endsWith(".jar") && Files.isRegularFile(p)).sorted().forEach(classpath::add);
+        }
+        return classpath;
+    }
+
+    private static String relative(Path root, JavaFileObject source) {
+        try {
+            Path file = Path.of(source.toUri());
+            Path base = root.toAbsolutePath().normalize();
+            return file.startsWith(base) ? base.relativize(file).toString().replace('\\', '/') : file.toString();
+        } catch (RuntimeException e) {
+            return source.getName();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Main class of a benchmark run with warmup iterations: calls the measured class's
+ * {@code main} {@code warmups} times, then once more, and writes when that last call started
+ * and ended (epoch millis) and the process CPU time it used to the window file, so the run's
+ * JoularJX samples can be cut to it. It runs in the child JVM from a copy of its class file,
+ * so it uses nothing but the JDK.
+ *
+ * Arguments: {@code <window file> <warmups> <main class> [program arguments...]}
+ */
+public final class WarmupHarness {
+
+    private WarmupHarness() {}
+
+    public static void main(String[] args) throws Throwable {
+        Path window = Path.of(args[0]);
+        int warmups = Integer.parseInt(args[1]);
+        Method main = Class.forName(args[2]).getMethod("main", String[].class);
+        String[] programArgs = Arrays.copyOfRange(args, 3, args.length);
+
+        for (int i = 0; i < warmups; i++) invoke(main, programArgs);
+        long cpuBefore = processCpuNanos();
+        long start = System.currentTimeMillis();
+        invoke(main, programArgs);
+        long end = System.currentTimeMillis();
+        long cpuAfter = processCpuNanos();
+        long cpuMillis = cpuBefore >= 0 && cpuAfter >= 0 ? (cpuAfter - cpuBefore) / 1_000_000 : -1;
+        Files.writeString(window, start + " " + end + " " + cpuMillis);
+    }
+
+    private static void invoke(Method main, String[] args) throws Throwable {
+        try {
+            main.invoke(null, (Object) args.clone());
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return CPU time of the whole process in nanoseconds, or -1 when the JVM does not report it
+     */
+    private static long processCpuNanos() {
+        return ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os
+                ? os.getProcessCpuTime() : -1;
+    }
+}
@@ -0,0 +1,306 @@
+package com.javacodegreen.backend.energy;
+
+import com.javacodegreen.backend.dynamicanalysis.MethodEnergyTable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Append-only store of per-method energy across measured runs, keyed by project, commit and
+ * method. Four files, all only ever appended to:
+ * <ul>
+ *   <li>{@code strings.dat}: project, commit, run and method names, as [length][UTF-8]; an
+ *       entry's ordinal is its id</li>
+ *   <li>{@code runs.dat}: one fixed 32-byte record per run — project, commit, run name, row
+ *       count, timestamp and first row</li>
+ *   <li>{@code methods.col} / {@code energy.col}: one int method id and one double of joules
+ *       per row, the rows of a run being contiguous</li>
+ * </ul>
+ * Columns are written before the run record that covers them, so a crash leaves at most
+ * uncovered rows, which are cut off on the next open. Queries read the files through
+ * memory-mapped buffers that are remapped only after appends.
+ */
+public class EnergyStore implements Closeable {
+
+    private static final int RUN_BYTES = 32;
+
+    /** One stored run. */
+    public record Run(int index, String project, String commit, String runId, Instant recordedAt,
+                      long firstRow, int rows) {}
+
+    /** One run's energy for a trend: the total, or a single method's. */
+    public record Point(String runId, String commit, Instant recordedAt, double energy) {}
+
+    /** A method whose mean energy grew between two commits. */
+    public record Regression(String method, double baseMean, double headMean, double changePercent,
+                             int baseRuns, int headRuns) {}
+
+    private final FileChannel strings;
+    private final FileChannel runs;
+    private final FileChannel methods;
+    private final FileChannel energy;
+
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private long stringsEnd;
+    private int runCount;
+    private long rowCount;
+
+    private MappedByteBuffer runsMap;
+    private MappedByteBuffer methodsMap;
+    private MappedByteBuffer energyMap;
+    private int mappedRuns = -1;
+
+    public EnergyStore(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        this.strings = open(dir.resolve("strings.dat"));
+        this.runs = open(dir.resolve("runs.dat"));
+        this.methods = open(dir.resolve("methods.col"));
+        this.energy = open(dir.resolve("energy.col"));
+        recover();
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Load the dictionary and cut off anything a crashed append left behind.
+     */
+    private void recover() throws IOException {
+        long size = strings.size();
+        ByteBuffer all = size > 0 ? strings.map(FileChannel.MapMode.READ_ONLY, 0, size) : ByteBuffer.allocate(0);
+        while (all.remaining() >= 4) {
+            int length = all.getInt(all.position());
+            if (length < 0 || all.remaining() < 4 + length) break;
+            all.position(all.position() + 4);
+            byte[] bytes = new byte[length];
+            all.get(bytes);
+            String name = new String(bytes, StandardCharsets.UTF_8);
+            ids.put(name, names.size());
+            names.add(name);
+        }
+        stringsEnd = all.position();
+        strings.truncate(stringsEnd);
+
+        runCount = (int) (runs.size() / RUN_BYTES);
+        runs.truncate((long) runCount * RUN_BYTES);
+        if (runCount > 0) {
+            ByteBuffer last = ByteBuffer.allocate(RUN_BYTES);
+            runs.read(last, (long) (runCount - 1) * RUN_BYTES);
+            rowCount = last.getLong(24) + last.getInt(12);
+        }
+        if (methods.size() < rowCount * 4 || energy.size() < rowCount * 8) {
+            throw new IOException("Energy store columns are shorter than its run index; it is damaged");
+        }
+        methods.truncate(rowCount * 4);
+        energy.truncate(rowCount * 8);
+    }
+
+    /**
+     * Append one run's per-method energy.
+     */
+    public synchronized Run append(String project, String commit, String runId, Instant recordedAt,
+                                   MethodEnergyTable table) throws IOException {
+        int projectId = id(project);
+        int commitId = id(commit);
+        int runNameId = id(runId);
+        int n = table.size();
+        ByteBuffer methodColumn = ByteBuffer.allocate(n * 4);
+        ByteBuffer energyColumn = ByteBuffer.allocate(n * 8);
+        for (int i = 0; i < n; i++) {
+            methodColumn.putInt(id(table.name(i)));
+            energyColumn.putDouble(table.energy(i));
+        }
+        writeFully(methods, methodColumn.flip(), rowCount * 4);
+        writeFully(energy, energyColumn.flip(), rowCount * 8);
+
+        ByteBuffer record = ByteBuffer.allocate(RUN_BYTES);
+        record.putInt(projectId).putInt(commitId).putInt(runNameId).putInt(n)
+                .putLong(recordedAt.toEpochMilli()).putLong(rowCount);
+        writeFully(runs, record.flip(), (long) runCount * RUN_BYTES);
+
+        Run run = new Run(runCount, project, commit, runId, Instant.ofEpochMilli(recordedAt.toEpochMilli()), rowCount, n);
+        rowCount += n;
+        runCount++;
+        return run;
+    }
+
+    public synchronized int size() {
+        return runCount;
+    }
+
+    /**
+     * @return run counts per project, by project name
+     */
+    public synchronized Map<String, Integer> projects() throws IOException {
+        map();
+        Map<String, Integer> counts = new TreeMap<>();
+        for (int r = 0; r < runCount; r++) {
+            counts.merge(names.get(runsMap.getInt(r * RUN_BYTES)), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * @return the project's runs in the order they were recorded
+     */
+    public synchronized List<Run> runs(String project) throws IOException {
+        Integer projectId = ids.get(project);
+        if (projectId == null) return List.of();
+        map();
+        List<Run> result = new ArrayList<>();
+        for (int r = 0; r < runCount; r++) {
+            if (runsMap.getInt(r * RUN_BYTES) == projectId) result.add(run(r));
+        }
+        return result;
+    }
+
+    /**
+     * Energy of every run of {@code project}, oldest first.
+     *
+     * @param method a method name, or null for the run's total
+     */
+    public synchronized List<Point> trend(String project, String method) throws IOException {
+        Integer methodId = method != null ? ids.get(method) : null;
+        List<Point> points = new ArrayList<>();
+        for (Run run : runs(project)) {
+            double value = method == null ? total(run) : methodId != null ? energyOf(run, methodId) : 0;
+            points.add(new Point(run.runId(), run.commit(), run.recordedAt(), value));
+        }
+        return points;
+    }
+
+    /**
+     * Methods whose mean energy over the runs of {@code head} exceeds their mean over the runs
+     * of {@code base} by more than {@code thresholdPercent}. A method missing from a run counts
+     * as zero in that run; methods absent from {@code base} are not reported. Largest change first.
+     *
+     * @throws IllegalArgumentException when either commit has no runs for the project
+     */
+    public synchronized List<Regression> regressions(String project, String base, String head,
+                                                     double thresholdPercent) throws IOException {
+        List<Run> all = runs(project);
+        List<Run> baseRuns = all.stream().filter(r -> r.commit().equals(base)).toList();
+        List<Run> headRuns = all.stream().filter(r -> r.commit().equals(head)).toList();
+        if (baseRuns.isEmpty() || headRuns.isEmpty()) {
+            throw new IllegalArgumentException("No runs of " + project + " at " + (baseRuns.isEmpty() ? base : head));
+        }
+        Map<Integer, Double> before = means(baseRuns);
+        Map<Integer, Double> after = means(headRuns);
+
+        List<Regression> regressions = new ArrayList<>();
+        for (Map.Entry<Integer, Double> e : before.entrySet()) {
+            double baseMean = e.getValue();
+            double headMean = after.getOrDefault(e.getKey(), 0.0);
+            if (baseMean <= 0) continue;
+            double change = (headMean - baseMean) / baseMean * 100;
+            if (change > thresholdPercent) {
+                regressions.add(new Regression(names.get(e.getKey()), baseMean, headMean, change,
+                        baseRuns.size(), headRuns.size()));
+            }
+        }
+        regressions.sort(Comparator.comparingDouble(Regression::changePercent).reversed());
+        return regressions;
+    }
+
+    /**
+     * Mean energy per method over the runs of {@code project} at {@code commit}, or over all
+     * of the project's runs when {@code commit} is null. A method missing from a run counts as zero.
+     *
+     * @throws IllegalArgumentException when there are no such runs
+     */
+    public synchronized MethodEnergyTable methodMeans(String project, String commit) throws IOException {
+        List<Run> selected = runs(project).stream().filter(r -> commit == null || r.commit().equals(commit)).toList();
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("No runs of " + project + (commit != null ? " at " + commit : ""));
+        }
+        MethodEnergyTable table = new MethodEnergyTable();
+        means(selected).forEach((id, mean) -> table.add(names.get(id), mean));
+        return table;
+    }
+
+    private Map<Integer, Double> means(List<Run> runs) {
+        Map<Integer, Double> sums = new HashMap<>();
+        for (Run run : runs) {
+            for (long row = run.firstRow(); row < run.firstRow() + run.rows(); row++) {
+                sums.merge(methodsMap.getInt((int) (row * 4)), energyMap.getDouble((int) (row * 8)), Double::sum);
+            }
+        }
+        sums.replaceAll((id, sum) -> sum / runs.size());
+        return sums;
+    }
+
+    private double total(Run run) {
+        double sum = 0;
+        for (long row = run.firstRow(); row < run.firstRow() + run.rows(); row++) {
+            sum += energyMap.getDouble((int) (row * 8));
+        }
+        return sum;
+    }
+
+    private double energyOf(Run run, int methodId) {
+        double sum = 0;
+        for (long row = run.firstRow(); row < run.firstRow() + run.rows(); row++) {
+            if (methodsMap.getInt((int) (row * 4)) == methodId) sum += energyMap.getDouble((int) (row * 8));
+        }
+        return sum;
+    }
+
+    private Run run(int r) {
+        int at = r * RUN_BYTES;
+        return new Run(r, names.get(runsMap.getInt(at)), names.get(runsMap.getInt(at + 4)),
+                names.get(runsMap.getInt(at + 8)), Instant.ofEpochMilli(runsMap.getLong(at + 16)),
+                runsMap.getLong(at + 24), runsMap.getInt(at + 12));
+    }
+
+    /**
+     * (Re)map the files after appends. Single mappings limit the store to 2 GB per file,
+     * about 268 million rows.
+     */
+    private void map() throws IOException {
+        if (mappedRuns == runCount) return;
+        if (rowCount * 8 > Integer.MAX_VALUE) {
+            throw new IOException("Energy store exceeds 2 GB per column");
+        }
+        runsMap = runs.map(FileChannel.MapMode.READ_ONLY, 0, (long) runCount * RUN_BYTES);
+        methodsMap = methods.map(FileChannel.MapMode.READ_ONLY, 0, rowCount * 4);
+        energyMap = energy.map(FileChannel.MapMode.READ_ONLY, 0, rowCount * 8);
+        mappedRuns = runCount;
+    }
+
+    private int id(String name) throws IOException {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer entry = ByteBuffer.allocate(4 + bytes.length).putInt(bytes.length).put(bytes).flip();
+        writeFully(strings, entry, stringsEnd);
+        stringsEnd += 4 + bytes.length;
+        ids.put(name, names.size());
+        names.add(name);
+        return names.size() - 1;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        strings.close();
+        runs.close();
+        methods.close();
+        energy.close();
+    }
+}
@@ -0,0 +1,197 @@
+package com.javacodegreen.backend.job;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.javacodegreen.backend.dynamicanalysis.BenchmarkOptions;
+import com.javacodegreen.backend.dynamicanalysis.CompilationResult;
+import com.javacodegreen.backend.dynamicanalysis.EnergyCallTree;
+import com.javacodegreen.backend.rewrite.FixReport;
+import com.javacodegreen.backend.staticanalysis.AnalysisOptions;
+import com.javacodegreen.backend.staticanalysis.AnalysisResult;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * One queued upload: its inputs, where it is in the pipeline and, once finished, its results.
+ * State changes are synchronized because the worker threads and the cancel endpoint race.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AnalysisJob {
+    private final String jobId;
+    private final String projectName;
+    private final String commitId;
+    private final Path workspace;
+    private final Path sourcePath;
+    private final String className;
+    private final AnalysisOptions options;
+    private final Instant submittedAt = Instant.now();
+
+    private JobStatus status = JobStatus.QUEUED;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private AnalysisResult staticAnalysis;
+    private BenchmarkOptions benchmark;
+    private boolean rawResults;
+    private boolean resolveTypes;
+    private boolean applyFixes;
+    private FixReport fixes;
+    private CompilationResult compilation;
+    private Map<String, Object> dynamicAnalysis;
+    private EnergyCallTree callTree;
+    private Map<String, Object> hotspots;
+    private String error;
+    private Future<?> future;
+    private boolean retired;
+    private FindingStore findingStore;
+
+    public AnalysisJob(String jobId, String projectName, String commitId, Path workspace, Path sourcePath,
+                       String className, AnalysisOptions options) {
+        this.jobId = jobId;
+        this.projectName = projectName;
+        this.commitId = commitId;
+        this.workspace = workspace;
+        this.sourcePath = sourcePath;
+        this.className = className;
+        this.options = options;
+    }
+
+    /**
+     * Move to the next pipeline stage.
+     *
+     * @return false when the job already reached a terminal state (e.g. it was cancelled)
+     */
+    synchronized boolean moveTo(JobStatus next) {
+        if (status.isTerminal()) return false;
+        if (startedAt == null && next != JobStatus.QUEUED) startedAt = Instant.now();
+        status = next;
+        if (next.isTerminal()) {
+            finishedAt = Instant.now();
+            notifyAll();
+        }
+        return true;
+    }
+
+    synchronized void fail(String message) {
+        if (moveTo(JobStatus.FAILED)) {
+            error = message;
+        }
+    }
+
+    /**
+     * Cancel the job and interrupt whichever stage is running.
+     *
+     * @return false when the job had already finished
+     */
+    synchronized boolean cancel() {
+        if (!moveTo(JobStatus.CANCELLED)) return false;
+        if (future != null) future.cancel(true);
+        return true;
+    }
+
+    /**
+     * Block until the job finished, failed or was cancelled, or the timeout passes.
+     */
+    public synchronized void awaitTerminal(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!status.isTerminal()) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return;
+            wait(left);
+        }
+    }
+
+    /**
+     * @return true the first time only, so a job is counted once against the retention limit
+     */
+    synchronized boolean markRetired() {
+        if (retired) return false;
+        retired = true;
+        return true;
+    }
+
+    synchronized void setFuture(Future<?> future) {
+        this.future = future;
+        if (status == JobStatus.CANCELLED) future.cancel(true);
+    }
+
+    // getters & setters
+    public String getJobId() { return jobId; }
+
+    public String getProjectName() { return projectName; }
+
+    public String getCommitId() { return commitId; }
+
+    @JsonIgnore
+    public Path getWorkspace() { return workspace; }
+
+    @JsonIgnore
+    public Path getSourcePath() { return sourcePath; }
+
+    public String getClassName() { return className; }
+
+    @JsonIgnore
+    public AnalysisOptions getOptions() { return options; }
+
+    public Instant getSubmittedAt() { return submittedAt; }
+
+    public synchronized JobStatus getStatus() { return status; }
+
+    public synchronized Instant getStartedAt() { return startedAt; }
+
+    public synchronized Instant getFinishedAt() { return finishedAt; }
+
+    public synchronized AnalysisResult getStaticAnalysis() { return staticAnalysis; }
+    synchronized void setStaticAnalysis(AnalysisResult staticAnalysis) { this.staticAnalysis = staticAnalysis; }
+
+    /** Repeated-run settings, or null for a single measurement. */
+    public BenchmarkOptions getBenchmark() { return benchmark; }
+    public void setBenchmark(BenchmarkOptions benchmark) { this.benchmark = benchmark; }
+
+    /** Whether the dynamic results carry the raw JoularJX CSV text. */
+    public boolean isRawResults() { return rawResults; }
+    public void setRawResults(boolean rawResults) { this.rawResults = rawResults; }
+
+    /** Whether static analysis resolves types against the jars in the upload. */
+    public boolean isResolveTypes() { return resolveTypes; }
+    public void setResolveTypes(boolean resolveTypes) { this.resolveTypes = resolveTypes; }
+
+    /** Whether the mechanical fixes are applied to a copy of the sources and measured. */
+    public boolean isApplyFixes() { return applyFixes; }
+    public void setApplyFixes(boolean applyFixes) { this.applyFixes = applyFixes; }
+
+    public synchronized CompilationResult getCompilation() { return compilation; }
+    synchronized void setCompilation(CompilationResult compilation) { this.compilation = compilation; }
+
+    public synchronized Map<String, Object> getDynamicAnalysis() { return dynamicAnalysis; }
+    synchronized void setDynamicAnalysis(Map<String, Object> dynamicAnalysis) { this.dynamicAnalysis = dynamicAnalysis; }
+
+    /** Call tree of a single measured run, or null when JoularJX wrote none. */
+    @JsonIgnore
+    public synchronized EnergyCallTree getCallTree() { return callTree; }
+    synchronized void setCallTree(EnergyCallTree callTree) { this.callTree = callTree; }
+
+    /** Findings ranked by the measured energy of their enclosing methods. */
+    public synchronized Map<String, Object> getHotspots() { return hotspots; }
+    synchronized void setHotspots(Map<String, Object> hotspots) { this.hotspots = hotspots; }
+
+    /** Fixes with their diffs and measured savings, or null when not requested or not done yet. */
+    public synchronized FixReport getFixes() { return fixes; }
+    synchronized void setFixes(FixReport fixes) { this.fixes = fixes; }
+
+    public synchronized String getError() { return error; }
+
+    @JsonIgnore
+    public synchronized FindingStore getFindingStore() { return findingStore; }
+    synchronized void setFindingStore(FindingStore findingStore) { this.findingStore = findingStore; }
+
+    public synchronized Integer getFindingsCount() {
+        return findingStore != null ? findingStore.size() : null;
+    }
+
+    public String getFindingsUrl() {
+        return "/api/jobs/" + jobId + "/findings";
+    }
+}
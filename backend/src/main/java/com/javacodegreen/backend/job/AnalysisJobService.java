@@ -0,0 +1,353 @@
+package com.javacodegreen.backend.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javacodegreen.backend.correlation.HotspotRanker;
+import com.javacodegreen.backend.dynamicanalysis.CompilationResult;
+import com.javacodegreen.backend.dynamicanalysis.DynamicAnalyzer;
+import com.javacodegreen.backend.dynamicanalysis.EnergyCallTree;
+import com.javacodegreen.backend.dynamicanalysis.JoularJxRun;
+import com.javacodegreen.backend.dynamicanalysis.MethodEnergyTable;
+import com.javacodegreen.backend.dynamicanalysis.SourceCompiler;
+import com.javacodegreen.backend.energy.EnergyStore;
+import com.javacodegreen.backend.rewrite.FixService;
+import com.javacodegreen.backend.staticanalysis.AnalysisResult;
+import com.javacodegreen.backend.staticanalysis.Finding;
+import com.javacodegreen.backend.staticanalysis.StaticAnalyzer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs uploads off the servlet thread. Static analysis and dynamic measurement each get
+ * a fixed-size worker pool with a bounded queue; a job that does not fit is rejected
+ * up front instead of piling up behind the ones already running.
+ */
+@Service
+public class AnalysisJobService {
+
+    private final StaticAnalyzer staticAnalyzer;
+    private final DynamicAnalyzer dynamicAnalyzer;
+    private final SourceCompiler sourceCompiler;
+    private final FixService fixService;
+    private final ThreadPoolExecutor staticExecutor;
+    private final ThreadPoolExecutor dynamicExecutor;
+    private final int maxRetained;
+    private final int maxBenchmarkRuns;
+    private final ObjectMapper objectMapper;
+    private final EnergyStore energyStore;
+    private final boolean recordEnergy;
+    private final int hotspotLimit;
+
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> finished = new ConcurrentLinkedQueue<>();
+
+    public AnalysisJobService(StaticAnalyzer staticAnalyzer,
+                              DynamicAnalyzer dynamicAnalyzer,
+                              SourceCompiler sourceCompiler,
+                              FixService fixService,
+                              @Value("${analysis.jobs.static-threads:2}") int staticThreads,
+                              @Value("${analysis.jobs.static-queue-capacity:16}") int staticQueueCapacity,
+                              @Value("${analysis.jobs.dynamic-threads:1}") int dynamicThreads,
+                              @Value("${analysis.jobs.dynamic-queue-capacity:16}") int dynamicQueueCapacity,
+                              @Value("${analysis.jobs.max-retained:200}") int maxRetained,
+                              @Value("${analysis.benchmark.max-runs:50}") int maxBenchmarkRuns,
+                              ObjectMapper objectMapper,
+                              EnergyStore energyStore,
+                              @Value("${analysis.energy.record:true}") boolean recordEnergy,
+                              @Value("${analysis.hotspots.limit:20}") int hotspotLimit) {
+        this.staticAnalyzer = staticAnalyzer;
+        this.dynamicAnalyzer = dynamicAnalyzer;
+        this.sourceCompiler = sourceCompiler;
+        this.fixService = fixService;
+        this.staticExecutor = boundedPool("static-analysis", staticThreads, staticQueueCapacity);
+        this.dynamicExecutor = boundedPool("dynamic-analysis", dynamicThreads, dynamicQueueCapacity);
+        this.maxRetained = maxRetained;
+        this.maxBenchmarkRuns = maxBenchmarkRuns;
+        this.objectMapper = objectMapper;
+        this.energyStore = energyStore;
+        this.recordEnergy = recordEnergy;
+        this.hotspotLimit = hotspotLimit;
+    }
+
+    /**
+     * Receives stream events; {@code type} is one of status, finding, summary, dynamic, end.
+     */
+    @FunctionalInterface
+    public interface EventWriter {
+        void write(String type, Object data) throws IOException;
+    }
+
+    /**
+     * Queue a job for static then dynamic analysis.
+     *
+     * @throws JobRejectedException     when either queue is full
+     * @throws IllegalArgumentException when the benchmark settings are out of range
+     */
+    public AnalysisJob submit(AnalysisJob job) {
+        if (job.getBenchmark() != null) {
+            job.getBenchmark().validate(maxBenchmarkRuns);
+        }
+        if (dynamicExecutor.getQueue().remainingCapacity() == 0) {
+            throw new JobRejectedException("dynamic analysis queue is full");
+        }
+        FindingStore store = new FindingStore(job.getWorkspace().resolve("findings"), objectMapper);
+        job.setFindingStore(store);
+        job.getOptions().setFindingListener(store);
+        jobs.put(job.getJobId(), job);
+        try {
+            job.setFuture(staticExecutor.submit(() -> runStatic(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            throw new JobRejectedException("static analysis queue is full");
+        }
+        return job;
+    }
+
+    /**
+     * Run a static analysis that is not a job, such as a commit diff, on the static pool so it
+     * shares the jobs' threads and queue.
+     *
+     * @throws JobRejectedException when the static queue is full
+     */
+    public <T> Future<T> submitStatic(Callable<T> task) {
+        try {
+            return staticExecutor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new JobRejectedException("static analysis queue is full");
+        }
+    }
+
+    public Optional<AnalysisJob> get(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * @return the job, or empty if unknown; a finished job is returned unchanged
+     */
+    public Optional<AnalysisJob> cancel(String jobId) {
+        AnalysisJob job = jobs.get(jobId);
+        if (job == null) return Optional.empty();
+        if (job.cancel()) {
+            // a cancelled job still waiting in a queue would hold its slot until a worker got to it
+            staticExecutor.purge();
+            dynamicExecutor.purge();
+            retire(job);
+        }
+        return Optional.of(job);
+    }
+
+    private void runStatic(AnalysisJob job) {
+        if (!job.moveTo(JobStatus.RUNNING_STATIC)) return;
+        try {
+            if (job.isResolveTypes()) {
+                job.getOptions().setClasspath(sourceCompiler.classpathOf(job.getSourcePath()));
+            }
+            AnalysisResult result = staticAnalyzer.analyze(
+                    job.getSourcePath().toFile(), job.getProjectName(), job.getCommitId(), job.getOptions());
+            // findings live in the job's store from here on and are served a page at a time
+            result.setFindings(null);
+            job.setStaticAnalysis(result);
+            job.getFindingStore().seal();
+            job.getFindingStore().checkWritten();
+            if (Thread.currentThread().isInterrupted()) return;
+            if (job.getClassName() == null || job.getClassName().isBlank()) {
+                job.setDynamicAnalysis(Map.of("skipped", "no main class given for dynamic analysis"));
+                if (job.isApplyFixes()) {
+                    job.setFixes(fixService.fix(job.getSourcePath(), job.getWorkspace().resolve("fixes"), null, null, null));
+                }
+                job.moveTo(JobStatus.COMPLETED);
+                retire(job);
+                return;
+            }
+            if (!job.moveTo(JobStatus.QUEUED_DYNAMIC)) return;
+            job.setFuture(dynamicExecutor.submit(() -> runDynamic(job)));
+        } catch (RejectedExecutionException e) {
+            job.fail("dynamic analysis queue is full");
+            retire(job);
+        } catch (Exception e) {
+            e.printStackTrace();
+            job.fail(e.getMessage());
+            retire(job);
+        }
+    }
+
+    private void runDynamic(AnalysisJob job) {
+        if (!job.moveTo(JobStatus.RUNNING_DYNAMIC)) return;
+        try {
+            Path classes = job.getWorkspace().resolve("classes");
+            CompilationResult compilation = sourceCompiler.compile(job.getSourcePath(), classes);
+            job.setCompilation(compilation);
+            if (!compilation.isSuccess()) {
+                job.fail("compilation failed; see compilation.diagnostics");
+                return;
+            }
+            if (Thread.currentThread().isInterrupted()) return;
+
+            List<Path> classpath = new ArrayList<>(sourceCompiler.classpathOf(job.getSourcePath()));
+            classpath.add(0, classes);
+            MethodEnergyTable methodEnergy;
+            // the fixes are measured against this run of the original
+            FixService.Measurement measured;
+            if (job.getBenchmark() != null) {
+                MethodEnergyTable sums = new MethodEnergyTable();
+                Map<String, Object> results = dynamicAnalyzer.benchmark(job.getClassName(), classpath, job.getBenchmark(),
+                        run -> {
+                            recordEnergy(job, run);
+                            MethodEnergyTable methods = run.getMethods();
+                            for (int i = 0; i < methods.size(); i++) sums.add(methods.name(i), methods.energy(i));
+                        });
+                job.setDynamicAnalysis(results);
+                measured = FixService.Measurement.ofBenchmark(results);
+                methodEnergy = new MethodEnergyTable();
+                for (int i = 0; i < sums.size(); i++) {
+                    methodEnergy.add(sums.name(i), sums.energy(i) / job.getBenchmark().getRepetitions());
+                }
+            } else {
+                JoularJxRun run = dynamicAnalyzer.measureRun(job.getClassName(), classpath, job.isRawResults());
+                recordEnergy(job, run);
+                measured = FixService.Measurement.of(run);
+                methodEnergy = run.getMethods();
+                EnergyCallTree callTree = EnergyCallTree.of(run.getCallTrees());
+                Map<String, Object> results = dynamicAnalyzer.describe(run);
+                if (callTree.nodeCount() > 0) {
+                    job.setCallTree(callTree);
+                    results.put("callTree", callTree.summary());
+                }
+                job.setDynamicAnalysis(results);
+            }
+            if (methodEnergy.size() > 0) {
+                job.setHotspots(rankHotspots(job.getFindingStore(), methodEnergy));
+            }
+            if (job.isApplyFixes() && !Thread.currentThread().isInterrupted()) {
+                job.setFixes(fixService.fix(job.getSourcePath(), job.getWorkspace().resolve("fixes"),
+                        job.getClassName(), job.getBenchmark(), measured));
+            }
+            job.moveTo(JobStatus.COMPLETED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            e.printStackTrace();
+            job.fail(e.getMessage());
+        } finally {
+            retire(job);
+        }
+    }
+
+    /**
+     * Rank the job's findings by the measured energy of their enclosing methods, reading the
+     * findings back from the job's store a chunk at a time.
+     */
+    private Map<String, Object> rankHotspots(FindingStore store, MethodEnergyTable methodEnergy) throws IOException {
+        HotspotRanker ranker = new HotspotRanker(methodEnergy, hotspotLimit);
+        for (int from = 0; ; from += FindingStore.CHUNK_SIZE) {
+            List<Finding> chunk = store.read(from, FindingStore.CHUNK_SIZE);
+            chunk.forEach(ranker::accept);
+            if (chunk.size() < FindingStore.CHUNK_SIZE) break;
+        }
+        return ranker.result();
+    }
+
+    /**
+     * Keep a measured run's per-method energy for trend and regression queries. A failure to
+     * record is reported but does not fail the job.
+     */
+    private void recordEnergy(AnalysisJob job, JoularJxRun run) {
+        if (!recordEnergy || run.getMethods().size() == 0) return;
+        try {
+            energyStore.append(job.getProjectName(), job.getCommitId(), run.getRunId(), Instant.now(), run.getMethods());
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not record energy of run " + run.getRunId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write a job's progress to {@code out}: its status, each finding as soon as it is stored,
+     * then the static summary, the dynamic results (or the error) and a final status.
+     * Returns when the job is finished or {@code timeoutMillis} has passed.
+     */
+    public void stream(AnalysisJob job, EventWriter out, long timeoutMillis) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        FindingStore store = job.getFindingStore();
+        out.write("status", Map.of("jobId", job.getJobId(), "status", job.getStatus()));
+
+        int sent = 0;
+        while (System.currentTimeMillis() < deadline) {
+            List<Finding> batch = store.read(sent, 256);
+            for (Finding f : batch) {
+                out.write("finding", f);
+            }
+            sent += batch.size();
+            if (batch.isEmpty()) {
+                if (store.isSealed() && sent >= store.size()) break;
+                store.awaitMore(sent, Math.min(1_000, Math.max(1, deadline - System.currentTimeMillis())));
+            }
+        }
+
+        AnalysisResult result = job.getStaticAnalysis();
+        if (result != null) {
+            out.write("summary", result.getSummary());
+        }
+        job.awaitTerminal(Math.max(1, deadline - System.currentTimeMillis()));
+        if (job.getDynamicAnalysis() != null) {
+            out.write("dynamic", job.getDynamicAnalysis());
+        }
+        Map<String, Object> end = new HashMap<>();
+        end.put("status", job.getStatus());
+        if (job.getError() != null) end.put("error", job.getError());
+        out.write("end", end);
+    }
+
+    /**
+     * Remember a finished job and evict the oldest ones (and their workspaces) beyond the
+     * retention limit.
+     */
+    private void retire(AnalysisJob job) {
+        if (!job.markRetired()) return;
+        job.getFindingStore().seal();
+        finished.add(job.getJobId());
+        while (finished.size() > maxRetained) {
+            String oldest = finished.poll();
+            if (oldest == null) break;
+            AnalysisJob evicted = jobs.remove(oldest);
+            if (evicted != null) deleteWorkspace(evicted);
+        }
+    }
+
+    private void deleteWorkspace(AnalysisJob job) {
+        try {
+            FileSystemUtils.deleteRecursively(job.getWorkspace());
+        } catch (IOException e) {
+            System.err.println("⚠️ could not delete workspace of " + job.getJobId() + ": " + e.getMessage());
+        }
+    }
+
+    private static ThreadPoolExecutor boundedPool(String name, int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        staticExecutor.shutdownNow();
+        dynamicExecutor.shutdownNow();
+    }
+}
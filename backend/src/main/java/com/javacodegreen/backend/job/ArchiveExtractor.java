@@ -0,0 +1,99 @@
+package com.javacodegreen.backend.job;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Stream-extracts an uploaded source archive (.zip, .tar, .tar.gz, .tgz) into a job
+ * workspace without buffering it first. Entries that would escape the target directory are
+ * rejected, and the entry count and total extracted size are capped so a small archive
+ * cannot expand without bound.
+ */
+public class ArchiveExtractor {
+
+    private final long maxExtractedBytes;
+    private final int maxEntries;
+
+    public ArchiveExtractor(long maxExtractedBytes, int maxEntries) {
+        this.maxExtractedBytes = maxExtractedBytes;
+        this.maxEntries = maxEntries;
+    }
+
+    public static boolean isArchive(String filename) {
+        return format(filename) != null;
+    }
+
+    /**
+     * @return number of files written below {@code target}
+     * @throws IllegalArgumentException for unsupported, unsafe or oversized archives
+     */
+    public int extract(InputStream in, String filename, Path target) throws IOException {
+        String format = format(filename);
+        if (format == null) {
+            throw new IllegalArgumentException("Unsupported archive: " + filename);
+        }
+        Path root = target.toAbsolutePath().normalize();
+        Files.createDirectories(root);
+
+        InputStream buffered = new BufferedInputStream(in);
+        try (ArchiveInputStream<? extends ArchiveEntry> archive = switch (format) {
+            case "zip" -> new ZipArchiveInputStream(buffered);
+            case "tar" -> new TarArchiveInputStream(buffered);
+            default -> new TarArchiveInputStream(new GzipCompressorInputStream(buffered));
+        }) {
+            int files = 0;
+            int entries = 0;
+            long written = 0;
+            byte[] buf = new byte[8192];
+            ArchiveEntry entry;
+            while ((entry = archive.getNextEntry()) != null) {
+                if (++entries > maxEntries) {
+                    throw new IllegalArgumentException("Archive has more than " + maxEntries + " entries");
+                }
+                if (!archive.canReadEntryData(entry)) continue;
+
+                Path dest = root.resolve(entry.getName()).normalize();
+                if (!dest.startsWith(root)) {
+                    throw new IllegalArgumentException("Archive entry escapes the workspace: " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(dest);
+                    continue;
+                }
+                Files.createDirectories(dest.getParent());
+                try (OutputStream out = Files.newOutputStream(dest)) {
+                    int n;
+                    while ((n = archive.read(buf)) != -1) {
+                        written += n;
+                        if (written > maxExtractedBytes) {
+                            throw new IllegalArgumentException("Archive expands beyond " + maxExtractedBytes + " bytes");
+                        }
+                        out.write(buf, 0, n);
+                    }
+                }
+                files++;
+            }
+            return files;
+        }
+    }
+
+    private static String format(String filename) {
+        if (filename == null) return null;
+        String name = filename.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".zip")) return "zip";
+        if (name.endsWith(".tar")) return "tar";
+        if (name.endsWith(".tar.gz") || name.endsWith(".tgz")) return "tgz";
+        return null;
+    }
+}
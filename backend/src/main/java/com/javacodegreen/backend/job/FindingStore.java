@@ -0,0 +1,210 @@
+package com.javacodegreen.backend.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.javacodegreen.backend.staticanalysis.Finding;
+import com.javacodegreen.backend.staticanalysis.FindingListener;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only store of a job's findings, in the order rules accepted them. Findings are
+ * buffered in memory and written out as gzip-compressed NDJSON chunks of {@link #CHUNK_SIZE};
+ * each chunk keeps the severities and rule ids it contains so filtered page reads can skip it
+ * without decompressing.
+ *
+ * Readers can follow the store while it is still being written ({@link #awaitMore}), which is
+ * how findings are streamed to clients as they are produced.
+ */
+public class FindingStore implements FindingListener {
+
+    public static final int CHUNK_SIZE = 500;
+
+    /** One page of findings and the cursor to continue from, or null at the end. */
+    public record Page(List<Finding> findings, Integer nextCursor, int total) {}
+
+    private record Chunk(Path file, int from, int count, Set<String> severities, Set<String> ruleIds) {}
+
+    private final Path dir;
+    private final ObjectMapper mapper;
+    private final ObjectReader reader;
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final List<Finding> buffer = new ArrayList<>();
+    private int size;
+    private boolean sealed;
+    private IOException writeError;
+
+    // last chunk read back, so consecutive pages rarely decompress twice
+    private int cachedChunk = -1;
+    private List<Finding> cachedFindings = List.of();
+
+    public FindingStore(Path dir, ObjectMapper mapper) {
+        this.dir = dir;
+        this.mapper = mapper;
+        this.reader = mapper.readerFor(Finding.class);
+    }
+
+    /**
+     * Add a finding. Once the store is sealed (the job was cancelled while its analysis kept
+     * running) further findings are dropped.
+     *
+     * @throws UncheckedIOException once a chunk could not be written; the store keeps nothing
+     *                              more in memory and the analysis reporting to it should fail
+     */
+    @Override
+    public synchronized void onFinding(Finding finding) {
+        if (sealed) return;
+        checkWritable();
+        buffer.add(finding);
+        size++;
+        if (buffer.size() >= CHUNK_SIZE) flush();
+        notifyAll();
+        checkWritable();
+    }
+
+    /**
+     * No more findings will be added; wakes up waiting readers.
+     */
+    public synchronized void seal() {
+        if (sealed) return;
+        if (!buffer.isEmpty()) flush();
+        sealed = true;
+        notifyAll();
+    }
+
+    /**
+     * @throws IOException the error that stopped a chunk from being written, if any
+     */
+    public synchronized void checkWritten() throws IOException {
+        if (writeError != null) throw writeError;
+    }
+
+    public synchronized boolean isSealed() {
+        return sealed;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Block until the store holds more than {@code seen} findings, it is sealed, or the timeout passes.
+     */
+    public synchronized void awaitMore(int seen, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (size <= seen && !sealed) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return;
+            wait(left);
+        }
+    }
+
+    /**
+     * @return up to {@code max} findings starting at index {@code from}
+     */
+    public synchronized List<Finding> read(int from, int max) throws IOException {
+        return page(from, max, f -> true, null).findings();
+    }
+
+    /**
+     * Read findings matching the optional severity and rule filters, starting at {@code cursor}.
+     */
+    public synchronized Page page(int cursor, int limit, Set<String> severities, Set<String> ruleIds) throws IOException {
+        Set<String> sev = upper(severities);
+        Predicate<Finding> filter = f -> (sev.isEmpty() || (f.getSeverity() != null && sev.contains(f.getSeverity().toUpperCase(Locale.ROOT))))
+                && (ruleIds == null || ruleIds.isEmpty() || ruleIds.contains(f.getRuleId()));
+        Predicate<Chunk> chunkFilter = c -> (sev.isEmpty() || !Collections.disjoint(sev, c.severities()))
+                && (ruleIds == null || ruleIds.isEmpty() || !Collections.disjoint(ruleIds, c.ruleIds()));
+        return page(cursor, limit, filter, chunkFilter);
+    }
+
+    private Page page(int cursor, int limit, Predicate<Finding> filter, Predicate<Chunk> chunkFilter) throws IOException {
+        if (writeError != null) throw writeError;
+        List<Finding> out = new ArrayList<>(Math.min(Math.max(limit, 0), CHUNK_SIZE));
+        int index = Math.min(Math.max(cursor, 0), size);
+
+        while (index < size && out.size() < limit) {
+            // every flushed chunk but a sealed store's last one holds exactly CHUNK_SIZE findings
+            int c = index / CHUNK_SIZE;
+            if (c < chunks.size()) {
+                Chunk chunk = chunks.get(c);
+                int end = chunk.from() + chunk.count();
+                if (chunkFilter != null && !chunkFilter.test(chunk)) {
+                    index = end;
+                    continue;
+                }
+                List<Finding> findings = load(c);
+                for (; index < end && out.size() < limit; index++) {
+                    Finding f = findings.get(index - chunk.from());
+                    if (filter.test(f)) out.add(f);
+                }
+            } else {
+                int base = size - buffer.size();
+                for (; index < size && out.size() < limit; index++) {
+                    Finding f = buffer.get(index - base);
+                    if (filter.test(f)) out.add(f);
+                }
+            }
+        }
+        Integer next = index < size || !sealed ? Integer.valueOf(index) : null;
+        return new Page(out, next, size);
+    }
+
+    private List<Finding> load(int c) throws IOException {
+        if (c == cachedChunk) return cachedFindings;
+        List<Finding> findings = new ArrayList<>(chunks.get(c).count());
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(chunks.get(c).file())), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isEmpty()) findings.add(reader.readValue(line));
+            }
+        }
+        cachedChunk = c;
+        cachedFindings = findings;
+        return findings;
+    }
+
+    private void flush() {
+        Path file = dir.resolve(String.format("chunk-%05d.ndjson.gz", chunks.size()));
+        Set<String> severities = new HashSet<>();
+        Set<String> ruleIds = new HashSet<>();
+        try {
+            Files.createDirectories(dir);
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                for (Finding f : buffer) {
+                    out.write(mapper.writeValueAsBytes(f));
+                    out.write('\n');
+                    if (f.getSeverity() != null) severities.add(f.getSeverity().toUpperCase(Locale.ROOT));
+                    if (f.getRuleId() != null) ruleIds.add(f.getRuleId());
+                }
+            }
+        } catch (IOException e) {
+            // the findings are lost either way; retrying with an ever larger buffer would only hold them in memory
+            writeError = e;
+            buffer.clear();
+            return;
+        }
+        chunks.add(new Chunk(file, size - buffer.size(), buffer.size(), severities, ruleIds));
+        buffer.clear();
+    }
+
+    private void checkWritable() {
+        if (writeError != null) throw new UncheckedIOException("could not store findings in " + dir, writeError);
+    }
+
+    private static Set<String> upper(Set<String> values) {
+        if (values == null || values.isEmpty()) return Set.of();
+        Set<String> out = new HashSet<>();
+        for (String v : values) out.add(v.toUpperCase(Locale.ROOT));
+        return out;
+    }
+}
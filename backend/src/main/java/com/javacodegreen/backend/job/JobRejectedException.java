@@ -0,0 +1,12 @@
+package com.javacodegreen.backend.job;
+
+/**
+ * Thrown when a job cannot be admitted because the analysis queues are full.
+ */
+public class JobRejectedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public JobRejectedException(String message) {
+        super(message);
+    }
+}
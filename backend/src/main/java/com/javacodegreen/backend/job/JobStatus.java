@@ -0,0 +1,15 @@
+package com.javacodegreen.backend.job;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING_STATIC,
+    QUEUED_DYNAMIC,
+    RUNNING_DYNAMIC,
+    COMPLETED,
+    FAILED,
+    CANCELLED;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,119 @@
+package com.javacodegreen.backend.rewrite;
+
+import spoon.reflect.code.*;
+import spoon.reflect.declaration.*;
+import spoon.reflect.reference.CtExecutableReference;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * FILE_IO_LOOP: {@code new FileReader(f)} and {@code new FileWriter(f)} are wrapped in a
+ * BufferedReader or BufferedWriter where the code only uses them as a Reader or Writer:
+ * stored in a variable or returned as one, passed to a Reader or Writer parameter, or called
+ * with a method both classes share. Readers handed to classes that buffer themselves
+ * (Scanner, BufferedReader) are left alone.
+ *
+ * Like the rule, a site is fixed when it is in a loop or in a method called from a loop in
+ * the same model.
+ */
+final class BufferedIoRewrite implements Rewrite {
+
+    static final String RULE_ID = "FILE_IO_LOOP";
+
+    private record Stream(String supertype, String buffer, Set<String> sharedMethods) {}
+
+    private static final Map<String, Stream> STREAMS = Map.of(
+            "java.io.FileReader", new Stream("java.io.Reader", "BufferedReader",
+                    Set.of("read", "ready", "skip", "close", "transferTo", "mark", "markSupported", "reset")),
+            "java.io.FileWriter", new Stream("java.io.Writer", "BufferedWriter",
+                    Set.of("write", "append", "flush", "close")));
+
+    private static final Set<String> BUFFERING = Set.of(
+            "java.util.Scanner", "java.io.BufferedReader", "java.io.BufferedWriter", "java.io.LineNumberReader");
+
+    // executables called from inside a loop anywhere in the model, filled on first use
+    private Set<CtExecutable<?>> calledFromLoops;
+
+    @Override
+    public void collect(CtType<?> type, List<Site> sites) {
+        for (CtConstructorCall<?> call : type.getElements(new TypeFilter<>(CtConstructorCall.class))) {
+            if (call instanceof CtNewClass<?> || call.getType() == null) continue;
+            Stream stream = STREAMS.get(call.getType().getQualifiedName());
+            if (stream == null || !usedAs(call, stream) || !inLoop(call)) continue;
+            String buffer = imports(call, stream.buffer()) ? stream.buffer() : "java.io." + stream.buffer();
+            String text = "new " + buffer + "(" + SourceText.of(call) + ")";
+            Runnable apply = () -> call.replace(call.getFactory().Code().createCodeSnippetExpression(text));
+            String description = "Wrap the " + call.getType().getSimpleName() + " in a " + stream.buffer();
+            sites.add(new Site(RULE_ID, call, List.of(call), call, description, apply));
+        }
+    }
+
+    private static boolean usedAs(CtConstructorCall<?> call, Stream stream) {
+        CtElement parent = call.getParent();
+        if (parent instanceof CtLocalVariable<?> local && local.getDefaultExpression() == call) {
+            return isType(local.getType(), stream.supertype());
+        }
+        if (parent instanceof CtAssignment<?, ?> assignment && assignment.getAssignment() == call) {
+            return isType(assignment.getAssigned().getType(), stream.supertype());
+        }
+        if (parent instanceof CtReturn<?> ret) {
+            CtElement owner = ret.getParent(e -> e instanceof CtLambda<?> || e instanceof CtMethod<?>);
+            return owner instanceof CtMethod<?> method && isType(method.getType(), stream.supertype());
+        }
+        if (parent instanceof CtInvocation<?> invocation && invocation.getTarget() == call) {
+            CtExecutableReference<?> executable = invocation.getExecutable();
+            return executable != null && stream.sharedMethods().contains(executable.getSimpleName());
+        }
+        if (parent instanceof CtAbstractInvocation<?> invocation) {
+            int index = -1;
+            for (int i = 0; i < invocation.getArguments().size(); i++) {
+                if (invocation.getArguments().get(i) == call) index = i;
+            }
+            CtExecutableReference<?> executable = invocation.getExecutable();
+            if (index < 0 || executable == null || executable.getParameters().size() <= index) return false;
+            if (invocation instanceof CtConstructorCall<?> outer && outer.getType() != null
+                    && BUFFERING.contains(outer.getType().getQualifiedName())) {
+                return false;
+            }
+            return isType(executable.getParameters().get(index), stream.supertype());
+        }
+        return false;
+    }
+
+    private boolean inLoop(CtConstructorCall<?> call) {
+        CtElement scope = call.getParent(e -> e instanceof CtLoop || e instanceof CtExecutable<?>);
+        if (scope instanceof CtLoop) return true;
+        if (calledFromLoops == null) {
+            calledFromLoops = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (CtAbstractInvocation<?> invocation : call.getFactory().getModel()
+                    .getElements(new TypeFilter<>(CtAbstractInvocation.class))) {
+                if (invocation.getParent(CtLoop.class) == null) continue;
+                try {
+                    CtExecutable<?> callee = invocation.getExecutable() != null
+                            ? invocation.getExecutable().getExecutableDeclaration() : null;
+                    if (callee != null) calledFromLoops.add(callee);
+                } catch (RuntimeException e) {
+                    // unresolved in noClasspath
+                }
+            }
+        }
+        return scope instanceof CtExecutable<?> executable && calledFromLoops.contains(executable);
+    }
+
+    /**
+     * @return whether {@code call}'s file imports java.io.{@code simpleName} or java.io.*
+     */
+    private static boolean imports(CtElement call, String simpleName) {
+        if (call.getPosition() == null || call.getPosition().getCompilationUnit() == null) return false;
+        String source = call.getPosition().getCompilationUnit().getOriginalSourceCode();
+        return source != null && Pattern.compile("(?m)^\\s*import\\s+java\\.io\\.(\\*|" + simpleName + ")\\s*;")
+                .matcher(source).find();
+    }
+
+    private static boolean isType(CtTypeReference<?> type, String qualifiedName) {
+        return type != null && qualifiedName.equals(type.getQualifiedName());
+    }
+}
@@ -0,0 +1,51 @@
+package com.javacodegreen.backend.rewrite;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+/**
+ * One mechanical fix: where it applies, the unified diff of its change and, once measured,
+ * the energy and run time of the program with only this fix against the original.
+ */
+public class Fix {
+    private String id;
+    private String ruleId;
+    private String file;
+    private int line;
+    private String description;
+    private String diff;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Object> savings;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;
+
+    public Fix() {}
+
+    // getters & setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getRuleId() { return ruleId; }
+    public void setRuleId(String ruleId) { this.ruleId = ruleId; }
+
+    /** Path relative to the source root, with '/' separators. */
+    public String getFile() { return file; }
+    public void setFile(String file) { this.file = file; }
+
+    public int getLine() { return line; }
+    public void setLine(int line) { this.line = line; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getDiff() { return diff; }
+    public void setDiff(String diff) { this.diff = diff; }
+
+    public Map<String, Object> getSavings() { return savings; }
+    public void setSavings(Map<String, Object> savings) { this.savings = savings; }
+
+    /** Why the fix could not be measured, e.g. the patched source does not compile. */
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
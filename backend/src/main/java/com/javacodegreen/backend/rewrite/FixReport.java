@@ -0,0 +1,43 @@
+package com.javacodegreen.backend.rewrite;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The fixes of one job: each fix with its own diff and savings, the combined diff of the
+ * patched copy, and the measurements of the original and of all fixes together.
+ */
+public class FixReport {
+    private List<Fix> fixes;
+    private String diff;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Object> baseline;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Object> combined;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String skipped;
+
+    public FixReport() {}
+
+    // getters & setters
+    public List<Fix> getFixes() { return fixes; }
+    public void setFixes(List<Fix> fixes) { this.fixes = fixes; }
+
+    /** Unified diff of all fixes, as applied to the patched copy. */
+    public String getDiff() { return diff; }
+    public void setDiff(String diff) { this.diff = diff; }
+
+    /** Energy and run time of the original program. */
+    public Map<String, Object> getBaseline() { return baseline; }
+    public void setBaseline(Map<String, Object> baseline) { this.baseline = baseline; }
+
+    /** Savings of the patched copy with every fix applied. */
+    public Map<String, Object> getCombined() { return combined; }
+    public void setCombined(Map<String, Object> combined) { this.combined = combined; }
+
+    /** Why nothing or not every fix was measured, or null. */
+    public String getSkipped() { return skipped; }
+    public void setSkipped(String skipped) { this.skipped = skipped; }
+}
@@ -0,0 +1,168 @@
+package com.javacodegreen.backend.rewrite;
+
+import com.javacodegreen.backend.dynamicanalysis.BenchmarkOptions;
+import com.javacodegreen.backend.dynamicanalysis.CompilationResult;
+import com.javacodegreen.backend.dynamicanalysis.DynamicAnalyzer;
+import com.javacodegreen.backend.dynamicanalysis.JoularJxRun;
+import com.javacodegreen.backend.dynamicanalysis.SourceCompiler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Applies the mechanical fixes to a job's sources and measures what they save. The patched
+ * copy with every fix is kept; then each fix on its own and all fixes together are compiled
+ * and run under JoularJX the same way as the original (one run, or the job's benchmark
+ * settings), so each fix's savings are its own. The original's measurement is normally the
+ * job's own; it is only measured here when none is passed in. Only the first
+ * {@code analysis.fix.max-measured} fixes are measured, since every one costs a full run, and
+ * only those get a copy of the sources with the fix alone; the others keep their hunks of the
+ * combined diff.
+ *
+ * Single runs are noisy; a benchmark gives means over repeated runs and is the better basis
+ * for small savings.
+ */
+@Service
+public class FixService {
+
+    private final SourceRewriter rewriter = new SourceRewriter();
+    private final SourceCompiler sourceCompiler;
+    private final DynamicAnalyzer dynamicAnalyzer;
+    private final int maxMeasured;
+
+    public FixService(SourceCompiler sourceCompiler,
+                      DynamicAnalyzer dynamicAnalyzer,
+                      @Value("${analysis.fix.max-measured:10}") int maxMeasured) {
+        this.sourceCompiler = sourceCompiler;
+        this.dynamicAnalyzer = dynamicAnalyzer;
+        this.maxMeasured = Math.max(0, maxMeasured);
+    }
+
+    /** Energy and wall time of one measured variant; means when benchmarked. */
+    public record Measurement(double joules, double wallMillis) {
+
+        public static Measurement of(JoularJxRun run) {
+            Object wall = run.getMeasurement() != null ? run.getMeasurement().get("wallMillis") : null;
+            return new Measurement(run.getMethods().total(), wall instanceof Number n ? n.doubleValue() : Double.NaN);
+        }
+
+        /**
+         * @param result what {@link DynamicAnalyzer#benchmark} returned
+         */
+        public static Measurement ofBenchmark(Map<String, Object> result) {
+            return new Measurement(mean(result.get("energy")), mean(result.get("wallMillis")));
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("energy", joules);
+            m.put("wallMillis", wallMillis);
+            return m;
+        }
+    }
+
+    /**
+     * Write the patched copy to {@code workDir/patched} and, with a main class, measure the fixes.
+     *
+     * @param className main class to run, or null to only produce the patches
+     * @param benchmark repeated-run settings, or null for a single run per variant
+     * @param original  the job's measurement of the unpatched sources with the same settings,
+     *                  or null to measure them here first
+     */
+    public FixReport fix(Path sourceDir, Path workDir, String className, BenchmarkOptions benchmark,
+                         Measurement original) throws IOException, InterruptedException {
+        RewriteResult all = rewriter.rewrite(sourceDir, workDir.resolve("patched"), null);
+        FixReport report = new FixReport();
+        report.setFixes(all.getFixes());
+        report.setDiff(all.getDiff());
+        if (all.getFixes().isEmpty()) return report;
+
+        if (className == null || className.isBlank()) {
+            report.setSkipped("no main class given; fixes were not measured");
+            return report;
+        }
+        Measurement baseline = original;
+        if (baseline == null) {
+            baseline = measure(sourceDir, workDir.resolve("classes").resolve("original"), className, benchmark);
+        }
+        report.setBaseline(baseline.describe());
+        List<Fix> fixes = all.getFixes();
+        for (int i = 0; i < fixes.size() && i < maxMeasured; i++) {
+            Fix fix = fixes.get(i);
+            Path variant = workDir.resolve("fix-" + i);
+            try {
+                fix.setDiff(rewriter.rewrite(sourceDir, variant, Set.of(fix.getId())).getDiff());
+                Measurement patched = measure(variant, workDir.resolve("classes").resolve("fix-" + i), className, benchmark);
+                fix.setSavings(savings(baseline, patched));
+            } catch (IllegalStateException | IOException e) {
+                fix.setError(e.getMessage());
+            } finally {
+                FileSystemUtils.deleteRecursively(variant);
+            }
+        }
+        if (fixes.size() > maxMeasured) {
+            report.setSkipped("only the first " + maxMeasured + " of " + fixes.size()
+                    + " fixes were measured on their own (analysis.fix.max-measured)");
+        }
+        try {
+            Measurement patched = measure(workDir.resolve("patched"), workDir.resolve("classes").resolve("patched"),
+                    className, benchmark);
+            report.setCombined(savings(baseline, patched));
+        } catch (IllegalStateException e) {
+            report.setCombined(Map.of("error", e.getMessage()));
+        }
+        return report;
+    }
+
+    /**
+     * @throws IllegalStateException when the sources do not compile or the run fails
+     */
+    private Measurement measure(Path sources, Path classes, String className, BenchmarkOptions benchmark)
+            throws IOException, InterruptedException {
+        CompilationResult compilation = sourceCompiler.compile(sources, classes);
+        if (!compilation.isSuccess()) {
+            List<Map<String, Object>> diagnostics = compilation.getDiagnostics();
+            throw new IllegalStateException("patched sources do not compile"
+                    + (diagnostics != null && !diagnostics.isEmpty() ? ": " + diagnostics.get(0).get("message") : ""));
+        }
+        List<Path> classpath = new ArrayList<>(sourceCompiler.classpathOf(sources));
+        classpath.add(0, classes);
+        try {
+            if (benchmark != null) {
+                return Measurement.ofBenchmark(dynamicAnalyzer.benchmark(className, classpath, benchmark));
+            }
+            return Measurement.of(dynamicAnalyzer.measureRun(className, classpath, false));
+        } catch (RuntimeException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private static double mean(Object stats) {
+        return stats instanceof Map<?, ?> m && m.get("mean") instanceof Number n ? n.doubleValue() : Double.NaN;
+    }
+
+    /**
+     * Before, after and saved energy (J) and wall time (ms); positive savings mean the
+     * patched program used less.
+     */
+    private static Map<String, Object> savings(Measurement before, Measurement after) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("energyBefore", before.joules());
+        m.put("energyAfter", after.joules());
+        m.put("energySaved", before.joules() - after.joules());
+        m.put("energySavedPercent", percent(before.joules(), after.joules()));
+        m.put("wallMillisBefore", before.wallMillis());
+        m.put("wallMillisAfter", after.wallMillis());
+        m.put("wallMillisSaved", before.wallMillis() - after.wallMillis());
+        m.put("wallMillisSavedPercent", percent(before.wallMillis(), after.wallMillis()));
+        return m;
+    }
+
+    private static double percent(double before, double after) {
+        return before > 0 ? 100.0 * (before - after) / before : 0;
+    }
+}
@@ -0,0 +1,173 @@
+package com.javacodegreen.backend.rewrite;
+
+import spoon.reflect.code.*;
+import spoon.reflect.declaration.*;
+import spoon.reflect.reference.CtVariableReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * OBJ_IN_LOOP: a local in a loop body initialized with a new value object
+ * ({@code BigDecimal rate = new BigDecimal("0.19")}) is declared once before the outermost
+ * loop. Only immutable JDK value types qualify, and only locals that are never reassigned, so
+ * every iteration sees an equal object; code that compares them by identity would notice,
+ * which value types are not meant for. The move is skipped when the name would then hide or
+ * clash with another variable.
+ *
+ * A hoisted constructor also runs when the loop body would not have run at all, so only
+ * constructors that cannot throw are moved: their arguments are literals or constants the
+ * constructor accepts, which is checked by constructing the same value here.
+ */
+final class HoistConstructorRewrite implements Rewrite {
+
+    static final String RULE_ID = "OBJ_IN_LOOP";
+
+    static final Set<String> VALUE_TYPES = Set.of(
+            "java.lang.String", "java.lang.Integer", "java.lang.Long", "java.lang.Short", "java.lang.Byte",
+            "java.lang.Double", "java.lang.Float", "java.lang.Boolean", "java.lang.Character",
+            "java.math.BigDecimal", "java.math.BigInteger", "java.io.File", "java.net.URI", "java.util.Locale");
+
+    @Override
+    public void collect(CtType<?> type, List<Site> sites) {
+        for (CtLocalVariable<?> local : type.getElements(new TypeFilter<>(CtLocalVariable.class))) {
+            if (!(local.getDefaultExpression() instanceof CtConstructorCall<?> call) || !isValue(call)
+                    || !cannotThrow(call)) {
+                continue;
+            }
+            if (!(local.getParent() instanceof CtBlock<?> body) || !(body.getParent() instanceof CtLoop loop)) continue;
+            if (isWritten(local, body)) continue;
+            CtLoop target = null;
+            for (CtLoop l = loop; l != null; l = enclosingLoop(l)) {
+                if (l.getParent() instanceof CtBlock<?> block && !isHidden(local, block)) target = l;
+            }
+            if (target == null) continue;
+            CtLoop before = target;
+            String text = SourceText.of(local).replaceFirst("\\s*;\\s*$", "");
+            Runnable apply = () -> {
+                local.delete();
+                before.insertBefore(SourceText.statement(before, text));
+            };
+            String description = "Create " + local.getSimpleName() + " once before the loop at line "
+                    + SourceText.line(target) + " instead of on every iteration";
+            sites.add(new Site(RULE_ID, call, List.of(local), target, description, apply));
+        }
+    }
+
+    private static boolean isValue(CtConstructorCall<?> call) {
+        return !(call instanceof CtNewClass<?>) && SourceText.isType(call.getType(), VALUE_TYPES);
+    }
+
+    /**
+     * @return the loop directly around {@code loop} in the same method, or null; lambdas and
+     *         local classes stop the search, since moving code across them changes what it captures
+     */
+    private static CtLoop enclosingLoop(CtLoop loop) {
+        CtElement outer = loop.getParent(e -> e instanceof CtLoop || e instanceof CtExecutable<?> || e instanceof CtType<?>);
+        return outer instanceof CtLoop l ? l : null;
+    }
+
+    /**
+     * @return whether {@code call} is known not to throw: every argument is a literal or a
+     *         static final field initialized with one, and the constructor accepts the values
+     */
+    private static boolean cannotThrow(CtConstructorCall<?> call) {
+        List<Object> values = new ArrayList<>();
+        for (CtExpression<?> argument : call.getArguments()) {
+            Object value = constantOf(argument);
+            if (value == null) return false;
+            values.add(value);
+        }
+        String type = call.getType().getQualifiedName();
+        if (values.isEmpty()) return type.equals("java.lang.String");
+        Object first = values.get(0);
+        if (values.size() > 1) {
+            // new File(parent, child), new Locale(language, country[, variant])
+            return (type.equals("java.io.File") || type.equals("java.util.Locale"))
+                    && values.stream().allMatch(String.class::isInstance);
+        }
+        if (first instanceof String text) {
+            try {
+                switch (type) {
+                    case "java.lang.Integer" -> Integer.valueOf(text);
+                    case "java.lang.Long" -> Long.valueOf(text);
+                    case "java.lang.Short" -> Short.valueOf(text);
+                    case "java.lang.Byte" -> Byte.valueOf(text);
+                    case "java.lang.Double" -> Double.valueOf(text);
+                    case "java.lang.Float" -> Float.valueOf(text);
+                    case "java.math.BigDecimal" -> new BigDecimal(text);
+                    case "java.math.BigInteger" -> new BigInteger(text);
+                    case "java.net.URI" -> new URI(text);
+                    default -> { } // String, Boolean, File and Locale take any string
+                }
+                return true;
+            } catch (NumberFormatException | URISyntaxException e) {
+                return false;
+            }
+        }
+        // primitive literals: the call compiled, and none of these rejects a value of its type
+        return type.startsWith("java.lang.") && !type.equals("java.lang.String") || type.equals("java.math.BigDecimal");
+    }
+
+    /**
+     * @return the value of a non-null literal, or of a static final field initialized with one; null otherwise
+     */
+    private static Object constantOf(CtExpression<?> expression) {
+        if (expression instanceof CtFieldRead<?> field) {
+            CtVariable<?> declaration = declarationOf(field.getVariable());
+            if (declaration == null || !declaration.isStatic() || !declaration.isFinal()) return null;
+            expression = declaration.getDefaultExpression();
+        }
+        return expression instanceof CtLiteral<?> literal ? literal.getValue() : null;
+    }
+
+    private static boolean isWritten(CtVariable<?> variable, CtElement scope) {
+        for (CtVariableWrite<?> write : scope.getElements(new TypeFilter<>(CtVariableWrite.class))) {
+            if (declarationOf(write.getVariable()) == variable) return true;
+        }
+        for (CtUnaryOperator<?> op : scope.getElements(new TypeFilter<>(CtUnaryOperator.class))) {
+            if (isIncrement(op.getKind()) && op.getOperand() instanceof CtVariableAccess<?> access
+                    && declarationOf(access.getVariable()) == variable) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Declared before the loop, {@code local} would be in scope for the rest of {@code block}:
+     * any other variable of that name read there (a field, a later local) would change meaning.
+     */
+    private static boolean isHidden(CtLocalVariable<?> local, CtBlock<?> block) {
+        for (CtVariable<?> variable : block.getElements(new TypeFilter<>(CtVariable.class))) {
+            if (variable != local && variable.getSimpleName().equals(local.getSimpleName())) return true;
+        }
+        for (CtVariableAccess<?> access : block.getElements(new TypeFilter<>(CtVariableAccess.class))) {
+            CtVariableReference<?> reference = access.getVariable();
+            if (reference != null && reference.getSimpleName().equals(local.getSimpleName())
+                    && declarationOf(reference) != local) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isIncrement(UnaryOperatorKind kind) {
+        return kind == UnaryOperatorKind.PREINC || kind == UnaryOperatorKind.PREDEC
+                || kind == UnaryOperatorKind.POSTINC || kind == UnaryOperatorKind.POSTDEC;
+    }
+
+    private static CtVariable<?> declarationOf(CtVariableReference<?> reference) {
+        try {
+            return reference != null ? reference.getDeclaration() : null;
+        } catch (RuntimeException e) {
+            return null; // noClasspath
+        }
+    }
+}
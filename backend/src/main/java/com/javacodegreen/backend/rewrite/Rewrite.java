@@ -0,0 +1,33 @@
+package com.javacodegreen.backend.rewrite;
+
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
+
+import java.util.List;
+
+/**
+ * One mechanical fix for a rule's findings. Implementations only report sites where the
+ * change keeps the program's behaviour; anything they cannot prove is left to the user and
+ * the rule's suggestion.
+ */
+interface Rewrite {
+
+    /**
+     * A place the rewrite applies to.
+     *
+     * @param anchor      the element the fix is reported at
+     * @param touched     elements the fix replaces or removes; two sites touching the same
+     *                    code (or code inside each other) are not applied together
+     * @param scope       the element every change of the fix is in or next to, e.g. the loop a
+     *                    statement is inserted before; its lines pick the fix's diff hunks
+     * @param description what the fix does, for the report
+     * @param apply       performs the change on the model
+     */
+    record Site(String ruleId, CtElement anchor, List<CtElement> touched, CtElement scope, String description,
+                Runnable apply) {}
+
+    /**
+     * Add the sites of {@code type}, a top-level type of the model, to {@code sites} in source order.
+     */
+    void collect(CtType<?> type, List<Site> sites);
+}
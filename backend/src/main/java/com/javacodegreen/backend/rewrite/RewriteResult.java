@@ -0,0 +1,25 @@
+package com.javacodegreen.backend.rewrite;
+
+import java.util.List;
+
+/**
+ * Outcome of one {@link SourceRewriter#rewrite} call: every fix found in the sources, the
+ * files the selected ones changed and the unified diff from the original to the patched copy.
+ */
+public class RewriteResult {
+    private List<Fix> fixes;
+    private List<String> changedFiles;
+    private String diff;
+
+    public RewriteResult() {}
+
+    // getters & setters
+    public List<Fix> getFixes() { return fixes; }
+    public void setFixes(List<Fix> fixes) { this.fixes = fixes; }
+
+    public List<String> getChangedFiles() { return changedFiles; }
+    public void setChangedFiles(List<String> changedFiles) { this.changedFiles = changedFiles; }
+
+    public String getDiff() { return diff; }
+    public void setDiff(String diff) { this.diff = diff; }
+}
@@ -0,0 +1,158 @@
+package com.javacodegreen.backend.rewrite;
+
+import spoon.Launcher;
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.declaration.CtCompilationUnit;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
+import spoon.support.sniper.SniperJavaPrettyPrinter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Applies the mechanical fixes of the bundled rules to a copy of a source tree: string
+ * concatenation in loops to StringBuilder, loop-invariant value objects hoisted out of
+ * loops, and buffered file readers and writers.
+ *
+ * Sources are parsed with Spoon (noClasspath) and printed back with its sniper printer,
+ * which rewrites only the changed code and keeps every other character, comments and
+ * formatting included, as it was. Fixes are found in a fixed order, so the same sources
+ * always give the same fix ids ({@code RULE:path:line}) and any subset can be applied by id.
+ * Two fixes touching the same code are never both offered; the later one is dropped. Each
+ * applied fix gets the hunks of the diff around its code, so its change can be read without
+ * rewriting the sources once per fix; a hunk that joins the changes of two nearby fixes is
+ * part of both.
+ */
+public class SourceRewriter {
+
+    /**
+     * Copy every file below {@code sourceDir} to {@code targetDir}, with the selected fixes
+     * applied to the .java files.
+     *
+     * @param selected ids of the fixes to apply; null applies all of them
+     * @return all fixes found, whether applied or not, and the diff of the applied ones, which
+     *         also carry their own hunks of it
+     * @throws IllegalArgumentException when {@code targetDir} is inside {@code sourceDir}
+     */
+    public RewriteResult rewrite(Path sourceDir, Path targetDir, Set<String> selected) throws IOException {
+        Path root = sourceDir.toAbsolutePath().normalize();
+        Path target = targetDir.toAbsolutePath().normalize();
+        if (target.startsWith(root)) {
+            throw new IllegalArgumentException("Target " + targetDir + " is inside the sources");
+        }
+        List<Path> sources = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(Files::isRegularFile).filter(p -> p.toString().endsWith(".java")).sorted().forEach(sources::add);
+        }
+
+        Launcher launcher = new Launcher();
+        sources.forEach(p -> launcher.addInputResource(p.toString()));
+        launcher.getEnvironment().setNoClasspath(true);
+        launcher.getEnvironment().setCommentEnabled(true);
+        launcher.getEnvironment().setPrettyPrinterCreator(() -> new SniperJavaPrettyPrinter(launcher.getEnvironment()));
+        if (!sources.isEmpty()) launcher.buildModel();
+
+        List<Rewrite> rewrites = List.of(new StringBuilderRewrite(), new HoistConstructorRewrite(), new BufferedIoRewrite());
+        List<Rewrite.Site> sites = new ArrayList<>();
+        List<CtType<?>> types = new ArrayList<>(launcher.getModel().getAllTypes());
+        types.sort(Comparator.comparing((CtType<?> t) -> pathOf(root, t)).thenComparingInt(t -> startOf(t)));
+        for (CtType<?> type : types) {
+            List<Rewrite.Site> found = new ArrayList<>();
+            for (Rewrite rewrite : rewrites) rewrite.collect(type, found);
+            found.sort(Comparator.comparingInt(site -> startOf(site.anchor())));
+            for (Rewrite.Site site : found) {
+                if (sites.stream().noneMatch(other -> overlaps(site, other))) sites.add(site);
+            }
+        }
+
+        List<Fix> fixes = new ArrayList<>();
+        Map<CtCompilationUnit, String> changed = new TreeMap<>(Comparator.comparing(cu -> pathOf(root, cu)));
+        // applied fixes and the original lines of their scope
+        Map<Fix, int[]> scopes = new LinkedHashMap<>();
+        Map<String, Integer> seen = new HashMap<>();
+        for (Rewrite.Site site : sites) {
+            Fix fix = new Fix();
+            String file = pathOf(root, site.anchor().getPosition().getCompilationUnit());
+            int line = SourceText.line(site.anchor());
+            String id = site.ruleId() + ":" + file + ":" + line;
+            int n = seen.merge(id, 1, Integer::sum);
+            fix.setId(n > 1 ? id + "#" + n : id);
+            fix.setRuleId(site.ruleId());
+            fix.setFile(file);
+            fix.setLine(line);
+            fix.setDescription(site.description());
+            fixes.add(fix);
+            if (selected == null || selected.contains(fix.getId())) {
+                SourcePosition scope = site.scope().getPosition();
+                scopes.put(fix, new int[]{scope.getLine(), scope.getEndLine()});
+                site.apply().run();
+                changed.put(site.anchor().getPosition().getCompilationUnit(), file);
+            }
+        }
+
+        copyTree(root, target);
+        StringBuilder diff = new StringBuilder();
+        for (Map.Entry<CtCompilationUnit, String> entry : changed.entrySet()) {
+            CtCompilationUnit cu = entry.getKey();
+            String patched = launcher.getEnvironment().createPrettyPrinter().printCompilationUnit(cu);
+            Files.writeString(target.resolve(entry.getValue()), patched, StandardCharsets.UTF_8);
+            String fileDiff = UnifiedDiff.of(entry.getValue(), cu.getOriginalSourceCode(), patched);
+            diff.append(fileDiff);
+            List<UnifiedDiff.Hunk> hunks = UnifiedDiff.hunks(fileDiff);
+            scopes.forEach((fix, lines) -> {
+                if (!fix.getFile().equals(entry.getValue())) return;
+                fix.setDiff(UnifiedDiff.of(fix.getFile(), hunks.stream()
+                        .filter(hunk -> hunk.begin() <= lines[1] && hunk.end() >= lines[0]).toList()));
+            });
+        }
+
+        RewriteResult result = new RewriteResult();
+        result.setFixes(fixes);
+        result.setChangedFiles(List.copyOf(changed.values()));
+        result.setDiff(diff.toString());
+        return result;
+    }
+
+    private static boolean overlaps(Rewrite.Site a, Rewrite.Site b) {
+        for (CtElement x : a.touched()) {
+            for (CtElement y : b.touched()) {
+                if (SourceText.within(x, y) || SourceText.within(y, x)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static void copyTree(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.walk(from)) {
+            for (Path p : files.toList()) {
+                Path copy = to.resolve(from.relativize(p).toString());
+                if (Files.isDirectory(p)) {
+                    Files.createDirectories(copy);
+                } else if (Files.isRegularFile(p)) {
+                    Files.copy(p, copy);
+                }
+            }
+        }
+    }
+
+    private static String pathOf(Path root, CtType<?> type) {
+        SourcePosition position = type.getPosition();
+        return position != null && position.getCompilationUnit() != null ? pathOf(root, position.getCompilationUnit()) : "";
+    }
+
+    private static String pathOf(Path root, CtCompilationUnit cu) {
+        if (cu.getFile() == null) return "";
+        Path file = cu.getFile().toPath().toAbsolutePath().normalize();
+        return (file.startsWith(root) ? root.relativize(file) : file.getFileName()).toString().replace('\\', '/');
+    }
+
+    private static int startOf(CtElement element) {
+        SourcePosition position = element.getPosition();
+        return position != null && position.isValidPosition() ? position.getSourceStart() : -1;
+    }
+}
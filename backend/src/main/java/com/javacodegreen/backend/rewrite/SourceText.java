@@ -0,0 +1,72 @@
+package com.javacodegreen.backend.rewrite;
+
+import spoon.reflect.code.CtStatement;
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.declaration.*;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Helpers shared by the rewrites. New code is built as snippets from the original text of
+ * the elements it reuses, so the sniper printer leaves their formatting as the user wrote it.
+ */
+final class SourceText {
+
+    private SourceText() {}
+
+    /**
+     * @return the text {@code element} was parsed from, or its printed form when it has none
+     */
+    static String of(CtElement element) {
+        SourcePosition position = element.getPosition();
+        if (position != null && position.isValidPosition() && position.getCompilationUnit() != null) {
+            String source = position.getCompilationUnit().getOriginalSourceCode();
+            if (source != null && position.getSourceEnd() < source.length()) {
+                return source.substring(position.getSourceStart(), position.getSourceEnd() + 1);
+            }
+        }
+        return element.toString();
+    }
+
+    static int line(CtElement element) {
+        SourcePosition position = element.getPosition();
+        return position != null && position.isValidPosition() ? position.getLine() : -1;
+    }
+
+    static boolean isType(CtTypeReference<?> type, Set<String> qualifiedNames) {
+        return type != null && qualifiedNames.contains(type.getQualifiedName());
+    }
+
+    /**
+     * @param reserved names already given to new locals of {@code type}; the result is added
+     * @return {@code base}, or {@code base} with the smallest numeric suffix, that no variable
+     *         declared in {@code type} uses, so a new local neither clashes with nor shadows one
+     */
+    static String freshName(CtType<?> type, String base, Set<String> reserved) {
+        Set<String> taken = new HashSet<>(reserved);
+        for (CtVariable<?> variable : type.getElements(new TypeFilter<>(CtVariable.class))) {
+            taken.add(variable.getSimpleName());
+        }
+        String name = base;
+        for (int i = 2; taken.contains(name); i++) name = base + i;
+        reserved.add(name);
+        return name;
+    }
+
+    /**
+     * @return the statement {@code text} as a snippet to insert into {@code near}'s model
+     */
+    static CtStatement statement(CtElement near, String text) {
+        return near.getFactory().Code().createCodeSnippetStatement(text);
+    }
+
+    /**
+     * @return whether {@code inner} is {@code outer} or inside it
+     */
+    static boolean within(CtElement inner, CtElement outer) {
+        return inner == outer || inner.hasParent(outer);
+    }
+}
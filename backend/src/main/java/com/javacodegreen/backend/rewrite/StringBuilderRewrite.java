@@ -0,0 +1,192 @@
+package com.javacodegreen.backend.rewrite;
+
+import spoon.reflect.code.*;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.declaration.CtVariable;
+import spoon.reflect.reference.CtVariableReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * STR_CONCAT_LOOP: {@code s = s + a + b} and {@code s += a} on a local String inside a loop
+ * become appends to a StringBuilder created from {@code s} before the loop, and {@code s} is
+ * assigned the builder's contents after it. The loop is the outermost one that reads or
+ * writes {@code s} only through such statements, so the intermediate strings are never
+ * observed; a loop that also reads {@code s} (its condition, a return, a print) is left alone.
+ * So is a loop that can be left past the assignment with {@code s} still in use: one inside a
+ * try that may catch an exception from it, or one containing a labelled break or continue to
+ * an enclosing statement. Concatenation turns a null {@code s} into "null", so the builder
+ * starts from {@code String.valueOf(s)} unless {@code s} is only ever assigned non-null values;
+ * {@code char[]} operands, which concatenation prints as an array but {@code append} copies,
+ * are not rewritten.
+ */
+final class StringBuilderRewrite implements Rewrite {
+
+    static final String RULE_ID = "STR_CONCAT_LOOP";
+
+    private static final Set<String> STRING = Set.of("java.lang.String");
+
+    @Override
+    public void collect(CtType<?> type, List<Site> sites) {
+        Set<String> reserved = new HashSet<>();
+        for (CtLocalVariable<?> variable : type.getElements(new TypeFilter<>(CtLocalVariable.class))) {
+            if (!SourceText.isType(variable.getType(), STRING) || !variable.isParentInitialized()) continue;
+            CtElement scope = variable.getParent();
+            Map<CtStatement, List<CtExpression<?>>> appends = new LinkedHashMap<>();
+            for (CtStatement statement : scope.getElements(new TypeFilter<>(CtStatement.class))) {
+                List<CtExpression<?>> parts = appended(statement, variable);
+                if (parts != null) appends.put(statement, parts);
+            }
+            Map<CtLoop, List<CtStatement>> byLoop = new LinkedHashMap<>();
+            for (CtStatement append : appends.keySet()) {
+                CtLoop loop = outermostLoop(append, variable, appends);
+                if (loop != null) byLoop.computeIfAbsent(loop, l -> new ArrayList<>()).add(append);
+            }
+            boolean nonNull = nonNull(variable, scope, appends);
+            byLoop.forEach((loop, statements) ->
+                    sites.add(site(type, variable, nonNull, loop, statements, appends, reserved)));
+        }
+    }
+
+    private static Site site(CtType<?> type, CtLocalVariable<?> variable, boolean nonNull, CtLoop loop,
+                             List<CtStatement> statements, Map<CtStatement, List<CtExpression<?>>> appends,
+                             Set<String> reserved) {
+        String name = variable.getSimpleName();
+        String initial = nonNull ? name : "String.valueOf(" + name + ")";
+        String builder = SourceText.freshName(type, name + "Builder", reserved);
+        // texts are taken before any site changes the model
+        Map<CtStatement, String> replacements = new LinkedHashMap<>();
+        for (CtStatement statement : statements) {
+            replacements.put(statement, builder + appends.get(statement).stream()
+                    .map(part -> ".append(" + SourceText.of(part) + ")")
+                    .collect(Collectors.joining()));
+        }
+        Runnable apply = () -> {
+            loop.insertBefore(SourceText.statement(loop, "StringBuilder " + builder + " = new StringBuilder(" + initial + ")"));
+            replacements.forEach((statement, text) -> {
+                CtStatement append = SourceText.statement(statement, text);
+                statement.getComments().forEach(comment -> append.addComment(comment.clone()));
+                statement.replace(append);
+            });
+            loop.insertAfter(SourceText.statement(loop, name + " = " + builder + ".toString()"));
+        };
+        String description = "Append to a StringBuilder instead of concatenating " + name
+                + " in the loop at line " + SourceText.line(loop);
+        return new Site(RULE_ID, statements.get(0), List.copyOf(statements), loop, description, apply);
+    }
+
+    /**
+     * @return what {@code statement} appends to {@code variable}, left to right, or null when it
+     *         is not a statement of the form {@code v = v + ...} or {@code v += ...}
+     */
+    private static List<CtExpression<?>> appended(CtStatement statement, CtLocalVariable<?> variable) {
+        if (!(statement.getParent() instanceof CtBlock<?>)) return null;
+        if (statement instanceof CtOperatorAssignment<?, ?> op) {
+            return op.getKind() == BinaryOperatorKind.PLUS && refersTo(op.getAssigned(), variable)
+                    && appendable(op.getAssignment()) ? List.of(op.getAssignment()) : null;
+        }
+        if (!(statement instanceof CtAssignment<?, ?> assignment) || !refersTo(assignment.getAssigned(), variable)) {
+            return null;
+        }
+        LinkedList<CtExpression<?>> parts = new LinkedList<>();
+        CtExpression<?> e = assignment.getAssignment();
+        while (e instanceof CtBinaryOperator<?> op && op.getKind() == BinaryOperatorKind.PLUS) {
+            parts.addFirst(op.getRightHandOperand());
+            e = op.getLeftHandOperand();
+        }
+        return !parts.isEmpty() && refersTo(e, variable) && parts.stream().allMatch(StringBuilderRewrite::appendable)
+                ? parts : null;
+    }
+
+    private static boolean appendable(CtExpression<?> part) {
+        if (part instanceof CtLiteral<?> literal && literal.getValue() == null) return false; // append(null) is ambiguous
+        return part.getType() == null || !"char[]".equals(part.getType().getQualifiedName());
+    }
+
+    /**
+     * @return whether {@code variable} is initialized and only ever assigned string literals,
+     *         concatenations (never null) or the results of {@code appends}
+     */
+    private static boolean nonNull(CtLocalVariable<?> variable, CtElement scope,
+                                   Map<CtStatement, List<CtExpression<?>>> appends) {
+        if (!nonNullValue(variable.getDefaultExpression())) return false;
+        for (CtAssignment<?, ?> assignment : scope.getElements(new TypeFilter<>(CtAssignment.class))) {
+            // s += x concatenates, so it never leaves s null either
+            if (refersTo(assignment.getAssigned(), variable) && !appends.containsKey(assignment)
+                    && !(assignment instanceof CtOperatorAssignment<?, ?>) && !nonNullValue(assignment.getAssignment())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean nonNullValue(CtExpression<?> value) {
+        return value instanceof CtLiteral<?> literal && literal.getValue() instanceof String
+                || value instanceof CtBinaryOperator<?> op && op.getKind() == BinaryOperatorKind.PLUS;
+    }
+
+    /**
+     * @return the outermost loop around {@code append} but not around the declaration whose
+     *         every access to {@code variable} is the target or first operand of one of
+     *         {@code appends} and which is not {@linkplain #leftAbruptly left abruptly}, or null
+     */
+    private static CtLoop outermostLoop(CtStatement append, CtLocalVariable<?> variable,
+                                        Map<CtStatement, List<CtExpression<?>>> appends) {
+        CtLoop best = null;
+        for (CtLoop loop = append.getParent(CtLoop.class); loop != null && !SourceText.within(variable, loop);
+             loop = loop.getParent(CtLoop.class)) {
+            if (!(loop.getParent() instanceof CtBlock<?>) || !onlyAppends(loop, variable, appends)) {
+                break; // an outer loop contains the same accesses
+            }
+            // an outer loop may still enclose the try or the jump target
+            if (!leftAbruptly(loop, variable)) best = loop;
+        }
+        return best;
+    }
+
+    private static boolean onlyAppends(CtLoop loop, CtLocalVariable<?> variable,
+                                       Map<CtStatement, List<CtExpression<?>>> appends) {
+        for (CtVariableAccess<?> access : loop.getElements(new TypeFilter<>(CtVariableAccess.class))) {
+            if (!refersTo(access, variable)) continue;
+            CtStatement statement = access.getParent(CtStatement.class);
+            List<CtExpression<?>> parts = statement != null ? appends.get(statement) : null;
+            // s = s + s.trim() reads s while appending
+            if (parts == null || parts.stream().anyMatch(part -> SourceText.within(access, part))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * The builder's contents only reach {@code variable} when the loop completes, so whatever
+     * runs next after an exception caught around the loop, or after a jump past its end, would
+     * see an older value.
+     *
+     * @return whether the loop sits in a try within the variable's scope or contains a labelled
+     *         break or continue to a statement outside it
+     */
+    private static boolean leftAbruptly(CtLoop loop, CtLocalVariable<?> variable) {
+        for (CtTry t = loop.getParent(CtTry.class); t != null; t = t.getParent(CtTry.class)) {
+            if (!SourceText.within(variable, t)) return true;
+        }
+        for (CtLabelledFlowBreak jump : loop.getElements(new TypeFilter<>(CtLabelledFlowBreak.class))) {
+            if (jump.getTargetLabel() == null) continue;
+            CtStatement target = jump.getLabelledStatement();
+            if (target == null || !SourceText.within(target, loop)) return true;
+        }
+        return false;
+    }
+
+    private static boolean refersTo(CtExpression<?> expression, CtVariable<?> variable) {
+        if (!(expression instanceof CtVariableAccess<?> access)) return false;
+        CtVariableReference<?> reference = access.getVariable();
+        if (reference == null || !variable.getSimpleName().equals(reference.getSimpleName())) return false;
+        try {
+            return reference.getDeclaration() == variable;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.javacodegreen.backend.rewrite;
+
+import org.eclipse.jgit.diff.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Unified diffs of one file, in the format git and patch read, with three lines of context.
+ */
+final class UnifiedDiff {
+
+    /**
+     * One {@code @@} hunk of a file diff.
+     *
+     * @param begin    first original line it covers, 1-based; for a pure insertion the line after it
+     * @param oldCount original lines it covers
+     * @param newCount lines it covers after the change
+     * @param lines    its context, removed and added lines
+     */
+    record Hunk(int begin, int oldCount, int newCount, String lines) {
+
+        /** @return the last original line the hunk covers, or {@code begin} for a pure insertion */
+        int end() {
+            return begin + Math.max(oldCount, 1) - 1;
+        }
+    }
+
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -(\\d+)(?:,(\\d+))? \\+\\d+(?:,(\\d+))? @@\n",
+            Pattern.MULTILINE);
+
+    private UnifiedDiff() {}
+
+    /**
+     * @return the diff from {@code before} to {@code after} under {@code a/path} and
+     *         {@code b/path}, or an empty string when they are equal
+     */
+    static String of(String path, String before, String after) {
+        RawText a = new RawText(before.getBytes(StandardCharsets.UTF_8));
+        RawText b = new RawText(after.getBytes(StandardCharsets.UTF_8));
+        EditList edits = DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM)
+                .diff(RawTextComparator.DEFAULT, a, b);
+        if (edits.isEmpty()) return "";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DiffFormatter formatter = new DiffFormatter(out)) {
+            out.writeBytes(header(path).getBytes(StandardCharsets.UTF_8));
+            formatter.format(edits, a, b);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not thrown by an in-memory stream
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the hunks of a diff made by {@link #of}, in order
+     */
+    static List<Hunk> hunks(String diff) {
+        List<Hunk> hunks = new ArrayList<>();
+        Matcher header = HUNK_HEADER.matcher(diff);
+        boolean found = header.find();
+        while (found) {
+            int oldCount = header.group(2) != null ? Integer.parseInt(header.group(2)) : 1;
+            int newCount = header.group(3) != null ? Integer.parseInt(header.group(3)) : 1;
+            // an empty range is written as the line before it
+            int begin = Integer.parseInt(header.group(1)) + (oldCount == 0 ? 1 : 0);
+            int from = header.end();
+            found = header.find();
+            hunks.add(new Hunk(begin, oldCount, newCount, diff.substring(from, found ? header.start() : diff.length())));
+        }
+        return hunks;
+    }
+
+    /**
+     * @return the diff of {@code path} made of only {@code hunks}, numbered as if the hunks
+     *         left out had not been applied
+     */
+    static String of(String path, List<Hunk> hunks) {
+        StringBuilder out = new StringBuilder(header(path));
+        int shift = 0;
+        for (Hunk hunk : hunks) {
+            out.append("@@ -").append(range(hunk.begin(), hunk.oldCount()))
+                    .append(" +").append(range(hunk.begin() + shift, hunk.newCount())).append(" @@\n")
+                    .append(hunk.lines());
+            shift += hunk.newCount() - hunk.oldCount();
+        }
+        return out.toString();
+    }
+
+    private static String range(int begin, int count) {
+        return switch (count) {
+            case 0 -> (begin - 1) + ",0";
+            case 1 -> String.valueOf(begin);
+            default -> begin + "," + count;
+        };
+    }
+
+    private static String header(String path) {
+        return "--- a/" + path + "\n+++ b/" + path + "\n";
+    }
+}
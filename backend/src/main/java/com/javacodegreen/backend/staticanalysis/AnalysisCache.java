@@ -0,0 +1,197 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent, content-addressed cache of the findings of one compilation unit. The key
+ * combines the SHA-256 of the source file with the rule set version and
+ * {@link StaticAnalyzer#ANALYZER_VERSION}, so editing a file, changing rules.json or
+ * upgrading the matcher each miss cleanly instead of serving stale findings. Files whose
+ * findings depended on other files, on their callers through a transitive rule or on types
+ * declared elsewhere, are keyed with a {@link #digest} of the whole project instead.
+ *
+ * Entries are gzip-compressed JSON files, one per key. The total size on disk is bounded;
+ * the least recently used entries are evicted first. Recency survives restarts through
+ * the entries' modification times.
+ */
+public class AnalysisCache {
+
+    private static final TypeReference<List<Finding>> FINDINGS = new TypeReference<>() {};
+    private static final String SUFFIX = ".json.gz";
+
+    private final Path dir;
+    private final long maxBytes;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // key -> entry size, in access order (eldest first)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public AnalysisCache(Path dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        load();
+    }
+
+    /**
+     * @return cache key of {@code source} under the given rule set version
+     */
+    public static String key(File source, String rulesVersion) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(source))) {
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) digest.update(buf, 0, n);
+        }
+        digest.update(("\0" + rulesVersion + "\0" + StaticAnalyzer.ANALYZER_VERSION).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return SHA-256 over the contents of all {@code sources} in the given order, for findings
+     *         that depend on the whole project
+     */
+    public static String digest(List<File> sources) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buf = new byte[8192];
+        for (File source : sources) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(source))) {
+                int n;
+                while ((n = in.read(buf)) != -1) digest.update(buf, 0, n);
+            }
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return SHA-256 of the given bytes as hex, used to version rule sets
+     */
+    public static String hash(byte[] bytes) {
+        return HexFormat.of().formatHex(sha256().digest(bytes));
+    }
+
+    /**
+     * @return the cached findings, or null on a miss or an unreadable entry
+     */
+    public List<Finding> get(String key) {
+        synchronized (this) {
+            if (entries.get(key) == null) return null;
+        }
+        Path file = entry(key);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            List<Finding> findings = mapper.readValue(in, FINDINGS);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return findings;
+        } catch (IOException e) {
+            remove(key);
+            return null;
+        }
+    }
+
+    public void put(String key, List<Finding> findings) {
+        Path file = entry(key);
+        try {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, key, ".tmp");
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                mapper.writeValue(out, findings);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long size = Files.size(file);
+            synchronized (this) {
+                Long old = entries.put(key, size);
+                totalBytes += size - (old != null ? old : 0);
+                evict();
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ could not write analysis cache entry " + key + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            totalBytes -= eldest.getValue();
+            it.remove();
+            try {
+                Files.deleteIfExists(entry(eldest.getKey()));
+            } catch (IOException ignored) {
+                // an orphaned file is picked up again, and evicted, on the next load
+            }
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) totalBytes -= size;
+        try {
+            Files.deleteIfExists(entry(key));
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void load() {
+        if (!Files.isDirectory(dir)) return;
+        record Stored(String key, long size, long modified) {}
+        List<Stored> stored = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> {
+                String name = p.getFileName().toString();
+                try {
+                    if (name.endsWith(SUFFIX)) {
+                        stored.add(new Stored(name.substring(0, name.length() - SUFFIX.length()),
+                                Files.size(p), Files.getLastModifiedTime(p).toMillis()));
+                    } else if (name.endsWith(".tmp")) {
+                        Files.deleteIfExists(p); // left behind by an interrupted write
+                    }
+                } catch (IOException ignored) {
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("⚠️ could not read analysis cache " + dir + ": " + e.getMessage());
+            return;
+        }
+        stored.sort(Comparator.comparingLong(Stored::modified));
+        synchronized (this) {
+            for (Stored s : stored) {
+                entries.put(s.key(), s.size());
+                totalBytes += s.size();
+            }
+            evict();
+        }
+    }
+
+    private Path entry(String key) {
+        return dir.resolve(key + SUFFIX);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the static analysis pipeline, published through Actuator under
+ * {@code /actuator/metrics}:
+ * <ul>
+ *   <li>{@code analysis.static.phase} – timer per phase (prefilter, model_build, call_graph, rule_matching, summary, serialization)</li>
+ *   <li>{@code analysis.static.rule.duration} – time spent testing elements, per rule</li>
+ *   <li>{@code analysis.static.rule.candidates} / {@code analysis.static.rule.accepted} – counts per rule</li>
+ *   <li>{@code analysis.static.prefilter.scanned} / {@code analysis.static.prefilter.skipped} – files checked by / kept out of Spoon by the prefilter</li>
+ *   <li>{@code analysis.static.cache.hits} / {@code analysis.static.cache.misses} – source files served from / missing in the cache</li>
+ * </ul>
+ */
+public class AnalysisMetrics {
+
+    public static final String PHASE_PREFILTER = "prefilter";
+    public static final String PHASE_MODEL_BUILD = "model_build";
+    public static final String PHASE_CALL_GRAPH = "call_graph";
+    public static final String PHASE_RULE_MATCHING = "rule_matching";
+    public static final String PHASE_SUMMARY = "summary";
+    public static final String PHASE_SERIALIZATION = "serialization";
+
+    private final MeterRegistry registry;
+
+    public AnalysisMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordPhase(String phase, long nanos) {
+        phaseTimer(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRule(String ruleId, long nanos, long candidates, long accepted) {
+        Timer.builder("analysis.static.rule.duration")
+                .description("Time spent testing candidate elements against a rule")
+                .tag("rule", ruleId)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        Counter.builder("analysis.static.rule.candidates")
+                .description("Elements offered to a rule")
+                .tag("rule", ruleId)
+                .register(registry)
+                .increment(candidates);
+        Counter.builder("analysis.static.rule.accepted")
+                .description("Elements accepted by a rule")
+                .tag("rule", ruleId)
+                .register(registry)
+                .increment(accepted);
+    }
+
+    public void recordCache(long hits, long misses) {
+        Counter.builder("analysis.static.cache.hits")
+                .description("Source files whose findings were served from the cache")
+                .register(registry)
+                .increment(hits);
+        Counter.builder("analysis.static.cache.misses")
+                .description("Source files parsed and matched because the cache had no entry")
+                .register(registry)
+                .increment(misses);
+    }
+
+    public void recordPrefilter(long scanned, long skipped) {
+        Counter.builder("analysis.static.prefilter.scanned")
+                .description("Source files checked by the lexical prefilter")
+                .register(registry)
+                .increment(scanned);
+        Counter.builder("analysis.static.prefilter.skipped")
+                .description("Source files the prefilter kept out of the Spoon model")
+                .register(registry)
+                .increment(skipped);
+    }
+
+    private Timer phaseTimer(String phase) {
+        return Timer.builder("analysis.static.phase")
+                .description("Duration of a static analysis phase")
+                .tag("phase", phase)
+                .register(registry);
+    }
+}
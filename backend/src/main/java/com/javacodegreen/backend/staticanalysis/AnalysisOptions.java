@@ -0,0 +1,44 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Per-job knobs for {@link StaticAnalyzer#analyze(java.io.File, String, String, AnalysisOptions)}.
+ */
+public class AnalysisOptions {
+    private String jobId;
+    private boolean trace;
+    private Boolean chunked;
+    private FindingListener findingListener = FindingListener.NONE;
+    private List<Path> classpath;
+
+    public AnalysisOptions() {}
+
+    public static AnalysisOptions defaults() {
+        return new AnalysisOptions();
+    }
+
+    // getters & setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public boolean isTrace() { return trace; }
+    public void setTrace(boolean trace) { this.trace = trace; }
+
+    /** null lets the analyzer pick chunked mode from the estimated model size. */
+    public Boolean getChunked() { return chunked; }
+    public void setChunked(Boolean chunked) { this.chunked = chunked; }
+
+    public FindingListener getFindingListener() { return findingListener; }
+    public void setFindingListener(FindingListener findingListener) {
+        this.findingListener = findingListener != null ? findingListener : FindingListener.NONE;
+    }
+
+    /**
+     * Jars to resolve library types against; null analyzes without a classpath, where types
+     * from outside the sources are often unknown.
+     */
+    public List<Path> getClasspath() { return classpath; }
+    public void setClasspath(List<Path> classpath) { this.classpath = classpath; }
+}
@@ -1,5 +1,7 @@
 package com.javacodegreen.backend.staticanalysis;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +12,14 @@ public class AnalysisResult {
     private Instant analyzedAt;
     private List<Finding> findings;
     private Map<String, Integer> summary;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Map<String, Object>> trace;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer traceDropped;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer batches;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer cachedFiles;
 
     public AnalysisResult() {}
 
@@ -28,4 +38,16 @@ public class AnalysisResult {
 
     public Map<String, Integer> getSummary() { return summary; }
     public void setSummary(Map<String, Integer> summary) { this.summary = summary; }
+
+    public List<Map<String, Object>> getTrace() { return trace; }
+    public void setTrace(List<Map<String, Object>> trace) { this.trace = trace; }
+
+    public Integer getTraceDropped() { return traceDropped; }
+    public void setTraceDropped(Integer traceDropped) { this.traceDropped = traceDropped; }
+
+    public Integer getBatches() { return batches; }
+    public void setBatches(Integer batches) { this.batches = batches; }
+
+    public Integer getCachedFiles() { return cachedFiles; }
+    public void setCachedFiles(Integer cachedFiles) { this.cachedFiles = cachedFiles; }
 }
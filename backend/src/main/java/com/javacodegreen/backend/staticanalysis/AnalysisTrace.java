@@ -0,0 +1,66 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opt-in, per-job record of what the analyzer did: phases, rules and the verdict on each
+ * candidate element. The shared {@link #DISABLED} instance records nothing, and callers
+ * check {@link #isEnabled()} before building event payloads, so an untraced job does not
+ * pay for snippets or maps it would throw away.
+ */
+public final class AnalysisTrace {
+
+    public static final AnalysisTrace DISABLED = new AnalysisTrace(false, 0);
+
+    private static final int DEFAULT_MAX_EVENTS = 10_000;
+
+    private final boolean enabled;
+    private final int maxEvents;
+    private final List<Map<String, Object>> events;
+    private int dropped;
+
+    private AnalysisTrace(boolean enabled, int maxEvents) {
+        this.enabled = enabled;
+        this.maxEvents = maxEvents;
+        this.events = enabled ? new ArrayList<>() : Collections.emptyList();
+    }
+
+    public static AnalysisTrace recording() {
+        return recording(DEFAULT_MAX_EVENTS);
+    }
+
+    /**
+     * @param maxEvents events kept before further ones are only counted as dropped
+     */
+    public static AnalysisTrace recording(int maxEvents) {
+        return new AnalysisTrace(true, maxEvents);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void event(String type, Map<String, Object> fields) {
+        if (!enabled) return;
+        if (events.size() >= maxEvents) {
+            dropped++;
+            return;
+        }
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("event", type);
+        event.putAll(fields);
+        events.add(event);
+    }
+
+    public synchronized List<Map<String, Object>> getEvents() {
+        return List.copyOf(events);
+    }
+
+    public synchronized int getDropped() {
+        return dropped;
+    }
+}
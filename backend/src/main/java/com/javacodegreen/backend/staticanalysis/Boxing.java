@@ -0,0 +1,111 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import spoon.reflect.code.*;
+import spoon.reflect.declaration.*;
+import spoon.reflect.reference.CtArrayTypeReference;
+import spoon.reflect.reference.CtExecutableReference;
+import spoon.reflect.reference.CtTypeReference;
+
+import java.util.List;
+
+/**
+ * Implicit boxing as the compiler would insert it, read off resolved types. An expression
+ * boxes when it has a primitive type and is stored in, returned as or passed for a reference
+ * type; {@code ++}, {@code --} and compound assignments on a wrapper-typed variable box their
+ * result. Unknown types never count, so without a classpath only boxing between JDK and
+ * source types is seen.
+ */
+final class Boxing {
+
+    private Boxing() {}
+
+    /**
+     * @return whether evaluating {@code element} allocates (or looks up) a wrapper object
+     */
+    static boolean boxes(CtElement element) {
+        if (element instanceof CtUnaryOperator<?> op) {
+            if (op.getKind() == null) return false;
+            return switch (op.getKind()) {
+                case PREINC, PREDEC, POSTINC, POSTDEC -> isWrapper(typeOf(op.getOperand()));
+                default -> primitiveInReferenceContext(op);
+            };
+        }
+        if (element instanceof CtOperatorAssignment<?, ?> op) {
+            return isWrapper(typeOf(op.getAssigned()));
+        }
+        return element instanceof CtExpression<?> expression && primitiveInReferenceContext(expression);
+    }
+
+    /**
+     * @return whether {@code type} is a wrapper of a primitive, e.g. java.lang.Integer
+     */
+    static boolean isWrapper(CtTypeReference<?> type) {
+        if (type == null || type.isPrimitive()) return false;
+        CtTypeReference<?> unboxed = type.unbox();
+        return unboxed != null && unboxed.isPrimitive();
+    }
+
+    private static boolean primitiveInReferenceContext(CtExpression<?> expression) {
+        CtTypeReference<?> type = typeOf(expression);
+        if (type == null || !type.isPrimitive() || "void".equals(type.getSimpleName())) return false;
+        CtTypeReference<?> target = targetType(expression);
+        return target != null && !target.isPrimitive() && !isUnknown(target);
+    }
+
+    /**
+     * @return the type {@code expression} is converted to by the construct using it, or null
+     *         when that construct does not convert (e.g. an operand of arithmetic)
+     */
+    private static CtTypeReference<?> targetType(CtExpression<?> expression) {
+        CtElement parent = expression.isParentInitialized() ? expression.getParent() : null;
+        if (parent instanceof CtVariable<?> variable && variable.getDefaultExpression() == expression) {
+            return variable.getType();
+        }
+        if (parent instanceof CtAssignment<?, ?> assignment && !(parent instanceof CtOperatorAssignment<?, ?>)
+                && assignment.getAssignment() == expression) {
+            return typeOf(assignment.getAssigned());
+        }
+        if (parent instanceof CtReturn<?> ret && ret.getReturnedExpression() == expression) {
+            CtElement owner = ret.getParent(e -> e instanceof CtLambda || e instanceof CtMethod);
+            return owner instanceof CtMethod<?> method ? method.getType() : null;
+        }
+        if (parent instanceof CtAbstractInvocation<?> invocation) {
+            int index = indexOf(invocation.getArguments(), expression);
+            return index >= 0 ? parameterType(invocation.getExecutable(), index) : null;
+        }
+        return null;
+    }
+
+    /**
+     * Only primitive arguments are asked about, and a primitive cannot be the array passed
+     * for a varargs parameter: at or beyond an array-typed last parameter it is an element.
+     */
+    private static CtTypeReference<?> parameterType(CtExecutableReference<?> executable, int index) {
+        List<CtTypeReference<?>> parameters = executable != null ? executable.getParameters() : List.of();
+        if (parameters.isEmpty()) return null;
+        int last = parameters.size() - 1;
+        if (index < last) return parameters.get(index);
+        CtTypeReference<?> parameter = parameters.get(last);
+        if (parameter instanceof CtArrayTypeReference<?> array) return array.getComponentType();
+        return index == last ? parameter : null;
+    }
+
+    private static int indexOf(List<? extends CtExpression<?>> arguments, CtExpression<?> argument) {
+        for (int i = 0; i < arguments.size(); i++) {
+            if (arguments.get(i) == argument) return i;
+        }
+        return -1;
+    }
+
+    private static CtTypeReference<?> typeOf(CtExpression<?> expression) {
+        try {
+            return expression != null ? expression.getType() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean isUnknown(CtTypeReference<?> type) {
+        return type.getQualifiedName().equals(CtTypeReference.NULL_TYPE_NAME);
+    }
+}
@@ -0,0 +1,272 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import spoon.reflect.code.CtAbstractInvocation;
+import spoon.reflect.declaration.*;
+import spoon.reflect.reference.CtExecutableReference;
+import spoon.reflect.visitor.CtScanner;
+
+import java.util.*;
+
+/**
+ * Project-wide call graph of one Spoon model, built once per analysis and shared by every
+ * unit's {@link ContextIndex}. Nodes are the methods and constructors declared in the model;
+ * an edge is a call site whose executable reference resolves to one of them. Calls into
+ * libraries, through unresolved references and from field or initializer code add no edge.
+ *
+ * Each edge carries the context mask and loop depth of its call site within the caller.
+ * These are propagated to a fixpoint, so every method knows the context kinds it may be
+ * called from and the deepest loop nesting along any chain of calls, e.g. a helper called
+ * from a for loop in a method that is itself called from a while loop is reachable at loop
+ * depth 2. Depths are capped, so recursion terminates.
+ */
+public final class CallGraph {
+
+    /** Graph without edges, for analyses whose rules are all local. */
+    public static final CallGraph EMPTY = new CallGraph(new Builder());
+
+    private static final int MAX_DEPTH = 16;
+
+    /**
+     * How a method is reached from its callers.
+     *
+     * @param mask      {@link ContextKind} bits enclosing any call site on any chain to the method
+     * @param loopDepth deepest loop nesting over the call sites of any chain
+     * @param chain     the chain of calls that first reached that depth, outermost caller first
+     */
+    public record Reach(int mask, int loopDepth, List<Call> chain) {}
+
+    /** One call site on a chain. */
+    public record Call(String caller, String callee, int line, int loopDepth) {}
+
+    private final Map<CtExecutable<?>, Integer> nodes;
+    private final String[] names;
+    // edges in CSR form by caller: outgoing edges of node n are first[n] until first[n + 1]
+    private final int[] first;
+    private final int[] caller;
+    private final int[] callee;
+    private final int[] edgeMask;
+    private final int[] edgeDepth;
+    private final int[] line;
+    // per node, after propagation
+    private final int[] mask;
+    private final int[] depth;
+    private final int[] pred;
+
+    private CallGraph(Builder b) {
+        this.nodes = b.nodes;
+        this.names = b.names.toArray(new String[0]);
+        int n = names.length;
+        int m = b.edges;
+
+        // counting sort of the edges by caller
+        this.first = new int[n + 1];
+        for (int e = 0; e < m; e++) first[b.caller[e] + 1]++;
+        for (int i = 0; i < n; i++) first[i + 1] += first[i];
+        this.caller = new int[m];
+        this.callee = new int[m];
+        this.edgeMask = new int[m];
+        this.edgeDepth = new int[m];
+        this.line = new int[m];
+        int[] next = Arrays.copyOf(first, n);
+        for (int e = 0; e < m; e++) {
+            int at = next[b.caller[e]]++;
+            caller[at] = b.caller[e];
+            callee[at] = b.callee[e];
+            edgeMask[at] = b.mask[e];
+            edgeDepth[at] = b.depth[e];
+            line[at] = b.line[e];
+        }
+
+        this.mask = new int[n];
+        this.depth = new int[n];
+        this.pred = new int[n];
+        propagate();
+    }
+
+    /**
+     * Build the graph of every type of a model, nested and anonymous types included.
+     */
+    public static CallGraph build(Collection<? extends CtType<?>> types) {
+        Builder builder = new Builder();
+        for (CtType<?> type : types) {
+            builder.scan(type);
+        }
+        return new CallGraph(builder);
+    }
+
+    private void propagate() {
+        Arrays.fill(pred, -1);
+        boolean[] reached = new boolean[names.length];
+        ArrayDeque<Integer> work = new ArrayDeque<>();
+        boolean[] queued = new boolean[names.length];
+        for (int n = 0; n < names.length; n++) {
+            work.add(n);
+            queued[n] = true;
+        }
+        while (!work.isEmpty()) {
+            int u = work.poll();
+            queued[u] = false;
+            for (int e = first[u]; e < first[u + 1]; e++) {
+                int v = callee[e];
+                int m = mask[u] | edgeMask[e];
+                int d = Math.min(MAX_DEPTH, depth[u] + edgeDepth[e]);
+                boolean deeper = !reached[v] || d > depth[v];
+                if (!deeper && (mask[v] | m) == mask[v]) continue;
+                if (deeper) {
+                    depth[v] = d;
+                    pred[v] = e;
+                }
+                reached[v] = true;
+                mask[v] |= m;
+                if (!queued[v]) {
+                    work.add(v);
+                    queued[v] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return how {@code executable} is reached, or null when nothing in the model calls it
+     */
+    public Reach reach(CtExecutable<?> executable) {
+        Integer node = executable != null ? nodes.get(executable) : null;
+        if (node == null || pred[node] < 0) return null;
+        return new Reach(mask[node], depth[node], chain(node));
+    }
+
+    /**
+     * Follow the predecessor edges back to the call site whose caller has no loop of its own
+     * callers to add, i.e. the method whose loop starts the chain.
+     */
+    private List<Call> chain(int node) {
+        List<Call> chain = new ArrayList<>();
+        BitSet seen = new BitSet(names.length);
+        int v = node;
+        while (pred[v] >= 0 && !seen.get(v)) {
+            seen.set(v);
+            int e = pred[v];
+            chain.add(new Call(names[caller[e]], names[v], line[e], edgeDepth[e]));
+            v = caller[e];
+            if (depth[v] == 0) break;
+        }
+        Collections.reverse(chain);
+        return List.copyOf(chain);
+    }
+
+    public int nodeCount() {
+        return names.length;
+    }
+
+    public int edgeCount() {
+        return caller.length;
+    }
+
+    /**
+     * @return the method or constructor whose body holds {@code element}, lambdas included
+     */
+    static CtExecutable<?> enclosingExecutable(CtElement element) {
+        CtElement owner = element.getParent(e -> e instanceof CtMethod || e instanceof CtConstructor);
+        return owner instanceof CtExecutable<?> executable ? executable : null;
+    }
+
+    /**
+     * @return "pkg.Type#signature", as in {@link Finding#getEnclosingMethod()}
+     */
+    static String nameOf(CtExecutable<?> executable) {
+        CtType<?> type = executable instanceof CtTypeMember member ? member.getDeclaringType() : null;
+        return (type != null ? type.getQualifiedName() : "?") + "#" + executable.getSignature();
+    }
+
+    private static final class Builder extends CtScanner {
+        private final Map<CtExecutable<?>, Integer> nodes = new IdentityHashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private int[] caller = new int[64];
+        private int[] callee = new int[64];
+        private int[] mask = new int[64];
+        private int[] depth = new int[64];
+        private int[] line = new int[64];
+        private int edges;
+
+        // context of the current element within its executable, as in ContextIndex
+        private int[] frameNode = new int[64];
+        private int[] frameMask = new int[64];
+        private int[] frameDepth = new int[64];
+        private int top;
+
+        Builder() {
+            frameNode[0] = -1;
+        }
+
+        @Override
+        protected void enter(CtElement element) {
+            int node = frameNode[top];
+            int m = frameMask[top];
+            int d = frameDepth[top];
+
+            if (element instanceof CtAbstractInvocation<?> invocation && node >= 0) {
+                int target = resolve(invocation.getExecutable());
+                if (target >= 0) addEdge(node, target, m, d, element);
+            }
+
+            if (++top == frameNode.length) {
+                frameNode = Arrays.copyOf(frameNode, top * 2);
+                frameMask = Arrays.copyOf(frameMask, top * 2);
+                frameDepth = Arrays.copyOf(frameDepth, top * 2);
+            }
+            if (element instanceof CtMethod<?> || element instanceof CtConstructor<?>) {
+                // a method body starts a fresh context, even when its class is declared in a loop
+                frameNode[top] = node((CtExecutable<?>) element);
+                frameMask[top] = 0;
+                frameDepth[top] = 0;
+            } else {
+                int own = ContextKind.maskOf(element);
+                frameNode[top] = node;
+                frameMask[top] = m | own;
+                frameDepth[top] = (own & ContextKind.LOOP_MASK) != 0 ? d + 1 : d;
+            }
+        }
+
+        @Override
+        protected void exit(CtElement element) {
+            top--;
+        }
+
+        private int resolve(CtExecutableReference<?> reference) {
+            if (reference == null) return -1;
+            CtExecutable<?> declaration;
+            try {
+                declaration = reference.getDeclaration(); // only declarations in the model
+            } catch (RuntimeException e) {
+                return -1; // noClasspath: unresolvable references
+            }
+            return declaration instanceof CtMethod<?> || declaration instanceof CtConstructor<?>
+                    ? node(declaration) : -1;
+        }
+
+        private int node(CtExecutable<?> executable) {
+            Integer id = nodes.get(executable);
+            if (id != null) return id;
+            nodes.put(executable, names.size());
+            names.add(nameOf(executable));
+            return names.size() - 1;
+        }
+
+        private void addEdge(int from, int to, int m, int d, CtElement site) {
+            if (edges == caller.length) {
+                caller = Arrays.copyOf(caller, edges * 2);
+                callee = Arrays.copyOf(callee, edges * 2);
+                mask = Arrays.copyOf(mask, edges * 2);
+                depth = Arrays.copyOf(depth, edges * 2);
+                line = Arrays.copyOf(line, edges * 2);
+            }
+            caller[edges] = from;
+            callee[edges] = to;
+            mask[edges] = m;
+            depth[edges] = d;
+            line[edges] = site.getPosition() != null && site.getPosition().isValidPosition()
+                    ? site.getPosition().getLine() : -1;
+            edges++;
+        }
+    }
+}
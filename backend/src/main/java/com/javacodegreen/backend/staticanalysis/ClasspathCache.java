@@ -0,0 +1,151 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Dependency jars for classpath-aware analysis, shared across jobs. Each jar is stored once
+ * under its SHA-256 ({@code <dir>/jars/<hash>.jar}), so the same library uploaded by many
+ * jobs is kept and hashed against a stable path, and every distinct classpath gets one class
+ * loader over the stored jars. Spoon resolves library types through that loader, so classes
+ * it has loaded for one job (the JDK's included, through its parent) are not loaded again by
+ * the next job with the same dependencies.
+ *
+ * Loaders are kept for the {@code maxLoaders} most recently used classpaths. An analysis holds
+ * its classpath from {@link #acquire} to {@link #release}; an evicted loader is closed once no
+ * analysis holds it any more. The jar files themselves are small next to the models built from
+ * them and are not evicted.
+ *
+ * Only the loaders are shared: every analysis still builds its own model, and the compiler
+ * reads the classes it needs from the jars through the loader.
+ */
+public final class ClasspathCache {
+
+    /**
+     * A resolved classpath.
+     *
+     * @param key    digest of the jar contents in order, part of the findings cache version
+     * @param jars   the stored copies, in classpath order
+     * @param loader class loader over {@code jars}, shared by every analysis with the same key
+     */
+    public record Classpath(String key, List<Path> jars, URLClassLoader loader) {}
+
+    private final Path jarDir;
+    private final int maxLoaders;
+    private final LinkedHashMap<String, Classpath> loaders = new LinkedHashMap<>(16, 0.75f, true);
+    // analyses holding each classpath, cached or evicted; absent once nobody holds it
+    private final Map<Classpath, Integer> holders = new HashMap<>();
+
+    /**
+     * @param dir        directory holding the stored jars
+     * @param maxLoaders classpaths whose loader is kept open
+     */
+    public ClasspathCache(Path dir, int maxLoaders) throws IOException {
+        if (maxLoaders < 1) {
+            throw new IllegalArgumentException("maxLoaders must be at least 1");
+        }
+        this.jarDir = dir.resolve("jars");
+        this.maxLoaders = maxLoaders;
+        Files.createDirectories(jarDir);
+    }
+
+    /**
+     * Store the jars that are not stored yet and return the loader for their combination,
+     * held until {@link #release} is called with it.
+     * Entries that are not regular files (a missing jar, a classes directory) are skipped.
+     */
+    public Classpath acquire(List<Path> jars) throws IOException {
+        List<Path> stored = new ArrayList<>(jars.size());
+        StringBuilder key = new StringBuilder();
+        for (Path jar : jars) {
+            if (!Files.isRegularFile(jar)) continue;
+            String hash = AnalysisCache.digest(List.of(jar.toFile()));
+            Path copy = jarDir.resolve(hash + ".jar");
+            if (!Files.exists(copy)) {
+                Path tmp = Files.createTempFile(jarDir, hash, ".tmp");
+                Files.copy(jar, tmp, StandardCopyOption.REPLACE_EXISTING);
+                try {
+                    Files.move(tmp, copy, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    Files.deleteIfExists(tmp); // stored by a concurrent job
+                }
+            }
+            stored.add(copy);
+            key.append(hash).append('\n');
+        }
+        String id = AnalysisCache.hash(key.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<Classpath> evicted = new ArrayList<>();
+        Classpath classpath;
+        synchronized (this) {
+            classpath = loaders.get(id);
+            if (classpath == null) {
+                classpath = new Classpath(id, List.copyOf(stored), loaderOf(stored));
+                loaders.put(id, classpath);
+                for (Iterator<Classpath> it = loaders.values().iterator(); loaders.size() > maxLoaders; ) {
+                    Classpath old = it.next();
+                    it.remove();
+                    if (!holders.containsKey(old)) evicted.add(old);
+                }
+            }
+            holders.merge(classpath, 1, Integer::sum);
+        }
+        evicted.forEach(ClasspathCache::close);
+        return classpath;
+    }
+
+    /**
+     * Give back a classpath from {@link #acquire}; its loader is closed when it has been
+     * evicted and this was the last analysis holding it.
+     */
+    public void release(Classpath classpath) {
+        boolean close;
+        synchronized (this) {
+            Integer held = holders.get(classpath);
+            if (held == null) {
+                throw new IllegalStateException("classpath " + classpath.key() + " is not held");
+            }
+            if (held > 1) {
+                holders.put(classpath, held - 1);
+                return;
+            }
+            holders.remove(classpath);
+            close = loaders.get(classpath.key()) != classpath;
+        }
+        if (close) close(classpath);
+    }
+
+    /**
+     * @return the number of classpaths whose loader is open
+     */
+    public synchronized int size() {
+        return loaders.size();
+    }
+
+    /**
+     * @return whether the loader of {@code classpath} is still open
+     */
+    public synchronized boolean isOpen(Classpath classpath) {
+        return loaders.get(classpath.key()) == classpath || holders.containsKey(classpath);
+    }
+
+    private static void close(Classpath classpath) {
+        try {
+            classpath.loader().close();
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not close class loader of classpath " + classpath.key() + ": " + e.getMessage());
+        }
+    }
+
+    private static URLClassLoader loaderOf(List<Path> jars) throws MalformedURLException {
+        URL[] urls = new URL[jars.size()];
+        for (int i = 0; i < urls.length; i++) urls[i] = jars.get(i).toUri().toURL();
+        // the platform loader resolves the JDK, but never the backend's own dependencies
+        return new URLClassLoader("analysis-classpath", urls, ClassLoader.getPlatformClassLoader());
+    }
+}
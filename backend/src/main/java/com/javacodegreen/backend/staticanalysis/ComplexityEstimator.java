@@ -0,0 +1,313 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import spoon.reflect.code.*;
+import spoon.reflect.declaration.*;
+import spoon.reflect.reference.CtVariableReference;
+import spoon.reflect.visitor.CtScanner;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.*;
+
+/**
+ * Estimates the asymptotic running time of one method as a polynomial degree: the deepest
+ * nesting of loops whose trip count depends on the size of some input, plus one for a
+ * linear-time List call (contains, indexOf, remove, ...) at that depth.
+ *
+ * Each loop is keyed by the variable its size comes from: the collection or array of a
+ * for-each, the variables read by a for or while condition other than its own counter.
+ * Iterators, views, copies and sub-lists declared from a variable take its key, as does the
+ * counter of an enclosing loop, so {@code for (j = i + 1; j < n; j++)} inside a loop over
+ * {@code n} is quadratic. A for loop counting down takes the key of its start instead of its
+ * condition, so {@code for (i = items.size() - 1; i >= 0; i--)} is a loop over items. Loops with constant bounds do not count, and neither do loops over
+ * data that only exists per outer iteration: the element of an enclosing for-each (a row of
+ * a matrix, an order's items) or a variable declared inside the outer loop body. Those visit
+ * each item of a nested structure once rather than multiplying its size.
+ *
+ * Loops inside lambdas count towards the method; nested and anonymous classes are estimated
+ * as methods of their own.
+ */
+final class ComplexityEstimator {
+
+    static final Set<String> LINEAR_LIST_CALLS = Set.of(
+            "contains", "indexOf", "lastIndexOf", "remove", "containsAll", "removeAll", "retainAll");
+    private static final Set<String> LIST_TYPES = Set.of("java.util.List");
+    // calls whose result has the size of their target
+    private static final Set<String> VIEWS = Set.of("values", "keySet", "entrySet", "iterator", "listIterator",
+            "descendingIterator", "stream", "subList", "toArray", "toList", "copyOf", "asList");
+
+    /**
+     * @param degree    n in O(n^degree); 0 for constant time
+     * @param variables size keys along the deepest path, outermost first
+     * @param line      line of the innermost loop or call on that path, -1 when unknown
+     */
+    record Estimate(int degree, List<String> variables, int line) {
+
+        static final Estimate CONSTANT = new Estimate(0, List.of(), -1);
+
+        String bigO() {
+            return switch (degree) {
+                case 0 -> "O(1)";
+                case 1 -> "O(n)";
+                default -> "O(n^" + degree + ")";
+            };
+        }
+
+        boolean sameCollection() {
+            return new HashSet<>(variables).size() < variables.size();
+        }
+
+        Map<String, Object> toEvidence() {
+            Map<String, Object> evidence = new LinkedHashMap<>();
+            evidence.put("bigO", bigO());
+            evidence.put("degree", degree);
+            evidence.put("variables", variables);
+            evidence.put("sameCollection", sameCollection());
+            evidence.put("hotspotLine", line);
+            return evidence;
+        }
+    }
+
+    private static final String METADATA_KEY = ComplexityEstimator.class.getName();
+
+    private ComplexityEstimator() {}
+
+    /**
+     * {@link #estimate} once per executable: kept in the element's metadata, so it lives as
+     * long as the model. An executable is only tested by the thread matching its unit.
+     */
+    static Estimate memoized(CtExecutable<?> executable) {
+        if (executable.getMetadata(METADATA_KEY) instanceof Estimate cached) return cached;
+        Estimate estimate = estimate(executable);
+        executable.putMetadata(METADATA_KEY, estimate);
+        return estimate;
+    }
+
+    static Estimate estimate(CtExecutable<?> executable) {
+        if (executable.getBody() == null) return Estimate.CONSTANT;
+        Walker walker = new Walker();
+        walker.scan(executable.getBody());
+        return walker.best;
+    }
+
+    private static final class Walker extends CtScanner {
+        // keys of the counted loops enclosing the current element, outermost first
+        private final Deque<String> path = new ArrayDeque<>();
+        private final Deque<CtLoop> loops = new ArrayDeque<>();
+        // per loop on the stack: whether it pushed a key onto path
+        private final Deque<Boolean> counted = new ArrayDeque<>();
+        // variables that stand for another one's size: iterators, copies, loop counters
+        private final Map<CtVariable<?>, String> aliases = new IdentityHashMap<>();
+        // variables whose size is per outer iteration: for-each elements, loop-body locals
+        private final Set<CtVariable<?>> perIteration = Collections.newSetFromMap(new IdentityHashMap<>());
+        private Estimate best = Estimate.CONSTANT;
+
+        @Override
+        protected void enter(CtElement element) {
+            if (element instanceof CtLocalVariable<?> local) {
+                declare(local);
+            } else if (element instanceof CtInvocation<?> invocation && isLinearListCall(invocation)) {
+                String key = keyOf(invocation.getTarget());
+                if (key != null) {
+                    List<String> variables = new ArrayList<>(path);
+                    variables.add(key);
+                    offer(variables, invocation);
+                }
+            }
+        }
+
+        @Override
+        public <T> void visitCtClass(CtClass<T> type) {
+            // estimated separately
+        }
+
+        @Override
+        public <T> void visitCtNewClass(CtNewClass<T> newClass) {
+            scan(newClass.getArguments());
+        }
+
+        @Override
+        public void visitCtFor(CtFor loop) {
+            scan(loop.getForInit());
+            String key = keyOfFor(loop);
+            for (CtStatement init : loop.getForInit()) {
+                if (init instanceof CtLocalVariable<?> counter && key != null) {
+                    aliases.put(counter, key);
+                    perIteration.remove(counter);
+                }
+            }
+            enterLoop(loop, key);
+            scan(loop.getExpression());
+            scan(loop.getForUpdate());
+            scan(loop.getBody());
+            exitLoop();
+        }
+
+        @Override
+        public void visitCtForEach(CtForEach loop) {
+            scan(loop.getExpression());
+            String key = loop.getExpression() instanceof CtNewArray<?> ? null : keyOf(loop.getExpression());
+            perIteration.add(loop.getVariable());
+            enterLoop(loop, key);
+            scan(loop.getBody());
+            exitLoop();
+        }
+
+        @Override
+        public void visitCtWhile(CtWhile loop) {
+            scan(loop.getLoopingExpression());
+            enterLoop(loop, keyOfCondition(loop, loop.getLoopingExpression()));
+            scan(loop.getBody());
+            exitLoop();
+        }
+
+        @Override
+        public void visitCtDo(CtDo loop) {
+            enterLoop(loop, keyOfCondition(loop, loop.getLoopingExpression()));
+            scan(loop.getBody());
+            scan(loop.getLoopingExpression());
+            exitLoop();
+        }
+
+        private void enterLoop(CtLoop loop, String key) {
+            loops.push(loop);
+            counted.push(key != null);
+            if (key != null) {
+                path.addLast(key);
+                offer(new ArrayList<>(path), loop);
+            }
+        }
+
+        private void exitLoop() {
+            loops.pop();
+            if (counted.pop()) path.removeLast();
+        }
+
+        private void offer(List<String> variables, CtElement at) {
+            if (variables.size() <= best.degree()) return;
+            int line = at.getPosition() != null && at.getPosition().isValidPosition() ? at.getPosition().getLine() : -1;
+            best = new Estimate(variables.size(), List.copyOf(variables), line);
+        }
+
+        private void declare(CtLocalVariable<?> local) {
+            CtExpression<?> init = local.getDefaultExpression();
+            String key = init != null ? keyOf(init) : null;
+            if (key != null) {
+                aliases.put(local, key);
+            } else if (!loops.isEmpty()) {
+                perIteration.add(local);
+            }
+        }
+
+        /**
+         * @return the size key of a for loop: for a counter stepping up, that of the bound it
+         *         runs to; for one stepping down, that of its start, since the bound it runs down
+         *         to is usually 0. Either is null when constant.
+         */
+        private String keyOfFor(CtFor loop) {
+            if (loop.getForInit().size() == 1 && loop.getForUpdate().size() == 1
+                    && loop.getForInit().get(0) instanceof CtLocalVariable<?> counter
+                    && counter.getDefaultExpression() != null
+                    && loop.getExpression() instanceof CtBinaryOperator<?> cond) {
+                String name = counter.getSimpleName();
+                OptionalLong step = LoopCostScoreModel.step(loop.getForUpdate().get(0), name);
+                CtExpression<?> bound = LoopCostScoreModel.isRead(cond.getLeftHandOperand(), name) ? cond.getRightHandOperand()
+                        : LoopCostScoreModel.isRead(cond.getRightHandOperand(), name) ? cond.getLeftHandOperand() : null;
+                if (step.isPresent() && step.getAsLong() > 0 && bound != null) {
+                    return LoopCostScoreModel.constant(bound, 0).isPresent() ? null : keyOfCondition(loop, cond);
+                }
+                if (step.isPresent() && step.getAsLong() < 0 && bound != null) {
+                    if (LoopCostScoreModel.constant(counter.getDefaultExpression(), 0).isPresent()) return null;
+                    String key = keyOfCondition(loop, counter.getDefaultExpression());
+                    return key != null ? key : keyOfCondition(loop, cond);
+                }
+            }
+            return keyOfCondition(loop, loop.getExpression());
+        }
+
+        /**
+         * @return the size key of the first variable read by a loop condition (or a counter's
+         *         start) that the loop does not write, or null when there is none: a loop whose condition only
+         *         reads its own counters, e.g. {@code while (lo < hi)} halving a range, or
+         *         constants is not counted
+         */
+        private String keyOfCondition(CtLoop loop, CtExpression<?> condition) {
+            if (condition == null) return null;
+            Set<CtVariable<?>> written = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (CtVariableWrite<?> write : loop.getElements(new TypeFilter<>(CtVariableWrite.class))) {
+                CtVariable<?> declaration = declarationOf(write.getVariable());
+                if (declaration != null) written.add(declaration);
+            }
+            for (CtVariableRead<?> read : condition.getElements(new TypeFilter<>(CtVariableRead.class))) {
+                CtVariable<?> declaration = declarationOf(read.getVariable());
+                if (declaration != null && written.contains(declaration) && !aliases.containsKey(declaration)) continue;
+                if (LoopCostScoreModel.constant(read, 0).isPresent()) continue;
+                String key = keyOf(read);
+                if (key != null) return key;
+            }
+            return null;
+        }
+
+        /**
+         * @return the variable an expression's size comes from, e.g. "orders" for
+         *         {@code orders.values()}, or null for per-iteration data and expressions
+         *         without a variable
+         */
+        private String keyOf(CtExpression<?> expression) {
+            CtExpression<?> e = expression;
+            while (e != null) {
+                if (e instanceof CtFieldAccess<?> field && field.getTarget() != null
+                        && !(field.getTarget() instanceof CtThisAccess<?>) && !(field.getTarget() instanceof CtTypeAccess<?>)) {
+                    e = field.getTarget(); // matrix.length, order.items
+                } else if (e instanceof CtVariableAccess<?> access) {
+                    CtVariable<?> declaration = declarationOf(access.getVariable());
+                    if (declaration != null) {
+                        if (perIteration.contains(declaration)) return null;
+                        String alias = aliases.get(declaration);
+                        if (alias != null) return alias;
+                    }
+                    return access.getVariable() != null ? access.getVariable().getSimpleName() : null;
+                } else if (e instanceof CtInvocation<?> invocation) {
+                    CtExpression<?> target = invocation.getTarget();
+                    String name = invocation.getExecutable() != null ? invocation.getExecutable().getSimpleName() : null;
+                    if (target instanceof CtTypeAccess<?>) {
+                        // List.copyOf(orders), Arrays.asList(items)
+                        if (name == null || !VIEWS.contains(name) || invocation.getArguments().isEmpty()) return null;
+                        e = invocation.getArguments().get(0);
+                        continue;
+                    }
+                    if (target == null || target instanceof CtThisAccess<?>) {
+                        // getItems() on this: the method stands for the collection
+                        return name != null ? name + "()" : null;
+                    }
+                    if (name == null || !VIEWS.contains(name)) {
+                        return null; // list.get(i) is an element, not the list
+                    }
+                    e = target;
+                } else if (e instanceof CtConstructorCall<?> call && call.getArguments().size() == 1) {
+                    e = call.getArguments().get(0); // new ArrayList<>(orders)
+                } else {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        private static CtVariable<?> declarationOf(CtVariableReference<?> reference) {
+            try {
+                return reference != null ? reference.getDeclaration() : null;
+            } catch (RuntimeException e) {
+                return null; // noClasspath
+            }
+        }
+
+        private static boolean isLinearListCall(CtInvocation<?> invocation) {
+            if (invocation.getExecutable() == null
+                    || !LINEAR_LIST_CALLS.contains(invocation.getExecutable().getSimpleName())) {
+                return false;
+            }
+            CtExpression<?> target = invocation.getTarget();
+            return target != null && !(target instanceof CtThisAccess<?>)
+                    && RuleMatcher.typeMatches(target.getType(), LIST_TYPES);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.visitor.CtScanner;
+
+import java.util.*;
+
+/**
+ * Side table recording, for every element under a root, which {@link ContextKind}s enclose
+ * it and how many loops it is nested in. It is filled by one scan of the tree, so ancestor
+ * and loop-depth checks become lookups instead of walks to the root.
+ *
+ * The enclosing mask does not include the element itself: a CtFor is not "inside a for"
+ * unless another one encloses it.
+ *
+ * An index built with a {@link CallGraph} also answers how the element's method is reached
+ * from elsewhere in the project, for rules that require their context transitively.
+ */
+public final class ContextIndex {
+
+    private static final int MASK_BITS = 24;
+    private static final int MASK = (1 << MASK_BITS) - 1;
+    private static final int MAX_DEPTH = 0xFF;
+
+    // packed as (loopDepth << 24) | enclosingMask
+    private final Map<CtElement, Integer> table;
+    private final CallGraph calls;
+
+    private ContextIndex(Map<CtElement, Integer> table, CallGraph calls) {
+        this.table = table;
+        this.calls = calls;
+    }
+
+    public static ContextIndex build(CtElement root) {
+        return build(List.of(root));
+    }
+
+    /**
+     * Index several independent roots, e.g. the top-level types of one compilation unit.
+     */
+    public static ContextIndex build(Collection<? extends CtElement> roots) {
+        return build(roots, CallGraph.EMPTY);
+    }
+
+    /**
+     * Index roots whose methods are part of {@code calls}.
+     */
+    public static ContextIndex build(Collection<? extends CtElement> roots, CallGraph calls) {
+        Builder builder = new Builder();
+        for (CtElement root : roots) {
+            builder.scan(root);
+        }
+        return new ContextIndex(builder.table, calls);
+    }
+
+    /**
+     * @return mask of {@link ContextKind} bits for the constructs enclosing the element
+     */
+    public int enclosingMask(CtElement element) {
+        return packed(element) & MASK;
+    }
+
+    /**
+     * @return number of loops enclosing the element
+     */
+    public int loopDepth(CtElement element) {
+        return packed(element) >>> MASK_BITS;
+    }
+
+    /**
+     * @return how the method or constructor around the element is called, or null when it is
+     *         not called from the indexed model
+     */
+    public CallGraph.Reach reach(CtElement element) {
+        CtExecutable<?> executable = CallGraph.enclosingExecutable(element);
+        return executable != null ? calls.reach(executable) : null;
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    private int packed(CtElement element) {
+        Integer packed = table.get(element);
+        return packed != null ? packed : walk(element);
+    }
+
+    // fallback for elements outside the indexed tree, e.g. created after the index was built
+    private static int walk(CtElement element) {
+        int mask = 0;
+        int depth = 0;
+        CtElement parent = element.isParentInitialized() ? element.getParent() : null;
+        while (parent != null) {
+            int m = ContextKind.maskOf(parent);
+            mask |= m;
+            if ((m & ContextKind.LOOP_MASK) != 0) depth++;
+            parent = parent.isParentInitialized() ? parent.getParent() : null;
+        }
+        return pack(mask, depth);
+    }
+
+    private static int pack(int mask, int depth) {
+        return (Math.min(depth, MAX_DEPTH) << MASK_BITS) | (mask & MASK);
+    }
+
+    private static final class Builder extends CtScanner {
+        private final Map<CtElement, Integer> table = new IdentityHashMap<>();
+        private int[] masks = new int[64];
+        private int[] depths = new int[64];
+        private int top = 0; // masks[0]/depths[0] describe the (empty) context of the root
+
+        @Override
+        protected void enter(CtElement element) {
+            int mask = masks[top];
+            int depth = depths[top];
+            table.put(element, pack(mask, depth));
+
+            int own = ContextKind.maskOf(element);
+            if (++top == masks.length) {
+                masks = Arrays.copyOf(masks, top * 2);
+                depths = Arrays.copyOf(depths, top * 2);
+            }
+            masks[top] = mask | own;
+            depths[top] = (own & ContextKind.LOOP_MASK) != 0 ? depth + 1 : depth;
+        }
+
+        @Override
+        protected void exit(CtElement element) {
+            top--;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import spoon.reflect.code.*;
+import spoon.reflect.declaration.CtAnonymousExecutable;
+import spoon.reflect.declaration.CtConstructor;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtMethod;
+
+import java.util.Locale;
+
+/**
+ * Enclosing constructs a rule can require through its "ancestor" list.
+ * Each kind owns one bit so a set of kinds fits in an int mask.
+ */
+public enum ContextKind {
+    FOR(CtFor.class, "for", "forloop"),
+    FOREACH(CtForEach.class, "foreach", "foreachloop", "enhancedfor"),
+    WHILE(CtWhile.class, "while", "whileloop"),
+    DO(CtDo.class, "do", "doloop", "dowhile"),
+    LOOP(CtLoop.class, "loop"),
+    IF(CtIf.class, "if"),
+    CONDITIONAL(CtConditional.class, "conditional", "ternary"),
+    SWITCH(CtSwitch.class, "switch"),
+    TRY(CtTry.class, "try"),
+    CATCH(CtCatch.class, "catch"),
+    SYNCHRONIZED(CtSynchronized.class, "synchronized"),
+    LAMBDA(CtLambda.class, "lambda"),
+    ANONYMOUS_CLASS(CtNewClass.class, "newclass", "anonymousclass"),
+    METHOD(CtMethod.class, "method"),
+    CONSTRUCTOR(CtConstructor.class, "constructor"),
+    INITIALIZER(CtAnonymousExecutable.class, "anonymousexecutable", "initializer");
+
+    /** Mask of every loop kind, used for loop-depth bookkeeping. */
+    public static final int LOOP_MASK = FOR.bit() | FOREACH.bit() | WHILE.bit() | DO.bit() | LOOP.bit();
+
+    private static final ContextKind[] VALUES = values();
+
+    private static final ClassValue<Integer> MASK_BY_CLASS = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            int mask = 0;
+            for (ContextKind kind : VALUES) {
+                if (kind.nodeType.isAssignableFrom(type)) mask |= kind.bit();
+            }
+            return mask;
+        }
+    };
+
+    private final Class<? extends CtElement> nodeType;
+    private final String[] aliases;
+
+    ContextKind(Class<? extends CtElement> nodeType, String... aliases) {
+        this.nodeType = nodeType;
+        this.aliases = aliases;
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public Class<? extends CtElement> getNodeType() {
+        return nodeType;
+    }
+
+    /**
+     * @return mask of every kind the given element is an instance of (a CtFor is both FOR and LOOP)
+     */
+    public static int maskOf(CtElement element) {
+        return MASK_BY_CLASS.get(element.getClass());
+    }
+
+    /**
+     * Resolve a rule's ancestor name. Accepts Spoon names ("CtFor", "CtForImpl") and
+     * the short forms used in rules.json ("For", "ForLoop", "Loop").
+     *
+     * @throws IllegalArgumentException when the name is not a supported context kind
+     */
+    public static ContextKind parse(String raw) {
+        if (raw == null || raw.isBlank()) {
+            throw new IllegalArgumentException("empty ancestor name");
+        }
+        String n = raw.trim();
+        if (n.endsWith("Impl")) n = n.substring(0, n.length() - 4);
+        if (n.startsWith("Ct")) n = n.substring(2);
+        String key = n.toLowerCase(Locale.ROOT).replace("_", "");
+        for (ContextKind kind : VALUES) {
+            if (kind.name().replace("_", "").equalsIgnoreCase(key)) return kind;
+            for (String alias : kind.aliases) {
+                if (alias.equals(key)) return kind;
+            }
+        }
+        throw new IllegalArgumentException("unsupported ancestor kind: " + raw);
+    }
+}
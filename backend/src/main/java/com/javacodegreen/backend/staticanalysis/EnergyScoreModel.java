@@ -0,0 +1,27 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import spoon.reflect.declaration.CtElement;
+
+import java.util.Map;
+
+/**
+ * Computes a finding's {@code energyScore} from its rule and matched element. Models are
+ * swapped with {@link StaticAnalyzer#setScoreModel}; cached findings are keyed by the model's
+ * version, so changing coefficients re-scores files on their next analysis.
+ */
+public interface EnergyScoreModel {
+
+    double score(Rule rule, CtElement element);
+
+    /**
+     * @return what the score was derived from, added to the finding's evidence
+     */
+    default Map<String, Object> explain(Rule rule, CtElement element) {
+        return Map.of();
+    }
+
+    /**
+     * @return changes whenever the model would score the same element differently
+     */
+    String getVersion();
+}
@@ -12,6 +12,7 @@ public class Finding {
     private String file;
     private int startLine;
     private int endLine;
+    private String enclosingMethod;
     private String suggestion;
     private Map<String, Object> evidence;
     private List<String> tags;
@@ -43,6 +44,9 @@ public class Finding {
     public int getEndLine() { return endLine; }
     public void setEndLine(int endLine) { this.endLine = endLine; }
 
+    public String getEnclosingMethod() { return enclosingMethod; }
+    public void setEnclosingMethod(String enclosingMethod) { this.enclosingMethod = enclosingMethod; }
+
     public String getSuggestion() { return suggestion; }
     public void setSuggestion(String suggestion) { this.suggestion = suggestion; }
 
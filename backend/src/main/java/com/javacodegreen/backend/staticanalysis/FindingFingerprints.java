@@ -0,0 +1,60 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns findings a stable id derived from what was found rather than where: the rule, the
+ * file relative to the analyzed root, the whitespace-normalized snippet and the enclosing
+ * method. Line numbers are left out, so a finding keeps its id when code above it moves, and
+ * the same finding in two commits can be matched by id.
+ *
+ * Identical snippets in one method are told apart by their occurrence number in traversal
+ * order. One instance covers one analysis.
+ */
+final class FindingFingerprints {
+
+    private final Path root;
+    private final Map<String, Integer> occurrences = new ConcurrentHashMap<>();
+
+    FindingFingerprints(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Set the finding's id; call in traversal order per file.
+     */
+    void assign(Finding f) {
+        String snippet = f.getEvidence() != null && f.getEvidence().get("snippet") != null
+                ? String.valueOf(f.getEvidence().get("snippet")).replaceAll("\\s+", " ").trim() : "";
+        String base = f.getRuleId() + '\0' + relativize(f.getFile()) + '\0' + snippet + '\0'
+                + (f.getEnclosingMethod() != null ? f.getEnclosingMethod() : "");
+        int occurrence = occurrences.merge(base, 1, Integer::sum);
+        f.setId("F-" + hash(base + '\0' + occurrence));
+    }
+
+    /**
+     * @return {@code file} relative to the analyzed root with '/' separators
+     */
+    String relativize(String file) {
+        if (file == null) return "";
+        Path path = Paths.get(file).toAbsolutePath().normalize();
+        Path rel = path.startsWith(root) && !path.equals(root) ? root.relativize(path) : path.getFileName();
+        return rel == null ? "" : rel.toString().replace('\\', '/');
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 10);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
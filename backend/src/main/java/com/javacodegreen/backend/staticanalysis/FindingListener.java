@@ -0,0 +1,12 @@
+package com.javacodegreen.backend.staticanalysis;
+
+/**
+ * Receives each finding as soon as a rule accepts it, before the analysis is complete.
+ * Implementations must be thread-safe.
+ */
+@FunctionalInterface
+public interface FindingListener {
+    FindingListener NONE = finding -> {};
+
+    void onFinding(Finding finding);
+}
@@ -0,0 +1,246 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import spoon.reflect.code.*;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtVariable;
+import spoon.reflect.declaration.ModifierKind;
+import spoon.reflect.reference.CtVariableReference;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Scores a finding as its rule's cost coefficient times how often the matched code is
+ * estimated to run: the product of the trip counts of its enclosing loops. A counted for
+ * loop whose start, bound and step are constants — literals, final variables with constant
+ * initializers or arithmetic on them, e.g. {@code for (int i = 0; i < SIZE; i += 2)} — counts
+ * its exact trips; every other loop counts {@code unknownTrips}.
+ *
+ * Without calibration a rule's coefficient is its severity score, so code outside loops
+ * scores as before. {@code calibrate} fits the coefficients to stored measurements.
+ */
+public class LoopCostScoreModel implements EnergyScoreModel {
+
+    public static final long DEFAULT_UNKNOWN_TRIPS = 10;
+
+    private static final long MAX_TRIPS = 1_000_000;
+    private static final int MAX_CONSTANT_DEPTH = 8;
+
+    private final Map<String, Double> coefficients;
+    private final long unknownTrips;
+    private final String version;
+
+    /**
+     * @param coefficients cost per execution by rule id; rules without one use their severity score
+     * @param unknownTrips trips assumed for loops without constant bounds
+     */
+    public LoopCostScoreModel(Map<String, Double> coefficients, long unknownTrips) {
+        if (unknownTrips < 1) {
+            throw new IllegalArgumentException("unknownTrips must be at least 1");
+        }
+        this.coefficients = Map.copyOf(coefficients);
+        this.unknownTrips = unknownTrips;
+        StringBuilder key = new StringBuilder().append(unknownTrips);
+        new TreeMap<>(coefficients).forEach((rule, c) -> key.append('\0').append(rule).append('=').append(c));
+        this.version = "loop-cost:" + AnalysisCache.hash(key.toString().getBytes(StandardCharsets.UTF_8)).substring(0, 12);
+    }
+
+    public LoopCostScoreModel() {
+        this(Map.of(), DEFAULT_UNKNOWN_TRIPS);
+    }
+
+    /**
+     * Read the coefficients written by the calibration command.
+     */
+    public static LoopCostScoreModel fromCalibration(Path file) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(file.toFile());
+        Map<String, Double> coefficients = new HashMap<>();
+        root.path("coefficients").properties().forEach(e -> coefficients.put(e.getKey(), e.getValue().asDouble()));
+        return new LoopCostScoreModel(coefficients, root.path("unknownTrips").asLong(DEFAULT_UNKNOWN_TRIPS));
+    }
+
+    public long getUnknownTrips() {
+        return unknownTrips;
+    }
+
+    @Override
+    public double score(Rule rule, CtElement element) {
+        return coefficient(rule) * executions(element);
+    }
+
+    @Override
+    public Map<String, Object> explain(Rule rule, CtElement element) {
+        int depth = 0;
+        for (CtElement p = parentOf(element); p != null; p = parentOf(p)) {
+            if (p instanceof CtLoop) depth++;
+        }
+        return Map.of("loopDepth", depth, "estimatedExecutions", executions(element), "costCoefficient", coefficient(rule));
+    }
+
+    @Override
+    public String getVersion() {
+        return version;
+    }
+
+    double coefficient(Rule rule) {
+        Double c = coefficients.get(rule.getId());
+        return c != null ? c : SeverityScoreModel.scoreFromSeverity(rule.getSeverity());
+    }
+
+    /**
+     * @return estimated runs of {@code element} per run of its method, capped per loop
+     */
+    public double executions(CtElement element) {
+        double runs = 1;
+        for (CtElement p = parentOf(element); p != null; p = parentOf(p)) {
+            if (p instanceof CtLoop loop) runs *= trips(loop);
+        }
+        return runs;
+    }
+
+    long trips(CtLoop loop) {
+        OptionalLong known = OptionalLong.empty();
+        if (loop instanceof CtFor f) {
+            known = countedTrips(f);
+        } else if (loop instanceof CtForEach each && each.getExpression() instanceof CtNewArray<?> array
+                && !array.getElements().isEmpty()) {
+            known = OptionalLong.of(array.getElements().size());
+        }
+        // a loop that provably never runs still counts once: the finding is real code
+        return known.isPresent() ? Math.max(1, Math.min(MAX_TRIPS, known.getAsLong())) : unknownTrips;
+    }
+
+    private static OptionalLong countedTrips(CtFor loop) {
+        if (loop.getForInit().size() != 1 || loop.getForUpdate().size() != 1) return OptionalLong.empty();
+
+        String var;
+        OptionalLong start;
+        CtStatement init = loop.getForInit().get(0);
+        if (init instanceof CtLocalVariable<?> local && local.getDefaultExpression() != null) {
+            var = local.getSimpleName();
+            start = constant(local.getDefaultExpression(), 0);
+        } else if (init instanceof CtAssignment<?, ?> assign && assign.getAssigned() instanceof CtVariableWrite<?> w) {
+            var = w.getVariable().getSimpleName();
+            start = constant(assign.getAssignment(), 0);
+        } else {
+            return OptionalLong.empty();
+        }
+
+        OptionalLong step = step(loop.getForUpdate().get(0), var);
+        if (start.isEmpty() || step.isEmpty() || step.getAsLong() == 0
+                || !(loop.getExpression() instanceof CtBinaryOperator<?> cond)) {
+            return OptionalLong.empty();
+        }
+
+        BinaryOperatorKind kind = cond.getKind();
+        OptionalLong bound;
+        if (isRead(cond.getLeftHandOperand(), var)) {
+            bound = constant(cond.getRightHandOperand(), 0);
+        } else if (isRead(cond.getRightHandOperand(), var)) {
+            bound = constant(cond.getLeftHandOperand(), 0);
+            kind = flip(kind);
+        } else {
+            return OptionalLong.empty();
+        }
+        if (bound.isEmpty() || kind == null) return OptionalLong.empty();
+
+        long s = start.getAsLong();
+        long b = bound.getAsLong();
+        long d = step.getAsLong();
+        // a step away from the bound never ends (or overflows), so such loops stay unknown
+        OptionalLong trips = switch (kind) {
+            case LT -> d > 0 ? OptionalLong.of(Math.ceilDiv(b - s, d)) : OptionalLong.empty();
+            case LE -> d > 0 ? OptionalLong.of(Math.ceilDiv(b - s + 1, d)) : OptionalLong.empty();
+            case GT -> d < 0 ? OptionalLong.of(Math.ceilDiv(s - b, -d)) : OptionalLong.empty();
+            case GE -> d < 0 ? OptionalLong.of(Math.ceilDiv(s - b + 1, -d)) : OptionalLong.empty();
+            default -> OptionalLong.empty();
+        };
+        return trips.isPresent() ? OptionalLong.of(Math.max(0, trips.getAsLong())) : trips;
+    }
+
+    static OptionalLong step(CtStatement update, String var) {
+        if (update instanceof CtUnaryOperator<?> u && isAccess(u.getOperand(), var)) {
+            return switch (u.getKind()) {
+                case POSTINC, PREINC -> OptionalLong.of(1);
+                case POSTDEC, PREDEC -> OptionalLong.of(-1);
+                default -> OptionalLong.empty();
+            };
+        }
+        if (update instanceof CtOperatorAssignment<?, ?> op && isAccess(op.getAssigned(), var)) {
+            OptionalLong by = constant(op.getAssignment(), 0);
+            if (by.isEmpty()) return by;
+            if (op.getKind() == BinaryOperatorKind.PLUS) return by;
+            if (op.getKind() == BinaryOperatorKind.MINUS) return OptionalLong.of(-by.getAsLong());
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Evaluate integer constants: literals, final variables initialized with constants, and
+     * +, -, *, / and negation over them.
+     */
+    static OptionalLong constant(CtExpression<?> expr, int depth) {
+        if (expr == null || depth > MAX_CONSTANT_DEPTH) return OptionalLong.empty();
+        if (expr instanceof CtLiteral<?> literal) {
+            Object v = literal.getValue();
+            if (v instanceof Number n && !(v instanceof Double) && !(v instanceof Float)) return OptionalLong.of(n.longValue());
+            if (v instanceof Character c) return OptionalLong.of(c);
+            return OptionalLong.empty();
+        }
+        if (expr instanceof CtVariableRead<?> read) {
+            CtVariableReference<?> ref = read.getVariable();
+            CtVariable<?> declaration = ref != null ? ref.getDeclaration() : null;
+            if (declaration != null && declaration.hasModifier(ModifierKind.FINAL)) {
+                return constant(declaration.getDefaultExpression(), depth + 1);
+            }
+            return OptionalLong.empty();
+        }
+        if (expr instanceof CtUnaryOperator<?> u && u.getKind() == UnaryOperatorKind.NEG) {
+            OptionalLong v = constant(u.getOperand(), depth + 1);
+            return v.isPresent() ? OptionalLong.of(-v.getAsLong()) : v;
+        }
+        if (expr instanceof CtBinaryOperator<?> op) {
+            OptionalLong l = constant(op.getLeftHandOperand(), depth + 1);
+            OptionalLong r = constant(op.getRightHandOperand(), depth + 1);
+            if (l.isEmpty() || r.isEmpty()) return OptionalLong.empty();
+            long a = l.getAsLong();
+            long b = r.getAsLong();
+            return switch (op.getKind()) {
+                case PLUS -> OptionalLong.of(a + b);
+                case MINUS -> OptionalLong.of(a - b);
+                case MUL -> OptionalLong.of(a * b);
+                case DIV -> b != 0 ? OptionalLong.of(a / b) : OptionalLong.empty();
+                default -> OptionalLong.empty();
+            };
+        }
+        return OptionalLong.empty();
+    }
+
+    private static BinaryOperatorKind flip(BinaryOperatorKind kind) {
+        return switch (kind) {
+            case LT -> BinaryOperatorKind.GT;
+            case LE -> BinaryOperatorKind.GE;
+            case GT -> BinaryOperatorKind.LT;
+            case GE -> BinaryOperatorKind.LE;
+            default -> null;
+        };
+    }
+
+    static boolean isRead(CtExpression<?> expr, String var) {
+        return expr instanceof CtVariableRead<?> read && read.getVariable() != null
+                && var.equals(read.getVariable().getSimpleName());
+    }
+
+    private static boolean isAccess(CtExpression<?> expr, String var) {
+        return expr instanceof CtVariableAccess<?> access && access.getVariable() != null
+                && var.equals(access.getVariable().getSimpleName());
+    }
+
+    private static CtElement parentOf(CtElement e) {
+        return e.isParentInitialized() ? e.getParent() : null;
+    }
+}
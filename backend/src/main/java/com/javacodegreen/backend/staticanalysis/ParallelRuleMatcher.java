@@ -0,0 +1,117 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import spoon.reflect.declaration.CtType;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Spreads rule matching over compilation units on a fork-join pool. Each unit gets its own
+ * {@link ContextIndex} and {@link RuleScanner}, so workers share nothing but the read-only
+ * model, its call graph and the compiled rules.
+ *
+ * Results are merged deterministically: grouped by rule in rule order, then by unit in file
+ * path order, then in traversal order within the unit.
+ */
+class ParallelRuleMatcher {
+
+    record Result(List<Finding> findings, List<RuleScanner.RuleStats> stats, int elements) {}
+
+    /** Top-level types declared in one source file. */
+    record Unit(String file, List<CtType<?>> types) {}
+
+    private final ForkJoinPool pool;
+
+    ParallelRuleMatcher(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Group the model's top-level types by source file, ordered by path.
+     */
+    static List<Unit> unitsOf(Collection<CtType<?>> types) {
+        Map<String, List<CtType<?>>> byFile = new TreeMap<>();
+        for (CtType<?> type : types) {
+            if (!type.isTopLevel()) continue;
+            String file = type.getPosition() != null && type.getPosition().getFile() != null
+                    ? type.getPosition().getFile().getPath() : "";
+            byFile.computeIfAbsent(file, f -> new ArrayList<>()).add(type);
+        }
+        List<Unit> units = new ArrayList<>(byFile.size());
+        byFile.forEach((file, list) -> units.add(new Unit(file, list)));
+        return units;
+    }
+
+    Result match(List<Unit> units, List<RuleMatcher> matchers, RuleScanner.Finder finder, CallGraph calls) {
+        RuleScanner[] scanners = new RuleScanner[units.size()];
+        int[] elements = new int[units.size()];
+        if (!units.isEmpty() && !matchers.isEmpty()) {
+            pool.invoke(new MatchTask(units, matchers, finder, calls, scanners, elements, 0, units.size()));
+        }
+
+        List<Finding> findings = new ArrayList<>();
+        List<RuleScanner.RuleStats> stats = new ArrayList<>(matchers.size());
+        for (int r = 0; r < matchers.size(); r++) {
+            int candidates = 0;
+            int accepted = 0;
+            long nanos = 0;
+            for (RuleScanner scanner : scanners) {
+                if (scanner == null) continue;
+                findings.addAll(scanner.findings(r));
+                RuleScanner.RuleStats s = scanner.stats().get(r);
+                candidates += s.candidates();
+                accepted += s.accepted();
+                nanos += s.nanos();
+            }
+            stats.add(new RuleScanner.RuleStats(matchers.get(r).getRule().getId(), candidates, accepted, nanos));
+        }
+        return new Result(findings, stats, Arrays.stream(elements).sum());
+    }
+
+    private static final class MatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Unit> units;
+        private final List<RuleMatcher> matchers;
+        private final RuleScanner.Finder finder;
+        private final CallGraph calls;
+        private final RuleScanner[] scanners;
+        private final int[] elements;
+        private final int from;
+        private final int to;
+
+        MatchTask(List<Unit> units, List<RuleMatcher> matchers, RuleScanner.Finder finder, CallGraph calls,
+                  RuleScanner[] scanners, int[] elements, int from, int to) {
+            this.units = units;
+            this.matchers = matchers;
+            this.finder = finder;
+            this.calls = calls;
+            this.scanners = scanners;
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new MatchTask(units, matchers, finder, calls, scanners, elements, from, mid),
+                        new MatchTask(units, matchers, finder, calls, scanners, elements, mid, to));
+                return;
+            }
+            Unit unit = units.get(from);
+            ContextIndex context = ContextIndex.build(unit.types(), calls);
+            RuleScanner scanner = new RuleScanner(finder, context);
+            matchers.forEach(scanner::register);
+            unit.types().forEach(scanner::scan);
+            scanners[from] = scanner;
+            elements[from] = context.size();
+        }
+    }
+}
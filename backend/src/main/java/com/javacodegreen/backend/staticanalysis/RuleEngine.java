@@ -3,34 +3,97 @@ package com.javacodegreen.backend.staticanalysis;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
+/**
+ * Loads the bundled rule packs, in {@link #PACKS} order. A rule whose id an earlier pack
+ * already defines is reported and left out.
+ */
 public class RuleEngine {
+
+    /** Bundled packs under resources/rules/: the loop rules, the collection/regex API pack and the boxing pack. */
+    static final List<String> PACKS = List.of("rules/rules.json", "rules/collections-regex.json", "rules/boxing.json");
+
     private List<Rule> rules;
+    private List<RuleMatcher> matchers;
+    private List<RuleMatcher> untypedMatchers;
+    private String version = "";
 
     public RuleEngine() {
         loadRules();
+        compileRules();
     }
 
     private void loadRules() {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            InputStream is = getClass().getClassLoader().getResourceAsStream("rules/rules.json");
-            if (is != null) {
-                rules = mapper.readValue(is, new TypeReference<List<Rule>>() {});
-            } else {
-                rules = Collections.emptyList();
-                System.err.println("⚠️ rules.json not found in resources/rules/");
+        ObjectMapper mapper = new ObjectMapper();
+        List<Rule> loaded = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        for (String pack : PACKS) {
+            try (InputStream is = getClass().getClassLoader().getResourceAsStream(pack)) {
+                if (is == null) {
+                    System.err.println("⚠️ " + pack + " not found in resources");
+                    continue;
+                }
+                byte[] json = is.readAllBytes();
+                all.write(json);
+                for (Rule rule : mapper.readValue(json, new TypeReference<List<Rule>>() {})) {
+                    if (ids.add(rule.getId())) {
+                        loaded.add(rule);
+                    } else {
+                        System.err.println("⚠️ skipping rule " + rule.getId() + " from " + pack + ": duplicate id");
+                    }
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        rules = loaded.isEmpty() ? Collections.emptyList() : List.copyOf(loaded);
+        version = all.size() > 0 ? AnalysisCache.hash(all.toByteArray()) : "";
+    }
+
+    /**
+     * Compile every rule once; a rule that cannot be compiled is reported and left out
+     * instead of failing the whole rule set.
+     */
+    private void compileRules() {
+        List<RuleMatcher> compiled = new ArrayList<>(rules.size());
+        for (Rule rule : rules) {
+            try {
+                compiled.add(RuleMatcher.compile(rule));
+            } catch (IllegalArgumentException e) {
+                System.err.println("⚠️ skipping rule " + rule.getId() + ": " + e.getMessage());
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            rules = Collections.emptyList();
         }
+        matchers = List.copyOf(compiled);
+        untypedMatchers = matchers.stream().filter(m -> !m.needsTypes()).toList();
     }
 
     public List<Rule> getRules() {
         return rules;
     }
+
+    /**
+     * @return hash of the loaded rule packs, empty when none was found
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the matchers of an analysis without a classpath
+     */
+    public List<RuleMatcher> getMatchers() {
+        return untypedMatchers;
+    }
+
+    /**
+     * @param resolveTypes whether library types are resolved; rules that only match on them
+     *                     ({@link RuleMatcher#needsTypes()}) are left out otherwise
+     */
+    public List<RuleMatcher> getMatchers(boolean resolveTypes) {
+        return resolveTypes ? matchers : untypedMatchers;
+    }
 }
@@ -0,0 +1,530 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import spoon.reflect.code.*;
+import spoon.reflect.declaration.CtConstructor;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtNamedElement;
+import spoon.reflect.declaration.CtTypedElement;
+import spoon.reflect.reference.CtExecutableReference;
+import spoon.reflect.reference.CtReference;
+import spoon.reflect.reference.CtTypeReference;
+
+import java.util.*;
+
+/**
+ * A {@link Rule} compiled once at load time. All names from the rule's match block are
+ * resolved up front (node type, operator enum, ancestor mask, interned type names), so
+ * testing an element does no string normalization.
+ *
+ * With {@code "transitive": true} the ancestor and minLoopDepth requirements may also be met
+ * by the callers of the element's method, e.g. a FileReader opened in a helper that is called
+ * from a loop. Such matches carry the call chain in their evidence.
+ *
+ * Invocations can further be narrowed by {@code declaringType} (the type declaring the called
+ * method), {@code receiverType} (the static type of the expression it is called on, or of the
+ * class for a static call) and {@code argCount}; e.g. {@code contains} on a List but not on a
+ * Set. Type names match by simple or qualified name, and a qualified name also matches its
+ * subtypes when Spoon knows their hierarchy, so "java.util.List" covers ArrayList.
+ *
+ * {@code "conversion": "boxing"} keeps only expressions the compiler boxes (see {@link Boxing})
+ * and {@code "boxedTypeArgument": true} only calls on a receiver parameterized with a wrapper
+ * type, e.g. a {@code Map<Integer, Long>}. Both need resolved types, so they find the most
+ * with a classpath.
+ *
+ * The "Complexity" node kind matches methods and constructors whose estimated running time
+ * (see {@link ComplexityEstimator}) is at least O(n^minDegree), 2 by default; the estimate,
+ * with the variables whose sizes multiply, is reported as {@code complexity} evidence.
+ *
+ * Instances are immutable and safe to share between analyses.
+ */
+public final class RuleMatcher {
+
+    /** Result of testing one element; everything but ACCEPT names the check that failed. */
+    public enum Outcome { ACCEPT, OPERATOR, TYPE, NAME, ARG_COUNT, DECLARING_TYPE, RECEIVER_TYPE, BOXING, COMPLEXITY, ANCESTOR, LOOP_DEPTH }
+
+    private static final String[] NODE_PACKAGES = {
+            "spoon.reflect.code.", "spoon.reflect.declaration.", "spoon.reflect.reference."
+    };
+
+    private static final String COMPLEXITY_NODE = "Complexity";
+    private static final int DEFAULT_MIN_DEGREE = 2;
+
+    private static final Map<String, String> NODE_ALIASES = Map.of(
+            "binary", "CtBinaryOperator",
+            "binop", "CtBinaryOperator",
+            "binaryexpr", "CtBinaryOperator",
+            "constructor", "CtConstructorCall",
+            "methodinvocation", "CtInvocation"
+    );
+
+    private final Rule rule;
+    private final Class<? extends CtElement> nodeType;
+    private final String nodeName;
+    private final BinaryOperatorKind binaryOperator;
+    private final UnaryOperatorKind unaryOperator;
+    private final String operandType;
+    private final Set<String> typeNames;
+    private final Set<String> names;
+    private final int argCount;
+    private final Set<String> declaringTypes;
+    private final Set<String> receiverTypes;
+    private final int ancestorMask;
+    private final int minLoopDepth;
+    private final boolean transitive;
+    private final int minDegree;
+    private final boolean boxing;
+    private final boolean boxedTypeArgument;
+
+    private RuleMatcher(Rule rule, Class<? extends CtElement> nodeType, BinaryOperatorKind binaryOperator,
+                        UnaryOperatorKind unaryOperator, String operandType, Set<String> typeNames,
+                        Set<String> names, int argCount, Set<String> declaringTypes, Set<String> receiverTypes,
+                        int ancestorMask, int minLoopDepth, boolean transitive, int minDegree,
+                        boolean boxing, boolean boxedTypeArgument) {
+        this.rule = rule;
+        this.nodeType = nodeType;
+        this.nodeName = minDegree > 0 ? COMPLEXITY_NODE : nodeType.getSimpleName();
+        this.binaryOperator = binaryOperator;
+        this.unaryOperator = unaryOperator;
+        this.operandType = operandType;
+        this.typeNames = typeNames;
+        this.names = names;
+        this.argCount = argCount;
+        this.declaringTypes = declaringTypes;
+        this.receiverTypes = receiverTypes;
+        this.ancestorMask = ancestorMask;
+        this.minLoopDepth = minLoopDepth;
+        this.transitive = transitive;
+        this.minDegree = minDegree;
+        this.boxing = boxing;
+        this.boxedTypeArgument = boxedTypeArgument;
+    }
+
+    /**
+     * Compile a rule's match block.
+     *
+     * @throws IllegalArgumentException when the rule has no match block or names something unknown
+     */
+    public static RuleMatcher compile(Rule rule) {
+        Map<String, Object> match = rule.getMatch();
+        if (match == null) {
+            throw new IllegalArgumentException("rule " + rule.getId() + " has no match section");
+        }
+        String node = asString(match.get("node"));
+        boolean complexity = node != null && node.trim().equalsIgnoreCase(COMPLEXITY_NODE);
+        Class<? extends CtElement> nodeType = complexity ? CtExecutable.class : resolveNodeType(node);
+
+        int minDegree = 0;
+        Object degree = match.get("minDegree");
+        if (degree != null && !complexity) {
+            throw new IllegalArgumentException("rule " + rule.getId() + ": minDegree needs the Complexity node");
+        }
+        if (complexity) {
+            try {
+                minDegree = degree != null ? Integer.parseInt(degree.toString().trim()) : DEFAULT_MIN_DEGREE;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("rule " + rule.getId() + ": minDegree is not a number: " + degree);
+            }
+            if (minDegree < 1) {
+                throw new IllegalArgumentException("rule " + rule.getId() + ": minDegree must be at least 1");
+            }
+        }
+
+        BinaryOperatorKind binaryOperator = null;
+        UnaryOperatorKind unaryOperator = null;
+        String operator = asString(match.get("operator"));
+        if (operator != null && !operator.isBlank()) {
+            binaryOperator = parseBinaryOperator(operator.trim());
+            unaryOperator = parseUnaryOperator(operator.trim());
+            if (binaryOperator == null && unaryOperator == null) {
+                throw new IllegalArgumentException("rule " + rule.getId() + ": unknown operator " + operator);
+            }
+        }
+
+        String operandType = intern(asString(match.get("operandType")));
+
+        Set<String> typeNames = internAll(match.get("type"));
+        Set<String> names = internAll(match.get("name"));
+        Set<String> declaringTypes = internAll(match.get("declaringType"));
+        Set<String> receiverTypes = internAll(match.get("receiverType"));
+
+        int argCount = -1;
+        Object args = match.get("argCount");
+        if (args != null) {
+            try {
+                argCount = Integer.parseInt(args.toString().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("rule " + rule.getId() + ": argCount is not a number: " + args);
+            }
+        }
+        if ((argCount >= 0 || !declaringTypes.isEmpty()) && !CtAbstractInvocation.class.isAssignableFrom(nodeType)) {
+            throw new IllegalArgumentException("rule " + rule.getId() + ": argCount and declaringType need an invocation node");
+        }
+        if (!receiverTypes.isEmpty() && !CtInvocation.class.isAssignableFrom(nodeType)) {
+            throw new IllegalArgumentException("rule " + rule.getId() + ": receiverType needs a CtInvocation node");
+        }
+
+        int ancestorMask = 0;
+        for (String a : asStringList(match.get("ancestor"))) {
+            ancestorMask |= ContextKind.parse(a).bit();
+        }
+
+        int minLoopDepth = 0;
+        Object depth = match.get("minLoopDepth");
+        if (depth != null) {
+            try {
+                minLoopDepth = Integer.parseInt(depth.toString().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("rule " + rule.getId() + ": minLoopDepth is not a number: " + depth);
+            }
+        }
+
+        String conversion = asString(match.get("conversion"));
+        if (conversion != null && !conversion.trim().equalsIgnoreCase("boxing")) {
+            throw new IllegalArgumentException("rule " + rule.getId() + ": unknown conversion " + conversion);
+        }
+        boolean boxedTypeArgument = Boolean.parseBoolean(String.valueOf(match.get("boxedTypeArgument")).trim());
+        if (boxedTypeArgument && !CtInvocation.class.isAssignableFrom(nodeType)) {
+            throw new IllegalArgumentException("rule " + rule.getId() + ": boxedTypeArgument needs a CtInvocation node");
+        }
+
+        boolean transitive = Boolean.parseBoolean(String.valueOf(match.get("transitive")).trim());
+        if (transitive && ancestorMask == 0 && minLoopDepth == 0) {
+            throw new IllegalArgumentException("rule " + rule.getId() + ": transitive needs an ancestor or minLoopDepth");
+        }
+
+        return new RuleMatcher(rule, nodeType, binaryOperator, unaryOperator, operandType,
+                typeNames, names, argCount, declaringTypes, receiverTypes, ancestorMask, minLoopDepth, transitive, minDegree,
+                conversion != null, boxedTypeArgument);
+    }
+
+    /**
+     * Test an element of (a subtype of) {@link #getNodeType()} against this rule.
+     *
+     * @param context enclosing-context index covering the element
+     */
+    public Outcome test(CtElement element, ContextIndex context) {
+        if (minDegree > 0) {
+            if (!(element instanceof CtMethod<?>) && !(element instanceof CtConstructor<?>)) return Outcome.TYPE;
+            if (ComplexityEstimator.memoized((CtExecutable<?>) element).degree() < minDegree) return Outcome.COMPLEXITY;
+        }
+        if (binaryOperator != null || unaryOperator != null) {
+            if (!operatorMatches(element)) return Outcome.OPERATOR;
+        }
+        if (operandType != null) {
+            CtTypeReference<?> type = typeOf(element);
+            if (type == null || !operandType.equals(type.getQualifiedName())) return Outcome.TYPE;
+        }
+        if (!typeNames.isEmpty()) {
+            CtTypeReference<?> type = typeOf(element);
+            if (type == null) return Outcome.TYPE;
+            if (!typeNames.contains(type.getSimpleName()) && !typeNames.contains(type.getQualifiedName())) {
+                return Outcome.TYPE;
+            }
+        }
+        if (!names.isEmpty() && !names.contains(nameOf(element))) {
+            return Outcome.NAME;
+        }
+        if (argCount >= 0 && (!(element instanceof CtAbstractInvocation<?> inv) || inv.getArguments().size() != argCount)) {
+            return Outcome.ARG_COUNT;
+        }
+        if (!declaringTypes.isEmpty() && !typeMatches(declaringTypeOf(element), declaringTypes)) {
+            return Outcome.DECLARING_TYPE;
+        }
+        if (!receiverTypes.isEmpty() && !typeMatches(receiverTypeOf(element), receiverTypes)) {
+            return Outcome.RECEIVER_TYPE;
+        }
+        if (boxedTypeArgument && !hasBoxedTypeArgument(receiverTypeOf(element))) {
+            return Outcome.BOXING;
+        }
+        if (boxing && !Boxing.boxes(element)) {
+            return Outcome.BOXING;
+        }
+        if (matchesLocally(element, context)) {
+            return Outcome.ACCEPT;
+        }
+        if (transitive) {
+            CallGraph.Reach reach = context.reach(element);
+            if (reach != null && (ancestorMask == 0 || ((context.enclosingMask(element) | reach.mask()) & ancestorMask) != 0)
+                    && context.loopDepth(element) + reach.loopDepth() >= minLoopDepth) {
+                return Outcome.ACCEPT;
+            }
+        }
+        return ancestorMask != 0 && (context.enclosingMask(element) & ancestorMask) == 0
+                ? Outcome.ANCESTOR : Outcome.LOOP_DEPTH;
+    }
+
+    /**
+     * @return whether the element's own method satisfies the ancestor and loop depth requirements
+     */
+    boolean matchesLocally(CtElement element, ContextIndex context) {
+        return (ancestorMask == 0 || (context.enclosingMask(element) & ancestorMask) != 0)
+                && (minLoopDepth == 0 || context.loopDepth(element) >= minLoopDepth);
+    }
+
+    /**
+     * Evidence describing the matched node, shaped as before for the node kinds that had
+     * dedicated finders.
+     */
+    public Map<String, Object> evidence(CtElement element, String snippet) {
+        Map<String, Object> astNode;
+        if (element instanceof CtBinaryOperator<?> op) {
+            astNode = Map.of("type", nodeName, "operator", op.getKind() != null ? op.getKind().name() : "UNKNOWN");
+        } else if (element instanceof CtConstructorCall<?> call) {
+            astNode = Map.of("type", nodeName, "constructor", call.getType() != null ? call.getType().getSimpleName() : "UNKNOWN");
+        } else if (minDegree > 0 && element instanceof CtExecutable<?> executable) {
+            return Map.of("snippet", snippet, "astNode", Map.of("type", nodeName),
+                    "complexity", ComplexityEstimator.memoized(executable).toEvidence());
+        } else if (element instanceof CtInvocation<?> inv) {
+            CtTypeReference<?> declaring = declaringTypeOf(inv);
+            astNode = declaring == null
+                    ? Map.of("type", nodeName, "method", String.valueOf(nameOf(inv)))
+                    : Map.of("type", nodeName, "method", String.valueOf(nameOf(inv)), "declaringType", declaring.getQualifiedName());
+        } else {
+            astNode = Map.of("type", nodeName);
+        }
+        return Map.of("snippet", snippet, "astNode", astNode);
+    }
+
+    /**
+     * Evidence of an accepted element; a transitive match also lists the calls that lead to it
+     * from the loop (or other required context) as {@code callChain}.
+     */
+    public Map<String, Object> evidence(CtElement element, String snippet, ContextIndex context) {
+        Map<String, Object> evidence = evidence(element, snippet);
+        if (!transitive || matchesLocally(element, context)) return evidence;
+        CallGraph.Reach reach = context.reach(element);
+        if (reach == null) return evidence;
+        List<Map<String, Object>> chain = new ArrayList<>(reach.chain().size());
+        for (CallGraph.Call call : reach.chain()) {
+            chain.add(Map.of("caller", call.caller(), "callee", call.callee(), "line", call.line(),
+                    "loopDepth", call.loopDepth()));
+        }
+        evidence = new LinkedHashMap<>(evidence);
+        evidence.put("callChain", chain);
+        evidence.put("reachLoopDepth", reach.loopDepth());
+        return evidence;
+    }
+
+    private boolean operatorMatches(CtElement element) {
+        if (element instanceof CtBinaryOperator<?> op) return binaryOperator != null && op.getKind() == binaryOperator;
+        if (element instanceof CtOperatorAssignment<?, ?> op) return binaryOperator != null && op.getKind() == binaryOperator;
+        if (element instanceof CtUnaryOperator<?> op) return unaryOperator != null && op.getKind() == unaryOperator;
+        return false;
+    }
+
+    private static CtTypeReference<?> typeOf(CtElement element) {
+        return element instanceof CtTypedElement<?> typed ? typed.getType() : null;
+    }
+
+    private static CtTypeReference<?> declaringTypeOf(CtElement element) {
+        if (!(element instanceof CtAbstractInvocation<?> inv) || inv.getExecutable() == null) return null;
+        return inv.getExecutable().getDeclaringType();
+    }
+
+    /**
+     * @return the static type of the call's target; the accessed class for a static call and
+     *         the declaring type when the target is implicit and unknown
+     */
+    private static CtTypeReference<?> receiverTypeOf(CtElement element) {
+        if (!(element instanceof CtInvocation<?> inv)) return null;
+        CtExpression<?> target = inv.getTarget();
+        if (target instanceof CtTypeAccess<?> access) return access.getAccessedType();
+        if (target != null && target.getType() != null) return target.getType();
+        return declaringTypeOf(inv);
+    }
+
+    private static boolean hasBoxedTypeArgument(CtTypeReference<?> type) {
+        if (type == null) return false;
+        for (CtTypeReference<?> argument : type.getActualTypeArguments()) {
+            if (Boxing.isWrapper(argument)) return true;
+        }
+        return false;
+    }
+
+    static boolean typeMatches(CtTypeReference<?> type, Set<String> names) {
+        if (type == null) return false;
+        if (names.contains(type.getSimpleName()) || names.contains(type.getQualifiedName())) return true;
+        for (String n : names) {
+            if (n.indexOf('.') < 0) continue;
+            try {
+                if (type.isSubtypeOf(type.getFactory().Type().createReference(n))) return true;
+            } catch (RuntimeException e) {
+                // noClasspath: the hierarchy of an unresolved type is unknown
+            }
+        }
+        return false;
+    }
+
+    private static String nameOf(CtElement element) {
+        if (element instanceof CtAbstractInvocation<?> inv) {
+            CtExecutableReference<?> exec = inv.getExecutable();
+            return exec != null ? exec.getSimpleName() : null;
+        }
+        if (element instanceof CtVariableAccess<?> access) {
+            return access.getVariable() != null ? access.getVariable().getSimpleName() : null;
+        }
+        if (element instanceof CtNamedElement named) return named.getSimpleName();
+        if (element instanceof CtReference ref) return ref.getSimpleName();
+        return null;
+    }
+
+    /**
+     * Map a rule's node name to a Spoon interface. Any Ct* type from the code, declaration
+     * or reference packages is accepted, with or without the "Ct" prefix.
+     */
+    static Class<? extends CtElement> resolveNodeType(String raw) {
+        if (raw == null || raw.isBlank()) {
+            throw new IllegalArgumentException("rule has no node type");
+        }
+        String n = raw.trim();
+        String alias = NODE_ALIASES.get(n.toLowerCase(Locale.ROOT));
+        if (alias != null) n = alias;
+        String simple = n.startsWith("Ct") ? n : "Ct" + n;
+        ClassLoader loader = CtElement.class.getClassLoader();
+        for (String pkg : NODE_PACKAGES) {
+            try {
+                Class<?> c = Class.forName(pkg + simple, false, loader);
+                if (c.isInterface() && CtElement.class.isAssignableFrom(c)) {
+                    return c.asSubclass(CtElement.class);
+                }
+            } catch (ClassNotFoundException ignored) {
+                // try the next package
+            }
+        }
+        throw new IllegalArgumentException("unknown Spoon node type: " + raw);
+    }
+
+    private static BinaryOperatorKind parseBinaryOperator(String op) {
+        for (BinaryOperatorKind kind : BinaryOperatorKind.values()) {
+            if (kind.name().equalsIgnoreCase(op)) return kind;
+        }
+        return switch (op) {
+            case "+" -> BinaryOperatorKind.PLUS;
+            case "-" -> BinaryOperatorKind.MINUS;
+            case "*" -> BinaryOperatorKind.MUL;
+            case "/" -> BinaryOperatorKind.DIV;
+            case "%" -> BinaryOperatorKind.MOD;
+            case "==" -> BinaryOperatorKind.EQ;
+            case "!=" -> BinaryOperatorKind.NE;
+            case "<" -> BinaryOperatorKind.LT;
+            case "<=" -> BinaryOperatorKind.LE;
+            case ">" -> BinaryOperatorKind.GT;
+            case ">=" -> BinaryOperatorKind.GE;
+            case "&&" -> BinaryOperatorKind.AND;
+            case "||" -> BinaryOperatorKind.OR;
+            case "&" -> BinaryOperatorKind.BITAND;
+            case "|" -> BinaryOperatorKind.BITOR;
+            case "^" -> BinaryOperatorKind.BITXOR;
+            case "<<" -> BinaryOperatorKind.SL;
+            case ">>" -> BinaryOperatorKind.SR;
+            case ">>>" -> BinaryOperatorKind.USR;
+            default -> null;
+        };
+    }
+
+    private static UnaryOperatorKind parseUnaryOperator(String op) {
+        for (UnaryOperatorKind kind : UnaryOperatorKind.values()) {
+            if (kind.name().equalsIgnoreCase(op)) return kind;
+        }
+        return switch (op) {
+            case "++" -> UnaryOperatorKind.POSTINC;
+            case "--" -> UnaryOperatorKind.POSTDEC;
+            case "!" -> UnaryOperatorKind.NOT;
+            case "~" -> UnaryOperatorKind.COMPL;
+            default -> null;
+        };
+    }
+
+    private static String asString(Object o) {
+        return o == null ? null : o.toString();
+    }
+
+    private static List<String> asStringList(Object o) {
+        if (o == null) return List.of();
+        if (o instanceof Collection<?> c) {
+            List<String> out = new ArrayList<>(c.size());
+            for (Object item : c) {
+                if (item != null) out.add(item.toString());
+            }
+            return out;
+        }
+        return List.of(o.toString());
+    }
+
+    private static String intern(String s) {
+        return s == null || s.isBlank() ? null : s.trim().intern();
+    }
+
+    private static Set<String> internAll(Object o) {
+        Set<String> out = new HashSet<>();
+        for (String s : asStringList(o)) {
+            String interned = intern(s);
+            if (interned != null) out.add(interned);
+        }
+        return Set.copyOf(out);
+    }
+
+    // getters
+
+    public Rule getRule() { return rule; }
+
+    public Class<? extends CtElement> getNodeType() { return nodeType; }
+
+    public String getNodeName() { return nodeName; }
+
+    public BinaryOperatorKind getBinaryOperator() { return binaryOperator; }
+
+    public UnaryOperatorKind getUnaryOperator() { return unaryOperator; }
+
+    public String getOperandType() { return operandType; }
+
+    public Set<String> getTypeNames() { return typeNames; }
+
+    public Set<String> getNames() { return names; }
+
+    public int getArgCount() { return argCount; }
+
+    public Set<String> getDeclaringTypes() { return declaringTypes; }
+
+    public Set<String> getReceiverTypes() { return receiverTypes; }
+
+    public int getAncestorMask() { return ancestorMask; }
+
+    public int getMinLoopDepth() { return minLoopDepth; }
+
+    public boolean isTransitive() { return transitive; }
+
+    /** @return the degree a Complexity rule reports from, 0 for other node kinds */
+    public int getMinDegree() { return minDegree; }
+
+    public boolean isBoxing() { return boxing; }
+
+    public boolean isBoxedTypeArgument() { return boxedTypeArgument; }
+
+    /** @return whether the rule can only match on resolved library types, i.e. with a classpath */
+    public boolean needsTypes() { return boxing || boxedTypeArgument; }
+
+    /**
+     * @return whether testing a candidate can look at resolved types, which may be declared
+     *         in other files than the candidate's
+     */
+    public boolean usesTypes() {
+        return minDegree > 0 || operandType != null || !typeNames.isEmpty() || !declaringTypes.isEmpty()
+                || !receiverTypes.isEmpty() || boxing || boxedTypeArgument;
+    }
+
+    /**
+     * @return whether {@link #test} looked at resolved types before it returned {@code outcome};
+     *         only the operator is checked before the first type
+     */
+    public boolean resolvedTypes(Outcome outcome) {
+        return switch (outcome) {
+            case OPERATOR -> false;
+            case TYPE, COMPLEXITY -> true;
+            case NAME, ARG_COUNT -> minDegree > 0 || operandType != null || !typeNames.isEmpty();
+            default -> usesTypes();
+        };
+    }
+}
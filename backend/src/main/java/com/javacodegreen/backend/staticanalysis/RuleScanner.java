@@ -0,0 +1,117 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.visitor.CtScanner;
+
+import java.util.*;
+
+/**
+ * Single-pass visitor over a Spoon model. Every element visited is handed only to the
+ * compiled rules whose node type it is an instance of, so adding a rule no longer costs
+ * another full traversal of the model.
+ *
+ * Findings are collected per rule and concatenated in rule order, which keeps the
+ * output identical to running each rule over the whole model in turn.
+ */
+class RuleScanner extends CtScanner {
+
+    /**
+     * Checks one element against one compiled rule and appends a finding when it matches.
+     */
+    @FunctionalInterface
+    interface Finder {
+        void find(RuleMatcher matcher, CtElement element, ContextIndex context, List<Finding> findings);
+    }
+
+    /** Per-rule counters gathered during one scan; {@code nanos} is extrapolated from sampled candidates. */
+    record RuleStats(String ruleId, int candidates, int accepted, long nanos) {}
+
+    private static final Registration[] NONE = new Registration[0];
+    // only every 64th candidate of a rule is timed, so the clock stays out of the hot loop
+    private static final int SAMPLE_MASK = 63;
+
+    private static final class Registration {
+        final RuleMatcher matcher;
+        final List<Finding> findings = new ArrayList<>();
+        int candidates;
+        int sampled;
+        long sampledNanos;
+
+        Registration(RuleMatcher matcher) {
+            this.matcher = matcher;
+        }
+    }
+
+    private final Finder finder;
+    private final ContextIndex context;
+    private final List<Registration> registrations = new ArrayList<>();
+    // runtime class (e.g. CtInvocationImpl) -> rules it can match, in rule order
+    private final Map<Class<?>, Registration[]> dispatch = new HashMap<>();
+
+    RuleScanner(Finder finder, ContextIndex context) {
+        this.finder = finder;
+        this.context = context;
+    }
+
+    void register(RuleMatcher matcher) {
+        registrations.add(new Registration(matcher));
+        dispatch.clear();
+    }
+
+    boolean isEmpty() {
+        return registrations.isEmpty();
+    }
+
+    @Override
+    protected void enter(CtElement element) {
+        Registration[] targets = dispatch.computeIfAbsent(element.getClass(), this::targetsFor);
+        for (Registration r : targets) {
+            if ((r.candidates++ & SAMPLE_MASK) != 0) {
+                finder.find(r.matcher, element, context, r.findings);
+                continue;
+            }
+            long start = System.nanoTime();
+            finder.find(r.matcher, element, context, r.findings);
+            r.sampledNanos += System.nanoTime() - start;
+            r.sampled++;
+        }
+    }
+
+    private Registration[] targetsFor(Class<?> runtimeClass) {
+        List<Registration> targets = new ArrayList<>();
+        for (Registration r : registrations) {
+            if (r.matcher.getNodeType().isAssignableFrom(runtimeClass)) targets.add(r);
+        }
+        return targets.isEmpty() ? NONE : targets.toArray(NONE);
+    }
+
+    /**
+     * @return candidate/accept counts and estimated matching time for each rule, in rule order
+     */
+    List<RuleStats> stats() {
+        List<RuleStats> stats = new ArrayList<>(registrations.size());
+        for (Registration r : registrations) {
+            long nanos = r.sampled == 0 ? 0 : Math.round((double) r.sampledNanos * r.candidates / r.sampled);
+            stats.add(new RuleStats(r.matcher.getRule().getId(), r.candidates, r.findings.size(), nanos));
+        }
+        return stats;
+    }
+
+    /**
+     * @return findings of the rule registered at {@code index}
+     */
+    List<Finding> findings(int index) {
+        return registrations.get(index).findings;
+    }
+
+    /**
+     * @return all findings, grouped by rule in registration order
+     */
+    List<Finding> findings() {
+        List<Finding> all = new ArrayList<>();
+        for (Registration r : registrations) {
+            all.addAll(r.findings);
+        }
+        return all;
+    }
+}
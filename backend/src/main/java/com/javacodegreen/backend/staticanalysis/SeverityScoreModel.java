@@ -0,0 +1,29 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import spoon.reflect.declaration.CtElement;
+
+/**
+ * One constant per severity, whatever the code around the finding looks like.
+ */
+public class SeverityScoreModel implements EnergyScoreModel {
+
+    @Override
+    public double score(Rule rule, CtElement element) {
+        return scoreFromSeverity(rule.getSeverity());
+    }
+
+    static double scoreFromSeverity(String severity) {
+        if (severity == null) return 0.0;
+        return switch (severity.toUpperCase()) {
+            case "HIGH" -> 8.0;
+            case "MEDIUM" -> 5.0;
+            case "LOW" -> 2.5;
+            default -> 1.0;
+        };
+    }
+
+    @Override
+    public String getVersion() {
+        return "severity";
+    }
+}
@@ -0,0 +1,64 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Splits a source tree into batches whose Spoon models are each expected to fit in a heap
+ * budget. The model of a file is estimated as its size on disk times a fixed factor; files
+ * are taken in path order so a package usually lands in one batch and keeps its
+ * same-package references resolvable.
+ */
+final class SourceBatches {
+
+    private SourceBatches() {}
+
+    /**
+     * @return every .java file below {@code root} (or root itself), ordered by path
+     */
+    static List<File> sourcesOf(File root) {
+        if (root.isFile()) return List.of(root);
+        try (Stream<Path> walk = Files.walk(root.toPath())) {
+            return walk.filter(p -> p.toString().endsWith(".java") && Files.isRegularFile(p))
+                    .sorted()
+                    .map(Path::toFile)
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static long estimatedHeap(List<File> sources, int bytesFactor) {
+        long total = 0;
+        for (File f : sources) total += f.length() * bytesFactor;
+        return total;
+    }
+
+    /**
+     * Greedily fill batches up to {@code budgetBytes}. A file larger than the budget on its
+     * own still gets a batch of its own.
+     */
+    static List<List<File>> partition(List<File> sources, long budgetBytes, int bytesFactor) {
+        List<List<File>> batches = new ArrayList<>();
+        List<File> current = new ArrayList<>();
+        long used = 0;
+        for (File f : sources) {
+            long cost = f.length() * bytesFactor;
+            if (!current.isEmpty() && used + cost > budgetBytes) {
+                batches.add(current);
+                current = new ArrayList<>();
+                used = 0;
+            }
+            current.add(f);
+            used += cost;
+        }
+        if (!current.isEmpty()) batches.add(current);
+        return batches;
+    }
+}
@@ -0,0 +1,274 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import spoon.reflect.code.*;
+import spoon.reflect.declaration.CtElement;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Cheap lexical check that rejects source files which cannot produce a finding, so rules are
+ * not matched against them. Each compiled rule is reduced to the tokens its matches need to
+ * contain — "for"/"while" for a loop ancestor, "new" and the type name for a constructor
+ * call, the operator symbol, the method name — and a file survives when every token group
+ * of at least one rule occurs in its code. Comments and string, char and text block literals
+ * are skipped, so a loop mentioned in a comment does not count. A second loop keyword in a
+ * file is reported as the {@link #SECOND_LOOP} token, for the nested-iteration rule.
+ *
+ * A rejected file still goes into the Spoon model: the types it declares and the calls it
+ * makes decide what matches in the other files. Only the verdict on a file's own findings
+ * over-approximates; a rule whose node kind says nothing lexically (e.g. any CtExpression
+ * without further constraints) lets every file through. A transitive rule's loop may sit in
+ * any other file, so only its own node tokens are required.
+ */
+final class SourcePrefilter {
+
+    // longest first, so the scanner takes ">>>=" before ">>"
+    private static final String[] OPERATORS = {
+            ">>>=", "<<=", ">>=", ">>>", "...", "->", "::", "++", "--", "&&", "||", "==", "!=", "<=", ">=",
+            "+=", "-=", "*=", "/=", "&=", "|=", "^=", "%=", "<<", ">>",
+            "+", "-", "*", "/", "%", "&", "|", "^", "!", "~", "?", ":", "=", "<", ">"
+    };
+
+    private static final Map<BinaryOperatorKind, String> BINARY_SYMBOLS = new EnumMap<>(Map.ofEntries(
+            Map.entry(BinaryOperatorKind.OR, "||"), Map.entry(BinaryOperatorKind.AND, "&&"),
+            Map.entry(BinaryOperatorKind.BITOR, "|"), Map.entry(BinaryOperatorKind.BITXOR, "^"),
+            Map.entry(BinaryOperatorKind.BITAND, "&"), Map.entry(BinaryOperatorKind.EQ, "=="),
+            Map.entry(BinaryOperatorKind.NE, "!="), Map.entry(BinaryOperatorKind.LT, "<"),
+            Map.entry(BinaryOperatorKind.GT, ">"), Map.entry(BinaryOperatorKind.LE, "<="),
+            Map.entry(BinaryOperatorKind.GE, ">="), Map.entry(BinaryOperatorKind.SL, "<<"),
+            Map.entry(BinaryOperatorKind.SR, ">>"), Map.entry(BinaryOperatorKind.USR, ">>>"),
+            Map.entry(BinaryOperatorKind.PLUS, "+"), Map.entry(BinaryOperatorKind.MINUS, "-"),
+            Map.entry(BinaryOperatorKind.MUL, "*"), Map.entry(BinaryOperatorKind.DIV, "/"),
+            Map.entry(BinaryOperatorKind.MOD, "%"), Map.entry(BinaryOperatorKind.INSTANCEOF, "instanceof")));
+
+    private static final Map<UnaryOperatorKind, String> UNARY_SYMBOLS = new EnumMap<>(Map.of(
+            UnaryOperatorKind.POS, "+", UnaryOperatorKind.NEG, "-", UnaryOperatorKind.NOT, "!",
+            UnaryOperatorKind.COMPL, "~", UnaryOperatorKind.PREINC, "++", UnaryOperatorKind.PREDEC, "--",
+            UnaryOperatorKind.POSTINC, "++", UnaryOperatorKind.POSTDEC, "--"));
+
+    private static final Set<String> LOOP_KEYWORDS = Set.of("for", "while", "do");
+
+    /**
+     * A boxing conversion needs a reference type to box into: a wrapper, Object or Number, or
+     * a type argument or varargs ({@code List<Integer>}, {@code Object...}) declared in the file.
+     * Targets that only come from library signatures are seen by classpath-aware analyses,
+     * which do not prefilter.
+     */
+    private static final Set<String> BOXING_TOKENS = Set.of("Integer", "Long", "Short", "Byte", "Character",
+            "Boolean", "Float", "Double", "Number", "Object", "<", "...");
+
+    /** Pseudo-token present once a file has two loop keywords; no Java token looks like it. */
+    static final String SECOND_LOOP = "#loop2";
+
+    /** Tokens that give away a construct of each context kind; null when none does. */
+    private static final Map<ContextKind, Set<String>> CONTEXT_TOKENS = new EnumMap<>(ContextKind.class);
+
+    static {
+        CONTEXT_TOKENS.put(ContextKind.FOR, Set.of("for"));
+        CONTEXT_TOKENS.put(ContextKind.FOREACH, Set.of("for"));
+        CONTEXT_TOKENS.put(ContextKind.WHILE, Set.of("while"));
+        CONTEXT_TOKENS.put(ContextKind.DO, Set.of("do"));
+        CONTEXT_TOKENS.put(ContextKind.LOOP, LOOP_KEYWORDS);
+        CONTEXT_TOKENS.put(ContextKind.IF, Set.of("if"));
+        CONTEXT_TOKENS.put(ContextKind.CONDITIONAL, Set.of("?"));
+        CONTEXT_TOKENS.put(ContextKind.SWITCH, Set.of("switch"));
+        CONTEXT_TOKENS.put(ContextKind.TRY, Set.of("try"));
+        CONTEXT_TOKENS.put(ContextKind.CATCH, Set.of("catch"));
+        CONTEXT_TOKENS.put(ContextKind.SYNCHRONIZED, Set.of("synchronized"));
+        CONTEXT_TOKENS.put(ContextKind.LAMBDA, Set.of("->"));
+        CONTEXT_TOKENS.put(ContextKind.ANONYMOUS_CLASS, Set.of("new"));
+    }
+
+    /** Per rule: every group needs at least one of its tokens in the file. */
+    private final List<List<Set<String>>> requirements;
+    private final Set<String> vocabulary;
+    private final boolean passAll;
+
+    private SourcePrefilter(List<List<Set<String>>> requirements) {
+        this.requirements = requirements;
+        this.passAll = requirements.stream().anyMatch(List::isEmpty);
+        Set<String> vocabulary = new HashSet<>();
+        requirements.forEach(groups -> groups.forEach(vocabulary::addAll));
+        this.vocabulary = Set.copyOf(vocabulary);
+    }
+
+    static SourcePrefilter compile(List<RuleMatcher> matchers) {
+        List<List<Set<String>>> requirements = new ArrayList<>(matchers.size());
+        for (RuleMatcher matcher : matchers) {
+            requirements.add(requirementOf(matcher));
+        }
+        return new SourcePrefilter(requirements);
+    }
+
+    /**
+     * @return false when some rule cannot be prefiltered and every file passes anyway
+     */
+    boolean isSelective() {
+        return !passAll;
+    }
+
+    /**
+     * @return whether {@code source} may contain a finding; unreadable files are let through
+     */
+    boolean mayMatch(File source) {
+        if (passAll) return true;
+        try {
+            // every token of interest is ASCII, so a byte-per-char decoding is enough
+            return mayMatch(new String(Files.readAllBytes(source.toPath()), StandardCharsets.ISO_8859_1));
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    boolean mayMatch(CharSequence code) {
+        if (passAll) return true;
+        Set<String> present = tokens(code, vocabulary);
+        for (List<Set<String>> groups : requirements) {
+            boolean all = true;
+            for (Set<String> group : groups) {
+                if (Collections.disjoint(group, present)) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) return true;
+        }
+        return false;
+    }
+
+    private static List<Set<String>> requirementOf(RuleMatcher m) {
+        List<Set<String>> groups = new ArrayList<>();
+        Class<? extends CtElement> node = m.getNodeType();
+
+        if (CtConstructorCall.class.isAssignableFrom(node) || CtNewArray.class.isAssignableFrom(node)) {
+            groups.add(Set.of("new"));
+            Set<String> names = new HashSet<>();
+            for (String t : m.getTypeNames()) names.add(t.substring(t.lastIndexOf('.') + 1));
+            if (!names.isEmpty()) groups.add(names);
+        }
+        for (ContextKind kind : ContextKind.values()) {
+            Set<String> tokens = CONTEXT_TOKENS.get(kind);
+            if (tokens != null && kind.getNodeType().isAssignableFrom(node)) groups.add(tokens);
+        }
+        if (m.getBinaryOperator() != null) {
+            String symbol = BINARY_SYMBOLS.get(m.getBinaryOperator());
+            if (symbol != null) {
+                groups.add(symbol.equals("instanceof") ? Set.of(symbol) : Set.of(symbol, symbol + "="));
+            }
+        } else if (m.getUnaryOperator() != null && UNARY_SYMBOLS.containsKey(m.getUnaryOperator())) {
+            groups.add(Set.of(UNARY_SYMBOLS.get(m.getUnaryOperator())));
+        }
+        if (!m.getNames().isEmpty() && m.getNames().stream().allMatch(SourcePrefilter::isIdentifier)) {
+            groups.add(m.getNames());
+        }
+        if (m.isBoxing()) {
+            groups.add(BOXING_TOKENS);
+        }
+        if (m.getMinDegree() > 1) {
+            // superlinear takes a loop and either a second one or a linear call inside it
+            groups.add(LOOP_KEYWORDS);
+            Set<String> inner = new HashSet<>(ComplexityEstimator.LINEAR_LIST_CALLS);
+            inner.add(SECOND_LOOP);
+            groups.add(inner);
+        }
+        if (m.isTransitive()) {
+            return groups; // the required context may be in a caller
+        }
+        if (m.getAncestorMask() != 0) {
+            Set<String> any = new HashSet<>();
+            for (ContextKind kind : ContextKind.values()) {
+                if ((m.getAncestorMask() & kind.bit()) == 0) continue;
+                Set<String> tokens = CONTEXT_TOKENS.get(kind);
+                if (tokens == null) {
+                    any = null; // e.g. METHOD: nothing lexical to look for
+                    break;
+                }
+                any.addAll(tokens);
+            }
+            if (any != null) groups.add(any);
+        }
+        if (m.getMinLoopDepth() > 0) {
+            groups.add(LOOP_KEYWORDS);
+        }
+        return groups;
+    }
+
+    /**
+     * Collect the tokens of {@code code} that are in {@code vocabulary}, outside comments and literals.
+     */
+    static Set<String> tokens(CharSequence code, Set<String> vocabulary) {
+        Set<String> found = new HashSet<>();
+        int loops = 0;
+        int n = code.length();
+        int i = 0;
+        while (i < n) {
+            char c = code.charAt(i);
+            char next = i + 1 < n ? code.charAt(i + 1) : 0;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && next == '/') {
+                while (i < n && code.charAt(i) != '\n') i++;
+            } else if (c == '/' && next == '*') {
+                i += 2;
+                while (i < n && !(code.charAt(i) == '*' && i + 1 < n && code.charAt(i + 1) == '/')) i++;
+                i += 2;
+            } else if (c == '"' && next == '"' && i + 2 < n && code.charAt(i + 2) == '"') {
+                i += 3;
+                while (i < n && !(code.charAt(i) == '"' && i + 2 < n
+                        && code.charAt(i + 1) == '"' && code.charAt(i + 2) == '"')) {
+                    i += code.charAt(i) == '\\' ? 2 : 1;
+                }
+                i += 3;
+            } else if (c == '"' || c == '\'') {
+                i++;
+                while (i < n && code.charAt(i) != c && code.charAt(i) != '\n') {
+                    i += code.charAt(i) == '\\' ? 2 : 1;
+                }
+                i++;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < n && Character.isJavaIdentifierPart(code.charAt(i))) i++;
+                String word = code.subSequence(start, i).toString();
+                if (vocabulary.contains(word)) found.add(word);
+                if (LOOP_KEYWORDS.contains(word) && ++loops == 2 && vocabulary.contains(SECOND_LOOP)) found.add(SECOND_LOOP);
+            } else if (Character.isDigit(c)) {
+                while (i < n && (Character.isLetterOrDigit(code.charAt(i)) || code.charAt(i) == '_'
+                        || code.charAt(i) == '.')) i++;
+            } else {
+                String op = operatorAt(code, i);
+                if (op == null) {
+                    i++;
+                } else {
+                    if (vocabulary.contains(op)) found.add(op);
+                    i += op.length();
+                }
+            }
+        }
+        return found;
+    }
+
+    private static String operatorAt(CharSequence code, int i) {
+        for (String op : OPERATORS) {
+            if (i + op.length() <= code.length()) {
+                boolean match = true;
+                for (int k = 0; k < op.length() && match; k++) {
+                    match = code.charAt(i + k) == op.charAt(k);
+                }
+                if (match) return op;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isIdentifier(String s) {
+        if (s.isEmpty() || !Character.isJavaIdentifierStart(s.charAt(0))) return false;
+        for (int i = 1; i < s.length(); i++) {
+            if (!Character.isJavaIdentifierPart(s.charAt(i))) return false;
+        }
+        return true;
+    }
+}
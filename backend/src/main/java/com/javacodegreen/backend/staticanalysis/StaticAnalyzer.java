@@ -1,376 +1,520 @@
 package com.javacodegreen.backend.staticanalysis;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import spoon.Launcher;
 import spoon.reflect.CtModel;
-import spoon.reflect.code.*;
-import spoon.reflect.declaration.CtElement;
-import spoon.reflect.reference.CtTypeReference;
-import spoon.reflect.visitor.filter.TypeFilter;
+import spoon.reflect.declaration.*;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class StaticAnalyzer {
 
+    /** Bump whenever a change to matching or finding construction should invalidate cached findings. */
+    public static final String ANALYZER_VERSION = "4";
+
     private final RuleEngine ruleEngine;
+    private final AnalysisMetrics metrics;
+    private final ParallelRuleMatcher ruleMatcher;
+
+    // chunked mode: estimated model size of a source file is its length times this factor
+    private long heapBudgetBytes = Runtime.getRuntime().maxMemory() / 4;
+    private int heapBytesPerSourceByte = 40;
+    private AnalysisCache cache;
+    private SourcePrefilter prefilter;
+    private EnergyScoreModel scoreModel = new LoopCostScoreModel();
+    private ClasspathCache classpathCache;
 
     public StaticAnalyzer() {
-        this.ruleEngine = new RuleEngine();
+        this(new SimpleMeterRegistry());
+    }
+
+    public StaticAnalyzer(MeterRegistry meterRegistry) {
+        this(meterRegistry, 0);
     }
 
     /**
-     * Analyze a project directory or single-file parent folder.
-     *
-     * @param projectPath File path to project source root (e.g., src/main/java or project root)
-     * @param projectName user-friendly project name
-     * @param commitId    commit identifier
-     * @return AnalysisResult containing findings & summary
+     * @param parallelism worker threads for rule matching; 0 uses one per available core
      */
-    public AnalysisResult analyze(File projectPath, String projectName, String commitId) {
-        System.out.println("=== StaticAnalyzer DEBUG START ===");
-        System.out.println("Analyzing project: " + projectName + " @ " + projectPath.getAbsolutePath());
-
-        Launcher launcher = new Launcher();
-        launcher.addInputResource(projectPath.getAbsolutePath());
-        launcher.getEnvironment().setNoClasspath(true); // safe when dependencies may be absent
-        launcher.buildModel();
-
-        CtModel model = launcher.getModel();
-        List<Finding> findings = new ArrayList<>();
-
-        // 1. Debug: Print all types & elements (high level)
-        System.out.println(">>> Spoon model contents (high level):");
-        model.getAllTypes().forEach(t -> {
-            System.out.println(" Type: " + t.getQualifiedName());
-        });
-
-        // 1b. Debug: print some elements (optional, verbose)
-        System.out.println(">>> Spoon model sample elements (verbose):");
-        model.getAllTypes().stream().limit(10).forEach(t -> {
-            t.getElements(new TypeFilter<>(CtElement.class)).stream().limit(20).forEach(e ->
-                    System.out.println("   Element: " + e.getClass().getSimpleName() + " -> " + safeToStringShort(e))
-            );
-        });
-
-        // 2. Debug: Print all loaded rules
-        List<Rule> rules = ruleEngine.getRules();
-        System.out.println(">>> Loaded " + rules.size() + " rules:");
-        rules.forEach(r -> System.out.println("   Rule: " + r.getId() + " node=" +
-                (r.getMatch() != null ? r.getMatch().get("node") : "null") +
-                " severity=" + r.getSeverity()));
-
-        // 3. Apply rules (tolerant names)
-        for (Rule rule : rules) {
-            Map<String, Object> match = rule.getMatch();
-            if (match == null) {
-                System.out.println(" Rule " + rule.getId() + " has no match section, skipping.");
-                continue;
-            }
-            String rawNode = (String) match.get("node");
-            String node = normalizeNodeName(rawNode);
-            System.out.println(" Applying rule " + rule.getId() + " on node type: " + rawNode + " -> normalized=" + node);
-
-            switch (node) {
-                case "CtBinaryOperator":
-                    findBinaryOperators(rule, model, findings);
-                    break;
-                case "CtConstructorCall":
-                    findConstructorCalls(rule, model, findings);
-                    break;
-                case "CtInvocation":
-                    findInvocations(rule, model, findings);
-                    break;
-                default:
-                    System.out.println(" Unknown/unsupported node type in rule: " + rawNode + " (normalized=" + node + ")");
-            }
-        }
-
-        // 4. Debug: Print findings
-        System.out.println(">>> Findings generated: " + findings.size());
-        for (Finding f : findings) {
-            System.out.println(" Finding: " + f.getRuleId() +
-                    " @ " + f.getFile() + ":" + f.getStartLine() +
-                    " -> " + f.getMessage() + " (tags=" + f.getTags() + ")");
-        }
+    public StaticAnalyzer(MeterRegistry meterRegistry, int parallelism) {
+        this.ruleEngine = new RuleEngine();
+        this.metrics = new AnalysisMetrics(meterRegistry);
+        this.ruleMatcher = new ParallelRuleMatcher(parallelism);
+        this.prefilter = SourcePrefilter.compile(ruleEngine.getMatchers());
+    }
 
-        Map<String, Integer> summary = computeSummary(findings);
+    public AnalysisMetrics getMetrics() {
+        return metrics;
+    }
 
-        AnalysisResult result = new AnalysisResult();
-        result.setJobId("job-" + UUID.randomUUID().toString());
-        result.setProject(Map.of("name", projectName, "commit", commitId));
-        result.setAnalyzedAt(Instant.now());
-        result.setFindings(findings);
-        result.setSummary(summary);
+    /**
+     * @return whether some rule follows calls into other methods, so its findings depend on
+     *         the files analyzed alongside
+     */
+    public boolean hasTransitiveRules() {
+        return ruleEngine.getMatchers().stream().anyMatch(RuleMatcher::isTransitive);
+    }
 
-        System.out.println("=== StaticAnalyzer DEBUG END ===");
-        return result;
+    /**
+     * Turn the lexical prefilter, which keeps rules from being matched against files that
+     * cannot produce a finding, on or off. It is on by default; classpath-aware analyses never use it.
+     */
+    public void setPrefilter(boolean enabled) {
+        this.prefilter = enabled ? SourcePrefilter.compile(ruleEngine.getMatchers()) : null;
     }
 
-    // --- finders ---
+    /**
+     * Reuse findings of unchanged files across analyses; null turns caching off.
+     */
+    public void setCache(AnalysisCache cache) {
+        this.cache = cache;
+    }
 
-    @SuppressWarnings("unchecked")
-    private void findBinaryOperators(Rule rule, CtModel model, List<Finding> findings) {
-        Map<String, Object> match = rule.getMatch();
-        List<CtBinaryOperator<?>> ops = model.getElements(new TypeFilter<>(CtBinaryOperator.class));
-        System.out.println("  [finder] candidate binary ops count=" + ops.size());
+    /**
+     * Store the jars of classpath-aware analyses and share their class loaders across jobs;
+     * required before an analysis with {@link AnalysisOptions#getClasspath()} set.
+     */
+    public void setClasspathCache(ClasspathCache classpathCache) {
+        this.classpathCache = classpathCache;
+    }
 
-        String expectedOpRaw = (String) match.get("operator"); // could be "+", "PLUS"
-        String expectedOp = normalizeOperator(expectedOpRaw); // e.g. "PLUS"
-        String operandType = (String) match.get("operandType"); // fully qualified name
+    /**
+     * Replace the model that computes each finding's energyScore; the default is an
+     * uncalibrated {@link LoopCostScoreModel}.
+     */
+    public void setScoreModel(EnergyScoreModel scoreModel) {
+        this.scoreModel = Objects.requireNonNull(scoreModel);
+    }
 
-        Object ancestorObj = match.get("ancestor");
-        List<String> ancestorList = ancestorObj instanceof List ? (List<String>) ancestorObj : Collections.emptyList();
+    public EnergyScoreModel getScoreModel() {
+        return scoreModel;
+    }
 
-        for (CtBinaryOperator<?> op : ops) {
-            // debug each candidate
-            String kindName = op.getKind() != null ? op.getKind().name() : "UNKNOWN";
-            String opType = op.getType() != null ? op.getType().getQualifiedName() : "unknown";
-            String shortOp = safeToStringShort(op);
+    /**
+     * Configure chunked mode. Inputs whose estimated model exceeds the budget are analyzed in
+     * batches of at most that size, each model released before the next is built. Transitive
+     * rules then only follow calls within a batch.
+     *
+     * @param heapBudgetBytes        heap one batch's model may take
+     * @param heapBytesPerSourceByte estimated model bytes per byte of source
+     */
+    public void setChunking(long heapBudgetBytes, int heapBytesPerSourceByte) {
+        if (heapBudgetBytes <= 0 || heapBytesPerSourceByte <= 0) {
+            throw new IllegalArgumentException("heap budget and bytes factor must be positive");
+        }
+        this.heapBudgetBytes = heapBudgetBytes;
+        this.heapBytesPerSourceByte = heapBytesPerSourceByte;
+    }
 
-            System.out.println("    candidate binary op: kind=" + kindName + " type=" + opType + " expr=" + shortOp);
+    /**
+     * Analyze a project directory or single-file parent folder with default options.
+     *
+     * @see #analyze(File, String, String, AnalysisOptions)
+     */
+    public AnalysisResult analyze(File projectPath, String projectName, String commitId) {
+        return analyze(projectPath, projectName, commitId, AnalysisOptions.defaults());
+    }
 
-            boolean matches = true;
+    /**
+     * Analyze a project directory or single-file parent folder.
+     *
+     * @param projectPath File path to project source root (e.g., src/main/java or project root)
+     * @param projectName user-friendly project name
+     * @param commitId    commit identifier
+     * @param options     per-job options; {@code trace} attaches a structured trace to the result,
+     *                    {@code chunked} forces or disables batched model builds,
+     *                    {@code classpath} resolves library types against the given jars
+     * @return AnalysisResult containing findings & summary; in chunked mode with a finding
+     *         listener the findings are only delivered to the listener
+     */
+    public AnalysisResult analyze(File projectPath, String projectName, String commitId, AnalysisOptions options) {
+        AnalysisTrace trace = options.isTrace() ? AnalysisTrace.recording() : AnalysisTrace.DISABLED;
+        if (trace.isEnabled()) {
+            trace.event("start", Map.of("project", projectName, "path", projectPath.getAbsolutePath()));
+        }
 
-            // operator check
-            if (expectedOp != null && !expectedOp.isEmpty()) {
-                if (!expectedOp.equalsIgnoreCase(kindName)) {
-                    System.out.println("      reject: operator mismatch (expected=" + expectedOp + ")");
-                    matches = false;
-                }
+        ClasspathCache.Classpath classpath = null;
+        if (options.getClasspath() != null) {
+            if (classpathCache == null) {
+                throw new IllegalStateException("classpath-aware analysis needs a ClasspathCache");
+            }
+            try {
+                classpath = classpathCache.acquire(options.getClasspath());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+            if (trace.isEnabled()) {
+                trace.event("classpath", Map.of("key", classpath.key(), "jars", classpath.jars().size()));
+            }
+        }
+        try {
+            return analyze(projectPath, projectName, commitId, options, trace, classpath);
+        } finally {
+            if (classpath != null) classpathCache.release(classpath);
+        }
+    }
 
-            // operand/result type check
-            if (matches && operandType != null && !operandType.isEmpty()) {
-                if (op.getType() == null || !operandType.equals(op.getType().getQualifiedName())) {
-                    System.out.println("      reject: operand/result type mismatch (expected=" + operandType + ", actual=" + opType + ")");
-                    matches = false;
+    private AnalysisResult analyze(File projectPath, String projectName, String commitId, AnalysisOptions options,
+                                   AnalysisTrace trace, ClasspathCache.Classpath classpath) {
+        // rules that need resolved types only run when a classpath was given
+        List<RuleMatcher> matchers = ruleEngine.getMatchers(classpath != null);
+        FindingListener listener = options.getFindingListener();
+        List<File> sources = SourceBatches.sourcesOf(projectPath);
+        FindingFingerprints fingerprints = new FindingFingerprints(
+                projectPath.isDirectory() ? projectPath.toPath() : projectPath.getAbsoluteFile().toPath().getParent());
+        int[] counts = new int[4];
+        // transitive rules follow calls across files, so their findings depend on other files
+        boolean transitive = matchers.stream().anyMatch(RuleMatcher::isTransitive);
+        // ... as do those of rules that look at types, which other files may declare
+        boolean projectKeyed = transitive || matchers.stream().anyMatch(RuleMatcher::usesTypes);
+
+        // 1. Take unchanged files from the cache; only the rest is parsed and matched
+        List<File> pending = sources;
+        Map<File, String> cacheKeys = null;
+        String projectVersion = null;
+        List<Finding> cached = new ArrayList<>();
+        int cacheHits = 0;
+        if (cache != null) {
+            long start = System.nanoTime();
+            String version = ruleEngine.getVersion() + "+" + scoreModel.getVersion()
+                    + (classpath != null ? "+cp:" + classpath.key() : "");
+            pending = new ArrayList<>();
+            cacheKeys = new HashMap<>();
+            for (File source : sources) {
+                String key = cacheKey(source, version);
+                List<Finding> hit = key != null ? cache.get(key) : null;
+                if (hit == null && projectKeyed) {
+                    // files whose findings depended on other files are cached per project state
+                    if (projectVersion == null) projectVersion = projectVersion(sources, version);
+                    String projectKey = projectVersion != null ? cacheKey(source, projectVersion) : null;
+                    hit = projectKey != null ? cache.get(projectKey) : null;
                 }
+                if (hit == null) {
+                    pending.add(source);
+                    if (key != null) cacheKeys.put(source, key);
+                    continue;
+                }
+                String file = pathKey(source.getPath());
+                for (Finding f : hit) {
+                    // the workspace path changes with every upload
+                    f.setFile(file);
+                    fingerprints.assign(f);
+                    listener.onFinding(f);
+                }
+                cached.addAll(hit);
             }
+            cacheHits = sources.size() - pending.size();
+            count(cached, counts);
+            metrics.recordCache(cacheHits, pending.size());
+            if (trace.isEnabled()) {
+                trace.event("cache", Map.of("files", sources.size(), "hits", cacheHits,
+                        "findings", cached.size(), "millis", (System.nanoTime() - start) / 1_000_000));
+            }
+        }
 
-            // ancestor check: ensure op is inside one of specified ancestors
-            if (matches && ancestorList != null && !ancestorList.isEmpty()) {
-                if (!matchesAncestorAny(op, ancestorList)) {
-                    System.out.println("      reject: ancestor check failed (expected any of " + ancestorList + ")");
-                    matches = false;
-                } else {
-                    System.out.println("      ancestor check passed");
+        // 2. Skip matching files that lexically cannot match any rule
+        // library signatures can make any call box, which the lexical check cannot see
+        if (prefilter != null && prefilter.isSelective() && classpath == null && !pending.isEmpty()) {
+            long start = System.nanoTime();
+            List<File> survivors = new ArrayList<>(pending.size());
+            for (File source : pending) {
+                if (prefilter.mayMatch(source)) {
+                    survivors.add(source);
+                } else if (cacheKeys != null && cacheKeys.containsKey(source)) {
+                    cache.put(cacheKeys.get(source), List.of());
                 }
             }
-
-            if (matches) {
-                System.out.println("      ACCEPT -> creating finding for binary op");
-                createAndAddFindingForElement(rule, op, findings, Map.of(
-                        "snippet", safeToStringShort(op),
-                        "astNode", Map.of("type", "CtBinaryOperator", "operator", kindName)
-                ));
+            long prefilterNanos = System.nanoTime() - start;
+            int skipped = pending.size() - survivors.size();
+            metrics.recordPhase(AnalysisMetrics.PHASE_PREFILTER, prefilterNanos);
+            metrics.recordPrefilter(pending.size(), skipped);
+            if (trace.isEnabled()) {
+                trace.event("phase", Map.of("phase", AnalysisMetrics.PHASE_PREFILTER, "millis", prefilterNanos / 1_000_000,
+                        "files", pending.size(), "skipped", skipped));
             }
+            pending = survivors;
+        }
+        // every source stays in the model, cached or filtered out or not: the pending files need
+        // the types other files declare and, for transitive rules, the calls they make
+        List<File> modelInputs = pending.isEmpty() ? pending : sources;
+        Set<String> toMatch = null;
+        if (modelInputs != pending) {
+            toMatch = new HashSet<>();
+            for (File source : pending) toMatch.add(pathKey(source.getPath()));
         }
-    }
 
-    @SuppressWarnings("unchecked")
-    private void findConstructorCalls(Rule rule, CtModel model, List<Finding> findings) {
-        Map<String, Object> match = rule.getMatch();
-        List<CtConstructorCall<?>> calls = model.getElements(new TypeFilter<>(CtConstructorCall.class));
-        System.out.println("  [finder] candidate constructor calls count=" + calls.size());
-
-        Object ancestorObj = match.get("ancestor");
-        List<String> ancestorList = ancestorObj instanceof List ? (List<String>) ancestorObj : Collections.emptyList();
-        Object typeObj = match.get("type");
-        List<String> typeList = typeObj instanceof List ? (List<String>) typeObj : Collections.emptyList();
-
-        for (CtConstructorCall<?> call : calls) {
-            String typeSimple = call.getType() != null ? call.getType().getSimpleName() : "UNKNOWN";
-            String typeQualified = call.getType() != null ? call.getType().getQualifiedName() : "UNKNOWN";
-            String shortCall = safeToStringShort(call);
-            System.out.println("    candidate ctor call: type=" + typeQualified + " expr=" + shortCall);
-
-            boolean matches = true;
-
-            // type filter
-            if (typeList != null && !typeList.isEmpty()) {
-                boolean ok = typeList.stream().anyMatch(t -> t.equals(typeSimple) || t.equals(typeQualified));
-                if (!ok) {
-                    System.out.println("      reject: type not in rule.type list (expected any of " + typeList + ")");
-                    matches = false;
-                } else {
-                    System.out.println("      type check passed");
-                }
+        // 3. Plan the model builds: all pending files at once, or batches that fit the heap budget
+        List<List<File>> batches = planBatches(modelInputs, options.getChunked());
+        boolean chunked = batches != null;
+        if (!chunked) batches = modelInputs.isEmpty() ? List.of() : List.of(modelInputs);
+        // in chunked mode findings only leave through the listener, unless nobody is listening
+        boolean keepFindings = !chunked || listener == FindingListener.NONE;
+        if (!keepFindings) cached.clear();
+        if (trace.isEnabled() && chunked) {
+            trace.event("chunking", Map.of("batches", batches.size(),
+                    "heapBudgetMb", heapBudgetBytes / (1024 * 1024), "bytesFactor", heapBytesPerSourceByte));
+        }
+
+        if (trace.isEnabled()) {
+            matchers.forEach(m -> trace.event("rule", Map.of("rule", m.getRule().getId(),
+                    "node", m.getNodeName(), "severity", String.valueOf(m.getRule().getSeverity()))));
+        }
+        Set<String> projectDependent = ConcurrentHashMap.newKeySet();
+        RuleScanner.Finder finder = finderFor(trace, listener, fingerprints, projectDependent);
+        List<Finding> findings = keepFindings ? cached : null;
+
+        for (int b = 0; b < batches.size(); b++) {
+            // 4. Build the Spoon model; it is dropped again before the next batch is built
+            long start = System.nanoTime();
+            CtModel model = buildModel(batches.get(b), classpath);
+            long modelNanos = System.nanoTime() - start;
+            metrics.recordPhase(AnalysisMetrics.PHASE_MODEL_BUILD, modelNanos);
+            if (trace.isEnabled()) {
+                trace.event("phase", Map.of("phase", AnalysisMetrics.PHASE_MODEL_BUILD, "batch", b,
+                        "millis", modelNanos / 1_000_000,
+                        "types", model.getAllTypes().stream().map(CtType::getQualifiedName).toList()));
             }
 
-            // ancestor check
-            if (matches && ancestorList != null && !ancestorList.isEmpty()) {
-                if (!matchesAncestorAny(call, ancestorList)) {
-                    System.out.println("      reject: ancestor check failed (expected any of " + ancestorList + ")");
-                    matches = false;
-                } else {
-                    System.out.println("      ancestor check passed");
+            // 5. Resolve the calls between the model's methods, once for all units
+            CallGraph calls = CallGraph.EMPTY;
+            if (transitive) {
+                start = System.nanoTime();
+                calls = CallGraph.build(model.getAllTypes());
+                long callGraphNanos = System.nanoTime() - start;
+                metrics.recordPhase(AnalysisMetrics.PHASE_CALL_GRAPH, callGraphNanos);
+                if (trace.isEnabled()) {
+                    trace.event("phase", Map.of("phase", AnalysisMetrics.PHASE_CALL_GRAPH, "batch", b,
+                            "millis", callGraphNanos / 1_000_000, "methods", calls.nodeCount(), "calls", calls.edgeCount()));
                 }
             }
 
-            if (matches) {
-                System.out.println("      ACCEPT -> creating finding for constructor call");
-                createAndAddFindingForElement(rule, call, findings, Map.of(
-                        "snippet", safeToStringShort(call),
-                        "astNode", Map.of("type", "CtConstructorCall", "constructor", typeSimple)
-                ));
+            // 6. Apply the compiled rules, one pass per compilation unit, units matched in parallel;
+            //    files only in the model for their calls are not matched
+            start = System.nanoTime();
+            List<ParallelRuleMatcher.Unit> units = ParallelRuleMatcher.unitsOf(model.getAllTypes());
+            if (toMatch != null) {
+                Set<String> matchable = toMatch;
+                units = units.stream().filter(u -> matchable.contains(pathKey(u.file()))).toList();
+            }
+            ParallelRuleMatcher.Result matched = ruleMatcher.match(units, matchers, finder, calls);
+            for (RuleScanner.RuleStats stats : matched.stats()) {
+                metrics.recordRule(stats.ruleId(), stats.nanos(), stats.candidates(), stats.accepted());
+                if (trace.isEnabled()) {
+                    trace.event("ruleStats", Map.of("rule", stats.ruleId(), "batch", b, "candidates", stats.candidates(),
+                            "accepted", stats.accepted(), "micros", stats.nanos() / 1_000));
+                }
+            }
+            count(matched.findings(), counts);
+            if (keepFindings) findings.addAll(matched.findings());
+            if (cacheKeys != null) {
+                store(batches.get(b), toMatch, cacheKeys, projectVersion, projectDependent, matched.findings());
             }
+            long matchNanos = System.nanoTime() - start;
+            metrics.recordPhase(AnalysisMetrics.PHASE_RULE_MATCHING, matchNanos);
+            if (trace.isEnabled()) {
+                trace.event("phase", Map.of("phase", AnalysisMetrics.PHASE_RULE_MATCHING, "batch", b,
+                        "millis", matchNanos / 1_000_000, "units", units.size(), "elements", matched.elements(),
+                        "findings", matched.findings().size(), "parallelism", ruleMatcher.getParallelism()));
+            }
+        }
+
+        // 7. Summarize
+        long start = System.nanoTime();
+        if (keepFindings && batches.size() + (cached.isEmpty() ? 0 : 1) > 1) {
+            sortByRuleAndFile(findings, matchers, sources);
+        }
+        Map<String, Integer> summary = Map.of("totalFindings", counts[0], "high", counts[1], "medium", counts[2], "low", counts[3]);
+
+        AnalysisResult result = new AnalysisResult();
+        result.setJobId(options.getJobId() != null ? options.getJobId() : "job-" + UUID.randomUUID().toString());
+        result.setProject(Map.of("name", projectName, "commit", commitId));
+        result.setAnalyzedAt(Instant.now());
+        result.setFindings(findings);
+        result.setSummary(summary);
+        if (chunked) result.setBatches(batches.size());
+        if (cache != null) result.setCachedFiles(cacheHits);
+        long summaryNanos = System.nanoTime() - start;
+        metrics.recordPhase(AnalysisMetrics.PHASE_SUMMARY, summaryNanos);
+
+        if (trace.isEnabled()) {
+            trace.event("phase", Map.of("phase", AnalysisMetrics.PHASE_SUMMARY, "micros", summaryNanos / 1_000));
+            result.setTrace(trace.getEvents());
+            result.setTraceDropped(trace.getDropped());
         }
+        return result;
     }
 
-    @SuppressWarnings("unchecked")
-    private void findInvocations(Rule rule, CtModel model, List<Finding> findings) {
-        Map<String, Object> match = rule.getMatch();
-        List<CtInvocation<?>> invs = model.getElements(new TypeFilter<>(CtInvocation.class));
-        System.out.println("  [finder] candidate invocations count=" + invs.size());
-
-        Object ancestorObj = match.get("ancestor");
-        List<String> ancestorList = ancestorObj instanceof List ? (List<String>) ancestorObj : Collections.emptyList();
-        Object nameObj = match.get("name");
-        String expectedName = nameObj != null ? (String) nameObj : null;
-
-        for (CtInvocation<?> inv : invs) {
-            String methodName = inv.getExecutable() != null ? inv.getExecutable().getSimpleName() : "UNKNOWN";
-            String shortInv = safeToStringShort(inv);
-            System.out.println("    candidate invocation: method=" + methodName + " expr=" + shortInv);
-
-            boolean matches = true;
-
-            if (expectedName != null && !expectedName.isEmpty()) {
-                if (!expectedName.equals(methodName)) {
-                    System.out.println("      reject: invocation name mismatch (expected=" + expectedName + ")");
-                    matches = false;
-                } else {
-                    System.out.println("      name check passed");
-                }
-            }
+    /**
+     * Decide whether the sources are analyzed in batches.
+     *
+     * @param chunked the job's choice; null picks chunked mode when the estimated model exceeds the budget
+     * @return the source batches, or null to build a single model of all sources
+     */
+    private List<List<File>> planBatches(List<File> sources, Boolean chunked) {
+        if (Boolean.FALSE.equals(chunked) || sources.isEmpty()) return null;
+        if (!Boolean.TRUE.equals(chunked)
+                && SourceBatches.estimatedHeap(sources, heapBytesPerSourceByte) <= heapBudgetBytes) {
+            return null;
+        }
+        return SourceBatches.partition(sources, heapBudgetBytes, heapBytesPerSourceByte);
+    }
 
-            if (matches && ancestorList != null && !ancestorList.isEmpty()) {
-                if (!matchesAncestorAny(inv, ancestorList)) {
-                    System.out.println("      reject: ancestor check failed (expected any of " + ancestorList + ")");
-                    matches = false;
-                } else {
-                    System.out.println("      ancestor check passed");
-                }
-            }
+    static CtModel buildModel(List<File> inputs) {
+        return buildModel(inputs, null);
+    }
 
-            if (matches) {
-                System.out.println("      ACCEPT -> creating finding for invocation");
-                createAndAddFindingForElement(rule, inv, findings, Map.of(
-                        "snippet", safeToStringShort(inv),
-                        "astNode", Map.of("type", "CtInvocation", "method", methodName)
-                ));
-            }
+    /**
+     * @param classpath jars to resolve library types against, or null. Missing types are
+     *                  tolerated either way: uploads rarely carry every transitive dependency.
+     */
+    static CtModel buildModel(List<File> inputs, ClasspathCache.Classpath classpath) {
+        Launcher launcher = new Launcher();
+        for (File input : inputs) {
+            launcher.addInputResource(input.getAbsolutePath());
+        }
+        launcher.getEnvironment().setNoClasspath(true); // safe when dependencies may be absent
+        if (classpath != null && !classpath.jars().isEmpty()) {
+            launcher.getEnvironment().setInputClassLoader(classpath.loader());
         }
+        launcher.buildModel();
+        return launcher.getModel();
     }
 
-    // --- helpers ---
+    // --- cache ---
 
     /**
-     * Normalize common node names coming from rules.json into canonical Spoon class names used in code.
-     * Accepts: "BinaryOperator", "CtBinaryOperator", "BinaryExpr", etc.
+     * @return the cache version of files whose findings depend on their callers: {@code version}
+     *         plus a digest of every source; null when a source cannot be read
      */
-    private String normalizeNodeName(String raw) {
-        if (raw == null) return "";
-        String r = raw.trim();
-        r = r.replaceAll("^Ct", ""); // remove leading Ct if present
-        r = r.replaceAll("Expr$", "Operator"); // e.g. BinaryExpr -> BinaryOperator
-        r = r.replaceAll("Operator$", "Operator");
-        // canonical mappings
-        switch (r.toLowerCase()) {
-            case "binaryoperator":
-            case "binaryexpr":
-            case "binary":
-            case "binop":
-                return "CtBinaryOperator";
-            case "constructorcall":
-            case "ctconstructorcall":
-            case "constructor":
-                return "CtConstructorCall";
-            case "invocation":
-            case "methodinvocation":
-            case "ctinvocation":
-                return "CtInvocation";
-            default:
-                // allow raw ct names
-                if (raw.startsWith("Ct")) return raw;
-                return raw;
+    private String projectVersion(List<File> sources, String version) {
+        try {
+            return version + "+" + AnalysisCache.digest(sources);
+        } catch (IOException e) {
+            System.err.println("⚠️ could not hash the sources: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private String cacheKey(File source, String version) {
+        try {
+            return AnalysisCache.key(source, version);
+        } catch (IOException e) {
+            System.err.println("⚠️ could not hash " + source + ": " + e.getMessage());
+            return null;
         }
     }
 
     /**
-     * Normalize operator specification: accept "+", "PLUS", "plus"
-     * Return canonical enum name used by Spoon's BinaryOperatorKind e.g. "PLUS"
+     * Cache the findings of every matched file of a batch, including the files without any.
+     * A file with a candidate that a transitive rule tested against its callers, or that a
+     * rule tested against resolved types, is stored under the project version, so a change
+     * anywhere invalidates it. Only files whose candidates were decided by syntax alone keep
+     * a key of their own content.
+     *
+     * @param matched path keys of the matched files, or null when the whole batch was matched
      */
-    private String normalizeOperator(String opRaw) {
-        if (opRaw == null) return null;
-        String o = opRaw.trim();
-        if (o.equals("+")) return "PLUS";
-        if (o.equals("-")) return "MINUS";
-        if (o.equals("*")) return "MUL";
-        if (o.equals("/")) return "DIV";
-        // if already a name like PLUS, return uppercase
-        return o.toUpperCase();
+    private void store(List<File> batch, Set<String> matched, Map<File, String> cacheKeys, String projectVersion,
+                       Set<String> projectDependent, List<Finding> findings) {
+        Map<String, List<Finding>> byFile = new HashMap<>();
+        for (Finding f : findings) {
+            byFile.computeIfAbsent(pathKey(f.getFile()), k -> new ArrayList<>()).add(f);
+        }
+        for (File source : batch) {
+            String path = pathKey(source.getPath());
+            if (matched != null && !matched.contains(path)) continue;
+            String key = cacheKeys.get(source);
+            if (key != null && projectDependent.contains(path)) {
+                key = projectVersion != null ? cacheKey(source, projectVersion) : null;
+            }
+            if (key != null) cache.put(key, byFile.getOrDefault(path, List.of()));
+        }
     }
 
     /**
-     * Matches whether the given element has any parent matching any of the names in ancestorNames.
-     * Accepts flexible ancestor names like "CtFor", "ForLoop", "CtLoop", "CtWhile", "For", "While".
+     * Restore the single-model order once findings come from several models or the cache:
+     * grouped by rule in rule order, then by file in path order.
      */
-    private boolean matchesAncestorAny(CtElement element, List<String> ancestorNames) {
-        if (ancestorNames == null || ancestorNames.isEmpty()) return true;
-        // make normalized set
-        Set<String> normalized = ancestorNames.stream().map(this::normalizeAncestorName).collect(Collectors.toSet());
+    static void sortByRuleAndFile(List<Finding> findings, List<RuleMatcher> matchers, List<File> sources) {
+        Map<String, Integer> ruleIndex = new HashMap<>();
+        for (int i = 0; i < matchers.size(); i++) ruleIndex.putIfAbsent(matchers.get(i).getRule().getId(), i);
+        Map<String, Integer> fileIndex = new HashMap<>();
+        for (int i = 0; i < sources.size(); i++) fileIndex.put(pathKey(sources.get(i).getPath()), i);
+        findings.sort(Comparator
+                .comparingInt((Finding f) -> ruleIndex.getOrDefault(f.getRuleId(), Integer.MAX_VALUE))
+                .thenComparingInt(f -> fileIndex.getOrDefault(pathKey(f.getFile()), Integer.MAX_VALUE)));
+    }
 
-        CtElement parent = element.getParent();
-        while (parent != null) {
-            String simple = parent.getClass().getSimpleName(); // e.g., CtForImpl, CtWhileImpl, CtLoopImpl
-            String normalizedParent = normalizeAncestorName(simple);
-            if (normalized.contains(normalizedParent)) return true;
+    private static String pathKey(String file) {
+        return Paths.get(file).toAbsolutePath().normalize().toString();
+    }
 
-            // also check interfaces/classes: CtLoop
-            if (normalized.contains("CtLoop") && parent.getParent(spoon.reflect.code.CtLoop.class) != null) return true;
+    // --- matching ---
 
-            parent = parent.getParent();
+    /**
+     * Build the per-candidate callback for one analysis. Accepted findings are handed to the
+     * listener right away; with tracing on, the verdict on every candidate is recorded too.
+     *
+     * @param projectDependent collects the files with candidates whose verdict depended on other files
+     */
+    private RuleScanner.Finder finderFor(AnalysisTrace trace, FindingListener listener, FindingFingerprints fingerprints,
+                                         Set<String> projectDependent) {
+        if (!trace.isEnabled()) {
+            return (matcher, element, context, findings) -> {
+                RuleMatcher.Outcome outcome = matcher.test(element, context);
+                noteProjectDependency(matcher, element, context, outcome, projectDependent);
+                if (outcome == RuleMatcher.Outcome.ACCEPT) {
+                    accept(matcher, element, context, findings, listener, fingerprints);
+                }
+            };
         }
-        return false;
+        return (matcher, element, context, findings) -> {
+            RuleMatcher.Outcome outcome = matcher.test(element, context);
+            noteProjectDependency(matcher, element, context, outcome, projectDependent);
+            int line = element.getPosition() != null && element.getPosition().isValidPosition()
+                    ? element.getPosition().getLine() : -1;
+            trace.event("candidate", Map.of("rule", matcher.getRule().getId(), "node", element.getClass().getSimpleName(),
+                    "line", line, "outcome", outcome.name(), "expr", safeToStringShort(element)));
+            if (outcome == RuleMatcher.Outcome.ACCEPT) {
+                accept(matcher, element, context, findings, listener, fingerprints);
+            }
+        };
     }
 
-    private String normalizeAncestorName(String name) {
-        if (name == null) return "";
-        String n = name.replaceAll("Impl$", ""); // CtForImpl -> CtFor
-        n = n.replaceAll("^Ct", "Ct"); // keep Ct prefix
-        // map common names:
-        switch (n.toLowerCase()) {
-            case "forloop":
-            case "ctfor":
-            case "for":
-                return "CtFor";
-            case "whileloop":
-            case "ctwhile":
-            case "while":
-                return "CtWhile";
-            case "doloop":
-            case "ctdo":
-            case "do":
-                return "CtDo";
-            case "ctloop":
-            case "loop":
-                return "CtLoop";
-            default:
-                // strip anything after Ct e.g., CtForImpl -> CtFor
-                if (n.startsWith("Ct")) return n;
-                return n;
+    private static void noteProjectDependency(RuleMatcher matcher, CtElement element, ContextIndex context,
+                                              RuleMatcher.Outcome outcome, Set<String> projectDependent) {
+        boolean viaCallers = matcher.isTransitive() && switch (outcome) {
+            case ANCESTOR, LOOP_DEPTH -> true;
+            case ACCEPT -> !matcher.matchesLocally(element, context);
+            default -> false;
+        };
+        if ((viaCallers || matcher.resolvedTypes(outcome))
+                && element.getPosition() != null && element.getPosition().getFile() != null) {
+            projectDependent.add(pathKey(element.getPosition().getFile().getPath()));
         }
     }
 
+    private void accept(RuleMatcher matcher, CtElement element, ContextIndex context, List<Finding> findings,
+                        FindingListener listener, FindingFingerprints fingerprints) {
+        createAndAddFindingForElement(matcher.getRule(), element, findings,
+                matcher.evidence(element, safeToStringShort(element), context));
+        Finding f = findings.get(findings.size() - 1);
+        fingerprints.assign(f);
+        listener.onFinding(f);
+    }
+
+    // --- helpers ---
+
     private void createAndAddFindingForElement(Rule rule, CtElement element, List<Finding> findings, Map<String, Object> evidence) {
         Finding f = new Finding();
-        f.setId("F-" + UUID.randomUUID().toString());
         f.setRuleId(rule.getId());
         f.setSeverity(rule.getSeverity());
-        f.setEnergyScore(scoreFromSeverity(rule.getSeverity()));
+        f.setEnergyScore(scoreModel.score(rule, element));
         f.setMessage(rule.getDescription());
         String file = element.getPosition() != null && element.getPosition().getFile() != null
                 ? element.getPosition().getFile().getPath()
@@ -380,29 +524,41 @@ public class StaticAnalyzer {
         int end = element.getPosition() != null ? element.getPosition().getEndLine() : start;
         f.setStartLine(start);
         f.setEndLine(end);
+        f.setEnclosingMethod(enclosingMethod(element));
         f.setSuggestion(rule.getSuggestion());
+        Map<String, Object> cost = scoreModel.explain(rule, element);
+        if (!cost.isEmpty()) {
+            evidence = new LinkedHashMap<>(evidence);
+            evidence.put("cost", cost);
+        }
         f.setEvidence(evidence);
         f.setTags(rule.getTags());
 
         findings.add(f);
     }
 
-    private Map<String, Integer> computeSummary(List<Finding> findings) {
-        int total = findings.size();
-        int high = (int) findings.stream().filter(f -> "HIGH".equalsIgnoreCase(f.getSeverity())).count();
-        int medium = (int) findings.stream().filter(f -> "MEDIUM".equalsIgnoreCase(f.getSeverity())).count();
-        int low = (int) findings.stream().filter(f -> "LOW".equalsIgnoreCase(f.getSeverity())).count();
-        return Map.of("totalFindings", total, "high", high, "medium", medium, "low", low);
+    /**
+     * @return "pkg.Type#name(params)" of the method or constructor that is or surrounds
+     *         {@code element}, the type name for field and initializer code, or null outside any type
+     */
+    private String enclosingMethod(CtElement element) {
+        CtElement owner = element instanceof CtMethod || element instanceof CtConstructor
+                ? element : element.getParent(e -> e instanceof CtMethod || e instanceof CtConstructor);
+        if (owner instanceof CtExecutable<?> executable && owner instanceof CtTypeMember member
+                && member.getDeclaringType() != null) {
+            return member.getDeclaringType().getQualifiedName() + "#" + executable.getSignature();
+        }
+        CtType<?> type = element.getParent(CtType.class);
+        return type != null ? type.getQualifiedName() : null;
     }
 
-    private double scoreFromSeverity(String severity) {
-        if (severity == null) return 0.0;
-        return switch (severity.toUpperCase()) {
-            case "HIGH" -> 8.0;
-            case "MEDIUM" -> 5.0;
-            case "LOW" -> 2.5;
-            default -> 1.0;
-        };
+    static void count(List<Finding> findings, int[] counts) {
+        for (Finding f : findings) {
+            counts[0]++;
+            if ("HIGH".equalsIgnoreCase(f.getSeverity())) counts[1]++;
+            else if ("MEDIUM".equalsIgnoreCase(f.getSeverity())) counts[2]++;
+            else if ("LOW".equalsIgnoreCase(f.getSeverity())) counts[3]++;
+        }
     }
 
     private String safeToStringShort(CtElement e) {
@@ -414,12 +570,4 @@ public class StaticAnalyzer {
             return e.getClass().getSimpleName();
         }
     }
-
-    private String safeToString(CtElement e) {
-        try {
-            return e == null ? "" : e.toString();
-        } catch (Exception ex) {
-            return e.getClass().getSimpleName();
-        }
-    }
 }
@@ -0,0 +1,53 @@
+package com.javacodegreen.backend.correlation;
+
+import com.javacodegreen.backend.dynamicanalysis.MethodEnergyTable;
+import com.javacodegreen.backend.staticanalysis.AnalysisResult;
+import com.javacodegreen.backend.staticanalysis.StaticAnalyzer;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotspotRankerTest {
+
+    @Test
+    void ranksFindingsByMeasuredEnergyOfTheirMethod() {
+        AnalysisResult result = new StaticAnalyzer()
+                .analyze(new File("src/test/resources/samples/LoopSamples.java"), "LoopSamples", "test");
+
+        MethodEnergyTable measured = new MethodEnergyTable();
+        measured.add("LoopSamples.concatInLoop", 1.0);
+        measured.add("LoopSamples.readInLoop", 4.0);
+        measured.add("LoopSamples.lambda$readInLoop$0", 1.0);
+        measured.add("LoopSamples.main", 10.0);
+
+        HotspotRanker ranker = new HotspotRanker(measured, 3);
+        result.getFindings().forEach(ranker::accept);
+        Map<String, Object> ranked = ranker.result();
+
+        @SuppressWarnings("unchecked")
+        List<HotspotRanker.Hotspot> hotspots = (List<HotspotRanker.Hotspot>) ranked.get("hotspots");
+        assertEquals(3, hotspots.size());
+        // both findings of readInLoop (the FileReader is also an allocation in a loop) come first
+        assertEquals("LoopSamples.readInLoop", hotspots.get(0).method());
+        assertEquals("LoopSamples.readInLoop", hotspots.get(1).method());
+        assertEquals(5.0, hotspots.get(0).methodEnergy(), 1e-9);
+        assertEquals(5.0 / 16, hotspots.get(0).share(), 1e-9);
+        assertEquals("STR_CONCAT_LOOP", hotspots.get(2).ruleId());
+        // allocateInLoop was not measured
+        assertEquals(3, ranked.get("matchedFindings"));
+        assertEquals(1, ranked.get("unmatchedFindings"));
+    }
+
+    @Test
+    void mapsSpoonSignaturesToJoularJxNames() {
+        assertEquals("demo.Main.work", HotspotRanker.joularJxName("demo.Main#work(int,java.lang.String)"));
+        assertEquals("demo.Main.<init>", HotspotRanker.joularJxName("demo.Main#demo.Main(int)"));
+        assertEquals("Main.<init>", HotspotRanker.joularJxName("Main#Main()"));
+        assertNull(HotspotRanker.joularJxName("demo.Main"));
+        assertEquals("demo.Main.<init>", HotspotRanker.withoutLambda("demo.Main.lambda$new$2"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.javacodegreen.backend.correlation;
+
+import com.javacodegreen.backend.dynamicanalysis.MethodEnergyTable;
+import com.javacodegreen.backend.staticanalysis.AnalysisResult;
+import com.javacodegreen.backend.staticanalysis.LoopCostScoreModel;
+import com.javacodegreen.backend.staticanalysis.RuleEngine;
+import com.javacodegreen.backend.staticanalysis.StaticAnalyzer;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreCalibratorTest {
+
+    @Test
+    void fitsMeasuredRulesAndRescalesTheRest() {
+        StaticAnalyzer analyzer = new StaticAnalyzer();
+        analyzer.setScoreModel(new LoopCostScoreModel(Map.of(), 10));
+        AnalysisResult result = analyzer.analyze(new File("src/test/resources/samples/LoopSamples.java"), "LoopSamples", "test");
+
+        MethodEnergyTable measured = new MethodEnergyTable();
+        measured.add("LoopSamples.concatInLoop", 2.0);
+        measured.add("LoopSamples.allocateInLoop", 5.0);
+
+        Map<String, Object> calibration = new ScoreCalibrator(measured, 10)
+                .calibrate(result.getFindings(), new RuleEngine().getRules());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Double> coefficients = (Map<String, Double>) calibration.get("coefficients");
+        // one finding in a loop of unknown trips per measured method: joules / 10 executions
+        assertEquals(0.2, coefficients.get("STR_CONCAT_LOOP"), 1e-9);
+        assertEquals(0.5, coefficients.get("OBJ_IN_LOOP"), 1e-9);
+        assertTrue(coefficients.get("FILE_IO_LOOP") > 0);
+        assertEquals(2, calibration.get("matchedFindings"));
+
+        LoopCostScoreModel calibrated = new LoopCostScoreModel(coefficients, 10);
+        assertNotEquals(new LoopCostScoreModel().getVersion(), calibrated.getVersion());
+    }
+}
@@ -0,0 +1,92 @@
+package com.javacodegreen.backend.diff;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javacodegreen.backend.job.AnalysisJobService;
+import com.javacodegreen.backend.staticanalysis.Finding;
+import com.javacodegreen.backend.staticanalysis.StaticAnalyzer;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommitDiffServiceTest {
+
+    @TempDir
+    Path tmp;
+
+    private final StaticAnalyzer analyzer = new StaticAnalyzer();
+    private final AnalysisJobService jobs = new AnalysisJobService(analyzer, null, null, null, 1, 1, 1, 1, 10, 50,
+            new ObjectMapper(), null, false, 20);
+
+    @AfterEach
+    void shutdown() {
+        jobs.shutdown();
+    }
+
+    @Test
+    void reportsNewFixedAndUnchangedFindingsOfChangedFiles() throws Exception {
+        Path repoDir = tmp.resolve("repo");
+        Path sample = repoDir.resolve("src/LoopSamples.java");
+        Files.createDirectories(sample.getParent());
+        String original = Files.readString(Path.of("src/test/resources/samples/LoopSamples.java"));
+
+        try (Git git = Git.init().setDirectory(repoDir.toFile()).call()) {
+            Files.writeString(sample, original);
+            Files.writeString(repoDir.resolve("src/Other.java"), "class Other { void f() { for (;;) { new Object(); } } }");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("base").setAuthor("t", "t@example.com").call();
+
+            // shift every line, drop the FileReader loop body and add a concat loop
+            String changed = "// moved\n" + original
+                    .replace("            FileReader reader = new FileReader(paths.get(i));\n            reader.close();\n", "")
+                    .replace("    public String concatOutsideLoop", """
+                                public String joinInLoop(List<String> items) {
+                                    String out = "";
+                                    for (int i = 0; i < items.size(); i++) {
+                                        out = out + items.get(i);
+                                    }
+                                    return out;
+                                }
+
+                                public String concatOutsideLoop""");
+            Files.writeString(sample, changed);
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("head").setAuthor("t", "t@example.com").call();
+        }
+
+        CommitDiffService service = new CommitDiffService(analyzer, jobs, tmp.resolve("work").toString(),
+                List.of(tmp.toString()));
+        DiffRequest request = new DiffRequest();
+        request.setRepoPath(repoDir.toString());
+        request.setBase("HEAD~1");
+        DiffResult result = service.diff(request);
+
+        assertEquals(1, result.getChangedFiles().size());
+        assertEquals(List.of("STR_CONCAT_LOOP"), ruleIds(result.getNewFindings()));
+        assertEquals(List.of("OBJ_IN_LOOP", "FILE_IO_LOOP"), ruleIds(result.getFixedFindings()));
+        assertEquals(List.of("STR_CONCAT_LOOP", "OBJ_IN_LOOP"), ruleIds(result.getUnchangedFindings()));
+        assertEquals("src/LoopSamples.java", result.getNewFindings().get(0).getFile());
+        // FILE_IO_LOOP follows calls, which the changed files alone cannot show
+        assertEquals(1, result.getNotes().size());
+    }
+
+    @Test
+    void repositoriesOutsideTheAllowedRootsAreRejected() {
+        CommitDiffService service = new CommitDiffService(analyzer, jobs, tmp.toString(),
+                List.of(tmp.resolve("allowed").toString()));
+        DiffRequest request = new DiffRequest();
+        request.setRepoPath(tmp.resolve("elsewhere").toString());
+        request.setBase("HEAD~1");
+        assertThrows(SecurityException.class, () -> service.diff(request));
+    }
+
+    private static List<String> ruleIds(List<Finding> findings) {
+        return findings.stream().map(Finding::getRuleId).toList();
+    }
+}
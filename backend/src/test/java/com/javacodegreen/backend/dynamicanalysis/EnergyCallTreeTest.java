@@ -0,0 +1,51 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnergyCallTreeTest {
+
+    @Test
+    void aggregatesInclusiveAndExclusiveEnergyPerPath() {
+        EnergyCallTree tree = new EnergyCallTree();
+        tree.add(new String[]{"Main.main", "Main.work", "Main.hash"}, 6.0);
+        tree.add(new String[]{"Main.main", "Main.work"}, 2.0);
+        tree.add(new String[]{"Main.main", "Main.io"}, 1.5);
+        tree.add(new String[]{"Main.main", "Main.work", "Main.hash"}, 0.5);
+
+        assertEquals(4, tree.nodeCount());
+        assertEquals(4, tree.frameCount());
+        assertEquals(10.0, tree.totalEnergy(), 1e-9);
+
+        List<Map<String, Object>> paths = tree.paths(10, 0);
+        assertEquals("Main.main", paths.get(0).get("path"));
+        assertEquals(10.0, (Double) paths.get(0).get("inclusive"), 1e-9);
+        assertEquals(0.0, (Double) paths.get(0).get("exclusive"), 1e-9);
+        assertEquals("Main.main;Main.work", paths.get(1).get("path"));
+        assertEquals(8.5, (Double) paths.get(1).get("inclusive"), 1e-9);
+        assertEquals(2.0, (Double) paths.get(1).get("exclusive"), 1e-9);
+        assertEquals("Main.main;Main.work;Main.hash", paths.get(2).get("path"));
+        assertEquals(3, paths.get(2).get("depth"));
+
+        // Main.io holds 15% of the energy
+        assertEquals(3, tree.paths(10, 0.2).size());
+        assertEquals(2, tree.paths(2, 0).size());
+    }
+
+    @Test
+    void writesCollapsedStacks() throws Exception {
+        JoularJxRun.CallTrees stacks = new JoularJxRun.CallTrees();
+        stacks.add(new String[]{"A.main", "A.loop"}, 0.25);
+        stacks.add(new String[]{"A.main"}, 0.0000001);
+        EnergyCallTree tree = EnergyCallTree.of(stacks);
+
+        StringWriter out = new StringWriter();
+        tree.writeCollapsed(out, 1e-3);
+        assertEquals("A.main;A.loop 250\n", out.toString());
+    }
+}
@@ -0,0 +1,98 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JoularJxResultParserTest {
+
+    @TempDir
+    Path results;
+
+    private void write(String path, String content) throws Exception {
+        Path file = results.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    @Test
+    void readsTypedTotalsAndPrefersAppScope() throws Exception {
+        write("123-456/app/total/methods/joularJX-123-456-methods-energy.csv",
+                "Main.main,2.5\nMain.work,7.5\n");
+        write("123-456/all/total/methods/joularJX-123-456-methods-energy.csv",
+                "Main.main,2.5\nMain.work,7.5\njava.lang.Thread.run,40.0\n");
+        write("123-456/app/total/calltrees/joularJX-123-456-calltrees-energy.csv",
+                "Main.main;Main.work,7.5\nMain.main,2.5\n");
+        write("123-456/app/evolution/joularJX-123-456-Main.work-evolution.csv",
+                "1000,1.0\n2000,3.0\n");
+        write("123-456/app/runtime/methods/joularJX-123-456-1000-methods-power.csv",
+                "Main.work,1.0\n");
+
+        JoularJxResultParser parser = new JoularJxResultParser(results.toString());
+        JoularJxRun run = parser.read("123-456/app", false);
+
+        assertEquals("123-456", run.getRunId());
+        assertEquals("app", run.primaryScope());
+        assertEquals(2, run.getMethods().size());
+        assertEquals(10.0, run.getMethods().total(), 1e-9);
+        assertEquals(40.0, run.getMethodsByScope().get("all").energyOf("java.lang.Thread.run"), 1e-9);
+        // names are shared between files of the same parser
+        assertSame(run.getMethodsByScope().get("all").name(1), run.getMethods().name(1));
+
+        assertEquals(2, run.getCallTrees().size());
+        assertArrayEquals(new String[]{"Main.main", "Main.work"}, run.getCallTrees().stack(0));
+
+        JoularJxRun.Evolution evolution = run.getEvolution().get(0);
+        assertEquals("Main.work", evolution.method());
+        assertArrayEquals(new long[]{1000, 2000}, evolution.timestamps());
+        assertEquals(2.0, evolution.meanPower(), 1e-9);
+
+        Map<String, Object> described = run.describe(1);
+        List<?> top = (List<?>) described.get("topMethods");
+        assertEquals(1, top.size());
+        assertEquals("Main.work", ((Map<?, ?>) top.get(0)).get("method"));
+        assertEquals(0.75, (Double) ((Map<?, ?>) top.get(0)).get("share"), 1e-9);
+        assertEquals(2, ((List<?>) described.get("methods")).size());
+        assertEquals(5, run.getFiles().size());
+        assertFalse(described.containsKey("raw"));
+    }
+
+    @Test
+    void withinSumsOnlyTheSamplesOfTheWindow() throws Exception {
+        write("1-2/app/total/methods/joularJX-1-2-methods-energy.csv", "Main.work,10.0\nMain.warm,4.0\n");
+        write("1-2/app/total/calltrees/joularJX-1-2-calltrees-energy.csv", "Main.main;Main.work,10.0\n");
+        write("1-2/app/evolution/joularJX-1-2-Main.work-evolution.csv", "100,1.0\n101,2.0\n102,3.0\n103,4.0\n");
+        write("1-2/app/evolution/joularJX-1-2-Main.warm-evolution.csv", "100,4.0\n");
+        write("1-2/all/evolution/joularJX-1-2-java.lang.Thread.run-evolution.csv", "102,50.0\n");
+
+        JoularJxRun cut = new JoularJxResultParser(results.toString()).read("1-2", false).within(101, 102);
+
+        assertEquals(5.0, cut.getMethods().total(), 1e-9);
+        assertEquals(5.0, cut.getMethods().energyOf("Main.work"), 1e-9);
+        assertEquals(1, cut.getMethods().size());
+        assertEquals(0, cut.getCallTrees().size());
+        assertEquals(5, cut.getFiles().size());
+
+        write("3-4/app/total/methods/joularJX-3-4-methods-energy.csv", "Main.work,10.0\n");
+        JoularJxRun unsampled = new JoularJxResultParser(results.toString()).read("3-4", false);
+        assertThrows(IllegalStateException.class, () -> unsampled.within(0, 1));
+    }
+
+    @Test
+    void rawCsvOnlyWhenRequested() throws Exception {
+        write("9-9/all/total/methods/energy.csv", "Method,Energy\nA.a,1.0\n");
+
+        JoularJxRun run = new JoularJxResultParser(results.toString()).read("9-9", true);
+
+        assertEquals(1.0, run.getMethods().energyOf("A.a"), 1e-9);
+        Map<?, ?> raw = (Map<?, ?>) run.describe(10).get("raw");
+        Map<?, ?> methods = (Map<?, ?>) ((Map<?, ?>) ((Map<?, ?>) raw.get("all")).get("total")).get("methods");
+        assertEquals("Method,Energy\nA.a,1.0\n", methods.get("energy"));
+    }
+}
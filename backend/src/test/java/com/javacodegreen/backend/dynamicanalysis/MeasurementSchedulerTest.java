@@ -0,0 +1,31 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeasurementSchedulerTest {
+
+    @Test
+    void keepsABoundedTailAndPicksUpTheRunId() throws Exception {
+        MeasurementScheduler scheduler = new MeasurementScheduler(1, Duration.ofSeconds(30), Duration.ZERO, 5, null);
+        MeasurementScheduler.Outcome outcome = scheduler.run(List.of("sh", "-c",
+                "echo 'results in joularjx-result/1234-5678/all/'; for i in 1 2 3 4 5 6 7 8 9 10; do echo line$i; done"), null);
+
+        assertEquals(0, outcome.exitCode());
+        assertEquals("1234-5678/all", outcome.runId());
+        assertEquals(List.of("line6", "line7", "line8", "line9", "line10"), outcome.output());
+        assertEquals(6, outcome.droppedLines());
+    }
+
+    @Test
+    void killsRunsThatExceedTheWallClockLimit() {
+        MeasurementScheduler scheduler = new MeasurementScheduler(1, Duration.ofSeconds(1), Duration.ZERO, 10, null);
+        long start = System.nanoTime();
+        assertThrows(MeasurementTimeoutException.class, () -> scheduler.run(List.of("sleep", "30"), null));
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(10).toNanos());
+    }
+}
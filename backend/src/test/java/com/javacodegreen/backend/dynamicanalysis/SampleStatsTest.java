@@ -0,0 +1,33 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SampleStatsTest {
+
+    @Test
+    void summarizesRunsAndFlagsOutliers() {
+        SampleStats stats = SampleStats.of(new double[]{10, 11, 9, 10, 30});
+
+        assertEquals(14.0, stats.mean(), 1e-9);
+        assertEquals(10.0, stats.median(), 1e-9);
+        assertEquals(Math.sqrt(80.5), stats.stddev(), 1e-9);
+        // t(4) = 2.776
+        double half = 2.776 * Math.sqrt(80.5) / Math.sqrt(5);
+        assertEquals(14.0 - half, stats.ciLow(), 1e-9);
+        assertEquals(14.0 + half, stats.ciHigh(), 1e-9);
+        assertEquals(List.of(4), stats.outliers());
+    }
+
+    @Test
+    void singleRunHasNoSpread() {
+        SampleStats stats = SampleStats.of(new double[]{3.5});
+        assertEquals(3.5, stats.mean());
+        assertEquals(0.0, stats.stddev());
+        assertEquals(stats.ciLow(), stats.ciHigh());
+        assertTrue(stats.outliers().isEmpty());
+    }
+}
@@ -0,0 +1,91 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SourceCompilerTest {
+
+    @TempDir
+    Path tmp;
+
+    private final SourceCompiler compiler = new SourceCompiler(List.of());
+
+    @Test
+    void compilesMultiFileSourcesInProcess() throws Exception {
+        Path src = Files.createDirectories(tmp.resolve("src/app"));
+        Files.writeString(src.resolve("Main.java"), "package app; public class Main { public static void main(String[] a) { Util.go(); } }");
+        Files.writeString(src.resolve("Util.java"), "package app; class Util { static void go() {} }");
+
+        CompilationResult result = compiler.compile(tmp.resolve("src"), tmp.resolve("classes"));
+
+        assertTrue(result.isSuccess(), () -> String.valueOf(result.getDiagnostics()));
+        assertEquals(2, result.getSources());
+        assertTrue(Files.exists(tmp.resolve("classes/app/Main.class")));
+        assertTrue(Files.exists(tmp.resolve("classes/app/Util.class")));
+    }
+
+    @Test
+    void reportsDiagnosticsInsteadOfThrowing() throws Exception {
+        Path src = Files.createDirectories(tmp.resolve("src"));
+        Files.writeString(src.resolve("Broken.java"), "class Broken {\n  void f() { undefined(); }\n}");
+
+        CompilationResult result = compiler.compile(src, tmp.resolve("classes"));
+
+        assertFalse(result.isSuccess());
+        assertEquals("ERROR", result.getDiagnostics().get(0).get("kind"));
+        assertEquals("Broken.java", result.getDiagnostics().get(0).get("file"));
+        assertEquals(2L, result.getDiagnostics().get(0).get("line"));
+    }
+
+    @Test
+    void uploadedJarsAreNotHeldOpenAfterCompiling() throws Exception {
+        Path lib = Files.createDirectories(tmp.resolve("lib/src/lib"));
+        Files.writeString(lib.resolve("Lib.java"), "package lib; public class Lib { public static int one() { return 1; } }");
+        assertTrue(compiler.compile(tmp.resolve("lib/src"), tmp.resolve("lib/classes")).isSuccess());
+
+        for (String upload : List.of("first", "second")) {
+            Path src = Files.createDirectories(tmp.resolve(upload + "/src/app"));
+            Files.writeString(src.resolve("Main.java"), "package app; class Main { int x = lib.Lib.one(); }");
+            Path jar = jar(tmp.resolve("lib/classes"), "lib/Lib.class", tmp.resolve(upload + "/src/lib.jar"));
+
+            CompilationResult result = compiler.compile(tmp.resolve(upload + "/src"), tmp.resolve(upload + "/classes"));
+
+            assertTrue(result.isSuccess(), () -> String.valueOf(result.getDiagnostics()));
+            assertFalse(openFiles().contains(jar.toRealPath()), upload + " jar still open");
+        }
+    }
+
+    private static Path jar(Path classes, String entry, Path jar) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new JarEntry(entry));
+            Files.copy(classes.resolve(entry), out);
+            out.closeEntry();
+        }
+        return jar;
+    }
+
+    private static List<Path> openFiles() throws IOException {
+        Path fds = Path.of("/proc/self/fd");
+        assumeTrue(Files.isDirectory(fds), "needs /proc");
+        try (Stream<Path> links = Files.list(fds)) {
+            return links.map(link -> {
+                try {
+                    return Files.readSymbolicLink(link);
+                } catch (IOException e) {
+                    return link;
+                }
+            }).toList();
+        }
+    }
+}
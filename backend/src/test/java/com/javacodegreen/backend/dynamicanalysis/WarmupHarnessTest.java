@@ -0,0 +1,36 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarmupHarnessTest {
+
+    static int calls;
+
+    public static class Program {
+        public static void main(String[] args) {
+            calls++;
+        }
+    }
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void callsMainAfterTheWarmupsAndWritesTheMeasuredWindow() throws Throwable {
+        Path window = tmp.resolve("window.txt");
+        calls = 0;
+
+        WarmupHarness.main(new String[]{window.toString(), "3", Program.class.getName()});
+
+        assertEquals(4, calls);
+        String[] parts = Files.readString(window).split(" ");
+        assertEquals(3, parts.length);
+        assertTrue(Long.parseLong(parts[0]) <= Long.parseLong(parts[1]));
+    }
+}
@@ -0,0 +1,70 @@
+package com.javacodegreen.backend.energy;
+
+import com.javacodegreen.backend.dynamicanalysis.MethodEnergyTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnergyStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static MethodEnergyTable table(double work, double io) {
+        MethodEnergyTable t = new MethodEnergyTable();
+        t.add("Main.work", work);
+        t.add("Main.io", io);
+        return t;
+    }
+
+    @Test
+    void answersTrendsAndRegressionsAcrossReopen() throws Exception {
+        try (EnergyStore store = new EnergyStore(dir)) {
+            store.append("demo", "c1", "r1", Instant.ofEpochMilli(1), table(10, 2));
+            store.append("demo", "c1", "r2", Instant.ofEpochMilli(2), table(12, 2));
+            store.append("other", "x", "r3", Instant.ofEpochMilli(3), table(1, 1));
+        }
+        try (EnergyStore store = new EnergyStore(dir)) {
+            store.append("demo", "c2", "r4", Instant.ofEpochMilli(4), table(16.5, 2.1));
+
+            assertEquals(4, store.size());
+            List<EnergyStore.Point> total = store.trend("demo", null);
+            assertEquals(List.of(12.0, 14.0, 18.6), total.stream().map(p -> Math.round(p.energy() * 10) / 10.0).toList());
+            assertEquals("c2", store.trend("demo", "Main.work").get(2).commit());
+            assertEquals(16.5, store.trend("demo", "Main.work").get(2).energy());
+
+            List<EnergyStore.Regression> regressions = store.regressions("demo", "c1", "c2", 10);
+            assertEquals(1, regressions.size());
+            assertEquals("Main.work", regressions.get(0).method());
+            assertEquals(11.0, regressions.get(0).baseMean(), 1e-9);
+            assertEquals(50.0, regressions.get(0).changePercent(), 1e-9);
+            assertEquals(2, regressions.get(0).baseRuns());
+
+            assertThrows(IllegalArgumentException.class, () -> store.regressions("demo", "c1", "nope", 10));
+            assertEquals(2, store.projects().size());
+        }
+    }
+
+    @Test
+    void dropsRowsOfAnInterruptedAppend() throws Exception {
+        try (EnergyStore store = new EnergyStore(dir)) {
+            store.append("demo", "c1", "r1", Instant.now(), table(1, 2));
+        }
+        // rows written without their run record, as if the process died mid-append
+        try (FileChannel energy = FileChannel.open(dir.resolve("energy.col"), StandardOpenOption.APPEND)) {
+            energy.write(ByteBuffer.allocate(8).putDouble(99).flip());
+        }
+        try (EnergyStore store = new EnergyStore(dir)) {
+            store.append("demo", "c1", "r2", Instant.now(), table(3, 4));
+            assertEquals(List.of(3.0, 7.0), store.trend("demo", null).stream().map(EnergyStore.Point::energy).toList());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.javacodegreen.backend.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javacodegreen.backend.staticanalysis.AnalysisOptions;
+import com.javacodegreen.backend.staticanalysis.AnalysisResult;
+import com.javacodegreen.backend.staticanalysis.Finding;
+import com.javacodegreen.backend.staticanalysis.StaticAnalyzer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisJobServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final BlockingAnalyzer analyzer = new BlockingAnalyzer();
+    private AnalysisJobService service;
+
+    @AfterEach
+    void shutdown() {
+        analyzer.release.countDown();
+        if (service != null) service.shutdown();
+    }
+
+    @Test
+    void cancelDuringStaticAnalysisDropsLaterFindings() throws Exception {
+        service = service(10);
+        AnalysisJob job = service.submit(job("job-1"));
+        assertTrue(analyzer.started.await(10, TimeUnit.SECONDS));
+
+        service.cancel("job-1");
+        assertEquals(JobStatus.CANCELLED, job.getStatus());
+        assertTrue(job.getFindingStore().isSealed());
+
+        // the analysis ignores the interrupt and keeps reporting into the sealed store
+        analyzer.release.countDown();
+        assertTrue(analyzer.done.await(10, TimeUnit.SECONDS));
+        assertNull(analyzer.error.get());
+        assertEquals(1, job.getFindingStore().size());
+        assertEquals(JobStatus.CANCELLED, job.getStatus());
+    }
+
+    @Test
+    void fullQueueRejectsAndQueuedJobsCanBeCancelled() throws Exception {
+        service = service(10);
+        AnalysisJob running = service.submit(job("job-1"));
+        assertTrue(analyzer.started.await(10, TimeUnit.SECONDS));
+        AnalysisJob queued = service.submit(job("job-2"));
+
+        // one worker busy, the one queue slot taken
+        assertThrows(JobRejectedException.class, () -> service.submit(job("job-3")));
+        assertTrue(service.get("job-3").isEmpty());
+
+        service.cancel("job-2");
+        assertEquals(JobStatus.CANCELLED, queued.getStatus());
+        assertTrue(queued.getFindingStore().isSealed());
+        // the slot is free again
+        service.cancel(service.submit(job("job-4")).getJobId());
+
+        analyzer.release.countDown();
+        running.awaitTerminal(10_000);
+        assertEquals(JobStatus.COMPLETED, running.getStatus());
+        assertEquals(1, analyzer.calls.get());
+        assertEquals(JobStatus.CANCELLED, queued.getStatus());
+    }
+
+    @Test
+    void workspacesBeyondTheRetentionLimitAreDeleted() throws Exception {
+        service = service(1);
+        analyzer.release.countDown();
+        AnalysisJob first = service.submit(job("job-1"));
+        first.awaitTerminal(10_000);
+        AnalysisJob second = service.submit(job("job-2"));
+        second.awaitTerminal(10_000);
+        assertEquals(JobStatus.COMPLETED, second.getStatus());
+
+        // retirement follows the status change on the worker thread
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (Files.exists(first.getWorkspace()) && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertTrue(service.get("job-1").isEmpty());
+        assertFalse(Files.exists(first.getWorkspace()));
+        assertTrue(service.get("job-2").isPresent());
+        assertTrue(Files.exists(second.getWorkspace()));
+    }
+
+    private AnalysisJobService service(int maxRetained) {
+        return new AnalysisJobService(analyzer, null, null, null, 1, 1, 1, 1, maxRetained, 50,
+                new ObjectMapper(), null, false, 20);
+    }
+
+    private AnalysisJob job(String id) throws IOException {
+        Path workspace = Files.createDirectories(dir.resolve(id));
+        return new AnalysisJob(id, "project", "commit", workspace, workspace.resolve("src"), null, new AnalysisOptions());
+    }
+
+    /** Reports one finding, waits for the test, ignoring interrupts as Spoon does, then reports another. */
+    private static class BlockingAnalyzer extends StaticAnalyzer {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<RuntimeException> error = new AtomicReference<>();
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public AnalysisResult analyze(File projectPath, String projectName, String commitId, AnalysisOptions options) {
+            calls.incrementAndGet();
+            try {
+                options.getFindingListener().onFinding(finding("F-1"));
+                started.countDown();
+                boolean interrupted = false;
+                while (true) {
+                    try {
+                        release.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                options.getFindingListener().onFinding(finding("F-2"));
+                if (interrupted) Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                error.set(e);
+                throw e;
+            } finally {
+                done.countDown();
+            }
+            AnalysisResult result = new AnalysisResult();
+            result.setSummary(Map.of("totalFindings", 1));
+            return result;
+        }
+
+        private static Finding finding(String id) {
+            Finding f = new Finding();
+            f.setId(id);
+            f.setRuleId("R");
+            return f;
+        }
+    }
+}
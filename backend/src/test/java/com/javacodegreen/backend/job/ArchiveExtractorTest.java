@@ -0,0 +1,102 @@
+package com.javacodegreen.backend.job;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveExtractorTest {
+
+    @TempDir
+    Path dir;
+
+    private final ArchiveExtractor extractor = new ArchiveExtractor(1024, 10);
+
+    @Test
+    void nestedRootsAreExtractedAsTheyAre() throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("project/", null);
+        entries.put("project/src/main/java/app/Main.java", "class Main {}");
+        entries.put("project/src/test/java/app/MainTest.java", "class MainTest {}");
+
+        Path fromZip = dir.resolve("zip");
+        assertEquals(2, extractor.extract(new ByteArrayInputStream(zip(entries)), "upload.ZIP", fromZip));
+        assertEquals("class Main {}", Files.readString(fromZip.resolve("project/src/main/java/app/Main.java")));
+
+        Path fromTgz = dir.resolve("tgz");
+        assertEquals(2, extractor.extract(new ByteArrayInputStream(tgz(entries)), "upload.tar.gz", fromTgz));
+        assertEquals("class MainTest {}", Files.readString(fromTgz.resolve("project/src/test/java/app/MainTest.java")));
+    }
+
+    @Test
+    void entriesEscapingTheTargetAreRejected() throws IOException {
+        Path target = dir.resolve("workspace/src");
+        for (String name : new String[]{"../evil.java", "app/../../evil.java", "/tmp/evil.java"}) {
+            byte[] archive = zip(Map.of(name, "class Evil {}"));
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> extractor.extract(new ByteArrayInputStream(archive), "upload.zip", target), name);
+            assertTrue(e.getMessage().contains("escapes"), e.getMessage());
+        }
+        assertFalse(Files.exists(dir.resolve("workspace/evil.java")));
+    }
+
+    @Test
+    void sizeAndEntryLimitsAreEnforced() {
+        byte[] large = zip(Map.of("Big.java", "x".repeat(2048)));
+        assertThrows(IllegalArgumentException.class,
+                () -> extractor.extract(new ByteArrayInputStream(large), "upload.zip", dir.resolve("large")));
+
+        Map<String, String> many = new LinkedHashMap<>();
+        for (int i = 0; i < 11; i++) many.put("F" + i + ".java", "");
+        byte[] crowded = zip(many);
+        assertThrows(IllegalArgumentException.class,
+                () -> extractor.extract(new ByteArrayInputStream(crowded), "upload.zip", dir.resolve("many")));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> extractor.extract(new ByteArrayInputStream(new byte[0]), "upload.rar", dir.resolve("rar")));
+    }
+
+    /** Entries with a null content are directories. */
+    private static byte[] zip(Map<String, String> entries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                if (entry.getValue() != null) zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] tgz(Map<String, String> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(bytes))) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                byte[] content = entry.getValue() != null ? entry.getValue().getBytes(StandardCharsets.UTF_8) : new byte[0];
+                TarArchiveEntry tarEntry = new TarArchiveEntry(entry.getKey());
+                tarEntry.setSize(content.length);
+                tar.putArchiveEntry(tarEntry);
+                tar.write(content);
+                tar.closeArchiveEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,82 @@
+package com.javacodegreen.backend.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javacodegreen.backend.staticanalysis.Finding;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FindingStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void pagesAcrossCompressedChunksWithFilters() throws Exception {
+        FindingStore store = new FindingStore(dir, new ObjectMapper());
+        int total = FindingStore.CHUNK_SIZE * 2 + 37;
+        for (int i = 0; i < total; i++) {
+            Finding f = new Finding();
+            f.setId("F-" + i);
+            f.setRuleId(i % 3 == 0 ? "A" : "B");
+            f.setSeverity(i % 3 == 0 ? "HIGH" : "LOW");
+            store.onFinding(f);
+        }
+        assertFalse(store.isSealed());
+        store.seal();
+
+        List<String> ids = new ArrayList<>();
+        Integer cursor = 0;
+        while (cursor != null) {
+            FindingStore.Page page = store.page(cursor, 128, Set.of("high"), null);
+            page.findings().forEach(f -> ids.add(f.getId()));
+            cursor = page.nextCursor();
+        }
+        assertEquals((total + 2) / 3, ids.size());
+        assertEquals("F-0", ids.get(0));
+        assertEquals("F-3", ids.get(1));
+
+        assertEquals(List.of("F-499", "F-500", "F-501"),
+                store.read(499, 3).stream().map(Finding::getId).toList());
+    }
+
+    @Test
+    void openStoreKeepsCursorAtTheEnd() throws Exception {
+        FindingStore store = new FindingStore(dir, new ObjectMapper());
+        Finding f = new Finding();
+        f.setId("F-0");
+        store.onFinding(f);
+
+        FindingStore.Page page = store.page(0, 10, null, null);
+        assertEquals(1, page.findings().size());
+        assertEquals(1, page.nextCursor());
+
+        store.seal();
+        assertNull(store.page(1, 10, null, null).nextCursor());
+    }
+
+    @Test
+    void failedWriteRejectsFurtherFindings() throws Exception {
+        // chunks cannot be written below a regular file
+        FindingStore store = new FindingStore(Files.createFile(dir.resolve("findings")), new ObjectMapper());
+        for (int i = 0; i < FindingStore.CHUNK_SIZE - 1; i++) {
+            store.onFinding(new Finding());
+        }
+        assertThrows(UncheckedIOException.class, () -> store.onFinding(new Finding()));
+        assertThrows(UncheckedIOException.class, () -> store.onFinding(new Finding()));
+        assertThrows(IOException.class, store::checkWritten);
+        assertThrows(IOException.class, () -> store.read(0, 10));
+
+        store.seal();
+        assertTrue(store.isSealed());
+    }
+}
@@ -0,0 +1,129 @@
+package com.javacodegreen.backend.rewrite;
+
+import com.javacodegreen.backend.dynamicanalysis.CompilationResult;
+import com.javacodegreen.backend.dynamicanalysis.SourceCompiler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceRewriterTest {
+
+    private static final Path SAMPLE = Paths.get("src/test/resources/rewrite");
+
+    @TempDir
+    Path tmp;
+
+    private final SourceRewriter rewriter = new SourceRewriter();
+
+    @Test
+    void appliesOnlyTheFixesThatKeepBehaviour() throws Exception {
+        RewriteResult result = rewriter.rewrite(SAMPLE, tmp.resolve("patched"), null);
+
+        // the loop reading out, the char[] appends, the loop-dependent BigDecimal, the BigDecimal
+        // that would throw, the Scanner's reader and the loop inside a try are left alone; the
+        // labelled continue makes the outer loop the one rewritten
+        assertEquals(List.of("STR_CONCAT_LOOP:app/Report.java:16", "OBJ_IN_LOOP:app/Report.java:33",
+                "FILE_IO_LOOP:app/Report.java:51", "STR_CONCAT_LOOP:app/Report.java:72", "STR_CONCAT_LOOP:app/Report.java:104"),
+                result.getFixes().stream().map(Fix::getId).toList());
+        assertEquals(List.of("app/Report.java"), result.getChangedFiles());
+
+        String patched = Files.readString(tmp.resolve("patched/app/Report.java"));
+        assertTrue(patched.contains("StringBuilder outBuilder = new StringBuilder(out)"), patched);
+        assertTrue(patched.contains("outBuilder.append(row).append(\"\\n\")"), patched);
+        assertTrue(patched.contains("out = outBuilder.toString()"), patched);
+        // out may start out null
+        assertTrue(patched.contains("new StringBuilder(String.valueOf(out))"), patched);
+        assertTrue(patched.contains("            out += word;\n"), patched);
+        assertTrue(patched.contains("            BigDecimal cap = new BigDecimal(\"n/a\");\n"), patched);
+        assertTrue(patched.contains("new java.io.BufferedReader(new FileReader(path))"), patched);
+        assertTrue(patched.contains("new Scanner(new FileReader(path))"), patched);
+        // untouched code keeps its comments and layout
+        assertTrue(patched.contains("    // joins the rows, one per line\n"), patched);
+        assertTrue(patched.contains("            out += row;\n"), patched);
+        assertTrue(patched.contains("                out += Integer.parseInt(part);\n"), patched);
+        assertTrue(patched.indexOf("StringBuilder outBuilder3") < patched.indexOf("rows:"), patched);
+
+        assertTrue(result.getDiff().startsWith("--- a/app/Report.java\n+++ b/app/Report.java\n@@ "), result.getDiff());
+        assertTrue(result.getDiff().contains("\n-            BigDecimal rate = new BigDecimal(\"1.19\");\n"), result.getDiff());
+
+        // the patched copy compiles and computes the same results
+        try (URLClassLoader original = compile(SAMPLE, "original"); URLClassLoader fixed = compile(tmp.resolve("patched"), "fixed")) {
+            List<String> rows = List.of("a", "bb", "ccc");
+            assertEquals(call(original, "render", rows), call(fixed, "render", rows));
+            List<BigDecimal> nets = List.of(new BigDecimal("10"), new BigDecimal("2.50"));
+            assertEquals(call(original, "gross", nets), call(fixed, "gross", nets));
+            assertEquals(call(original, "prefixed", rows, null), call(fixed, "prefixed", rows, null));
+            // an empty loop never runs the constructor that throws
+            assertEquals(call(original, "capped", List.of()), call(fixed, "capped", List.of()));
+            // the numbers before the one that does not parse, the digits before each '-'
+            List<String> parts = List.of("1", "2", "x", "4");
+            assertEquals("12", call(original, "parsed", parts));
+            assertEquals(call(original, "parsed", parts), call(fixed, "parsed", parts));
+            List<String> cells = List.of("01-1", "0101", "-11", "01");
+            assertEquals("01010101", call(original, "digits", cells));
+            assertEquals(call(original, "digits", cells), call(fixed, "digits", cells));
+        }
+    }
+
+    @Test
+    void selectedFixesAreAppliedAlone() throws Exception {
+        RewriteResult result = rewriter.rewrite(SAMPLE, tmp.resolve("one"), Set.of("OBJ_IN_LOOP:app/Report.java:33"));
+
+        assertEquals(5, result.getFixes().size());
+        String patched = Files.readString(tmp.resolve("one/app/Report.java"));
+        assertFalse(patched.contains("StringBuilder"));
+        assertFalse(patched.contains("BufferedReader"));
+        assertTrue(patched.indexOf("BigDecimal rate = new BigDecimal(\"1.19\")") < patched.indexOf("for (BigDecimal net : nets)"));
+
+        assertThrows(IllegalArgumentException.class, () -> rewriter.rewrite(SAMPLE, SAMPLE.resolve("out"), null));
+    }
+
+    @Test
+    void withoutAMainClassEachFixGetsItsOwnDiff() throws Exception {
+        FixService service = new FixService(new SourceCompiler(List.of()), null, 10);
+        FixReport report = service.fix(SAMPLE, tmp.resolve("work"), null, null, null);
+
+        assertEquals(5, report.getFixes().size());
+        assertNotNull(report.getSkipped());
+        assertNull(report.getBaseline());
+        for (int i = 0; i < report.getFixes().size(); i++) {
+            Fix fix = report.getFixes().get(i);
+            assertNull(fix.getSavings());
+            // one hunk per fix, where the combined diff has all of them
+            assertEquals(1, fix.getDiff().split("\n@@ ", -1).length - 1, fix.getId() + "\n" + fix.getDiff());
+            assertTrue(report.getDiff().length() > fix.getDiff().length());
+            // taken from the combined patch, yet the same as applying the fix alone
+            assertEquals(rewriter.rewrite(SAMPLE, tmp.resolve("alone-" + i), Set.of(fix.getId())).getDiff(), fix.getDiff());
+        }
+        assertTrue(Files.exists(tmp.resolve("work/patched/app/Report.java")));
+        assertFalse(Files.exists(tmp.resolve("work/fix-0")));
+    }
+
+    private URLClassLoader compile(Path sources, String name) throws Exception {
+        Path classes = tmp.resolve("classes-" + name);
+        CompilationResult compilation = new SourceCompiler(List.of()).compile(sources, classes);
+        assertTrue(compilation.isSuccess(), () -> String.valueOf(compilation.getDiagnostics()));
+        return new URLClassLoader(new URL[]{classes.toUri().toURL()}, null);
+    }
+
+    private static Object call(ClassLoader loader, String method, List<?> argument) throws Exception {
+        Method m = loader.loadClass("app.Report").getMethod(method, List.class);
+        return String.valueOf(m.invoke(null, argument));
+    }
+
+    private static Object call(ClassLoader loader, String method, List<?> argument, String second) throws Exception {
+        Method m = loader.loadClass("app.Report").getMethod(method, List.class, String.class);
+        return String.valueOf(m.invoke(null, argument, second));
+    }
+}
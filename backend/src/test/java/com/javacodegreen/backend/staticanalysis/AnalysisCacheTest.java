@@ -0,0 +1,114 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisCacheTest {
+
+    private static final Path SAMPLE = Path.of("src/test/resources/samples/LoopSamples.java");
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void unchangedFilesAreServedFromTheCache() throws Exception {
+        Path src = Files.createDirectories(tmp.resolve("src"));
+        Files.copy(SAMPLE, src.resolve("LoopSamples.java"));
+        Files.writeString(src.resolve("Clean.java"), "class Clean { int x() { return 1; } }");
+
+        StaticAnalyzer analyzer = new StaticAnalyzer();
+        analyzer.setCache(new AnalysisCache(tmp.resolve("cache"), 1024 * 1024));
+
+        AnalysisResult first = analyzer.analyze(src.toFile(), "p", "c1");
+        assertEquals(0, first.getCachedFiles());
+        AnalysisResult second = analyzer.analyze(src.toFile(), "p", "c2");
+        assertEquals(2, second.getCachedFiles());
+        assertEquals(ruleIds(first), ruleIds(second));
+        assertEquals(first.getFindings().get(0).getFile(), second.getFindings().get(0).getFile());
+        assertEquals(first.getSummary(), second.getSummary());
+
+        // editing one file re-analyzes it; Clean has nothing a rule would resolve types for,
+        // so its entry does not depend on the other file
+        Files.writeString(src.resolve("LoopSamples.java"), Files.readString(SAMPLE) + "\n// edited\n");
+        AnalysisResult third = analyzer.analyze(src.toFile(), "p", "c3");
+        assertEquals(1, third.getCachedFiles());
+        assertEquals(ruleIds(first), ruleIds(third));
+    }
+
+    @Test
+    void findingsThatDependOnTypesAreInvalidatedByTheDeclaringFile() throws Exception {
+        Path src = Files.createDirectories(tmp.resolve("src"));
+        Files.writeString(src.resolve("Item.java"), "class Item { int label() { return 1; } }");
+        Files.writeString(src.resolve("Main.java"), """
+                import java.util.List;
+                class Main {
+                    String labels(List<Item> items) {
+                        String out = "";
+                        for (int i = 0; i < items.size(); i++) {
+                            out = items.get(i).label() + items.get(i).label();
+                        }
+                        return out;
+                    }
+                }
+                """);
+        StaticAnalyzer analyzer = new StaticAnalyzer();
+        analyzer.setCache(new AnalysisCache(tmp.resolve("cache"), 1024 * 1024));
+
+        assertEquals(List.of(), ruleIds(analyzer.analyze(src.toFile(), "p", "c1")));
+
+        // Main is unchanged, but its + is now a String concatenation
+        Files.writeString(src.resolve("Item.java"), "class Item { String label() { return \"item\"; } }");
+        AnalysisResult edited = analyzer.analyze(src.toFile(), "p", "c2");
+        assertEquals(0, edited.getCachedFiles());
+        assertEquals(List.of("STR_CONCAT_LOOP"), ruleIds(edited));
+        assertEquals(List.of("STR_CONCAT_LOOP"), ruleIds(new StaticAnalyzer().analyze(src.toFile(), "p", "c3")));
+    }
+
+    @Test
+    void findingsThatDependOnCallersAreInvalidatedByTheCaller() throws Exception {
+        Path src = Files.createDirectories(tmp.resolve("src"));
+        for (String name : List.of("Importer.java", "LineCounter.java")) {
+            Files.copy(Path.of("src/test/resources/callgraph", name), src.resolve(name));
+        }
+        StaticAnalyzer analyzer = new StaticAnalyzer();
+        analyzer.setCache(new AnalysisCache(tmp.resolve("cache"), 1024 * 1024));
+
+        assertEquals(List.of("FILE_IO_LOOP"), ruleIds(analyzer.analyze(src.toFile(), "p", "c1")));
+        AnalysisResult again = analyzer.analyze(src.toFile(), "p", "c2");
+        assertEquals(2, again.getCachedFiles());
+        assertEquals(List.of("FILE_IO_LOOP"), ruleIds(again));
+
+        // without the loop in the caller the helper's FileReader is no longer a finding
+        Path importer = src.resolve("Importer.java");
+        Files.writeString(importer, Files.readString(importer)
+                .replace("for (int i = 0; i < paths.size(); i++) {", "{ int i = 0;"));
+        AnalysisResult edited = analyzer.analyze(src.toFile(), "p", "c3");
+        assertEquals(0, edited.getCachedFiles());
+        assertEquals(List.of(), ruleIds(edited));
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvictedBeyondTheBound() {
+        AnalysisCache cache = new AnalysisCache(tmp, Long.MAX_VALUE);
+        cache.put("a", List.of());
+        cache.put("b", List.of());
+        long entryBytes = cache.getTotalBytes() / 2;
+
+        AnalysisCache bounded = new AnalysisCache(tmp, entryBytes * 2);
+        assertNotNull(bounded.get("a")); // b is now the least recently used
+        bounded.put("c", List.of());
+        assertEquals(2, bounded.size());
+        assertNull(bounded.get("b"));
+        assertNotNull(bounded.get("a"));
+    }
+
+    private static List<String> ruleIds(AnalysisResult result) {
+        return result.getFindings().stream().map(Finding::getRuleId).toList();
+    }
+}
@@ -0,0 +1,97 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoxingTest {
+
+    private static final File SAMPLE = new File("src/test/resources/boxing/Counters.java");
+
+    @Test
+    void boxingInLoopsIsReported(@TempDir Path dir) throws IOException {
+        StaticAnalyzer analyzer = new StaticAnalyzer();
+        analyzer.setClasspathCache(new ClasspathCache(dir, 1));
+        AnalysisOptions options = new AnalysisOptions();
+        options.setClasspath(List.of());
+        AnalysisResult result = analyzer.analyze(SAMPLE, "Counters", "test", options);
+
+        List<String> found = result.getFindings().stream()
+                .filter(f -> f.getRuleId().startsWith("AUTOBOXING") || f.getRuleId().startsWith("BOXED"))
+                .map(f -> f.getRuleId() + "@" + f.getStartLine())
+                .sorted()
+                .toList();
+        // put and getOrDefault box both key and value; the primitive accumulator, the List<String>
+        // and the return outside a loop are not reported
+        assertEquals(List.of("AUTOBOXING_LOOP@11", "AUTOBOXING_LOOP@19", "AUTOBOXING_LOOP@19", "AUTOBOXING_LOOP@19",
+                "AUTOBOXING_LOOP@19", "AUTOBOXING_LOOP@27",
+                "BOXED_COLLECTION_LOOP@19", "BOXED_COLLECTION_LOOP@19", "BOXED_COLLECTION_LOOP@27"), found);
+    }
+
+    @Test
+    void boxingRulesNeedAClasspath() {
+        AnalysisResult result = new StaticAnalyzer().analyze(SAMPLE, "Counters", "test");
+        assertTrue(result.getFindings().stream().noneMatch(f -> f.getRuleId().contains("BOX")));
+    }
+
+    @Test
+    void sameJarsShareOneLoader(@TempDir Path dir) throws IOException {
+        Path a = jar(dir.resolve("a.jar"), "a/A.class");
+        Path copy = Files.copy(a, dir.resolve("copy-of-a.jar"));
+        Path b = jar(dir.resolve("b.jar"), "b/B.class");
+        ClasspathCache cache = new ClasspathCache(dir.resolve("cache"), 1);
+
+        ClasspathCache.Classpath first = cache.acquire(List.of(a, dir.resolve("missing.jar")));
+        ClasspathCache.Classpath second = cache.acquire(List.of(copy));
+        assertEquals(first.key(), second.key());
+        assertSame(first.loader(), second.loader());
+        assertEquals(first.jars(), second.jars());
+
+        ClasspathCache.Classpath other = cache.acquire(List.of(a, b));
+        assertNotEquals(first.key(), other.key());
+        assertEquals(1, cache.size());
+        // evicted, but held twice
+        assertTrue(cache.isOpen(first));
+        cache.release(first);
+        assertTrue(cache.isOpen(first));
+        cache.release(second);
+        assertFalse(cache.isOpen(first));
+        assertThrows(IllegalStateException.class, () -> cache.release(first));
+        cache.release(other);
+        assertTrue(cache.isOpen(other));
+        try (var stored = Files.list(dir.resolve("cache").resolve("jars"))) {
+            assertEquals(2, stored.count());
+        }
+    }
+
+    @Test
+    void analysisWithClasspathUsesItsOwnCacheVersion(@TempDir Path dir) throws IOException {
+        StaticAnalyzer analyzer = new StaticAnalyzer();
+        AnalysisOptions options = new AnalysisOptions();
+        options.setClasspath(List.of(jar(dir.resolve("lib.jar"), "lib/Lib.class")));
+        assertThrows(IllegalStateException.class, () -> analyzer.analyze(SAMPLE, "Counters", "test", options));
+
+        analyzer.setClasspathCache(new ClasspathCache(dir.resolve("cache"), 2));
+        AnalysisResult result = analyzer.analyze(SAMPLE, "Counters", "test", options);
+        assertEquals(9, result.getFindings().stream().filter(f -> f.getRuleId().contains("BOX")).count());
+    }
+
+    private static Path jar(Path path, String entry) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path); JarOutputStream jar = new JarOutputStream(out)) {
+            jar.putNextEntry(new ZipEntry(entry));
+            jar.write(entry.getBytes());
+            jar.closeEntry();
+        }
+        return path;
+    }
+}
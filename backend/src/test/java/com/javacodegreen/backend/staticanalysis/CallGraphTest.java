@@ -0,0 +1,56 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import org.junit.jupiter.api.Test;
+import spoon.Launcher;
+import spoon.reflect.declaration.CtClass;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallGraphTest {
+
+    @Test
+    void loopDepthAddsUpAlongChainsAndRecursionTerminates() {
+        CtClass<?> type = Launcher.parseClass("""
+                class Jobs {
+                    void outer(int n) { while (n-- > 0) middle(n); }
+                    void middle(int n) { for (int i = 0; i < n; i++) leaf(); }
+                    void leaf() {}
+                    void recurse(int n) { for (int i = 0; i < n; i++) recurse(i); }
+                    void root() { leaf(); }
+                }
+                """);
+        CallGraph calls = CallGraph.build(List.of(type));
+
+        CallGraph.Reach leaf = calls.reach(type.getMethodsByName("leaf").get(0));
+        assertEquals(2, leaf.loopDepth());
+        assertNotEquals(0, leaf.mask() & ContextKind.WHILE.bit());
+        assertEquals(List.of("Jobs#outer(int)", "Jobs#middle(int)"),
+                leaf.chain().stream().map(CallGraph.Call::caller).toList());
+
+        assertTrue(calls.reach(type.getMethodsByName("recurse").get(0)).loopDepth() > 1);
+        assertNull(calls.reach(type.getMethodsByName("outer").get(0)));
+        assertNull(calls.reach(type.getMethodsByName("root").get(0)));
+    }
+
+    @Test
+    void transitiveRuleFindsIoInHelperCalledFromLoop() {
+        AnalysisResult result = new StaticAnalyzer().analyze(new File("src/test/resources/callgraph"), "callgraph", "test");
+
+        List<Finding> io = result.getFindings().stream().filter(f -> f.getRuleId().equals("FILE_IO_LOOP")).toList();
+        assertEquals(1, io.size());
+        Finding finding = io.get(0);
+        assertEquals("LineCounter#count(java.lang.String)", finding.getEnclosingMethod());
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> chain = (List<Map<String, Object>>) finding.getEvidence().get("callChain");
+        assertEquals(2, chain.size());
+        assertEquals("Importer#importAll(java.util.List)", chain.get(0).get("caller"));
+        assertEquals(1, chain.get(0).get("loopDepth"));
+        assertEquals("LineCounter#count(java.lang.String)", chain.get(1).get("callee"));
+        assertEquals(1, finding.getEvidence().get("reachLoopDepth"));
+    }
+}
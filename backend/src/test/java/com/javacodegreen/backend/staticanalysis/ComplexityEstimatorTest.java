@@ -0,0 +1,43 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComplexityEstimatorTest {
+
+    private static final File SAMPLE = new File("src/test/resources/complexity/Nesting.java");
+
+    @Test
+    void nestedIterationOverInputsIsReportedWithItsVariables() {
+        AnalysisResult result = new StaticAnalyzer().analyze(SAMPLE, "Nesting", "test");
+
+        Map<String, Finding> byMethod = result.getFindings().stream()
+                .filter(f -> f.getRuleId().equals("NESTED_ITERATION"))
+                .collect(Collectors.toMap(f -> f.getEnclosingMethod().substring(f.getEnclosingMethod().indexOf('#') + 1),
+                        f -> f));
+        // matrix cells, per-order lines, constant inner bounds, halving loops and set lookups stay linear
+        assertEquals(Set.of("duplicates(java.util.List)", "duplicatesFromTheEnd(java.util.List)", "join(java.util.List,int[])",
+                "searchInLoop(java.util.List,java.util.List)", "triple(int)"), byMethod.keySet());
+
+        assertEquals(Map.of("bigO", "O(n^2)", "degree", 2, "variables", List.of("names", "names"),
+                "sameCollection", true, "hotspotLine", 13), complexity(byMethod.get("duplicates(java.util.List)")));
+        assertEquals(Map.of("bigO", "O(n^2)", "degree", 2, "variables", List.of("names", "names"),
+                "sameCollection", true, "hotspotLine", 95), complexity(byMethod.get("duplicatesFromTheEnd(java.util.List)")));
+        assertEquals(List.of("orders", "items"), complexity(byMethod.get("join(java.util.List,int[])")).get("variables"));
+        assertEquals(List.of("rows", "wanted"), complexity(byMethod.get("searchInLoop(java.util.List,java.util.List)")).get("variables"));
+        assertEquals("O(n^3)", complexity(byMethod.get("triple(int)")).get("bigO"));
+        assertEquals(List.of("n", "n", "n"), complexity(byMethod.get("triple(int)")).get("variables"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> complexity(Finding finding) {
+        return (Map<String, Object>) finding.getEvidence().get("complexity");
+    }
+}
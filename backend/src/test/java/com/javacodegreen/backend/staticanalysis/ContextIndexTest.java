@@ -0,0 +1,46 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import org.junit.jupiter.api.Test;
+import spoon.Launcher;
+import spoon.reflect.code.CtConstructorCall;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContextIndexTest {
+
+    @Test
+    void recordsEnclosingKindsAndLoopDepth() {
+        CtClass<?> type = Launcher.parseClass("""
+                class Nested {
+                    void m(int n) {
+                        Object a = new Object();
+                        for (int i = 0; i < n; i++) {
+                            while (n > 0) {
+                                Object b = new Object();
+                                n--;
+                            }
+                        }
+                    }
+                }
+                """);
+        ContextIndex index = ContextIndex.build(type);
+        List<CtConstructorCall<?>> calls = type.getElements(new TypeFilter<>(CtConstructorCall.class));
+
+        CtConstructorCall<?> outside = calls.get(0);
+        assertEquals(0, index.loopDepth(outside));
+        assertEquals(0, index.enclosingMask(outside) & ContextKind.LOOP_MASK);
+        assertNotEquals(0, index.enclosingMask(outside) & ContextKind.METHOD.bit());
+
+        CtConstructorCall<?> inside = calls.get(1);
+        assertEquals(2, index.loopDepth(inside));
+        int mask = index.enclosingMask(inside);
+        assertNotEquals(0, mask & ContextKind.FOR.bit());
+        assertNotEquals(0, mask & ContextKind.WHILE.bit());
+        assertNotEquals(0, mask & ContextKind.LOOP.bit());
+        assertEquals(0, mask & ContextKind.DO.bit());
+    }
+}
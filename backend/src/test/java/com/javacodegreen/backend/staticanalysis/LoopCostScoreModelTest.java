@@ -0,0 +1,63 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import org.junit.jupiter.api.Test;
+import spoon.Launcher;
+import spoon.reflect.code.CtConstructorCall;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoopCostScoreModelTest {
+
+    private static final CtClass<?> LOOPS = Launcher.parseClass("""
+            class Loops {
+                static final int SIZE = 50;
+                void counted() {
+                    for (int i = 0; i < SIZE * 2; i += 4) { new Object(); }
+                }
+                void nested(int n) {
+                    for (int i = 10; i >= 1; i--) {
+                        for (int j = 0; j < n; j++) { new Object(); }
+                    }
+                }
+                void straight() { new Object(); }
+            }
+            """);
+
+    private static CtConstructorCall<?> allocationIn(String method) {
+        return LOOPS.getMethodsByName(method).get(0).getElements(new TypeFilter<>(CtConstructorCall.class)).get(0);
+    }
+
+    private static Rule rule(String id, String severity) {
+        Rule rule = new Rule();
+        rule.setId(id);
+        rule.setSeverity(severity);
+        return rule;
+    }
+
+    @Test
+    void countsConstantBoundsAndAssumesUnknownTripsOtherwise() {
+        LoopCostScoreModel model = new LoopCostScoreModel(Map.of(), 7);
+
+        assertEquals(25, model.executions(allocationIn("counted")));
+        assertEquals(10 * 7, model.executions(allocationIn("nested")));
+        assertEquals(1, model.executions(allocationIn("straight")));
+
+        Map<String, Object> cost = model.explain(rule("OBJ_IN_LOOP", "MEDIUM"), allocationIn("nested"));
+        assertEquals(2, cost.get("loopDepth"));
+        assertEquals(70.0, cost.get("estimatedExecutions"));
+    }
+
+    @Test
+    void scoresWithCalibratedCoefficientsOrFallsBackToSeverity() {
+        LoopCostScoreModel model = new LoopCostScoreModel(Map.of("OBJ_IN_LOOP", 0.5), 7);
+
+        assertEquals(0.5 * 25, model.score(rule("OBJ_IN_LOOP", "MEDIUM"), allocationIn("counted")), 1e-9);
+        assertEquals(8.0, model.score(rule("OTHER", "HIGH"), allocationIn("straight")), 1e-9);
+        assertNotEquals(model.getVersion(), new LoopCostScoreModel(Map.of("OBJ_IN_LOOP", 0.6), 7).getVersion());
+        assertThrows(IllegalArgumentException.class, () -> new LoopCostScoreModel(Map.of(), 0));
+    }
+}
@@ -0,0 +1,56 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import org.junit.jupiter.api.Test;
+import spoon.reflect.CtModel;
+import spoon.reflect.declaration.CtElement;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelRuleMatcherTest {
+
+    private static final File RESOURCES = new File("src/test/resources");
+
+    @Test
+    void findingsAreMergedInRuleThenFileOrderWhateverTheParallelism() {
+        List<File> sources = new ArrayList<>();
+        for (String dir : List.of("samples", "rulepack", "complexity", "callgraph")) {
+            sources.addAll(SourceBatches.sourcesOf(new File(RESOURCES, dir)));
+        }
+        CtModel model = StaticAnalyzer.buildModel(sources);
+        List<ParallelRuleMatcher.Unit> units = ParallelRuleMatcher.unitsOf(model.getAllTypes());
+        List<RuleMatcher> matchers = new RuleEngine().getMatchers();
+        CallGraph calls = CallGraph.build(model.getAllTypes());
+
+        List<Finding> sequential = new ParallelRuleMatcher(1).match(units, matchers, ParallelRuleMatcherTest::find, calls).findings();
+        List<Finding> parallel = new ParallelRuleMatcher(4).match(units, matchers, ParallelRuleMatcherTest::find, calls).findings();
+
+        assertEquals(keys(sequential), keys(parallel));
+        assertTrue(sequential.stream().map(Finding::getFile).distinct().count() > 1);
+        List<String> ruleOrder = matchers.stream().map(m -> m.getRule().getId()).toList();
+        for (int i = 1; i < parallel.size(); i++) {
+            Finding previous = parallel.get(i - 1);
+            Finding current = parallel.get(i);
+            int byRule = Integer.compare(ruleOrder.indexOf(previous.getRuleId()), ruleOrder.indexOf(current.getRuleId()));
+            assertTrue(byRule < 0 || byRule == 0 && previous.getFile().compareTo(current.getFile()) <= 0,
+                    previous.getRuleId() + "@" + previous.getFile() + " before " + current.getRuleId() + "@" + current.getFile());
+        }
+    }
+
+    private static void find(RuleMatcher matcher, CtElement element, ContextIndex context,
+                             List<Finding> findings) {
+        if (matcher.test(element, context) != RuleMatcher.Outcome.ACCEPT) return;
+        Finding f = new Finding();
+        f.setRuleId(matcher.getRule().getId());
+        f.setFile(element.getPosition().getFile().getPath());
+        f.setStartLine(element.getPosition().getLine());
+        findings.add(f);
+    }
+
+    private static List<String> keys(List<Finding> findings) {
+        return findings.stream().map(f -> f.getRuleId() + "@" + f.getFile() + ":" + f.getStartLine()).toList();
+    }
+}
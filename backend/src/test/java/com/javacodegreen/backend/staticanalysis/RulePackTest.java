@@ -0,0 +1,40 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RulePackTest {
+
+    private static final File SAMPLE = new File("src/test/resources/rulepack/ApiInLoops.java");
+
+    @Test
+    void apiRulesMatchOnReceiverAndDeclaringType() {
+        AnalysisResult result = new StaticAnalyzer().analyze(SAMPLE, "ApiInLoops", "test");
+
+        List<String> found = result.getFindings().stream()
+                .filter(f -> !f.getRuleId().equals("OBJ_IN_LOOP"))
+                .map(f -> f.getRuleId() + "@" + f.getStartLine())
+                .sorted()
+                .toList();
+        // Set.contains, the contains outside a loop and replaceAll outside a loop are not reported;
+        // a List search in a loop is also quadratic
+        assertEquals(List.of("LINKED_LIST_GET_LOOP@41", "LIST_SEARCH_LOOP@13", "LIST_SEARCH_LOOP@21", "NESTED_ITERATION@10", "NESTED_ITERATION@18",
+                "REGEX_COMPILE_LOOP@57", "STRING_FORMAT_LOOP@49", "STRING_REGEX_LOOP@58"), found);
+    }
+
+    @Test
+    void invocationConstraintsNeedAnInvocationNode() {
+        Rule rule = new Rule();
+        rule.setId("BAD");
+        rule.setMatch(Map.of("node", "CtConstructorCall", "receiverType", "java.util.List"));
+        assertThrows(IllegalArgumentException.class, () -> RuleMatcher.compile(rule));
+
+        rule.setMatch(Map.of("node", "CtInvocation", "name", "get", "argCount", "two"));
+        assertThrows(IllegalArgumentException.class, () -> RuleMatcher.compile(rule));
+    }
+}
@@ -0,0 +1,84 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourcePrefilterTest {
+
+    @TempDir
+    Path dir;
+
+    private final SourcePrefilter prefilter = SourcePrefilter.compile(new RuleEngine().getMatchers());
+
+    @Test
+    void filesWithoutLoopsOrOnlyCommentedLoopsAreRejected() {
+        assertTrue(prefilter.isSelective());
+        assertFalse(prefilter.mayMatch("class A { int f(int x) { return x + 1; } }"));
+        assertFalse(prefilter.mayMatch("""
+                class A {
+                    // for (int i = 0; i < n; i++) s = s + i;
+                    /* while (true) { new Object(); } */
+                    String s = "for (;;) { new Object(); }";
+                    String t = \"""
+                        while (x) new Object();
+                        \""";
+                    char c = '"';
+                }
+                """));
+    }
+
+    @Test
+    void filesWithARuleShapedConstructAreKept() {
+        assertTrue(prefilter.mayMatch("class A { void f() { for (;;) { new Object(); } } }"));
+        assertTrue(prefilter.mayMatch("class A { String f(String s) { while (true) s = s + \"x\"; } }"));
+        assertTrue(prefilter.mayMatch(new File("src/test/resources/samples/LoopSamples.java")));
+        // a loop without allocation or '+' cannot match any of the bundled rules
+        assertFalse(prefilter.mayMatch("class A { void f(int[] a) { for (int x : a) { g(x); } } }"));
+    }
+
+    @Test
+    void unconstrainedRulesLetEverythingThrough() {
+        Rule rule = new Rule();
+        rule.setId("ANY_EXPR");
+        rule.setMatch(Map.of("node", "CtExpression"));
+        SourcePrefilter open = SourcePrefilter.compile(List.of(RuleMatcher.compile(rule)));
+        assertFalse(open.isSelective());
+        assertTrue(open.mayMatch("class A {}"));
+    }
+
+    @Test
+    void rejectedFilesStillDeclareTheirTypes() throws Exception {
+        // Item cannot match anything, but the concatenation in Main is only a String one through it
+        Files.writeString(dir.resolve("Item.java"), "class Item { String label() { return \"item\"; } }");
+        Files.writeString(dir.resolve("Main.java"), """
+                import java.util.List;
+                class Main {
+                    String labels(List<Item> items) {
+                        String out = "";
+                        for (int i = 0; i < items.size(); i++) {
+                            out = items.get(i).label() + items.get(i).label();
+                        }
+                        return out;
+                    }
+                }
+                """);
+        assertFalse(prefilter.mayMatch(dir.resolve("Item.java").toFile()));
+
+        for (boolean enabled : new boolean[]{false, true}) {
+            StaticAnalyzer analyzer = new StaticAnalyzer();
+            analyzer.setPrefilter(enabled);
+            List<String> found = analyzer.analyze(dir.toFile(), "p", "c").getFindings().stream()
+                    .map(f -> f.getRuleId() + "@" + new File(f.getFile()).getName() + ":" + f.getStartLine())
+                    .toList();
+            assertEquals(List.of("STR_CONCAT_LOOP@Main.java:6"), found, "prefilter " + enabled);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaticAnalyzerTest {
+
+    private static final File SAMPLE = new File("src/test/resources/samples/LoopSamples.java");
+
+    @Test
+    void findsLoopRulesInSample() {
+        AnalysisResult result = new StaticAnalyzer().analyze(SAMPLE, "LoopSamples", "test");
+
+        Map<String, Long> byRule = result.getFindings().stream()
+                .collect(Collectors.groupingBy(Finding::getRuleId, Collectors.counting()));
+
+        assertEquals(1L, byRule.get("STR_CONCAT_LOOP"));
+        assertEquals(2L, byRule.get("OBJ_IN_LOOP"));
+        assertEquals(1L, byRule.get("FILE_IO_LOOP"));
+        assertEquals(4, result.getSummary().get("totalFindings"));
+    }
+
+    @Test
+    void findingsAreGroupedInRuleOrder() {
+        AnalysisResult result = new StaticAnalyzer().analyze(SAMPLE, "LoopSamples", "test");
+
+        List<String> ruleIds = result.getFindings().stream().map(Finding::getRuleId).toList();
+        assertEquals(List.of("STR_CONCAT_LOOP", "OBJ_IN_LOOP", "OBJ_IN_LOOP", "FILE_IO_LOOP"), ruleIds);
+    }
+
+    @Test
+    void traceIsOnlyRecordedWhenRequested() {
+        StaticAnalyzer analyzer = new StaticAnalyzer();
+        assertNull(analyzer.analyze(SAMPLE, "LoopSamples", "test").getTrace());
+
+        AnalysisOptions options = new AnalysisOptions();
+        options.setTrace(true);
+        AnalysisResult traced = analyzer.analyze(SAMPLE, "LoopSamples", "test", options);
+        assertTrue(traced.getTrace().stream().anyMatch(e -> "candidate".equals(e.get("event"))));
+        assertEquals(4, traced.getFindings().size());
+    }
+
+    @Test
+    void chunkedModeSpillsFindingsToListenerAndKeepsTheSummary() {
+        StaticAnalyzer analyzer = new StaticAnalyzer();
+        analyzer.setChunking(1, 1); // every file in its own batch
+
+        List<Finding> spilled = new ArrayList<>();
+        AnalysisOptions options = new AnalysisOptions();
+        options.setChunked(true);
+        options.setFindingListener(spilled::add);
+        AnalysisResult result = analyzer.analyze(SAMPLE.getParentFile(), "samples", "test", options);
+
+        assertNull(result.getFindings());
+        assertEquals(SourceBatches.sourcesOf(SAMPLE.getParentFile()).size(), result.getBatches());
+        assertEquals(result.getSummary().get("totalFindings"), spilled.size());
+        assertEquals(4, spilled.stream().filter(f -> f.getFile().endsWith("LoopSamples.java")).count());
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Counters {
+
+    public long boxedCounter(int[] data) {
+        Long total = 0L;
+        for (int d : data) {
+            total += d;
+        }
+        return total;
+    }
+
+    public Map<Integer, Long> histogram(int[] data) {
+        Map<Integer, Long> counts = new HashMap<>();
+        for (int d : data) {
+            counts.put(d, counts.getOrDefault(d, 0L) + 1);
+        }
+        return counts;
+    }
+
+    public List<Integer> squares(int n) {
+        List<Integer> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            out.add(i * i);
+        }
+        return out;
+    }
+
+    public long primitive(int[] data) {
+        long total = 0;
+        for (int d : data) {
+            total += d;
+        }
+        return total;
+    }
+
+    public List<String> names(List<String> in) {
+        List<String> out = new ArrayList<>();
+        for (String s : in) {
+            out.add(s.trim());
+        }
+        return out;
+    }
+
+    public Integer once(int n) {
+        return n * 2;
+    }
+}
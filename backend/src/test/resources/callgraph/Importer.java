@@ -0,0 +1,23 @@
+import java.io.IOException;
+import java.util.List;
+
+public class Importer {
+
+    private final LineCounter counter = new LineCounter();
+
+    public int importAll(List<String> paths) throws IOException {
+        int total = 0;
+        for (int i = 0; i < paths.size(); i++) {
+            total += load(paths.get(i));
+        }
+        return total;
+    }
+
+    private int load(String path) throws IOException {
+        return counter.count(path);
+    }
+
+    public int importOne(String path) throws IOException {
+        return counter.count(path);
+    }
+}
@@ -0,0 +1,18 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+public class LineCounter {
+
+    public int count(String path) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            int lines = 0;
+            while (reader.readLine() != null) lines++;
+            return lines;
+        }
+    }
+
+    public void unused(String path) throws IOException {
+        new FileReader(path).close();
+    }
+}
@@ -0,0 +1,109 @@
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class Nesting {
+
+    private static final int SIZE = 16;
+
+    public int duplicates(List<String> names) {
+        int dups = 0;
+        for (int i = 0; i < names.size(); i++) {
+            for (int j = i + 1; j < names.size(); j++) {
+                if (names.get(i).equals(names.get(j))) dups++;
+            }
+        }
+        return dups;
+    }
+
+    public int join(List<Integer> orders, int[] items) {
+        int hits = 0;
+        for (Integer order : orders) {
+            for (int item : items) {
+                if (order == item) hits++;
+            }
+        }
+        return hits;
+    }
+
+    public int searchInLoop(List<String> wanted, List<String> rows) {
+        int hits = 0;
+        Iterator<String> it = rows.iterator();
+        while (it.hasNext()) {
+            if (wanted.indexOf(it.next()) >= 0) hits++;
+        }
+        return hits;
+    }
+
+    public int triple(int n) {
+        int acc = 0;
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < a; b++) {
+                for (int c = 0; c < b; c++) acc++;
+            }
+        }
+        return acc;
+    }
+
+    public long cells(int[][] matrix) {
+        long sum = 0;
+        for (int[] row : matrix) {
+            for (int cell : row) sum += cell;
+        }
+        return sum;
+    }
+
+    public int items(Map<String, List<String>> ordersById) {
+        int count = 0;
+        for (List<String> lines : ordersById.values()) {
+            for (int i = 0; i < lines.size(); i++) count += lines.get(i).length();
+        }
+        return count;
+    }
+
+    public int fixed(List<String> rows) {
+        int acc = 0;
+        for (String row : rows) {
+            for (int k = 0; k < SIZE; k++) acc += row.charAt(k % row.length());
+        }
+        return acc;
+    }
+
+    public int binarySearch(int[] sorted, int key) {
+        int lo = 0;
+        int hi = sorted.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) lo = mid + 1;
+            else if (sorted[mid] > key) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    public boolean setLookup(Set<String> wanted, List<String> rows) {
+        for (String row : rows) {
+            if (wanted.contains(row)) return true;
+        }
+        return false;
+    }
+
+    public int duplicatesFromTheEnd(List<String> names) {
+        int dups = 0;
+        for (int i = names.size() - 1; i >= 0; i--) {
+            for (int j = i - 1; j >= 0; j--) {
+                if (names.get(i).equals(names.get(j))) dups++;
+            }
+        }
+        return dups;
+    }
+
+    public int fixedFromTheEnd(List<String> rows) {
+        int acc = 0;
+        for (String row : rows) {
+            for (int k = SIZE - 1; k >= 0; k--) acc += row.charAt(k % row.length());
+        }
+        return acc;
+    }
+}
@@ -0,0 +1,109 @@
+package app;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Scanner;
+
+public class Report {
+
+    // joins the rows, one per line
+    public static String render(List<String> rows) {
+        String out = "";
+        for (String row : rows) {
+            out = out + row + "\n"; // the newline is kept
+        }
+        return out;
+    }
+
+    public static String truncated(List<String> rows) {
+        String out = "";
+        for (String row : rows) {
+            if (out.length() > 8) break;
+            out += row;
+        }
+        return out;
+    }
+
+    public static BigDecimal gross(List<BigDecimal> nets) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal net : nets) {
+            BigDecimal rate = new BigDecimal("1.19");
+            sum = sum.add(net.multiply(rate));
+        }
+        return sum;
+    }
+
+    public static BigDecimal ramp(int n) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int i = 0; i < n; i++) {
+            BigDecimal step = new BigDecimal(i);
+            sum = sum.add(step);
+        }
+        return sum;
+    }
+
+    public static int count(List<String> paths) throws IOException {
+        int chars = 0;
+        for (String path : paths) {
+            try (Reader in = new FileReader(path)) {
+                while (in.read() >= 0) chars++;
+            }
+            try (Scanner scanner = new Scanner(new FileReader(path))) {
+                chars += scanner.hasNext() ? 1 : 0;
+            }
+        }
+        return chars;
+    }
+
+    public static String letters(List<char[]> words) {
+        String out = "";
+        for (char[] word : words) {
+            out += word;
+        }
+        return out;
+    }
+
+    public static String prefixed(List<String> rows, String first) {
+        String out = first;
+        for (String row : rows) {
+            out += row;
+        }
+        return out;
+    }
+
+    public static BigDecimal capped(List<BigDecimal> values) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal value : values) {
+            BigDecimal cap = new BigDecimal("n/a");
+            sum = sum.add(value.min(cap));
+        }
+        return sum;
+    }
+
+    public static String parsed(List<String> parts) {
+        String out = "";
+        try {
+            for (String part : parts) {
+                out += Integer.parseInt(part);
+            }
+        } catch (NumberFormatException e) {
+            // keeps the numbers parsed so far
+        }
+        return out;
+    }
+
+    public static String digits(List<String> rows) {
+        String out = "";
+        rows:
+        for (String row : rows) {
+            for (int i = 0; i < row.length(); i++) {
+                if (row.charAt(i) == '-') continue rows;
+                out += row.charAt(i);
+            }
+        }
+        return out;
+    }
+}
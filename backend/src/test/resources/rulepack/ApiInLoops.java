@@ -0,0 +1,71 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public class ApiInLoops {
+
+    public int searchList(List<String> wanted, String[] items) {
+        int hits = 0;
+        for (String item : items) {
+            if (wanted.contains(item)) hits++;
+        }
+        return hits;
+    }
+
+    public int searchArrayList(ArrayList<String> wanted, String[] items) {
+        int hits = 0;
+        for (int i = 0; i < items.length; i++) {
+            hits += wanted.indexOf(items[i]);
+        }
+        return hits;
+    }
+
+    public int searchSet(Set<String> wanted, String[] items) {
+        int hits = 0;
+        for (String item : items) {
+            if (wanted.contains(item)) hits++;
+        }
+        return hits;
+    }
+
+    public boolean searchOnce(List<String> wanted, String item) {
+        return wanted.contains(item);
+    }
+
+    public long walkLinkedList(LinkedList<Long> values) {
+        long sum = 0;
+        for (int i = 0; i < values.size(); i++) {
+            sum += values.get(i);
+        }
+        return sum;
+    }
+
+    public String formatRows(List<String> rows) {
+        StringBuilder out = new StringBuilder();
+        for (String row : rows) {
+            out.append(String.format("%s;", row));
+        }
+        return out.toString();
+    }
+
+    public int countDigits(List<String> rows) {
+        int n = 0;
+        for (String row : rows) {
+            if (Pattern.compile("\\d+").matcher(row).find()) n++;
+            if (row.matches("[a-z]+")) n++;
+        }
+        return n;
+    }
+
+    public String trim(Set<String> seen, String row) {
+        seen.add(row);
+        return row.replaceAll("\\s+", " ");
+    }
+
+    public Set<String> copy(List<String> rows) {
+        return new HashSet<>(rows);
+    }
+}
@@ -0,0 +1,36 @@
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LoopSamples {
+
+    public String concatInLoop(List<String> items) {
+        String out = "";
+        for (int i = 0; i < items.size(); i++) {
+            out = out + items.get(i);
+        }
+        return out;
+    }
+
+    public String concatOutsideLoop(String a, String b) {
+        return a + b;
+    }
+
+    public List<Object> allocateInLoop(int n) {
+        List<Object> objs = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            objs.add(new Object());
+        }
+        return objs;
+    }
+
+    public void readInLoop(List<String> paths) throws IOException {
+        int i = 0;
+        while (i < paths.size()) {
+            FileReader reader = new FileReader(paths.get(i));
+            reader.close();
+            i++;
+        }
+    }
+}
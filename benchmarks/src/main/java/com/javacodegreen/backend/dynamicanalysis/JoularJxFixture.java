@@ -0,0 +1,73 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import com.javacodegreen.benchmarks.CorpusGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Writes a result folder laid out the way JoularJX 2/3 writes one, for a program with
+ * {@code methods} methods named after the generated corpus: total and runtime method files
+ * for the app and all scopes, call trees of depth 2 to 8, and one evolution file per
+ * {@code evolutionEvery}-th method.
+ */
+final class JoularJxFixture {
+
+    static final String RUN_ID = "4242-1700000000000";
+
+    private JoularJxFixture() {}
+
+    static void write(Path resultDir, int methods, int callTrees, int evolutionEvery, long seed) throws IOException {
+        Random random = new Random(seed);
+        Path run = resultDir.resolve(RUN_ID);
+        String prefix = "joularJX-" + RUN_ID + "-";
+        String[] names = new String[methods];
+        for (int i = 0; i < methods; i++) {
+            int type = i / CorpusGenerator.METHODS_PER_CLASS;
+            names[i] = CorpusGenerator.packageOf(type) + "." + CorpusGenerator.classOf(type)
+                    + ".m" + i % CorpusGenerator.METHODS_PER_CLASS;
+        }
+
+        for (String scope : new String[]{"app", "all"}) {
+            try (BufferedWriter out = writer(run.resolve(scope + "/total/methods/" + prefix + "methods-energy.csv"))) {
+                for (String name : names) out.write(name + "," + joules(random) + "\n");
+                if (scope.equals("all")) {
+                    for (int i = 0; i < methods / 4; i++) out.write("java.util.jdk.Method" + i + ".run," + joules(random) + "\n");
+                }
+            }
+            try (BufferedWriter out = writer(run.resolve(scope + "/total/calltrees/" + prefix + "calltrees-energy.csv"))) {
+                for (int t = 0; t < callTrees; t++) {
+                    int depth = 2 + random.nextInt(7);
+                    StringBuilder stack = new StringBuilder("gen.Main.main");
+                    for (int d = 1; d < depth; d++) stack.append(';').append(names[random.nextInt(methods)]);
+                    out.write(stack + "," + joules(random) + "\n");
+                }
+            }
+            for (int snapshot = 0; snapshot < 10; snapshot++) {
+                long timestamp = 1_700_000_000_000L + snapshot * 1000L;
+                Path file = run.resolve(scope + "/runtime/methods/" + prefix + timestamp + "-methods-power.csv");
+                try (BufferedWriter out = writer(file)) {
+                    for (int i = 0; i < methods; i += 10) out.write(names[i] + "," + joules(random) + "\n");
+                }
+            }
+            for (int i = 0; i < methods; i += evolutionEvery) {
+                try (BufferedWriter out = writer(run.resolve(scope + "/evolution/" + prefix + names[i] + "-evolution.csv"))) {
+                    for (int s = 0; s < 100; s++) out.write((1_700_000_000_000L + s * 10L) + "," + joules(random) + "\n");
+                }
+            }
+        }
+    }
+
+    private static String joules(Random random) {
+        return String.format(Locale.ROOT, "%.4f", random.nextDouble() * 5);
+    }
+
+    private static BufferedWriter writer(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.newBufferedWriter(file);
+    }
+}
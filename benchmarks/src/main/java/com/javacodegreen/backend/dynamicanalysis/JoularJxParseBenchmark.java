@@ -0,0 +1,64 @@
+package com.javacodegreen.backend.dynamicanalysis;
+
+import com.javacodegreen.benchmarks.CorpusGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JoularJxResultParser#read} of one result folder with a fresh parser, as one
+ * measured run does, with and without keeping the raw CSV text.
+ *
+ * The fixture is generated in JoularJX's layout; pass {@code -Djoularjx.fixture=<result dir>}
+ * and {@code -Djoularjx.run=<run id>} (through {@code -jvmArgsAppend}) to parse a recorded one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JoularJxParseBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Results {
+        @Param({"1000", "10000"})
+        public int methods;
+
+        Path dir;
+        String runId;
+        boolean generated;
+
+        @Setup(Level.Trial)
+        public void prepare() throws IOException {
+            String recorded = System.getProperty("joularjx.fixture");
+            if (recorded != null) {
+                dir = Path.of(recorded);
+                runId = System.getProperty("joularjx.run");
+                if (runId == null) throw new IllegalArgumentException("-Djoularjx.run is required with -Djoularjx.fixture");
+                return;
+            }
+            dir = Files.createTempDirectory("jcg-joularjx-");
+            JoularJxFixture.write(dir, methods, methods * 2, 50, 42);
+            runId = JoularJxFixture.RUN_ID;
+            generated = true;
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            if (generated) CorpusGenerator.deleteRecursively(dir);
+        }
+    }
+
+    @Benchmark
+    public JoularJxRun parse(Results results) throws IOException {
+        return new JoularJxResultParser(results.dir.toString()).read(results.runId, false);
+    }
+
+    @Benchmark
+    public JoularJxRun parseWithRaw(Results results) throws IOException {
+        return new JoularJxResultParser(results.dir.toString()).read(results.runId, true);
+    }
+}
@@ -0,0 +1,60 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import spoon.reflect.declaration.CtElement;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The structures the ancestor checks rely on: building the per-unit {@link ContextIndex}es
+ * and the {@link CallGraph}, and answering the ancestor and loop-depth questions of the
+ * bundled rules for every constructor call, locally and through callers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class ContextBenchmark {
+
+    private static final int LOOP_ANCESTORS = ContextKind.FOR.bit() | ContextKind.WHILE.bit();
+
+    @Benchmark
+    public void contextIndexBuild(ParsedCorpus parsed, Blackhole bh) {
+        for (ParallelRuleMatcher.Unit unit : parsed.units) {
+            bh.consume(ContextIndex.build(unit.types(), parsed.calls));
+        }
+    }
+
+    @Benchmark
+    public CallGraph callGraphBuild(ParsedCorpus parsed) {
+        return CallGraph.build(parsed.model.getAllTypes());
+    }
+
+    @Benchmark
+    public int ancestorChecks(ParsedCorpus parsed) {
+        int inLoop = 0;
+        List<CtElement> calls = parsed.constructorCalls;
+        for (int i = 0; i < calls.size(); i++) {
+            ContextIndex context = parsed.contexts[parsed.constructorUnits[i]];
+            if ((context.enclosingMask(calls.get(i)) & LOOP_ANCESTORS) != 0 && context.loopDepth(calls.get(i)) > 0) {
+                inLoop++;
+            }
+        }
+        return inLoop;
+    }
+
+    @Benchmark
+    public int transitiveAncestorChecks(ParsedCorpus parsed) {
+        int reached = 0;
+        List<CtElement> calls = parsed.constructorCalls;
+        for (int i = 0; i < calls.size(); i++) {
+            ContextIndex context = parsed.contexts[parsed.constructorUnits[i]];
+            CallGraph.Reach reach = context.reach(calls.get(i));
+            if (reach != null && (reach.mask() & LOOP_ANCESTORS) != 0) reached++;
+        }
+        return reached;
+    }
+}
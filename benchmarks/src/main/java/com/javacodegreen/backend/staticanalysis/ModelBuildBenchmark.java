@@ -0,0 +1,40 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import com.javacodegreen.benchmarks.Corpus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import spoon.reflect.CtModel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spoon model build alone, and the whole {@link StaticAnalyzer#analyze} pipeline on top of it
+ * (prefilter, call graph, matching, summary; no cache).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class ModelBuildBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Analyzer {
+        StaticAnalyzer analyzer;
+
+        @Setup(Level.Trial)
+        public void create() {
+            analyzer = new StaticAnalyzer(new SimpleMeterRegistry(), 1);
+        }
+    }
+
+    @Benchmark
+    public CtModel modelBuild(Corpus corpus) {
+        return StaticAnalyzer.buildModel(corpus.sources);
+    }
+
+    @Benchmark
+    public AnalysisResult analyze(Corpus corpus, Analyzer analyzer) {
+        return analyzer.analyzer.analyze(corpus.dir.toFile(), "bench", "head");
+    }
+}
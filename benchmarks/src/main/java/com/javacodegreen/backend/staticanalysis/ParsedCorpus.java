@@ -0,0 +1,47 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import com.javacodegreen.benchmarks.Corpus;
+import org.openjdk.jmh.annotations.*;
+import spoon.reflect.CtModel;
+import spoon.reflect.code.CtConstructorCall;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The corpus as a Spoon model, with the per-unit context indexes, the call graph and every
+ * constructor call, built once per trial for the benchmarks that start after model build.
+ */
+@State(Scope.Benchmark)
+public class ParsedCorpus {
+
+    CtModel model;
+    List<ParallelRuleMatcher.Unit> units;
+    ContextIndex[] contexts;
+    CallGraph calls;
+    List<CtElement> constructorCalls;
+    // the constructor call's index within contexts, parallel to constructorCalls
+    int[] constructorUnits;
+
+    @Setup(Level.Trial)
+    public void parse(Corpus corpus) {
+        model = StaticAnalyzer.buildModel(corpus.sources);
+        units = ParallelRuleMatcher.unitsOf(model.getAllTypes());
+        calls = CallGraph.build(model.getAllTypes());
+        contexts = new ContextIndex[units.size()];
+        constructorCalls = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        for (int u = 0; u < units.size(); u++) {
+            contexts[u] = ContextIndex.build(units.get(u).types(), calls);
+            for (var type : units.get(u).types()) {
+                for (CtConstructorCall<?> call : type.getElements(new TypeFilter<>(CtConstructorCall.class))) {
+                    constructorCalls.add(call);
+                    owners.add(u);
+                }
+            }
+        }
+        constructorUnits = owners.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
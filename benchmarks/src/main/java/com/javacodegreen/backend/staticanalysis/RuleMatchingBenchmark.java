@@ -0,0 +1,53 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One bundled rule at a time over a prebuilt model: the single visitor pass, the rule's
+ * checks and, for transitive rules, the call graph lookups. Accepted elements are counted
+ * rather than turned into findings, so this is the matcher's cost only.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class RuleMatchingBenchmark {
+
+    private static final Finding ACCEPTED = new Finding();
+
+    @State(Scope.Benchmark)
+    public static class SingleRule {
+        @Param({"STR_CONCAT_LOOP", "OBJ_IN_LOOP", "FILE_IO_LOOP", "NESTED_ITERATION"})
+        public String ruleId;
+
+        RuleMatcher matcher;
+
+        @Setup(Level.Trial)
+        public void compile() {
+            matcher = new RuleEngine().getMatchers().stream()
+                    .filter(m -> m.getRule().getId().equals(ruleId))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("no bundled rule " + ruleId));
+        }
+    }
+
+    @Benchmark
+    public int matchRule(ParsedCorpus parsed, SingleRule rule) {
+        RuleScanner.Finder finder = (matcher, element, context, findings) -> {
+            if (matcher.test(element, context) == RuleMatcher.Outcome.ACCEPT) findings.add(ACCEPTED);
+        };
+        int accepted = 0;
+        List<ParallelRuleMatcher.Unit> units = parsed.units;
+        for (int u = 0; u < units.size(); u++) {
+            RuleScanner scanner = new RuleScanner(finder, parsed.contexts[u]);
+            scanner.register(rule.matcher);
+            units.get(u).types().forEach(scanner::scan);
+            accepted += scanner.findings(0).size();
+        }
+        return accepted;
+    }
+}
@@ -0,0 +1,49 @@
+package com.javacodegreen.backend.staticanalysis;
+
+import com.javacodegreen.benchmarks.Corpus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The summary phase of a multi-batch or cached analysis: restoring rule-then-file order and
+ * counting severities, over the corpus's findings in shuffled order.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class SummaryBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Findings {
+        List<Finding> shuffled;
+        List<RuleMatcher> matchers;
+        List<File> sources;
+
+        @Setup(Level.Trial)
+        public void analyze(Corpus corpus) {
+            StaticAnalyzer analyzer = new StaticAnalyzer(new SimpleMeterRegistry(), 1);
+            shuffled = new ArrayList<>(analyzer.analyze(corpus.dir.toFile(), "bench", "head").getFindings());
+            Collections.shuffle(shuffled, new Random(42));
+            matchers = new RuleEngine().getMatchers();
+            sources = corpus.sources;
+        }
+    }
+
+    @Benchmark
+    public int[] summarize(Findings findings) {
+        List<Finding> copy = new ArrayList<>(findings.shuffled);
+        StaticAnalyzer.sortByRuleAndFile(copy, findings.matchers, findings.sources);
+        int[] counts = new int[4];
+        StaticAnalyzer.count(copy, counts);
+        return counts;
+    }
+}
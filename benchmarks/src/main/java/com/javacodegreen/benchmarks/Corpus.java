@@ -0,0 +1,36 @@
+package com.javacodegreen.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A generated corpus on disk, shared by all threads of a trial.
+ */
+@State(Scope.Benchmark)
+public class Corpus {
+
+    @Param({"100", "1000", "10000"})
+    public int files;
+
+    @Param({"0.25"})
+    public double loopDensity;
+
+    public Path dir;
+    public List<File> sources;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        dir = Files.createTempDirectory("jcg-corpus-");
+        sources = new CorpusGenerator(files, loopDensity, 42).writeTo(dir);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        CorpusGenerator.deleteRecursively(dir);
+    }
+}
@@ -0,0 +1,145 @@
+package com.javacodegreen.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Writes a synthetic Java project for the analysis benchmarks: {@code files} classes of
+ * {@link #METHODS_PER_CLASS} static methods each, a {@code loopDensity} share of which wrap
+ * their statements in a loop (a fifth of those in two nested loops). Statements mix string
+ * concatenation, allocation, arithmetic, calls into other classes and, rarely, file I/O, so
+ * every bundled rule and the call graph have work to do. The same seed gives the same corpus.
+ */
+public final class CorpusGenerator {
+
+    public static final int METHODS_PER_CLASS = 6;
+    public static final int CLASSES_PER_PACKAGE = 100;
+
+    private final int files;
+    private final double loopDensity;
+    private final long seed;
+
+    public CorpusGenerator(int files, double loopDensity, long seed) {
+        if (files < 1 || loopDensity < 0 || loopDensity > 1) {
+            throw new IllegalArgumentException("need files >= 1 and 0 <= loopDensity <= 1");
+        }
+        this.files = files;
+        this.loopDensity = loopDensity;
+        this.seed = seed;
+    }
+
+    /**
+     * @return the written sources, in path order
+     */
+    public List<File> writeTo(Path dir) throws IOException {
+        Random random = new Random(seed);
+        List<File> sources = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            Path file = dir.resolve(packageOf(i).replace('.', '/')).resolve(classOf(i) + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source(i, random));
+            sources.add(file.toFile());
+        }
+        sources.sort(Comparator.comparing(File::getPath));
+        return sources;
+    }
+
+    public static String packageOf(int index) {
+        return "gen.p" + index / CLASSES_PER_PACKAGE;
+    }
+
+    public static String classOf(int index) {
+        return "C" + index;
+    }
+
+    private String source(int index, Random random) {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("package ").append(packageOf(index)).append(";\n\n")
+                .append("import java.io.FileReader;\n")
+                .append("import java.io.IOException;\n")
+                .append("import java.util.ArrayList;\n")
+                .append("import java.util.List;\n\n")
+                .append("public class ").append(classOf(index)).append(" {\n");
+        for (int m = 0; m < METHODS_PER_CLASS; m++) {
+            method(out, m, random);
+        }
+        return out.append("}\n").toString();
+    }
+
+    private void method(StringBuilder out, int m, Random random) {
+        out.append("\n    public static int m").append(m).append("(List<String> items, int n) throws IOException {\n")
+                .append("        int acc = 0;\n")
+                .append("        int i = 0;\n")
+                .append("        String s = \"\";\n")
+                .append("        List<Object> objs = new ArrayList<>();\n");
+        String indent = "        ";
+        int closing = 0;
+        if (random.nextDouble() < loopDensity) {
+            if (random.nextBoolean()) {
+                out.append(indent).append("for (i = 0; i < n; i++) {\n");
+            } else {
+                out.append(indent).append("while (i < n) {\n");
+                out.append(indent).append("    i++;\n");
+            }
+            indent += "    ";
+            closing++;
+            if (random.nextInt(5) == 0) {
+                out.append(indent).append("for (int k = 0; k < 4; k++) {\n");
+                indent += "    ";
+                closing++;
+            }
+        }
+        int statements = 2 + random.nextInt(3);
+        for (int st = 0; st < statements; st++) {
+            out.append(indent).append(statement(random)).append('\n');
+        }
+        for (; closing > 0; closing--) {
+            indent = indent.substring(4);
+            out.append(indent).append("}\n");
+        }
+        out.append("        return acc + s.length() + objs.size();\n")
+                .append("    }\n");
+    }
+
+    private String statement(Random random) {
+        int kind = random.nextInt(20);
+        if (kind == 0) return "new FileReader(items.get(0)).close();";
+        if (kind < 6) return "s = s + items.get(i % items.size());";
+        if (kind < 11) return "objs.add(new Object());";
+        if (kind < 15) return "acc += i * 3 + n;";
+        int target = random.nextInt(files);
+        return "acc += " + packageOf(target) + "." + classOf(target) + ".m" + random.nextInt(METHODS_PER_CLASS)
+                + "(items, n - 1);";
+    }
+
+    public static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path p : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    /**
+     * {@code CorpusGenerator <dir> <files> [loopDensity=0.25] [seed=42]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: CorpusGenerator <dir> <files> [loopDensity] [seed]");
+            System.exit(2);
+        }
+        double density = args.length > 2 ? Double.parseDouble(args[2]) : 0.25;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        List<File> written = new CorpusGenerator(Integer.parseInt(args[1]), density, seed).writeTo(Paths.get(args[0]));
+        System.out.println("Wrote " + written.size() + " files to " + args[0]);
+    }
+}